@@ -2,10 +2,13 @@ package com.tacs.attendancechecker.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+// @Scheduled jobs are housekeeping (e.g. pruning sync tombstones)
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
 }
@@ -0,0 +1,81 @@
+package com.tacs.attendancechecker.config;
+
+import org.hibernate.boot.model.naming.Identifier;
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.schema.spi.SchemaFilter;
+import org.hibernate.tool.schema.spi.SchemaFilterProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Once attendance is partitioned (db/migration/008) its schema belongs to the
+// migrations. Hibernate can't see the indexes and foreign keys of a partitioned
+// table, so ddl-auto=update would try to add them again on every startup.
+@Component
+public class PartitionedSchemaFilter implements HibernatePropertiesCustomizer {
+
+    private static final String ATTENDANCE = "attendance";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        Boolean partitioned = new JdbcTemplate(dataSource).queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))",
+                Boolean.class, ATTENDANCE);
+        if (Boolean.TRUE.equals(partitioned)) {
+            hibernateProperties.put(AvailableSettings.HBM2DDL_FILTER_PROVIDER, new Provider());
+        }
+    }
+
+    private static class Provider implements SchemaFilterProvider {
+        @Override
+        public SchemaFilter getCreateFilter() {
+            return SchemaFilter.ALL;
+        }
+
+        @Override
+        public SchemaFilter getDropFilter() {
+            return SchemaFilter.ALL;
+        }
+
+        @Override
+        public SchemaFilter getTruncatorFilter() {
+            return SchemaFilter.ALL;
+        }
+
+        @Override
+        public SchemaFilter getMigrateFilter() {
+            return new SchemaFilter() {
+                @Override
+                public boolean includeNamespace(Namespace namespace) {
+                    return true;
+                }
+
+                @Override
+                public boolean includeTable(Table table) {
+                    Identifier name = table.getNameIdentifier();
+                    return name == null || !ATTENDANCE.equalsIgnoreCase(name.getText());
+                }
+
+                @Override
+                public boolean includeSequence(Sequence sequence) {
+                    return true;
+                }
+            };
+        }
+
+        @Override
+        public SchemaFilter getValidateFilter() {
+            return SchemaFilter.ALL;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.tacs.attendancechecker.config;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import jakarta.persistence.SharedCacheMode;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Hibernate second-level and query cache for the read-mostly reference
+// entities (those marked @Cacheable), kept in bounded in-process Guava caches.
+// Writes through Hibernate update or invalidate the cached entries and the
+// cached queries over the written tables; the TTL bounds staleness from
+// changes made outside the application.
+@Component
+public class SecondLevelCacheConfig implements HibernatePropertiesCustomizer {
+
+    @Value("${attendance.entity-cache.enabled:true}")
+    private boolean enabled;
+
+    // Per entity region
+    @Value("${attendance.entity-cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${attendance.entity-cache.query-max-entries:2000}")
+    private long queryMaxEntries;
+
+    @Value("${attendance.entity-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private final GuavaRegionFactory regionFactory = new GuavaRegionFactory();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        if (!enabled) {
+            return;
+        }
+        hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+        hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+        hibernateProperties.put(AvailableSettings.JAKARTA_SHARED_CACHE_MODE, SharedCacheMode.ENABLE_SELECTIVE);
+        hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, regionFactory);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Hits, misses, entries and size/TTL evictions per region since startup
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        regionFactory.regions.forEach((name, region) -> {
+            CacheStats stats = region.cache.stats();
+            Map<String, Object> regionStatistics = new LinkedHashMap<>();
+            regionStatistics.put("hits", stats.hitCount());
+            regionStatistics.put("misses", stats.missCount());
+            regionStatistics.put("hitRate", Math.round(stats.hitRate() * 1000) / 1000.0);
+            regionStatistics.put("entries", region.cache.size());
+            regionStatistics.put("evictions", stats.evictionCount());
+            statistics.put(name, regionStatistics);
+        });
+        return statistics;
+    }
+
+    private class GuavaRegionFactory extends RegionFactoryTemplate {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Map<String, Region> regions = new ConcurrentSkipListMap<>();
+
+        @Override
+        protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        }
+
+        @Override
+        protected void releaseFromUse() {
+            regions.values().forEach(Region::release);
+            regions.clear();
+        }
+
+        @Override
+        protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                DomainDataRegionBuildingContext buildingContext) {
+            return register(regionConfig.getRegionName(), maxEntries, true);
+        }
+
+        @Override
+        protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                SessionFactoryImplementor sessionFactory) {
+            return register(regionName, queryMaxEntries, true);
+        }
+
+        // Never evicted: a dropped timestamp would let stale query results be served
+        @Override
+        protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                SessionFactoryImplementor sessionFactory) {
+            return register(regionName, 0, false);
+        }
+
+        private Region register(String name, long maximumSize, boolean expire) {
+            CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+            if (maximumSize > 0) {
+                builder.maximumSize(maximumSize);
+            }
+            if (expire) {
+                builder.expireAfterWrite(Duration.ofMinutes(ttlMinutes));
+            }
+            Region region = new Region(builder.build());
+            regions.put(name, region);
+            return region;
+        }
+    }
+
+    private static class Region implements DomainDataStorageAccess {
+
+        private final Cache<Object, Object> cache;
+
+        Region(Cache<Object, Object> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return cache.getIfPresent(key);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            cache.put(key, value);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return cache.asMap().containsKey(key);
+        }
+
+        @Override
+        public void evictData() {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            cache.invalidate(key);
+        }
+
+        @Override
+        public void release() {
+            cache.invalidateAll();
+        }
+    }
+}
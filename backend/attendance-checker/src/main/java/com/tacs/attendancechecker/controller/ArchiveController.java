@@ -0,0 +1,60 @@
+package com.tacs.attendancechecker.controller;
+
+import com.tacs.attendancechecker.dto.ArchiveRequest;
+import com.tacs.attendancechecker.dto.ArchiveResponse;
+import com.tacs.attendancechecker.service.AttendanceArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/archives")
+@CrossOrigin
+public class ArchiveController {
+
+    @Autowired
+    private AttendanceArchiveService archiveService;
+
+    /**
+     * Archive a closed semester: its marks, sessions and enrollments are moved
+     * to compressed files and deleted from the database. Course and student
+     * reports still include them. Administrators only
+     *
+     * @param request The semester, as on its offered courses
+     * @return The archived semester (201)
+     */
+    @PostMapping
+    public ResponseEntity<?> archiveSemester(@RequestBody ArchiveRequest request, Authentication auth) {
+        try {
+            ArchiveResponse archive = archiveService.archive(auth.getName(), request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(archive);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (AccessDeniedException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to archive semester: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    /**
+     * List archived semesters, oldest first
+     */
+    @GetMapping
+    public ResponseEntity<List<ArchiveResponse>> getArchives() {
+        return ResponseEntity.ok(archiveService.listArchives());
+    }
+}
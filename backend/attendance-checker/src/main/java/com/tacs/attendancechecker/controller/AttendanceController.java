@@ -2,9 +2,15 @@ package com.tacs.attendancechecker.controller;
 
 import com.tacs.attendancechecker.dto.*;
 import com.tacs.attendancechecker.service.AttendanceService;
+import com.tacs.attendancechecker.service.SessionCheckInService;
+import com.tacs.attendancechecker.service.SessionClosedException;
+import com.tacs.attendancechecker.service.VersionConflictException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -20,6 +26,9 @@ public class AttendanceController {
     @Autowired
     private AttendanceService attendanceService;
 
+    @Autowired
+    private SessionCheckInService sessionCheckInService;
+
     // Get all courses for a teacher
     @GetMapping("/teacher/{teacherId}/courses")
     public ResponseEntity<List<CourseResponse>> getTeacherCourses(@PathVariable String teacherId) {
@@ -48,6 +57,31 @@ public class AttendanceController {
         try {
             AttendanceResponse response = attendanceService.markAttendance(request);
             return ResponseEntity.ok(response);
+        } catch (VersionConflictException e) {
+            // Send back the current row so the client can merge and retry
+            Map<String, Object> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            error.put("current", e.getCurrent());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error marking attendance: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    // Mark attendance for a whole session roster in one request
+    @PostMapping("/session/{sessionId}/bulk")
+    public ResponseEntity<?> markSessionAttendance(
+            @PathVariable Integer sessionId,
+            @RequestBody BulkAttendanceRequest request) {
+        try {
+            BulkAttendanceResponse response = attendanceService.markSessionAttendance(sessionId, request);
+            return ResponseEntity.ok(response);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Attendance is being changed by someone else, please reload and try again");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Error marking attendance: " + e.getMessage());
@@ -55,6 +89,31 @@ public class AttendanceController {
         }
     }
 
+    // Self check-in of the signed-in student with the code shown by the teacher
+    @PostMapping("/checkin")
+    public ResponseEntity<?> checkIn(@RequestBody CheckInRequest request, Authentication auth) {
+        try {
+            AttendanceResponse response = sessionCheckInService.checkIn(request, auth.getName());
+            return ResponseEntity.ok(response);
+        } catch (AccessDeniedException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        } catch (SessionClosedException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error checking in: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
     // Get attendance for a course on a specific date
     @GetMapping("/course/{courseId}/date/{date}")
     public ResponseEntity<List<AttendanceResponse>> getAttendanceByDate(
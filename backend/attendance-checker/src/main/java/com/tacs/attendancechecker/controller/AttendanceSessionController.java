@@ -1,15 +1,25 @@
 package com.tacs.attendancechecker.controller;
 
+import com.tacs.attendancechecker.dto.CheckInCodeResponse;
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.entity.AttendanceSession;
 import com.tacs.attendancechecker.service.AttendanceSessionService;
+import com.tacs.attendancechecker.service.SessionCheckInService;
+import com.tacs.attendancechecker.service.VersionConflictException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/attendance-sessions")
@@ -19,6 +29,9 @@ public class AttendanceSessionController {
     @Autowired
     private AttendanceSessionService attendanceSessionService;
 
+    @Autowired
+    private SessionCheckInService sessionCheckInService;
+
     @PostMapping
     public ResponseEntity<?> createAttendanceSession(@RequestBody AttendanceSession attendanceSession) {
         try {
@@ -30,10 +43,22 @@ public class AttendanceSessionController {
         }
     }
 
+    // A page of sessions, by limit, cursor, sort (id, date) and direction; all=true
+    // returns every matching session as a plain array. from/to bound the session date
     @GetMapping
-    public ResponseEntity<List<AttendanceSession>> getAllAttendanceSessions() {
-        List<AttendanceSession> sessions = attendanceSessionService.getAllAttendanceSessions();
-        return ResponseEntity.ok(sessions);
+    public ResponseEntity<?> getAllAttendanceSessions(ListQuery query,
+            @RequestParam(required = false) Integer courseId,
+            @RequestParam(required = false) String teacherId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Boolean finalized) {
+        try {
+            PageResponse<AttendanceSession> page = attendanceSessionService.getAttendanceSessions(query, courseId,
+                    teacherId, from, to, finalized);
+            return ResponseEntity.ok(query.isAll() ? page.getItems() : page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     @GetMapping("/{sessionId}")
@@ -47,6 +72,20 @@ public class AttendanceSessionController {
         }
     }
 
+    // Current rotating check-in code for the session's teacher (or an admin) to display
+    @GetMapping("/{sessionId}/checkin-code")
+    public ResponseEntity<?> getCheckInCode(@PathVariable Integer sessionId, Authentication auth) {
+        try {
+            CheckInCodeResponse code = sessionCheckInService.getCurrentCode(sessionId, auth.getName());
+            return ResponseEntity.ok(code);
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Attendance session not found: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/course/{courseId}")
     public ResponseEntity<List<AttendanceSession>> getAttendanceSessionsByCourse(@PathVariable Integer courseId) {
         List<AttendanceSession> sessions = attendanceSessionService.getAttendanceSessionsByCourse(courseId);
@@ -72,6 +111,12 @@ public class AttendanceSessionController {
         try {
             AttendanceSession updatedSession = attendanceSessionService.updateAttendanceSession(sessionId, attendanceSession);
             return ResponseEntity.ok(updatedSession);
+        } catch (VersionConflictException e) {
+            return sessionConflict(e.getMessage(), e.getCurrent());
+        } catch (OptimisticLockingFailureException e) {
+            // Lost a race between reading and writing the session
+            return sessionConflict("Attendance session was changed by someone else",
+                    attendanceSessionService.getAttendanceSessionById(sessionId));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Error updating attendance session: " + e.getMessage());
@@ -88,4 +133,12 @@ public class AttendanceSessionController {
                     .body("Error deleting attendance session: " + e.getMessage());
         }
     }
+
+    // 409 with the current session so the client can merge and retry
+    private ResponseEntity<?> sessionConflict(String message, Object current) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("message", message);
+        error.put("current", current);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
 }
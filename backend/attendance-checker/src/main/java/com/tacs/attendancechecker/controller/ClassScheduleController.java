@@ -1,5 +1,7 @@
 package com.tacs.attendancechecker.controller;
 
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.entity.ClassSchedule;
 import com.tacs.attendancechecker.service.ClassScheduleService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,16 +33,22 @@ public class ClassScheduleController {
         }
     }
 
+    // A page of schedules, by limit, cursor, sort (id, dayOfWeek, startTime, courseName, teacher)
+    // and direction; all=true returns every matching schedule as a plain array
     @GetMapping
-    public ResponseEntity<List<ClassSchedule>> getAllSchedules(@RequestParam(required = false) Boolean active) {
+    public ResponseEntity<?> getAllSchedules(ListQuery query,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) Integer courseId,
+            @RequestParam(required = false) Integer offeredCourseId,
+            @RequestParam(required = false) Integer classroomId,
+            @RequestParam(required = false) String dayOfWeek) {
         try {
-            List<ClassSchedule> schedules;
-            if (active != null && active) {
-                schedules = classScheduleService.getActiveSchedules();
-            } else {
-                schedules = classScheduleService.getAllSchedules();
-            }
-            return new ResponseEntity<>(schedules, HttpStatus.OK);
+            PageResponse<ClassSchedule> page = classScheduleService.getSchedules(query, q, active,
+                    courseId, offeredCourseId, classroomId, dayOfWeek);
+            return new ResponseEntity<>(query.isAll() ? page.getItems() : page, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
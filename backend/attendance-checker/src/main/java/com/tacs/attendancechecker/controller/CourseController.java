@@ -2,13 +2,14 @@ package com.tacs.attendancechecker.controller;
 
 import com.tacs.attendancechecker.dto.CourseRequest;
 import com.tacs.attendancechecker.dto.CourseResponse;
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.service.CourseService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/courses")
@@ -31,10 +32,19 @@ public class CourseController {
         }
     }
 
+    // A page of courses, by limit, cursor, sort (id, courseCode, courseName, units, courseType)
+    // and direction; all=true returns every matching course as a plain array
     @GetMapping
-    public ResponseEntity<List<CourseResponse>> getAllCourses() {
-        List<CourseResponse> courses = courseService.getAllCourses();
-        return ResponseEntity.ok(courses);
+    public ResponseEntity<?> getAllCourses(ListQuery query,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String courseType,
+            @RequestParam(required = false) Boolean active) {
+        try {
+            PageResponse<CourseResponse> page = courseService.getCourses(query, q, courseType, active);
+            return ResponseEntity.ok(query.isAll() ? page.getItems() : page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     @GetMapping("/{courseId}")
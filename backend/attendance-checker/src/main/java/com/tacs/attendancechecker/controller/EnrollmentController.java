@@ -1,6 +1,8 @@
 package com.tacs.attendancechecker.controller;
 
 import com.tacs.attendancechecker.dto.EnrollmentRequest;
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.entity.Enrollment;
 import com.tacs.attendancechecker.service.EnrollmentService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/enrollments")
@@ -29,10 +32,29 @@ public class EnrollmentController {
         }
     }
 
+    // A page of enrollments, by limit, cursor, sort (id, dateEnrolled, lastName, studentId,
+    // yearLevel) and direction; all=true returns every matching enrollment as a plain array
     @GetMapping
-    public ResponseEntity<List<Enrollment>> getAllEnrollments() {
-        List<Enrollment> enrollments = enrollmentService.getAllEnrollments();
-        return ResponseEntity.ok(enrollments);
+    public ResponseEntity<?> getAllEnrollments(ListQuery query,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer studentId,
+            @RequestParam(required = false) Integer yearLevel,
+            @RequestParam(required = false) Integer offeredCourseId,
+            @RequestParam(required = false) Integer courseId,
+            @RequestParam(required = false) String status) {
+        try {
+            PageResponse<Enrollment> page = enrollmentService.getEnrollments(query, q, studentId, yearLevel,
+                    offeredCourseId, courseId, status);
+            return ResponseEntity.ok(query.isAll() ? page.getItems() : page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    // Enrollment counts for the given courses, keyed by course id
+    @GetMapping("/counts")
+    public ResponseEntity<Map<Integer, Long>> countEnrollmentsByCourse(@RequestParam List<Integer> courseId) {
+        return ResponseEntity.ok(enrollmentService.countByCourse(courseId));
     }
 
     @GetMapping("/student/{studentId}")
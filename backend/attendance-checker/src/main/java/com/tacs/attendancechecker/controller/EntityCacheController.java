@@ -0,0 +1,26 @@
+package com.tacs.attendancechecker.controller;
+
+import com.tacs.attendancechecker.service.EntityCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/entity-cache")
+@CrossOrigin(origins = "*")
+public class EntityCacheController {
+
+    @Autowired
+    private EntityCache entityCache;
+
+    /**
+     * Get second-level cache statistics per region: the reference entities,
+     * the cached queries and the update timestamps behind them
+     *
+     * @return Hits, misses, hit rate, entries and evictions since startup
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats() {
+        return ResponseEntity.ok(entityCache.getStatistics());
+    }
+}
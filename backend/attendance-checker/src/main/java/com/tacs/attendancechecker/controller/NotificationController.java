@@ -1,5 +1,7 @@
 package com.tacs.attendancechecker.controller;
 
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.entity.Notification;
 import com.tacs.attendancechecker.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,10 +30,19 @@ public class NotificationController {
         }
     }
 
+    // A page of notifications, by limit, cursor, sort (id, createdAt) and direction;
+    // all=true returns every matching notification as a plain array
     @GetMapping
-    public ResponseEntity<List<Notification>> getAllNotifications() {
-        List<Notification> notifications = notificationService.getAllNotifications();
-        return ResponseEntity.ok(notifications);
+    public ResponseEntity<?> getAllNotifications(ListQuery query,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) Boolean isRead,
+            @RequestParam(required = false) String type) {
+        try {
+            PageResponse<Notification> page = notificationService.getNotifications(query, userId, isRead, type);
+            return ResponseEntity.ok(query.isAll() ? page.getItems() : page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     @GetMapping("/{notificationId}")
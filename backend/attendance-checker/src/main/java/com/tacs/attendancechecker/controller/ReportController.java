@@ -1,17 +1,29 @@
 package com.tacs.attendancechecker.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tacs.attendancechecker.dto.AttendanceAnalyticsDTO;
 import com.tacs.attendancechecker.dto.AttendanceReportDTO;
+import com.tacs.attendancechecker.dto.DepartmentReportDTO;
+import com.tacs.attendancechecker.service.AttendanceAnalyticsService;
+import com.tacs.attendancechecker.service.DepartmentReportService;
+import com.tacs.attendancechecker.service.ReportCache;
+import com.tacs.attendancechecker.service.ReportExportService;
 import com.tacs.attendancechecker.service.ReportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -21,18 +33,43 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private ReportCache reportCache;
+
+    @Autowired
+    private AttendanceAnalyticsService attendanceAnalyticsService;
+
+    @Autowired
+    private DepartmentReportService departmentReportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Get daily attendance report for a specific date
      * 
      * @param date The date in format yyyy-MM-dd
+     * @param summaryOnly If true, return only the summary (no records are loaded)
+     * @param cursor nextCursor from the previous page; omit for the first page
+     * @param limit Records per page (at most 500)
      * @return Report with summary and detailed records
      */
     @GetMapping("/daily/{date}")
     public ResponseEntity<?> getDailyReport(
-            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "false") boolean summaryOnly,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ReportService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            AttendanceReportDTO report = reportService.generateDailyReport(date);
+            AttendanceReportDTO report = reportService.generateDailyReport(date, summaryOnly, cursor, limit);
             return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Failed to generate daily report: " + e.getMessage());
@@ -44,14 +81,24 @@ public class ReportController {
      * Get monthly attendance report
      * 
      * @param month The month in format yyyy-MM
+     * @param summaryOnly If true, return only the summary (no records are loaded)
+     * @param cursor nextCursor from the previous page; omit for the first page
+     * @param limit Records per page (at most 500)
      * @return Report with summary and aggregated data
      */
     @GetMapping("/monthly/{month}")
     public ResponseEntity<?> getMonthlyReport(
-            @PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+            @PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(defaultValue = "false") boolean summaryOnly,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ReportService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            AttendanceReportDTO report = reportService.generateMonthlyReport(month);
+            AttendanceReportDTO report = reportService.generateMonthlyReport(month, summaryOnly, cursor, limit);
             return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Failed to generate monthly report: " + e.getMessage());
@@ -63,13 +110,23 @@ public class ReportController {
      * Get attendance report for a specific course
      * 
      * @param courseId The course ID
-     * @return Report with all attendance records for the course
+     * @param summaryOnly If true, return only the summary (no records are loaded)
+     * @param cursor nextCursor from the previous page; omit for the first page
+     * @param limit Records per page (at most 500)
+     * @return Report with a page of attendance records for the course, newest first
      */
     @GetMapping("/course/{courseId}")
-    public ResponseEntity<?> getCourseReport(@PathVariable Integer courseId) {
+    public ResponseEntity<?> getCourseReport(@PathVariable Integer courseId,
+            @RequestParam(defaultValue = "false") boolean summaryOnly,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ReportService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            AttendanceReportDTO report = reportService.generateCourseReport(courseId);
+            AttendanceReportDTO report = reportService.generateCourseReport(courseId, summaryOnly, cursor, limit);
             return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Failed to generate course report: " + e.getMessage());
@@ -81,13 +138,23 @@ public class ReportController {
      * Get attendance report for a specific student
      * 
      * @param studentId The student ID
-     * @return Report with all attendance records for the student
+     * @param summaryOnly If true, return only the summary (no records are loaded)
+     * @param cursor nextCursor from the previous page; omit for the first page
+     * @param limit Records per page (at most 500)
+     * @return Report with a page of attendance records for the student, newest first
      */
     @GetMapping("/student/{studentId}")
-    public ResponseEntity<?> getStudentReport(@PathVariable Integer studentId) {
+    public ResponseEntity<?> getStudentReport(@PathVariable Integer studentId,
+            @RequestParam(defaultValue = "false") boolean summaryOnly,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ReportService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            AttendanceReportDTO report = reportService.generateStudentReport(studentId);
+            AttendanceReportDTO report = reportService.generateStudentReport(studentId, summaryOnly, cursor, limit);
             return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Failed to generate student report: " + e.getMessage());
@@ -95,6 +162,34 @@ public class ReportController {
         }
     }
 
+    /**
+     * Get attendance report for a department: every offered course of its
+     * teachers, with per-course, per-teacher and department totals
+     *
+     * @param departmentId The department ID
+     * @param startDate First date counted (yyyy-MM-dd); omit for no lower bound
+     * @param endDate Last date counted (yyyy-MM-dd); omit for no upper bound
+     * @return Department report with one entry per teacher
+     */
+    @GetMapping("/department/{departmentId}")
+    public ResponseEntity<?> getDepartmentReport(@PathVariable Integer departmentId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            DepartmentReportDTO report = departmentReportService.generateDepartmentReport(departmentId,
+                    startDate, endDate);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to generate department report: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
     /**
      * Get dashboard statistics for admin overview
      * 
@@ -111,4 +206,131 @@ public class ReportController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
+
+    /**
+     * Get attendance analytics for a course: each marked student's counts,
+     * attendance rate and absence streaks, in session order
+     *
+     * @param courseId The course ID
+     * @param minAbsenceStreak If set, only students absent at least this many sessions in a row
+     * @return Course analytics with one entry per student
+     */
+    @GetMapping("/analytics/course/{courseId}")
+    public ResponseEntity<?> getCourseAnalytics(@PathVariable Integer courseId,
+            @RequestParam(required = false) Integer minAbsenceStreak) {
+        try {
+            AttendanceAnalyticsDTO analytics = attendanceAnalyticsService.getCourseAnalytics(courseId,
+                    minAbsenceStreak);
+            return ResponseEntity.ok(analytics);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to generate course analytics: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    /**
+     * Get attendance analytics for one student in a course
+     *
+     * @param courseId The course ID
+     * @param studentId The student ID
+     * @return The student's counts, attendance rate and absence streaks in the course
+     */
+    @GetMapping("/analytics/course/{courseId}/student/{studentId}")
+    public ResponseEntity<?> getStudentAnalytics(@PathVariable Integer courseId, @PathVariable Integer studentId) {
+        try {
+            AttendanceAnalyticsDTO.StudentAnalytics analytics =
+                    attendanceAnalyticsService.getStudentAnalytics(courseId, studentId);
+            return ResponseEntity.ok(analytics);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to generate student analytics: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    /**
+     * Get report cache statistics: hits, misses, hit rate, entries, and how
+     * many evictions came from the size bound and from attendance writes
+     *
+     * @return Cache statistics since startup
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats() {
+        return ResponseEntity.ok(reportCache.getStatistics());
+    }
+
+    /**
+     * Export the records of a daily report as CSV, streamed as they are read
+     *
+     * @param date The date in format yyyy-MM-dd
+     * @return CSV attachment
+     */
+    @GetMapping("/daily/{date}/export.csv")
+    public ResponseEntity<StreamingResponseBody> exportDailyReport(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return csv("attendance_daily_" + date + ".csv", reportExportService.exportDaily(date));
+    }
+
+    /**
+     * Export the records of a monthly report as CSV, streamed as they are read
+     *
+     * @param month The month in format yyyy-MM
+     * @return CSV attachment
+     */
+    @GetMapping("/monthly/{month}/export.csv")
+    public ResponseEntity<StreamingResponseBody> exportMonthlyReport(
+            @PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        return csv("attendance_monthly_" + month + ".csv", reportExportService.exportMonthly(month));
+    }
+
+    /**
+     * Export all attendance records of a course as CSV, streamed as they are read
+     *
+     * @param courseId The course ID
+     * @return CSV attachment
+     */
+    @GetMapping("/course/{courseId}/export.csv")
+    public ResponseEntity<StreamingResponseBody> exportCourseReport(@PathVariable Integer courseId) {
+        try {
+            return csv("attendance_course_" + courseId + ".csv", reportExportService.exportCourse(courseId));
+        } catch (NoSuchElementException e) {
+            return exportError(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (Exception e) {
+            return exportError(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to export course report: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Export all attendance records of a student as CSV, streamed as they are read
+     *
+     * @param studentId The student ID
+     * @return CSV attachment
+     */
+    @GetMapping("/student/{studentId}/export.csv")
+    public ResponseEntity<StreamingResponseBody> exportStudentReport(@PathVariable Integer studentId) {
+        try {
+            return csv("attendance_student_" + studentId + ".csv", reportExportService.exportStudent(studentId));
+        } catch (NoSuchElementException e) {
+            return exportError(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (Exception e) {
+            return exportError(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to export student report: " + e.getMessage());
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> csv(String filename, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    // Export endpoints must declare a streaming body, so errors are written through one too
+    private ResponseEntity<StreamingResponseBody> exportError(HttpStatus status, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, error));
+    }
 }
@@ -0,0 +1,112 @@
+package com.tacs.attendancechecker.controller;
+
+import com.tacs.attendancechecker.dto.ReportJobRequest;
+import com.tacs.attendancechecker.dto.ReportJobResponse;
+import com.tacs.attendancechecker.service.ReportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequestMapping("/api/reports/jobs")
+@CrossOrigin(origins = "*")
+public class ReportJobController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    /**
+     * Generate a report in the background. An identical report that is still
+     * being generated is returned instead of starting another
+     *
+     * @param request Report type and its date, month, courseId, studentId or
+     *                departmentId (with an optional startDate and endDate)
+     * @return Job status (202); poll GET /api/reports/jobs/{jobId} for the result
+     */
+    @PostMapping
+    public ResponseEntity<?> submitReportJob(@RequestBody ReportJobRequest request) {
+        try {
+            ReportJobResponse job = reportJobService.submit(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (RejectedExecutionException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        }
+    }
+
+    /**
+     * Get a report job. While it is queued or running this returns its status
+     * (202); once completed, the report itself (200, same shape as the report
+     * endpoints with every record); if it failed, its status with the error (500)
+     *
+     * @param jobId The job ID from the submission
+     * @return Job status or the finished report
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getReportJob(@PathVariable String jobId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ReportJobResponse job = reportJobService.getStatus(jobId);
+        if (job == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Report job not found or expired: " + jobId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        if (ReportJobService.Status.FAILED.name().equals(job.getStatus())) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(job);
+        }
+
+        Path result = reportJobService.getResult(jobId);
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        }
+
+        // Opened here, before the 200 is committed, so a result that has just
+        // expired is still a 404; an open file stays readable once deleted
+        InputStream in = null;
+        try {
+            in = Files.newInputStream(result);
+            // Results are stored compressed; send them as-is to clients that accept gzip
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                        .body(new InputStreamResource(in));
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .body(new InputStreamResource(new GZIPInputStream(in)));
+        } catch (IOException e) {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                    // Answering 404 regardless
+                }
+            }
+            // Expired and deleted between the status check and opening the file
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Report job not found or expired: " + jobId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.tacs.attendancechecker.controller;
 
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.entity.Student;
 import com.tacs.attendancechecker.service.StudentService;
 import com.tacs.attendancechecker.dto.StudentRegistrationRequest;
@@ -43,10 +45,21 @@ public class StudentController {
         }
     }
 
+    // A page of students, by limit, cursor, sort (id, studentNumber, lastName, yearLevel,
+    // program) and direction; all=true returns every matching student as a plain array
     @GetMapping
-    public ResponseEntity<?> getAllStudents() {
+    public ResponseEntity<?> getAllStudents(ListQuery query,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String program,
+            @RequestParam(required = false) Integer yearLevel,
+            @RequestParam(required = false) String enrollmentStatus) {
         try {
-            return ResponseEntity.ok(studentService.getAllStudents());
+            PageResponse<Student> page = studentService.getStudents(query, q, program, yearLevel, enrollmentStatus);
+            return ResponseEntity.ok(query.isAll() ? page.getItems() : page);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Error fetching students: " + e.getMessage());
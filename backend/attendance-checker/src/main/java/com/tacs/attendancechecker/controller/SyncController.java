@@ -0,0 +1,38 @@
+package com.tacs.attendancechecker.controller;
+
+import com.tacs.attendancechecker.dto.SyncResponse;
+import com.tacs.attendancechecker.service.SyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sync")
+@CrossOrigin(origins = "*")
+public class SyncController {
+
+    @Autowired
+    private SyncService syncService;
+
+    // Rows changed or deleted since the cursor from the previous sync; omit since for a full snapshot
+    @GetMapping
+    public ResponseEntity<?> sync(@RequestParam(required = false) Long since, Authentication auth) {
+        try {
+            SyncResponse response = syncService.getChanges(auth.getName(), since);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error syncing: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+}
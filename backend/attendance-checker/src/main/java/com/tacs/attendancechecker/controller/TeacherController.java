@@ -1,5 +1,7 @@
 package com.tacs.attendancechecker.controller;
 
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.dto.TeacherRegistrationRequest;
 import com.tacs.attendancechecker.entity.Teacher;
 import com.tacs.attendancechecker.service.TeacherService;
@@ -19,10 +21,19 @@ public class TeacherController {
     @Autowired
     private TeacherService teacherService;
 
+    // A page of teachers, by limit, cursor, sort (id, lastName, email, department)
+    // and direction; all=true returns every matching teacher as a plain array
     @GetMapping
-    public ResponseEntity<?> getAllTeachers() {
+    public ResponseEntity<?> getAllTeachers(ListQuery query,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer departmentId) {
         try {
-            return ResponseEntity.ok(teacherService.getAllTeachers());
+            PageResponse<Teacher> page = teacherService.getTeachers(query, q, departmentId);
+            return ResponseEntity.ok(query.isAll() ? page.getItems() : page);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Error fetching teachers: " + e.getMessage());
@@ -0,0 +1,11 @@
+package com.tacs.attendancechecker.dto;
+
+// Closed semester to move to the archive, as in OfferedCourse.semester (e.g. "2026-1")
+public class ArchiveRequest {
+    private String semester;
+
+    public ArchiveRequest() {}
+
+    public String getSemester() { return semester; }
+    public void setSemester(String semester) { this.semester = semester; }
+}
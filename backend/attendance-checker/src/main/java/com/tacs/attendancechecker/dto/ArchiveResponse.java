@@ -0,0 +1,42 @@
+package com.tacs.attendancechecker.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+// An archived semester: the dates its sessions span and the rows moved out of the database
+public class ArchiveResponse {
+    private String semester;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private long attendanceRows;
+    private long sessions;
+    private long enrollments;
+    private long archiveBytes; // Size of the compressed files
+    private Instant archivedAt;
+
+    public ArchiveResponse() {}
+
+    public String getSemester() { return semester; }
+    public void setSemester(String semester) { this.semester = semester; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public long getAttendanceRows() { return attendanceRows; }
+    public void setAttendanceRows(long attendanceRows) { this.attendanceRows = attendanceRows; }
+
+    public long getSessions() { return sessions; }
+    public void setSessions(long sessions) { this.sessions = sessions; }
+
+    public long getEnrollments() { return enrollments; }
+    public void setEnrollments(long enrollments) { this.enrollments = enrollments; }
+
+    public long getArchiveBytes() { return archiveBytes; }
+    public void setArchiveBytes(long archiveBytes) { this.archiveBytes = archiveBytes; }
+
+    public Instant getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(Instant archivedAt) { this.archivedAt = archivedAt; }
+}
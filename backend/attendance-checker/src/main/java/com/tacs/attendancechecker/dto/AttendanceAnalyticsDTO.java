@@ -0,0 +1,72 @@
+package com.tacs.attendancechecker.dto;
+
+import java.util.List;
+
+// Attendance analytics for a course: how each student attended the sessions
+// they were marked in, in the order the sessions were held
+public class AttendanceAnalyticsDTO {
+    private Integer courseId;
+    private int sessions; // Sessions with at least one mark
+    private double attendanceRate; // Present or late, over all marks in the course
+    private List<StudentAnalytics> students;
+
+    public AttendanceAnalyticsDTO() {}
+
+    public Integer getCourseId() { return courseId; }
+    public void setCourseId(Integer courseId) { this.courseId = courseId; }
+
+    public int getSessions() { return sessions; }
+    public void setSessions(int sessions) { this.sessions = sessions; }
+
+    public double getAttendanceRate() { return attendanceRate; }
+    public void setAttendanceRate(double attendanceRate) { this.attendanceRate = attendanceRate; }
+
+    public List<StudentAnalytics> getStudents() { return students; }
+    public void setStudents(List<StudentAnalytics> students) { this.students = students; }
+
+    // One student in one course. Streaks count consecutive sessions the student was marked in
+    public static class StudentAnalytics {
+        private Integer studentId;
+        private Integer courseId;
+        private int sessions; // Sessions the student was marked in
+        private int present;
+        private int late;
+        private int absent;
+        private int excused;
+        private double attendanceRate;
+        private int longestAbsenceStreak;
+        private int currentAbsenceStreak; // Absences since the last session attended, excused or late
+
+        public StudentAnalytics() {}
+
+        public Integer getStudentId() { return studentId; }
+        public void setStudentId(Integer studentId) { this.studentId = studentId; }
+
+        public Integer getCourseId() { return courseId; }
+        public void setCourseId(Integer courseId) { this.courseId = courseId; }
+
+        public int getSessions() { return sessions; }
+        public void setSessions(int sessions) { this.sessions = sessions; }
+
+        public int getPresent() { return present; }
+        public void setPresent(int present) { this.present = present; }
+
+        public int getLate() { return late; }
+        public void setLate(int late) { this.late = late; }
+
+        public int getAbsent() { return absent; }
+        public void setAbsent(int absent) { this.absent = absent; }
+
+        public int getExcused() { return excused; }
+        public void setExcused(int excused) { this.excused = excused; }
+
+        public double getAttendanceRate() { return attendanceRate; }
+        public void setAttendanceRate(double attendanceRate) { this.attendanceRate = attendanceRate; }
+
+        public int getLongestAbsenceStreak() { return longestAbsenceStreak; }
+        public void setLongestAbsenceStreak(int longestAbsenceStreak) { this.longestAbsenceStreak = longestAbsenceStreak; }
+
+        public int getCurrentAbsenceStreak() { return currentAbsenceStreak; }
+        public void setCurrentAbsenceStreak(int currentAbsenceStreak) { this.currentAbsenceStreak = currentAbsenceStreak; }
+    }
+}
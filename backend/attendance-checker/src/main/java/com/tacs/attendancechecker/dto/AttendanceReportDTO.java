@@ -9,6 +9,7 @@ public class AttendanceReportDTO {
     private LocalDate endDate;
     private ReportSummary summary;
     private List<AttendanceRecordDTO> records;
+    private String nextCursor; // Pass as ?cursor= for the next page of records; null on the last page
 
     // Constructors
     public AttendanceReportDTO() {
@@ -64,11 +65,20 @@ public class AttendanceReportDTO {
         this.records = records;
     }
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     // Inner class for summary statistics
     public static class ReportSummary {
         private int totalPresent;
         private int totalAbsent;
         private int totalLate;
+        private int totalExcused;
         private double attendanceRate;
 
         public ReportSummary() {
@@ -81,6 +91,12 @@ public class AttendanceReportDTO {
             this.attendanceRate = attendanceRate;
         }
 
+        public ReportSummary(int totalPresent, int totalAbsent, int totalLate, int totalExcused,
+                double attendanceRate) {
+            this(totalPresent, totalAbsent, totalLate, attendanceRate);
+            this.totalExcused = totalExcused;
+        }
+
         public int getTotalPresent() {
             return totalPresent;
         }
@@ -105,6 +121,14 @@ public class AttendanceReportDTO {
             this.totalLate = totalLate;
         }
 
+        public int getTotalExcused() {
+            return totalExcused;
+        }
+
+        public void setTotalExcused(int totalExcused) {
+            this.totalExcused = totalExcused;
+        }
+
         public double getAttendanceRate() {
             return attendanceRate;
         }
@@ -11,6 +11,7 @@ public class AttendanceRequest {
     private LocalTime timeIn;
     private String status; // PRESENT, LATE, ABSENT, EXCUSED
     private String remarks;
+    private Long version; // Version last read; when set, the mark is rejected if the row changed since
 
     public AttendanceRequest() {}
 
@@ -34,4 +35,7 @@ public class AttendanceRequest {
 
     public String getRemarks() { return remarks; }
     public void setRemarks(String remarks) { this.remarks = remarks; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -1,7 +1,10 @@
 package com.tacs.attendancechecker.dto;
 
+import com.tacs.attendancechecker.entity.Attendance;
+
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.UUID;
 
 public class AttendanceResponse {
     private String attendanceId;
@@ -14,10 +17,28 @@ public class AttendanceResponse {
     private LocalTime timeIn;
     private String status;
     private String remarks;
+    private Long version; // Null while the mark is only in memory or queued
 
     public AttendanceResponse() {
     }
 
+    // For the constructor projections in AttendanceRepository
+    public AttendanceResponse(UUID attendanceId, Integer studentId, String firstName, String lastName,
+            Integer courseId, String courseName, Integer sessionId, LocalDate date, LocalTime timeIn,
+            Attendance.Status status, String remarks, Long version) {
+        this.attendanceId = attendanceId.toString();
+        this.studentId = studentId;
+        this.studentName = firstName + " " + lastName;
+        this.courseId = courseId;
+        this.courseName = courseName;
+        this.sessionId = sessionId;
+        this.date = date;
+        this.timeIn = timeIn;
+        this.status = status != null ? status.toString() : null;
+        this.remarks = remarks;
+        this.version = version;
+    }
+
     public String getAttendanceId() {
         return attendanceId;
     }
@@ -97,4 +118,12 @@ public class AttendanceResponse {
     public void setRemarks(String remarks) {
         this.remarks = remarks;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
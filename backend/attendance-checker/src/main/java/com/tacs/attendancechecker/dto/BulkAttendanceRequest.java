@@ -0,0 +1,35 @@
+package com.tacs.attendancechecker.dto;
+
+import java.time.LocalTime;
+import java.util.List;
+
+public class BulkAttendanceRequest {
+    private List<Entry> records; // One entry per student in the roster
+
+    public BulkAttendanceRequest() {}
+
+    public List<Entry> getRecords() { return records; }
+    public void setRecords(List<Entry> records) { this.records = records; }
+
+    // Inner class for a single student's mark
+    public static class Entry {
+        private Integer studentId;
+        private String status; // PRESENT, LATE, ABSENT, EXCUSED
+        private LocalTime timeIn;
+        private String remarks;
+
+        public Entry() {}
+
+        public Integer getStudentId() { return studentId; }
+        public void setStudentId(Integer studentId) { this.studentId = studentId; }
+
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+
+        public LocalTime getTimeIn() { return timeIn; }
+        public void setTimeIn(LocalTime timeIn) { this.timeIn = timeIn; }
+
+        public String getRemarks() { return remarks; }
+        public void setRemarks(String remarks) { this.remarks = remarks; }
+    }
+}
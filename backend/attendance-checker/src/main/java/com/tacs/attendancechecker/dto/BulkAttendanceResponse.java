@@ -0,0 +1,73 @@
+package com.tacs.attendancechecker.dto;
+
+import java.util.List;
+
+public class BulkAttendanceResponse {
+    private Integer sessionId;
+    private int created;
+    private int updated;
+    private int failed;
+    private List<RowResult> results;
+
+    public BulkAttendanceResponse() {}
+
+    public BulkAttendanceResponse(Integer sessionId, List<RowResult> results) {
+        this.sessionId = sessionId;
+        this.results = results;
+        for (RowResult result : results) {
+            switch (result.getOutcome()) {
+                case RowResult.CREATED -> created++;
+                case RowResult.UPDATED -> updated++;
+                default -> failed++;
+            }
+        }
+    }
+
+    public Integer getSessionId() { return sessionId; }
+    public void setSessionId(Integer sessionId) { this.sessionId = sessionId; }
+
+    public int getCreated() { return created; }
+    public void setCreated(int created) { this.created = created; }
+
+    public int getUpdated() { return updated; }
+    public void setUpdated(int updated) { this.updated = updated; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public List<RowResult> getResults() { return results; }
+    public void setResults(List<RowResult> results) { this.results = results; }
+
+    // Inner class for the outcome of a single roster entry
+    public static class RowResult {
+        public static final String CREATED = "CREATED";
+        public static final String UPDATED = "UPDATED";
+        public static final String FAILED = "FAILED";
+
+        private Integer studentId;
+        private String outcome; // CREATED, UPDATED, FAILED
+        private String message;
+        private AttendanceResponse attendance;
+
+        public RowResult() {}
+
+        public RowResult(Integer studentId, String outcome, String message, AttendanceResponse attendance) {
+            this.studentId = studentId;
+            this.outcome = outcome;
+            this.message = message;
+            this.attendance = attendance;
+        }
+
+        public Integer getStudentId() { return studentId; }
+        public void setStudentId(Integer studentId) { this.studentId = studentId; }
+
+        public String getOutcome() { return outcome; }
+        public void setOutcome(String outcome) { this.outcome = outcome; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+
+        public AttendanceResponse getAttendance() { return attendance; }
+        public void setAttendance(AttendanceResponse attendance) { this.attendance = attendance; }
+    }
+}
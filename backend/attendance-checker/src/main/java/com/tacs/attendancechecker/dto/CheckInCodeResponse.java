@@ -0,0 +1,29 @@
+package com.tacs.attendancechecker.dto;
+
+public class CheckInCodeResponse {
+    private Integer sessionId;
+    private String code;
+    private int periodSeconds; // How long each code is shown for
+    private int expiresInSeconds; // Seconds until the next code
+
+    public CheckInCodeResponse() {}
+
+    public CheckInCodeResponse(Integer sessionId, String code, int periodSeconds, int expiresInSeconds) {
+        this.sessionId = sessionId;
+        this.code = code;
+        this.periodSeconds = periodSeconds;
+        this.expiresInSeconds = expiresInSeconds;
+    }
+
+    public Integer getSessionId() { return sessionId; }
+    public void setSessionId(Integer sessionId) { this.sessionId = sessionId; }
+
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+
+    public int getPeriodSeconds() { return periodSeconds; }
+    public void setPeriodSeconds(int periodSeconds) { this.periodSeconds = periodSeconds; }
+
+    public int getExpiresInSeconds() { return expiresInSeconds; }
+    public void setExpiresInSeconds(int expiresInSeconds) { this.expiresInSeconds = expiresInSeconds; }
+}
@@ -0,0 +1,14 @@
+package com.tacs.attendancechecker.dto;
+
+public class CheckInRequest {
+    private Integer sessionId;
+    private String code; // Rotating code shown by the teacher
+
+    public CheckInRequest() {}
+
+    public Integer getSessionId() { return sessionId; }
+    public void setSessionId(Integer sessionId) { this.sessionId = sessionId; }
+
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+}
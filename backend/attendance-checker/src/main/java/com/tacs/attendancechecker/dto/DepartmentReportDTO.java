@@ -0,0 +1,95 @@
+package com.tacs.attendancechecker.dto;
+
+import com.tacs.attendancechecker.dto.AttendanceReportDTO.ReportSummary;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Attendance for a department: each teacher's offered courses, each teacher's
+// totals over them, and the department's totals over its teachers
+public class DepartmentReportDTO {
+    private Integer departmentId;
+    private String departmentCode;
+    private String departmentName;
+    private LocalDate startDate; // The requested range, or the first and last marks when not given
+    private LocalDate endDate;
+    private ReportSummary summary;
+    private List<TeacherReport> teachers;
+
+    public DepartmentReportDTO() {}
+
+    public Integer getDepartmentId() { return departmentId; }
+    public void setDepartmentId(Integer departmentId) { this.departmentId = departmentId; }
+
+    public String getDepartmentCode() { return departmentCode; }
+    public void setDepartmentCode(String departmentCode) { this.departmentCode = departmentCode; }
+
+    public String getDepartmentName() { return departmentName; }
+    public void setDepartmentName(String departmentName) { this.departmentName = departmentName; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public ReportSummary getSummary() { return summary; }
+    public void setSummary(ReportSummary summary) { this.summary = summary; }
+
+    public List<TeacherReport> getTeachers() { return teachers; }
+    public void setTeachers(List<TeacherReport> teachers) { this.teachers = teachers; }
+
+    public static class TeacherReport {
+        private String teacherId;
+        private String teacherName;
+        private ReportSummary summary;
+        private List<OfferedCourseReport> offeredCourses;
+
+        public TeacherReport() {}
+
+        public String getTeacherId() { return teacherId; }
+        public void setTeacherId(String teacherId) { this.teacherId = teacherId; }
+
+        public String getTeacherName() { return teacherName; }
+        public void setTeacherName(String teacherName) { this.teacherName = teacherName; }
+
+        public ReportSummary getSummary() { return summary; }
+        public void setSummary(ReportSummary summary) { this.summary = summary; }
+
+        public List<OfferedCourseReport> getOfferedCourses() { return offeredCourses; }
+        public void setOfferedCourses(List<OfferedCourseReport> offeredCourses) { this.offeredCourses = offeredCourses; }
+    }
+
+    public static class OfferedCourseReport {
+        private Integer offeredCourseId;
+        private Integer courseId;
+        private String courseCode;
+        private String courseName;
+        private String section;
+        private String semester;
+        private ReportSummary summary;
+
+        public OfferedCourseReport() {}
+
+        public Integer getOfferedCourseId() { return offeredCourseId; }
+        public void setOfferedCourseId(Integer offeredCourseId) { this.offeredCourseId = offeredCourseId; }
+
+        public Integer getCourseId() { return courseId; }
+        public void setCourseId(Integer courseId) { this.courseId = courseId; }
+
+        public String getCourseCode() { return courseCode; }
+        public void setCourseCode(String courseCode) { this.courseCode = courseCode; }
+
+        public String getCourseName() { return courseName; }
+        public void setCourseName(String courseName) { this.courseName = courseName; }
+
+        public String getSection() { return section; }
+        public void setSection(String section) { this.section = section; }
+
+        public String getSemester() { return semester; }
+        public void setSemester(String semester) { this.semester = semester; }
+
+        public ReportSummary getSummary() { return summary; }
+        public void setSummary(ReportSummary summary) { this.summary = summary; }
+    }
+}
@@ -12,6 +12,18 @@ public class EnrolledStudentResponse {
     public EnrolledStudentResponse() {
     }
 
+    // For the constructor projection in EnrollmentRepository
+    public EnrolledStudentResponse(Integer studentId, String studentNumber, String firstName, String lastName,
+            String email, String program, Integer yearLevel, String enrollmentStatus) {
+        this.studentId = studentId;
+        this.studentNumber = studentNumber;
+        this.studentName = firstName + " " + lastName;
+        this.email = email;
+        this.program = program;
+        this.yearLevel = yearLevel;
+        this.enrollmentStatus = enrollmentStatus;
+    }
+
     public Integer getStudentId() {
         return studentId;
     }
@@ -0,0 +1,30 @@
+package com.tacs.attendancechecker.dto;
+
+import com.tacs.attendancechecker.util.KeysetPager;
+
+// Paging and sort parameters shared by the list endpoints, bound from the query
+// string. all=true returns every matching row as a plain array instead of a page
+public class ListQuery {
+    private boolean all;
+    private String cursor; // nextCursor from the previous page; omit for the first page
+    private int limit = KeysetPager.DEFAULT_PAGE_SIZE;
+    private String sort = KeysetPager.ID;
+    private String direction = "asc"; // asc or desc
+
+    public ListQuery() {}
+
+    public boolean isAll() { return all; }
+    public void setAll(boolean all) { this.all = all; }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+
+    public String getSort() { return sort; }
+    public void setSort(String sort) { this.sort = sort; }
+
+    public String getDirection() { return direction; }
+    public void setDirection(String direction) { this.direction = direction; }
+}
@@ -0,0 +1,44 @@
+package com.tacs.attendancechecker.dto;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+// Report to generate in the background. Set the field that goes with the type:
+// DAILY -> date, MONTHLY -> month, COURSE -> courseId, STUDENT -> studentId,
+// DEPARTMENT -> departmentId, with an optional startDate and endDate
+public class ReportJobRequest {
+    private String reportType;
+    private LocalDate date;
+    private YearMonth month;
+    private Integer courseId;
+    private Integer studentId;
+    private Integer departmentId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    public ReportJobRequest() {}
+
+    public String getReportType() { return reportType; }
+    public void setReportType(String reportType) { this.reportType = reportType; }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public YearMonth getMonth() { return month; }
+    public void setMonth(YearMonth month) { this.month = month; }
+
+    public Integer getCourseId() { return courseId; }
+    public void setCourseId(Integer courseId) { this.courseId = courseId; }
+
+    public Integer getStudentId() { return studentId; }
+    public void setStudentId(Integer studentId) { this.studentId = studentId; }
+
+    public Integer getDepartmentId() { return departmentId; }
+    public void setDepartmentId(Integer departmentId) { this.departmentId = departmentId; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+}
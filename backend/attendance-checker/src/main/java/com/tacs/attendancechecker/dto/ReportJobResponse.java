@@ -0,0 +1,45 @@
+package com.tacs.attendancechecker.dto;
+
+import java.time.Instant;
+
+// Status of a background report job; poll GET /api/reports/jobs/{jobId} until it completes
+public class ReportJobResponse {
+    private String jobId;
+    private String reportType;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant completedAt;
+    private Instant expiresAt; // Result and status are removed after this
+    private Long resultBytes; // Compressed size of the result
+    private String error;
+
+    public ReportJobResponse() {}
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getReportType() { return reportType; }
+    public void setReportType(String reportType) { this.reportType = reportType; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Instant getSubmittedAt() { return submittedAt; }
+    public void setSubmittedAt(Instant submittedAt) { this.submittedAt = submittedAt; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getCompletedAt() { return completedAt; }
+    public void setCompletedAt(Instant completedAt) { this.completedAt = completedAt; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+
+    public Long getResultBytes() { return resultBytes; }
+    public void setResultBytes(Long resultBytes) { this.resultBytes = resultBytes; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
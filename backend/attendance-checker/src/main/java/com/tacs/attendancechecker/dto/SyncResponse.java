@@ -0,0 +1,300 @@
+package com.tacs.attendancechecker.dto;
+
+import com.tacs.attendancechecker.entity.Attendance;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+// Changes since the client's last sync. Rows carry IDs only; the client
+// applies them by ID and removes everything listed under deleted.
+public class SyncResponse {
+    private long cursor; // Send back as ?since= on the next sync
+    private boolean fullResync; // True if this is a full snapshot that replaces local data
+    private List<SessionChange> sessions;
+    private List<AttendanceChange> attendance;
+    private List<EnrollmentChange> enrollments;
+    private List<ScheduleChange> schedules;
+    private List<Deletion> deleted;
+
+    public SyncResponse() {}
+
+    public long getCursor() { return cursor; }
+    public void setCursor(long cursor) { this.cursor = cursor; }
+
+    public boolean isFullResync() { return fullResync; }
+    public void setFullResync(boolean fullResync) { this.fullResync = fullResync; }
+
+    public List<SessionChange> getSessions() { return sessions; }
+    public void setSessions(List<SessionChange> sessions) { this.sessions = sessions; }
+
+    public List<AttendanceChange> getAttendance() { return attendance; }
+    public void setAttendance(List<AttendanceChange> attendance) { this.attendance = attendance; }
+
+    public List<EnrollmentChange> getEnrollments() { return enrollments; }
+    public void setEnrollments(List<EnrollmentChange> enrollments) { this.enrollments = enrollments; }
+
+    public List<ScheduleChange> getSchedules() { return schedules; }
+    public void setSchedules(List<ScheduleChange> schedules) { this.schedules = schedules; }
+
+    public List<Deletion> getDeleted() { return deleted; }
+    public void setDeleted(List<Deletion> deleted) { this.deleted = deleted; }
+
+    // Inner class for a changed attendance session
+    public static class SessionChange {
+        private Integer sessionId;
+        private Integer courseId;
+        private String teacherId;
+        private Integer scheduleId;
+        private LocalDate date;
+        private LocalTime startTime;
+        private LocalTime endTime;
+        private String sessionType;
+        private Boolean isFinalized;
+        private String remarks;
+        private Long version;
+        private Instant updatedAt;
+
+        public SessionChange() {}
+
+        public SessionChange(Integer sessionId, Integer courseId, String teacherId, Integer scheduleId,
+                LocalDate date, LocalTime startTime, LocalTime endTime, String sessionType,
+                Boolean isFinalized, String remarks, Long version, Instant updatedAt) {
+            this.sessionId = sessionId;
+            this.courseId = courseId;
+            this.teacherId = teacherId;
+            this.scheduleId = scheduleId;
+            this.date = date;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.sessionType = sessionType;
+            this.isFinalized = isFinalized;
+            this.remarks = remarks;
+            this.version = version;
+            this.updatedAt = updatedAt;
+        }
+
+        public Integer getSessionId() { return sessionId; }
+        public void setSessionId(Integer sessionId) { this.sessionId = sessionId; }
+
+        public Integer getCourseId() { return courseId; }
+        public void setCourseId(Integer courseId) { this.courseId = courseId; }
+
+        public String getTeacherId() { return teacherId; }
+        public void setTeacherId(String teacherId) { this.teacherId = teacherId; }
+
+        public Integer getScheduleId() { return scheduleId; }
+        public void setScheduleId(Integer scheduleId) { this.scheduleId = scheduleId; }
+
+        public LocalDate getDate() { return date; }
+        public void setDate(LocalDate date) { this.date = date; }
+
+        public LocalTime getStartTime() { return startTime; }
+        public void setStartTime(LocalTime startTime) { this.startTime = startTime; }
+
+        public LocalTime getEndTime() { return endTime; }
+        public void setEndTime(LocalTime endTime) { this.endTime = endTime; }
+
+        public String getSessionType() { return sessionType; }
+        public void setSessionType(String sessionType) { this.sessionType = sessionType; }
+
+        public Boolean getIsFinalized() { return isFinalized; }
+        public void setIsFinalized(Boolean isFinalized) { this.isFinalized = isFinalized; }
+
+        public String getRemarks() { return remarks; }
+        public void setRemarks(String remarks) { this.remarks = remarks; }
+
+        public Long getVersion() { return version; }
+        public void setVersion(Long version) { this.version = version; }
+
+        public Instant getUpdatedAt() { return updatedAt; }
+        public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    }
+
+    // Inner class for a changed attendance record
+    public static class AttendanceChange {
+        private String attendanceId;
+        private Integer studentId;
+        private Integer courseId;
+        private Integer sessionId;
+        private LocalDate date;
+        private LocalTime timeIn;
+        private String status;
+        private String remarks;
+        private Long version;
+        private Instant updatedAt;
+
+        public AttendanceChange() {}
+
+        public AttendanceChange(UUID attendanceId, Integer studentId, Integer courseId, Integer sessionId,
+                LocalDate date, LocalTime timeIn, Attendance.Status status, String remarks, Long version,
+                Instant updatedAt) {
+            this.attendanceId = attendanceId.toString();
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.sessionId = sessionId;
+            this.date = date;
+            this.timeIn = timeIn;
+            this.status = status != null ? status.name() : null;
+            this.remarks = remarks;
+            this.version = version;
+            this.updatedAt = updatedAt;
+        }
+
+        public String getAttendanceId() { return attendanceId; }
+        public void setAttendanceId(String attendanceId) { this.attendanceId = attendanceId; }
+
+        public Integer getStudentId() { return studentId; }
+        public void setStudentId(Integer studentId) { this.studentId = studentId; }
+
+        public Integer getCourseId() { return courseId; }
+        public void setCourseId(Integer courseId) { this.courseId = courseId; }
+
+        public Integer getSessionId() { return sessionId; }
+        public void setSessionId(Integer sessionId) { this.sessionId = sessionId; }
+
+        public LocalDate getDate() { return date; }
+        public void setDate(LocalDate date) { this.date = date; }
+
+        public LocalTime getTimeIn() { return timeIn; }
+        public void setTimeIn(LocalTime timeIn) { this.timeIn = timeIn; }
+
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+
+        public String getRemarks() { return remarks; }
+        public void setRemarks(String remarks) { this.remarks = remarks; }
+
+        public Long getVersion() { return version; }
+        public void setVersion(Long version) { this.version = version; }
+
+        public Instant getUpdatedAt() { return updatedAt; }
+        public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    }
+
+    // Inner class for a changed enrollment
+    public static class EnrollmentChange {
+        private Integer enrollmentId;
+        private Integer studentId;
+        private Integer offeredCourseId;
+        private Integer courseId;
+        private String status;
+        private LocalDate dateEnrolled;
+        private Instant updatedAt;
+
+        public EnrollmentChange() {}
+
+        public EnrollmentChange(Integer enrollmentId, Integer studentId, Integer offeredCourseId, Integer courseId,
+                String status, LocalDate dateEnrolled, Instant updatedAt) {
+            this.enrollmentId = enrollmentId;
+            this.studentId = studentId;
+            this.offeredCourseId = offeredCourseId;
+            this.courseId = courseId;
+            this.status = status;
+            this.dateEnrolled = dateEnrolled;
+            this.updatedAt = updatedAt;
+        }
+
+        public Integer getEnrollmentId() { return enrollmentId; }
+        public void setEnrollmentId(Integer enrollmentId) { this.enrollmentId = enrollmentId; }
+
+        public Integer getStudentId() { return studentId; }
+        public void setStudentId(Integer studentId) { this.studentId = studentId; }
+
+        public Integer getOfferedCourseId() { return offeredCourseId; }
+        public void setOfferedCourseId(Integer offeredCourseId) { this.offeredCourseId = offeredCourseId; }
+
+        public Integer getCourseId() { return courseId; }
+        public void setCourseId(Integer courseId) { this.courseId = courseId; }
+
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+
+        public LocalDate getDateEnrolled() { return dateEnrolled; }
+        public void setDateEnrolled(LocalDate dateEnrolled) { this.dateEnrolled = dateEnrolled; }
+
+        public Instant getUpdatedAt() { return updatedAt; }
+        public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    }
+
+    // Inner class for a changed class schedule
+    public static class ScheduleChange {
+        private Integer scheduleId;
+        private Integer offeredCourseId;
+        private Integer courseId;
+        private String dayOfWeek;
+        private LocalTime startTime;
+        private LocalTime endTime;
+        private Integer classroomId;
+        private Boolean isActive;
+        private Instant updatedAt;
+
+        public ScheduleChange() {}
+
+        public ScheduleChange(Integer scheduleId, Integer offeredCourseId, Integer courseId, String dayOfWeek,
+                LocalTime startTime, LocalTime endTime, Integer classroomId, Boolean isActive, Instant updatedAt) {
+            this.scheduleId = scheduleId;
+            this.offeredCourseId = offeredCourseId;
+            this.courseId = courseId;
+            this.dayOfWeek = dayOfWeek;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.classroomId = classroomId;
+            this.isActive = isActive;
+            this.updatedAt = updatedAt;
+        }
+
+        public Integer getScheduleId() { return scheduleId; }
+        public void setScheduleId(Integer scheduleId) { this.scheduleId = scheduleId; }
+
+        public Integer getOfferedCourseId() { return offeredCourseId; }
+        public void setOfferedCourseId(Integer offeredCourseId) { this.offeredCourseId = offeredCourseId; }
+
+        public Integer getCourseId() { return courseId; }
+        public void setCourseId(Integer courseId) { this.courseId = courseId; }
+
+        public String getDayOfWeek() { return dayOfWeek; }
+        public void setDayOfWeek(String dayOfWeek) { this.dayOfWeek = dayOfWeek; }
+
+        public LocalTime getStartTime() { return startTime; }
+        public void setStartTime(LocalTime startTime) { this.startTime = startTime; }
+
+        public LocalTime getEndTime() { return endTime; }
+        public void setEndTime(LocalTime endTime) { this.endTime = endTime; }
+
+        public Integer getClassroomId() { return classroomId; }
+        public void setClassroomId(Integer classroomId) { this.classroomId = classroomId; }
+
+        public Boolean getIsActive() { return isActive; }
+        public void setIsActive(Boolean isActive) { this.isActive = isActive; }
+
+        public Instant getUpdatedAt() { return updatedAt; }
+        public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    }
+
+    // Inner class for a deleted row
+    public static class Deletion {
+        private String type; // SESSION, ATTENDANCE, ENROLLMENT, SCHEDULE
+        private String id;
+        private Instant deletedAt;
+
+        public Deletion() {}
+
+        public Deletion(String type, String id, Instant deletedAt) {
+            this.type = type;
+            this.id = id;
+            this.deletedAt = deletedAt;
+        }
+
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+
+        public Instant getDeletedAt() { return deletedAt; }
+        public void setDeletedAt(Instant deletedAt) { this.deletedAt = deletedAt; }
+    }
+}
@@ -2,18 +2,39 @@ package com.tacs.attendancechecker.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.springframework.data.domain.Persistable;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.UUID;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "attendance")
-public class Attendance {
+@Table(name = "attendance",
+    uniqueConstraints = {
+        // Includes date, the partition key (see db/migration/008); marks take their session's date
+        @UniqueConstraint(name = "uk_attendance_student_session", columnNames = {"studentId", "sessionId", "date"})
+    },
+    indexes = {
+        @Index(name = "idx_attendance_updated_at", columnList = "updatedAt"),
+        @Index(name = "idx_attendance_date_course", columnList = "date, courseId"),
+        // Keyset pages of report records, see AttendanceRepository
+        @Index(name = "idx_attendance_date_id", columnList = "date, attendanceId"),
+        @Index(name = "idx_attendance_course_date_id", columnList = "courseId, date, attendanceId"),
+        @Index(name = "idx_attendance_student_date_id", columnList = "studentId, date, attendanceId"),
+        // A course's marks for a range of students, see AtRiskDetectionService
+        @Index(name = "idx_attendance_course_student", columnList = "courseId, studentId"),
+        // Foreign key checks when sessions are deleted, see db/migration/009
+        @Index(name = "idx_attendance_session", columnList = "sessionId")
+    }
+)
+public class Attendance implements Persistable<UUID> {
 
+    // Time-ordered UUIDv7 from TimeOrderedIdGenerator, stored as a native uuid
     @Id
-    private String attendanceId;
+    private UUID attendanceId;
 
     @ManyToOne
     @JoinColumn(name = "studentId", nullable = false)
@@ -27,7 +48,10 @@ public class Attendance {
     @JoinColumn(name = "sessionId")
     private AttendanceSession session;
 
+    // The table is partitioned by month of date
+    @Column(nullable = false)
     private LocalDate date;
+
     private LocalTime timeIn;
 
     @Enumerated(EnumType.STRING)
@@ -36,6 +60,41 @@ public class Attendance {
     private String remarks;
     private String recordedBy; // Teacher ID who recorded it
 
+    // Bumped on every update, including the native upserts; stale writes are rejected
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Change tracking for GET /api/sync; the native writes set it too
+    private Instant updatedAt;
+
+    // IDs are assigned by us, so tell Spring Data which rows are new;
+    // otherwise save()/saveAll() issues a SELECT per row before inserting
+    @Transient
+    private boolean newRecord = false;
+
+    @Override
+    public UUID getId() {
+        return attendanceId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.newRecord = false;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = Instant.now();
+    }
+
     public enum Status {
         PRESENT, LATE, ABSENT, EXCUSED
     }
@@ -2,6 +2,7 @@ package com.tacs.attendancechecker.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
@@ -9,7 +10,12 @@ import java.time.LocalTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "attendance_session")
+@Table(name = "attendance_session",
+    indexes = {
+        @Index(name = "idx_attendance_session_updated_at", columnList = "updatedAt"),
+        @Index(name = "idx_attendance_session_course_date", columnList = "courseId, date")
+    }
+)
 public class AttendanceSession {
 
     @Id
@@ -34,4 +40,18 @@ public class AttendanceSession {
     private String sessionType;
     private Boolean isFinalized = false;
     private String remarks;
+
+    // Optimistic lock; clients send back the version they last read
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Change tracking for GET /api/sync
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = Instant.now();
+    }
 }
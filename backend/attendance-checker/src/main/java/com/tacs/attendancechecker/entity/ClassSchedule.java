@@ -2,6 +2,7 @@ package com.tacs.attendancechecker.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import java.time.Instant;
 import java.time.LocalTime;
 
 @Entity
@@ -33,4 +34,13 @@ public class ClassSchedule {
     private Classroom classroom;
 
     private Boolean isActive = true;
+
+    // Change tracking for GET /api/sync
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = Instant.now();
+    }
 }
@@ -0,0 +1,46 @@
+package com.tacs.attendancechecker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+
+// Attendance counts per course per day, kept in step with the attendance table
+// by the same statements that write it (see AttendanceRepository) and
+// reconciled nightly by AttendanceRollupService. Reports sum these rows instead
+// of loading attendance.
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "daily_course_attendance_rollup",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rollup_course_date", columnNames = {"courseId", "date"})
+    },
+    indexes = {
+        @Index(name = "idx_rollup_date", columnList = "date")
+    }
+)
+public class DailyCourseAttendanceRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long rollupId;
+
+    @Column(nullable = false)
+    private Integer courseId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int presentCount;
+
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int lateCount;
+
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int absentCount;
+
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int excusedCount;
+}
@@ -2,6 +2,7 @@ package com.tacs.attendancechecker.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Entity
@@ -11,6 +12,9 @@ import java.time.LocalDate;
 @Table(name = "enrollment",
     uniqueConstraints = {
         @UniqueConstraint(columnNames = {"studentId", "offeredCourseId"})
+    },
+    indexes = {
+        @Index(name = "idx_enrollment_offered_course_student", columnList = "offeredCourseId, studentId")
     }
 )
 public class Enrollment {
@@ -29,4 +33,13 @@ public class Enrollment {
 
     private LocalDate dateEnrolled;
     private String status; // ACTIVE, DROPPED, COMPLETED
+
+    // Change tracking for GET /api/sync
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = Instant.now();
+    }
 }
@@ -0,0 +1,36 @@
+package com.tacs.attendancechecker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+// Records a hard delete so GET /api/sync can tell clients to drop the row.
+// The owner columns scope it to the teacher and/or student who could see it.
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "sync_tombstone",
+    indexes = {
+        @Index(name = "idx_sync_tombstone_deleted_at", columnList = "deletedAt")
+    }
+)
+public class SyncTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long tombstoneId;
+
+    @Column(nullable = false)
+    private String entityType; // SESSION, ATTENDANCE, ENROLLMENT, SCHEDULE
+
+    @Column(nullable = false)
+    private String entityId;
+
+    private String teacherId;
+    private Integer studentId; // Null when the row was visible to the whole course
+    private Integer courseId;
+
+    @Column(nullable = false)
+    private Instant deletedAt;
+}
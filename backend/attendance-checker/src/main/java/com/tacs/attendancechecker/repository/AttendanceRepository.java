@@ -1,14 +1,25 @@
 package com.tacs.attendancechecker.repository;
 
+import com.tacs.attendancechecker.dto.AttendanceResponse;
+import com.tacs.attendancechecker.dto.SyncResponse;
 import com.tacs.attendancechecker.entity.Attendance;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface AttendanceRepository extends JpaRepository<Attendance, String> {
+public interface AttendanceRepository extends JpaRepository<Attendance, UUID> {
     List<Attendance> findByStudentStudentId(Integer studentId);
 
     List<Attendance> findByCourseCourseId(Integer courseId);
@@ -18,18 +29,285 @@ public interface AttendanceRepository extends JpaRepository<Attendance, String>
     Optional<Attendance> findByStudentStudentIdAndCourseCourseIdAndDate(Integer studentId, Integer courseId,
             LocalDate date);
 
-    Optional<Attendance> findByStudentStudentIdAndSessionSessionId(Integer studentId, Integer sessionId);
-
     List<Attendance> findBySessionSessionId(Integer sessionId);
 
-    // Report-specific queries
-    List<Attendance> findByDate(LocalDate date);
+    // Loads a session's rows together with their students in one query (bulk marking)
+    @Query("SELECT a FROM Attendance a JOIN FETCH a.student s JOIN FETCH s.user WHERE a.session.sessionId = :sessionId")
+    List<Attendance> findBySessionIdWithStudents(@Param("sessionId") Integer sessionId);
+
+    // Read endpoints: flat response rows in one statement, without loading the
+    // marks' sessions (and their teachers and schedules) one by one
+    String RESPONSE_SELECT = "SELECT new com.tacs.attendancechecker.dto.AttendanceResponse(a.attendanceId, " +
+           "s.studentId, u.fname, u.lname, c.courseId, c.courseName, ss.sessionId, a.date, a.timeIn, a.status, " +
+           "a.remarks, a.version) FROM Attendance a JOIN a.student s JOIN s.user u JOIN a.course c " +
+           "LEFT JOIN a.session ss ";
+
+    @Query(RESPONSE_SELECT + "WHERE a.course.courseId = :courseId AND a.date = :date")
+    List<AttendanceResponse> findResponsesByCourseIdAndDate(@Param("courseId") Integer courseId,
+            @Param("date") LocalDate date);
+
+    @Query(RESPONSE_SELECT + "WHERE a.session.sessionId = :sessionId")
+    List<AttendanceResponse> findResponsesBySessionId(@Param("sessionId") Integer sessionId);
+
+    @Query(RESPONSE_SELECT + "WHERE a.course.courseId = :courseId")
+    List<AttendanceResponse> findResponsesByCourseId(@Param("courseId") Integer courseId);
+
+    @Query(RESPONSE_SELECT + "WHERE a.session.sessionId = :sessionId AND a.student.studentId = :studentId")
+    Optional<AttendanceResponse> findResponseBySessionIdAndStudentId(@Param("sessionId") Integer sessionId,
+            @Param("studentId") Integer studentId);
+
+    @Query(RESPONSE_SELECT + "WHERE a.course.courseId = :courseId AND a.student.studentId = :studentId")
+    List<AttendanceResponse> findResponsesByCourseIdAndStudentId(@Param("courseId") Integer courseId,
+            @Param("studentId") Integer studentId);
+
+    // Sync: marks in the teacher's sessions changed since the cursor
+    @Query("SELECT new com.tacs.attendancechecker.dto.SyncResponse$AttendanceChange(a.attendanceId, a.student.studentId, " +
+           "a.course.courseId, ss.sessionId, a.date, a.timeIn, a.status, a.remarks, a.version, a.updatedAt) " +
+           "FROM Attendance a JOIN a.session ss WHERE ss.teacher.teacherId = :teacherId AND a.updatedAt > :since")
+    List<SyncResponse.AttendanceChange> findTeacherChangesSince(@Param("teacherId") String teacherId,
+                                                                @Param("since") Instant since);
+
+    // Sync: the student's own marks changed since the cursor
+    @Query("SELECT new com.tacs.attendancechecker.dto.SyncResponse$AttendanceChange(a.attendanceId, a.student.studentId, " +
+           "a.course.courseId, ss.sessionId, a.date, a.timeIn, a.status, a.remarks, a.version, a.updatedAt) " +
+           "FROM Attendance a LEFT JOIN a.session ss WHERE a.student.studentId = :studentId AND a.updatedAt > :since")
+    List<SyncResponse.AttendanceChange> findStudentChangesSince(@Param("studentId") Integer studentId,
+                                                                @Param("since") Instant since);
+
+    // A row written by the native mark writes, with its student's and course's
+    // names so the response needs no read-back, and the status it had before
+    // (null for a new row) for the rollup, dashboard and analytics
+    interface WrittenMark {
+        UUID getAttendanceId();
+        Integer getStudentId();
+        String getFirstName();
+        String getLastName();
+        Integer getCourseId();
+        String getCourseName();
+        Integer getSessionId();
+        LocalDate getDate();
+        LocalTime getTimeIn();
+        Attendance.Status getStatus();
+        String getRemarks();
+        Long getVersion();
+        Attendance.Status getPrevious();
+
+        default AttendanceResponse toResponse() {
+            return new AttendanceResponse(getAttendanceId(), getStudentId(), getFirstName(), getLastName(),
+                    getCourseId(), getCourseName(), getSessionId(), getDate(), getTimeIn(), getStatus(),
+                    getRemarks(), getVersion());
+        }
+    }
+
+    // The native mark writes end with these: "w" holds the written rows and their
+    // previous status, which move the course-day rollup and are returned as WrittenMarks
+    String ROLL_UP_WRITTEN = "roll AS (INSERT INTO daily_course_attendance_rollup "
+            + "(course_id, date, present_count, late_count, absent_count, excused_count) "
+            + "SELECT w.course_id, w.date, "
+            + "(CASE w.status WHEN 'PRESENT' THEN 1 ELSE 0 END) - (CASE w.prev_status WHEN 'PRESENT' THEN 1 ELSE 0 END), "
+            + "(CASE w.status WHEN 'LATE' THEN 1 ELSE 0 END) - (CASE w.prev_status WHEN 'LATE' THEN 1 ELSE 0 END), "
+            + "(CASE w.status WHEN 'ABSENT' THEN 1 ELSE 0 END) - (CASE w.prev_status WHEN 'ABSENT' THEN 1 ELSE 0 END), "
+            + "(CASE w.status WHEN 'EXCUSED' THEN 1 ELSE 0 END) - (CASE w.prev_status WHEN 'EXCUSED' THEN 1 ELSE 0 END) "
+            + "FROM w "
+            + "ON CONFLICT (course_id, date) DO UPDATE SET "
+            + "present_count = daily_course_attendance_rollup.present_count + EXCLUDED.present_count, "
+            + "late_count = daily_course_attendance_rollup.late_count + EXCLUDED.late_count, "
+            + "absent_count = daily_course_attendance_rollup.absent_count + EXCLUDED.absent_count, "
+            + "excused_count = daily_course_attendance_rollup.excused_count + EXCLUDED.excused_count) "
+            + "SELECT w.attendance_id AS attendanceId, w.student_id AS studentId, u.fname AS firstName, "
+            + "u.lname AS lastName, w.course_id AS courseId, c.course_name AS courseName, w.session_id AS sessionId, "
+            + "w.date AS date, w.time_in AS timeIn, w.status AS status, w.remarks AS remarks, w.version AS version, "
+            + "w.prev_status AS previous FROM w JOIN student st ON st.student_id = w.student_id "
+            + "JOIN users u ON u.user_id = st.user_id JOIN course c ON c.course_id = w.course_id";
+
+    // Insert or update a student's mark for a session, keeping the course-day rollup
+    // in step, in one statement. If another writer inserts the row between this
+    // statement's snapshot and its insert, neither branch writes; the row is then
+    // updated under a row lock, so the update still sees the previous status.
+    // Returns null if the session does not exist.
+    @Transactional
+    default WrittenMark upsertAttendance(UUID attendanceId, Integer studentId, Integer sessionId,
+            LocalTime timeIn, String status, String remarks, Instant updatedAt) {
+        WrittenMark written = writeAttendance(attendanceId, studentId, sessionId, timeIn, status, remarks, updatedAt);
+        if (written != null) {
+            return written;
+        }
+        return updateAttendance(studentId, sessionId, timeIn, status, remarks, null, updatedAt);
+    }
+
+    // Update the student's row for the session if there is one (locking it, so the
+    // previous status is the latest), otherwise insert it with course and date from
+    // the session. The unique key includes the date (the partition key), so a row
+    // left at an earlier date of a rescheduled session is looked for by session alone.
+    @Transactional
+    @Query(value = "WITH prev AS (SELECT attendance_id, status FROM attendance "
+            + "WHERE student_id = :studentId AND session_id = :sessionId FOR UPDATE), "
+            + "ins AS (INSERT INTO attendance (attendance_id, student_id, course_id, session_id, date, "
+            + "time_in, status, remarks, updated_at) "
+            + "SELECT :attendanceId, :studentId, s.course_id, s.session_id, s.date, "
+            + "CAST(:timeIn AS time), :status, :remarks, :updatedAt "
+            + "FROM attendance_session s WHERE s.session_id = :sessionId AND NOT EXISTS (SELECT 1 FROM prev) "
+            + "ON CONFLICT (student_id, session_id, date) DO NOTHING "
+            + "RETURNING attendance_id, student_id, course_id, session_id, date, time_in, status, remarks, version, "
+            + "CAST(NULL AS varchar) AS prev_status), "
+            + "up AS (UPDATE attendance a SET status = :status, remarks = :remarks, "
+            + "time_in = COALESCE(CAST(:timeIn AS time), a.time_in), version = a.version + 1, updated_at = :updatedAt "
+            + "FROM prev WHERE a.attendance_id = prev.attendance_id "
+            + "RETURNING a.attendance_id, a.student_id, a.course_id, a.session_id, a.date, a.time_in, a.status, "
+            + "a.remarks, a.version, prev.status AS prev_status), "
+            + "w AS (SELECT * FROM ins UNION ALL SELECT * FROM up), " + ROLL_UP_WRITTEN, nativeQuery = true)
+    WrittenMark writeAttendance(@Param("attendanceId") UUID attendanceId,
+            @Param("studentId") Integer studentId,
+            @Param("sessionId") Integer sessionId,
+            @Param("timeIn") LocalTime timeIn,
+            @Param("status") String status,
+            @Param("remarks") String remarks,
+            @Param("updatedAt") Instant updatedAt);
+
+    // Update a student's mark for a session, moving the course-day rollup from the
+    // previous status to the new one. With a version, the update applies only if the
+    // row is still at the version the client last read. Returns null if the row does
+    // not exist or has changed since.
+    @Transactional
+    @Query(value = "WITH prev AS (SELECT attendance_id, status FROM attendance "
+            + "WHERE student_id = :studentId AND session_id = :sessionId FOR UPDATE), "
+            + "w AS (UPDATE attendance a SET status = :status, remarks = :remarks, "
+            + "time_in = COALESCE(CAST(:timeIn AS time), a.time_in), version = a.version + 1, updated_at = :updatedAt "
+            + "FROM prev WHERE a.attendance_id = prev.attendance_id "
+            + "AND (CAST(:version AS bigint) IS NULL OR a.version = CAST(:version AS bigint)) "
+            + "RETURNING a.attendance_id, a.student_id, a.course_id, a.session_id, a.date, a.time_in, a.status, "
+            + "a.remarks, a.version, prev.status AS prev_status), " + ROLL_UP_WRITTEN, nativeQuery = true)
+    WrittenMark updateAttendance(@Param("studentId") Integer studentId,
+            @Param("sessionId") Integer sessionId,
+            @Param("timeIn") LocalTime timeIn,
+            @Param("status") String status,
+            @Param("remarks") String remarks,
+            @Param("version") Long version,
+            @Param("updatedAt") Instant updatedAt);
+
+    // On finalize: one ABSENT row for every actively enrolled student of the session's
+    // section who has no row yet. The section is the schedule's offered course, or the
+    // session teacher's offered course(s) for this course when there is no schedule.
+    // IDs are time-ordered UUIDs (v7) built in SQL. The new rows are added to the
+    // course-day rollup; returns how many were filled. Safe to run again.
+    @Transactional
+    @Query(value = "WITH ins AS (INSERT INTO attendance "
+            + "(attendance_id, student_id, course_id, session_id, date, status, updated_at) "
+            + "SELECT encode(set_bit(set_bit(overlay(uuid_send(gen_random_uuid()) "
+            + "placing substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3) "
+            + "FROM 1 FOR 6), 52, 1), 53, 1), 'hex')::uuid, "
+            + "m.student_id, m.course_id, m.session_id, m.date, 'ABSENT', :updatedAt "
+            + "FROM (SELECT DISTINCT e.student_id, s.course_id, s.session_id, s.date "
+            + "FROM attendance_session s "
+            + "LEFT JOIN class_schedule cs ON cs.schedule_id = s.schedule_id "
+            + "JOIN offered_course oc ON (cs.schedule_id IS NOT NULL AND oc.offered_course_id = cs.offered_course_id) "
+            + "OR (cs.schedule_id IS NULL AND oc.course_id = s.course_id AND oc.teacher_id = s.teacher_id) "
+            + "JOIN enrollment e ON e.offered_course_id = oc.offered_course_id AND e.status = 'ACTIVE' "
+            + "WHERE s.session_id = :sessionId "
+            + "AND NOT EXISTS (SELECT 1 FROM attendance a "
+            + "WHERE a.student_id = e.student_id AND a.session_id = s.session_id)) m "
+            + "ON CONFLICT (student_id, session_id, date) DO NOTHING RETURNING course_id, date), "
+            + "roll AS (INSERT INTO daily_course_attendance_rollup "
+            + "(course_id, date, present_count, late_count, absent_count, excused_count) "
+            + "SELECT course_id, date, 0, 0, count(*), 0 FROM ins GROUP BY course_id, date "
+            + "ON CONFLICT (course_id, date) DO UPDATE SET "
+            + "present_count = daily_course_attendance_rollup.present_count + EXCLUDED.present_count, "
+            + "late_count = daily_course_attendance_rollup.late_count + EXCLUDED.late_count, "
+            + "absent_count = daily_course_attendance_rollup.absent_count + EXCLUDED.absent_count, "
+            + "excused_count = daily_course_attendance_rollup.excused_count + EXCLUDED.excused_count) "
+            + "SELECT count(*) FROM ins", nativeQuery = true)
+    long insertMissingAbsences(@Param("sessionId") Integer sessionId, @Param("updatedAt") Instant updatedAt);
+
+    // A student's mark for one session, for the analytics index. A constructor
+    // result rather than an interface projection, since a course can have many rows
+    record SessionMark(Integer studentId, Integer sessionId, Attendance.Status status) {
+    }
+
+    @Query("SELECT new com.tacs.attendancechecker.repository.AttendanceRepository$SessionMark(" +
+           "a.student.studentId, a.session.sessionId, a.status) " +
+           "FROM Attendance a WHERE a.course.courseId = :courseId AND a.session IS NOT NULL")
+    List<SessionMark> findSessionMarksByCourseId(@Param("courseId") Integer courseId);
+
+    // Per-status counts and the dates they span, for report summaries
+    interface StatusCount {
+        Attendance.Status getStatus();
+        long getTotal();
+        LocalDate getFirstDate();
+        LocalDate getLastDate();
+    }
+
+    @Query("SELECT a.status AS status, COUNT(a) AS total, MIN(a.date) AS firstDate, MAX(a.date) AS lastDate " +
+           "FROM Attendance a WHERE a.course.courseId = :courseId GROUP BY a.status")
+    List<StatusCount> countByStatusForCourse(@Param("courseId") Integer courseId);
+
+    @Query("SELECT a.status AS status, COUNT(a) AS total, MIN(a.date) AS firstDate, MAX(a.date) AS lastDate " +
+           "FROM Attendance a WHERE a.student.studentId = :studentId GROUP BY a.status")
+    List<StatusCount> countByStatusForStudent(@Param("studentId") Integer studentId);
+
+    // An offered course's marks in a date range: those in its schedules' sessions, or in the
+    // teacher's unscheduled sessions for the course (as when finalizing a session)
+    @Query("SELECT a.status AS status, COUNT(a) AS total, MIN(a.date) AS firstDate, MAX(a.date) AS lastDate " +
+           "FROM Attendance a JOIN a.session s LEFT JOIN s.classSchedule cs " +
+           "WHERE a.course.courseId = :courseId AND a.date BETWEEN :startDate AND :endDate " +
+           "AND ((cs IS NOT NULL AND cs.offeredCourse.offeredCourseId = :offeredCourseId) " +
+           "OR (cs IS NULL AND s.teacher.teacherId = :teacherId)) GROUP BY a.status")
+    List<StatusCount> countByStatusForOfferedCourse(@Param("offeredCourseId") Integer offeredCourseId,
+            @Param("courseId") Integer courseId,
+            @Param("teacherId") String teacherId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    // A report record with its student's and course's names, read in the same
+    // statement; a constructor result so no entity (or its eager session) is loaded
+    record ReportRow(UUID attendanceId, LocalDate date, Integer studentId, String firstName, String lastName,
+            String courseCode, String courseName, Attendance.Status status, LocalTime timeIn, String remarks) {
+    }
+
+    // Report records, newest first by (date, attendanceId), read a page at a time.
+    // The *After variants continue strictly past the last row of the previous
+    // page; the row comparison is matched by an index for each filter
+    String REPORT_SELECT = "SELECT new com.tacs.attendancechecker.repository.AttendanceRepository$ReportRow(" +
+            "a.attendanceId, a.date, s.studentId, u.fname, u.lname, c.courseCode, c.courseName, a.status, " +
+            "a.timeIn, a.remarks) FROM Attendance a JOIN a.student s JOIN s.user u JOIN a.course c ";
+    String REPORT_AFTER = "AND (a.date, a.attendanceId) < (:afterDate, :afterId) ";
+    String REPORT_ORDER = "ORDER BY a.date DESC, a.attendanceId DESC";
+
+    @Query(REPORT_SELECT + "WHERE a.date BETWEEN :startDate AND :endDate " + REPORT_ORDER)
+    List<ReportRow> findPageByDateBetween(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate, Limit limit);
+
+    @Query(REPORT_SELECT + "WHERE a.date BETWEEN :startDate AND :endDate " + REPORT_AFTER + REPORT_ORDER)
+    List<ReportRow> findPageByDateBetweenAfter(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate, @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") UUID afterId, Limit limit);
+
+    @Query(REPORT_SELECT + "WHERE a.course.courseId = :courseId " + REPORT_ORDER)
+    List<ReportRow> findPageByCourseId(@Param("courseId") Integer courseId, Limit limit);
+
+    @Query(REPORT_SELECT + "WHERE a.course.courseId = :courseId " + REPORT_AFTER + REPORT_ORDER)
+    List<ReportRow> findPageByCourseIdAfter(@Param("courseId") Integer courseId,
+            @Param("afterDate") LocalDate afterDate, @Param("afterId") UUID afterId, Limit limit);
+
+    @Query(REPORT_SELECT + "WHERE a.student.studentId = :studentId " + REPORT_ORDER)
+    List<ReportRow> findPageByStudentId(@Param("studentId") Integer studentId, Limit limit);
+
+    @Query(REPORT_SELECT + "WHERE a.student.studentId = :studentId " + REPORT_AFTER + REPORT_ORDER)
+    List<ReportRow> findPageByStudentIdAfter(@Param("studentId") Integer studentId,
+            @Param("afterDate") LocalDate afterDate, @Param("afterId") UUID afterId, Limit limit);
+
+    // CSV export: the same rows and order as the report pages, read from a
+    // server-side cursor (needs a transaction)
 
-    List<Attendance> findByDateBetween(LocalDate startDate, LocalDate endDate);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(REPORT_SELECT + "WHERE a.date BETWEEN :startDate AND :endDate " + REPORT_ORDER)
+    Stream<ReportRow> streamByDateBetween(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
 
-    @Query("SELECT a FROM Attendance a WHERE a.course.courseId = :courseId")
-    List<Attendance> findByCourseId(@Param("courseId") Integer courseId);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(REPORT_SELECT + "WHERE a.course.courseId = :courseId " + REPORT_ORDER)
+    Stream<ReportRow> streamByCourseId(@Param("courseId") Integer courseId);
 
-    @Query("SELECT a FROM Attendance a WHERE a.student.studentId = :studentId")
-    List<Attendance> findByStudentId(@Param("studentId") Integer studentId);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(REPORT_SELECT + "WHERE a.student.studentId = :studentId " + REPORT_ORDER)
+    Stream<ReportRow> streamByStudentId(@Param("studentId") Integer studentId);
 }
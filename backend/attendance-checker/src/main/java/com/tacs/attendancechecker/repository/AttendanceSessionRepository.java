@@ -1,7 +1,12 @@
 package com.tacs.attendancechecker.repository;
 
 import com.tacs.attendancechecker.entity.AttendanceSession;
+import com.tacs.attendancechecker.dto.SyncResponse;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -13,4 +18,29 @@ public interface AttendanceSessionRepository extends JpaRepository<AttendanceSes
     List<AttendanceSession> findByCourseCourseIdAndDate(Integer courseId, LocalDate date);
 
     List<AttendanceSession> findByClassScheduleScheduleId(Integer scheduleId);
+
+    // A course's session IDs in the order they were held
+    @Query("SELECT s.sessionId FROM AttendanceSession s WHERE s.course.courseId = :courseId " +
+           "ORDER BY s.date, s.startTime, s.sessionId")
+    List<Integer> findIdsByCourseInOrder(@Param("courseId") Integer courseId);
+
+    // Sync: sessions changed since the cursor
+    @Query("SELECT new com.tacs.attendancechecker.dto.SyncResponse$SessionChange(s.sessionId, s.course.courseId, " +
+           "s.teacher.teacherId, cs.scheduleId, s.date, s.startTime, s.endTime, s.sessionType, s.isFinalized, " +
+           "s.remarks, s.version, s.updatedAt) FROM AttendanceSession s LEFT JOIN s.classSchedule cs " +
+           "WHERE s.teacher.teacherId = :teacherId AND s.updatedAt > :since")
+    List<SyncResponse.SessionChange> findTeacherChangesSince(@Param("teacherId") String teacherId,
+                                                             @Param("since") Instant since);
+
+    // Sync: sessions of the student's courses changed since the cursor, or all of them
+    // for courses whose enrollment changed (e.g. newly enrolled)
+    @Query("SELECT new com.tacs.attendancechecker.dto.SyncResponse$SessionChange(s.sessionId, s.course.courseId, " +
+           "s.teacher.teacherId, cs.scheduleId, s.date, s.startTime, s.endTime, s.sessionType, s.isFinalized, " +
+           "s.remarks, s.version, s.updatedAt) FROM AttendanceSession s LEFT JOIN s.classSchedule cs " +
+           "WHERE s.course.courseId IN (SELECT e.offeredCourse.course.courseId FROM Enrollment e " +
+           "WHERE e.student.studentId = :studentId) AND (s.updatedAt > :since OR s.course.courseId IN " +
+           "(SELECT e2.offeredCourse.course.courseId FROM Enrollment e2 " +
+           "WHERE e2.student.studentId = :studentId AND e2.updatedAt > :since))")
+    List<SyncResponse.SessionChange> findStudentChangesSince(@Param("studentId") Integer studentId,
+                                                             @Param("since") Instant since);
 }
@@ -1,5 +1,6 @@
 package com.tacs.attendancechecker.repository;
 
+import com.tacs.attendancechecker.dto.SyncResponse;
 import com.tacs.attendancechecker.entity.ClassSchedule;
 import com.tacs.attendancechecker.entity.OfferedCourse;
 import com.tacs.attendancechecker.entity.Classroom;
@@ -8,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.time.LocalTime;
 import java.util.List;
 
@@ -17,7 +19,6 @@ public interface ClassScheduleRepository extends JpaRepository<ClassSchedule, In
     List<ClassSchedule> findByOfferedCourseCourseCourseId(Integer courseId);
     List<ClassSchedule> findByDayOfWeek(String dayOfWeek);
     List<ClassSchedule> findByClassroom(Classroom classroom);
-    List<ClassSchedule> findByIsActive(Boolean isActive);
     
     // Check for schedule conflicts
     @Query("SELECT cs FROM ClassSchedule cs WHERE cs.classroom.classroomId = :classroomId " +
@@ -30,4 +31,24 @@ public interface ClassScheduleRepository extends JpaRepository<ClassSchedule, In
         @Param("startTime") LocalTime startTime,
         @Param("endTime") LocalTime endTime
     );
+
+    // Sync: schedules of the teacher's offered courses changed since the cursor
+    @Query("SELECT new com.tacs.attendancechecker.dto.SyncResponse$ScheduleChange(cs.scheduleId, " +
+           "cs.offeredCourse.offeredCourseId, cs.offeredCourse.course.courseId, cs.dayOfWeek, cs.startTime, cs.endTime, " +
+           "cs.classroom.classroomId, cs.isActive, cs.updatedAt) FROM ClassSchedule cs " +
+           "WHERE cs.offeredCourse.teacher.teacherId = :teacherId AND cs.updatedAt > :since")
+    List<SyncResponse.ScheduleChange> findTeacherChangesSince(@Param("teacherId") String teacherId,
+                                                              @Param("since") Instant since);
+
+    // Sync: schedules of the student's offered courses changed since the cursor, or all of
+    // them for offered courses whose enrollment changed
+    @Query("SELECT new com.tacs.attendancechecker.dto.SyncResponse$ScheduleChange(cs.scheduleId, " +
+           "cs.offeredCourse.offeredCourseId, cs.offeredCourse.course.courseId, cs.dayOfWeek, cs.startTime, cs.endTime, " +
+           "cs.classroom.classroomId, cs.isActive, cs.updatedAt) FROM ClassSchedule cs " +
+           "WHERE cs.offeredCourse.offeredCourseId IN (SELECT e.offeredCourse.offeredCourseId FROM Enrollment e " +
+           "WHERE e.student.studentId = :studentId) AND (cs.updatedAt > :since OR cs.offeredCourse.offeredCourseId IN " +
+           "(SELECT e2.offeredCourse.offeredCourseId FROM Enrollment e2 " +
+           "WHERE e2.student.studentId = :studentId AND e2.updatedAt > :since))")
+    List<SyncResponse.ScheduleChange> findStudentChangesSince(@Param("studentId") Integer studentId,
+                                                              @Param("since") Instant since);
 }
@@ -1,7 +1,17 @@
 package com.tacs.attendancechecker.repository;
 
 import com.tacs.attendancechecker.entity.Classroom;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface ClassroomRepository extends JpaRepository<Classroom, Integer> {
+
+    // Served from the query cache until a classroom is written
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Classroom> findAll();
 }
@@ -1,10 +1,18 @@
 package com.tacs.attendancechecker.repository;
 
 import com.tacs.attendancechecker.entity.Course;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.util.List;
 
 public interface CourseRepository extends JpaRepository<Course, Integer> {
     // Removed findByTeacherTeacherId - Course no longer has teacher field
     // Teacher association is now in OfferedCourse
+
+    // Served from the query cache until a course is written
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Course> findAll();
 }
@@ -0,0 +1,85 @@
+package com.tacs.attendancechecker.repository;
+
+import com.tacs.attendancechecker.entity.DailyCourseAttendanceRollup;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+public interface DailyCourseAttendanceRollupRepository extends JpaRepository<DailyCourseAttendanceRollup, Long> {
+
+    // The table the native writes below touch. Without it Hibernate can't tell what
+    // a native update changed and clears every second-level cache region and the
+    // query cache after each one.
+    String TABLE = "daily_course_attendance_rollup";
+
+    // Summed counts over all courses for a date range
+    interface Totals {
+        long getPresent();
+        long getLate();
+        long getAbsent();
+        long getExcused();
+    }
+
+    @Query("SELECT COALESCE(SUM(r.presentCount), 0) AS present, COALESCE(SUM(r.lateCount), 0) AS late, " +
+           "COALESCE(SUM(r.absentCount), 0) AS absent, COALESCE(SUM(r.excusedCount), 0) AS excused " +
+           "FROM DailyCourseAttendanceRollup r WHERE r.date BETWEEN :startDate AND :endDate")
+    Totals sumBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Add signed per-status deltas to one course-day
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = TABLE))
+    @Query(value = "INSERT INTO daily_course_attendance_rollup "
+            + "(course_id, date, present_count, late_count, absent_count, excused_count) "
+            + "VALUES (:courseId, :date, :present, :late, :absent, :excused) "
+            + "ON CONFLICT (course_id, date) DO UPDATE SET "
+            + "present_count = daily_course_attendance_rollup.present_count + EXCLUDED.present_count, "
+            + "late_count = daily_course_attendance_rollup.late_count + EXCLUDED.late_count, "
+            + "absent_count = daily_course_attendance_rollup.absent_count + EXCLUDED.absent_count, "
+            + "excused_count = daily_course_attendance_rollup.excused_count + EXCLUDED.excused_count",
+            nativeQuery = true)
+    int applyDelta(@Param("courseId") Integer courseId,
+            @Param("date") LocalDate date,
+            @Param("present") int present,
+            @Param("late") int late,
+            @Param("absent") int absent,
+            @Param("excused") int excused);
+
+    // Blocks the rollup writes (and so the mark writes they are part of) until the
+    // transaction ends; reads are not blocked
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = TABLE))
+    @Query(value = "LOCK TABLE daily_course_attendance_rollup IN SHARE ROW EXCLUSIVE MODE", nativeQuery = true)
+    void lockAgainstWriters();
+
+    // Recount every course-day in the range from the attendance table; only rows that drifted are written
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = TABLE))
+    @Query(value = "INSERT INTO daily_course_attendance_rollup "
+            + "(course_id, date, present_count, late_count, absent_count, excused_count) "
+            + "SELECT a.course_id, a.date, "
+            + "count(*) FILTER (WHERE a.status = 'PRESENT'), count(*) FILTER (WHERE a.status = 'LATE'), "
+            + "count(*) FILTER (WHERE a.status = 'ABSENT'), count(*) FILTER (WHERE a.status = 'EXCUSED') "
+            + "FROM attendance a WHERE a.date BETWEEN :startDate AND :endDate GROUP BY a.course_id, a.date "
+            + "ON CONFLICT (course_id, date) DO UPDATE SET "
+            + "present_count = EXCLUDED.present_count, late_count = EXCLUDED.late_count, "
+            + "absent_count = EXCLUDED.absent_count, excused_count = EXCLUDED.excused_count "
+            + "WHERE (daily_course_attendance_rollup.present_count, daily_course_attendance_rollup.late_count, "
+            + "daily_course_attendance_rollup.absent_count, daily_course_attendance_rollup.excused_count) "
+            + "IS DISTINCT FROM (EXCLUDED.present_count, EXCLUDED.late_count, "
+            + "EXCLUDED.absent_count, EXCLUDED.excused_count)", nativeQuery = true)
+    int recount(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Drop course-days in the range that no longer have any attendance
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = TABLE))
+    @Query(value = "DELETE FROM daily_course_attendance_rollup r WHERE r.date BETWEEN :startDate AND :endDate "
+            + "AND NOT EXISTS (SELECT 1 FROM attendance a WHERE a.course_id = r.course_id AND a.date = r.date)",
+            nativeQuery = true)
+    int deleteEmpty(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
@@ -1,7 +1,14 @@
 package com.tacs.attendancechecker.repository;
 
+import com.tacs.attendancechecker.dto.EnrolledStudentResponse;
+import com.tacs.attendancechecker.dto.SyncResponse;
 import com.tacs.attendancechecker.entity.Enrollment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Integer> {
@@ -9,4 +16,43 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Integer>
     List<Enrollment> findByOfferedCourseCourseCourseId(Integer courseId);
     List<Enrollment> findByOfferedCourseOfferedCourseId(Integer offeredCourseId);
     boolean existsByStudentStudentIdAndOfferedCourseOfferedCourseId(Integer studentId, Integer offeredCourseId);
+    boolean existsByStudentStudentIdAndOfferedCourseOfferedCourseIdAndStatus(Integer studentId, Integer offeredCourseId, String status);
+    boolean existsByStudentStudentIdAndOfferedCourseCourseCourseIdAndStatus(Integer studentId, Integer courseId, String status);
+
+    interface CourseCount {
+        Integer getCourseId();
+        Long getTotal();
+    }
+
+    // How many enrollments each of the courses has, in one grouped query
+    @Query("SELECT e.offeredCourse.course.courseId AS courseId, COUNT(e) AS total FROM Enrollment e " +
+           "WHERE e.offeredCourse.course.courseId IN :courseIds GROUP BY e.offeredCourse.course.courseId")
+    List<CourseCount> countByCourseIds(@Param("courseIds") Collection<Integer> courseIds);
+
+    // Enrollments of a course with their students and users, for loading a roster in one query
+    @Query("SELECT e FROM Enrollment e JOIN FETCH e.student s JOIN FETCH s.user WHERE e.offeredCourse.course.courseId = :courseId")
+    List<Enrollment> findRosterByCourseId(@Param("courseId") Integer courseId);
+
+    // The course's active students as response rows, in one statement
+    @Query("SELECT new com.tacs.attendancechecker.dto.EnrolledStudentResponse(s.studentId, s.studentNumber, " +
+           "u.fname, u.lname, u.email, s.program, s.yearLevel, s.enrollmentStatus) " +
+           "FROM Enrollment e JOIN e.student s JOIN s.user u " +
+           "WHERE e.offeredCourse.course.courseId = :courseId AND UPPER(s.enrollmentStatus) = 'ACTIVE'")
+    List<EnrolledStudentResponse> findActiveStudentsByCourseId(@Param("courseId") Integer courseId);
+
+    // Sync: enrollments in the teacher's offered courses changed since the cursor
+    @Query("SELECT new com.tacs.attendancechecker.dto.SyncResponse$EnrollmentChange(e.enrollmentId, e.student.studentId, " +
+           "e.offeredCourse.offeredCourseId, e.offeredCourse.course.courseId, e.status, e.dateEnrolled, e.updatedAt) " +
+           "FROM Enrollment e " +
+           "WHERE e.offeredCourse.teacher.teacherId = :teacherId AND e.updatedAt > :since")
+    List<SyncResponse.EnrollmentChange> findTeacherChangesSince(@Param("teacherId") String teacherId,
+                                                                @Param("since") Instant since);
+
+    // Sync: the student's own enrollments changed since the cursor
+    @Query("SELECT new com.tacs.attendancechecker.dto.SyncResponse$EnrollmentChange(e.enrollmentId, e.student.studentId, " +
+           "e.offeredCourse.offeredCourseId, e.offeredCourse.course.courseId, e.status, e.dateEnrolled, e.updatedAt) " +
+           "FROM Enrollment e " +
+           "WHERE e.student.studentId = :studentId AND e.updatedAt > :since")
+    List<SyncResponse.EnrollmentChange> findStudentChangesSince(@Param("studentId") Integer studentId,
+                                                                @Param("since") Instant since);
 }
@@ -1,10 +1,23 @@
 package com.tacs.attendancechecker.repository;
 
+import com.tacs.attendancechecker.entity.Course;
 import com.tacs.attendancechecker.entity.OfferedCourse;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 
 public interface OfferedCourseRepository extends JpaRepository<OfferedCourse, Integer> {
     List<OfferedCourse> findByTeacherTeacherId(String teacherId);
     List<OfferedCourse> findByCourseCourseId(Integer courseId);
+
+    // The courses a teacher offers, each once, without loading the offered courses
+    @Query("SELECT DISTINCT c FROM OfferedCourse oc JOIN oc.course c WHERE oc.teacher.teacherId = :teacherId")
+    List<Course> findCoursesByTeacherId(@Param("teacherId") String teacherId);
+
+    // Department report: offered courses of the department's teachers, with everything it prints
+    @Query("SELECT oc FROM OfferedCourse oc JOIN FETCH oc.teacher t JOIN FETCH t.user JOIN FETCH oc.course " +
+           "JOIN FETCH oc.classroom WHERE t.department.departmentId = :departmentId")
+    List<OfferedCourse> findByDepartmentId(@Param("departmentId") Integer departmentId);
 }
@@ -3,9 +3,18 @@ package com.tacs.attendancechecker.repository;
 import com.tacs.attendancechecker.entity.Student;
 import com.tacs.attendancechecker.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface StudentRepository extends JpaRepository<Student, Integer> {
     Optional<Student> findByUser(User user);
+
+    Optional<Student> findByUserEmail(String email);
+
+    @Query("SELECT s FROM Student s JOIN FETCH s.user WHERE s.studentId IN :studentIds")
+    List<Student> findAllWithUserByStudentIdIn(@Param("studentIds") Collection<Integer> studentIds);
 }
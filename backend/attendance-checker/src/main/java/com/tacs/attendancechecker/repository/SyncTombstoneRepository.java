@@ -0,0 +1,31 @@
+package com.tacs.attendancechecker.repository;
+
+import com.tacs.attendancechecker.dto.SyncResponse;
+import com.tacs.attendancechecker.entity.SyncTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstone, Long> {
+
+    @Query("SELECT new com.tacs.attendancechecker.dto.SyncResponse$Deletion(t.entityType, t.entityId, t.deletedAt) " +
+           "FROM SyncTombstone t WHERE t.teacherId = :teacherId AND t.deletedAt > :since")
+    List<SyncResponse.Deletion> findTeacherDeletionsSince(@Param("teacherId") String teacherId,
+                                                          @Param("since") Instant since);
+
+    // Own rows, plus course-wide rows (sessions, schedules) of courses the student is enrolled in
+    @Query("SELECT new com.tacs.attendancechecker.dto.SyncResponse$Deletion(t.entityType, t.entityId, t.deletedAt) " +
+           "FROM SyncTombstone t WHERE t.deletedAt > :since AND (t.studentId = :studentId OR " +
+           "(t.studentId IS NULL AND t.courseId IN " +
+           "(SELECT e.offeredCourse.course.courseId FROM Enrollment e WHERE e.student.studentId = :studentId)))")
+    List<SyncResponse.Deletion> findStudentDeletionsSince(@Param("studentId") Integer studentId,
+                                                          @Param("since") Instant since);
+
+    @Modifying
+    @Query("DELETE FROM SyncTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteByDeletedAtBefore(@Param("cutoff") Instant cutoff);
+}
@@ -2,10 +2,23 @@ package com.tacs.attendancechecker.repository;
 
 import com.tacs.attendancechecker.entity.Teacher;
 import com.tacs.attendancechecker.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface TeacherRepository extends JpaRepository<Teacher, String> {
+    // Served from the query cache until a teacher (or, for the join, a user) is written
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Teacher> findByUser(User user);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT t FROM Teacher t JOIN FETCH t.user WHERE t.department.departmentId = :departmentId")
+    List<Teacher> findByDepartmentId(@Param("departmentId") Integer departmentId);
 }
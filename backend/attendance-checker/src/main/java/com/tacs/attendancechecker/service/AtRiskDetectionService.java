@@ -0,0 +1,356 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.entity.Attendance;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Nightly detection of students at risk from poor attendance.
+ *
+ * For every active enrollment this walks the student's marks in the offered
+ * course's sessions, in the order they were held, and flags the student when
+ * their absence rate reaches absence-rate-percent (once they have at least
+ * min-sessions marks) or their last consecutive-absences marks were all
+ * absences. The student and the offered course's teacher are notified; a
+ * student already notified about the course within renotify-days is skipped.
+ *
+ * Offered courses are checked in parallel on a fork/join pool. Each reads its
+ * enrollments a chunk at a time, in read-only transactions with plain JDBC
+ * rather than entities, and notifications are inserted in JDBC batches.
+ */
+@Service
+public class AtRiskDetectionService {
+
+    private static final Logger log = LoggerFactory.getLogger(AtRiskDetectionService.class);
+
+    public static final String NOTIFICATION_TYPE = "AT_RISK";
+
+    // notification.message is a varchar(255)
+    private static final int MAX_MESSAGE_LENGTH = 255;
+
+    private static final byte ABSENT = (byte) (Attendance.Status.ABSENT.ordinal() + 1);
+
+    private static final String OFFERED_COURSES_SQL = "SELECT oc.offered_course_id, oc.course_id, oc.teacher_id, "
+            + "t.user_id, c.course_code, oc.section FROM offered_course oc "
+            + "JOIN course c ON c.course_id = oc.course_id JOIN teacher t ON t.teacher_id = oc.teacher_id "
+            + "WHERE EXISTS (SELECT 1 FROM enrollment e "
+            + "WHERE e.offered_course_id = oc.offered_course_id AND e.status = 'ACTIVE')";
+
+    // The offered course's sessions: those of its schedules, or the teacher's
+    // unscheduled ones for the course (as when finalizing a session)
+    private static final String SESSIONS_SQL = "SELECT s.session_id FROM attendance_session s "
+            + "LEFT JOIN class_schedule cs ON cs.schedule_id = s.schedule_id "
+            + "WHERE s.course_id = ? AND ((cs.schedule_id IS NOT NULL AND cs.offered_course_id = ?) "
+            + "OR (cs.schedule_id IS NULL AND s.teacher_id = ?)) "
+            + "ORDER BY s.date, s.start_time, s.session_id";
+
+    private static final String ENROLLMENTS_SQL = "SELECT e.student_id, st.user_id, u.fname, u.lname "
+            + "FROM enrollment e JOIN student st ON st.student_id = e.student_id "
+            + "JOIN users u ON u.user_id = st.user_id "
+            + "WHERE e.offered_course_id = ? AND e.status = 'ACTIVE' AND e.student_id > ? "
+            + "ORDER BY e.student_id LIMIT ?";
+
+    private static final String MARKS_SQL = "SELECT a.student_id, a.session_id, a.status FROM attendance a "
+            + "WHERE a.course_id = ? AND a.student_id BETWEEN ? AND ?";
+
+    private static final String INSERT_NOTIFICATION_SQL = "INSERT INTO notification "
+            + "(user_id, title, message, type, is_read, created_at) VALUES (?, ?, ?, ?, false, ?)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${attendance.at-risk.absence-rate-percent:25}")
+    private double absenceRatePercent;
+
+    @Value("${attendance.at-risk.min-sessions:4}")
+    private int minSessions;
+
+    @Value("${attendance.at-risk.consecutive-absences:3}")
+    private int consecutiveAbsences;
+
+    @Value("${attendance.at-risk.renotify-days:7}")
+    private int renotifyDays;
+
+    @Value("${attendance.at-risk.parallelism:4}")
+    private int parallelism;
+
+    @Value("${attendance.at-risk.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${attendance.at-risk.batch-size:500}")
+    private int batchSize;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate writeTransaction;
+    private final ReentrantLock running = new ReentrantLock();
+
+    @PostConstruct
+    void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // The PostgreSQL driver only uses a cursor (fetch size) inside a transaction
+        jdbcTemplate.setFetchSize(1000);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${attendance.at-risk.cron:0 30 1 * * *}")
+    public void detectNightly() {
+        detect();
+    }
+
+    // Check every active enrollment; a run already in progress is left to finish
+    public void detect() {
+        if (!running.tryLock()) {
+            log.info("At-risk detection is already running");
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            LocalDateTime now = LocalDateTime.now();
+            Set<String> recentlyNotified = readOnlyTransaction.execute(tx -> new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT user_id || '|' || title FROM notification WHERE type = ? AND created_at > ?",
+                    String.class, NOTIFICATION_TYPE, Timestamp.valueOf(now.minusDays(renotifyDays)))));
+            List<OfferedCourse> offeredCourses = readOnlyTransaction.execute(tx -> jdbcTemplate.query(
+                    OFFERED_COURSES_SQL, (rs, row) -> new OfferedCourse(rs.getInt(1), rs.getInt(2), rs.getString(3),
+                            rs.getString(4), rs.getString(5), rs.getString(6))));
+
+            Run run = new Run(now, recentlyNotified);
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (OfferedCourse offeredCourse : offeredCourses) {
+                tasks.add(() -> {
+                    try {
+                        check(offeredCourse, run);
+                    } catch (RuntimeException e) {
+                        log.warn("At-risk detection failed for offered course {}", offeredCourse.offeredCourseId(), e);
+                    }
+                    return null;
+                });
+            }
+            ForkJoinPool pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("at-risk-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+            try {
+                pool.invokeAll(tasks);
+            } finally {
+                pool.shutdown();
+            }
+            run.flush();
+
+            log.info("At-risk detection checked {} enrollments in {} offered courses: {} students flagged, "
+                    + "{} notifications, {} ms", run.enrollments.sum(), offeredCourses.size(), run.flagged.sum(),
+                    run.notifications.sum(), System.currentTimeMillis() - started);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private void check(OfferedCourse offeredCourse, Run run) {
+        List<Integer> sessionIds = readOnlyTransaction.execute(tx -> jdbcTemplate.queryForList(SESSIONS_SQL,
+                Integer.class, offeredCourse.courseId(), offeredCourse.offeredCourseId(), offeredCourse.teacherId()));
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> ordinals = new HashMap<>();
+        for (int i = 0; i < sessionIds.size(); i++) {
+            ordinals.put(sessionIds.get(i), i);
+        }
+
+        String title = "Attendance alert: " + offeredCourse.courseCode()
+                + (offeredCourse.section() != null ? " (" + offeredCourse.section() + ")" : "");
+        List<Object[]> notifications = new ArrayList<>();
+        List<String> flaggedStudents = new ArrayList<>();
+        int afterStudentId = Integer.MIN_VALUE;
+        while (true) {
+            int after = afterStudentId;
+            Map<Integer, Enrolled> chunk = new LinkedHashMap<>();
+            readOnlyTransaction.executeWithoutResult(tx -> {
+                jdbcTemplate.query(ENROLLMENTS_SQL, rs -> {
+                    chunk.put(rs.getInt(1), new Enrolled(rs.getString(2), rs.getString(3) + " " + rs.getString(4),
+                            new byte[sessionIds.size()]));
+                }, offeredCourse.offeredCourseId(), after, chunkSize);
+                if (chunk.isEmpty()) {
+                    return;
+                }
+                // Marks are placed in session order; 0 is unmarked, otherwise status ordinal + 1
+                int first = chunk.keySet().iterator().next();
+                int last = lastKey(chunk);
+                jdbcTemplate.query(MARKS_SQL, rs -> {
+                    Enrolled enrolled = chunk.get(rs.getInt(1));
+                    Integer ordinal = ordinals.get(rs.getInt(2));
+                    if (enrolled != null && ordinal != null) {
+                        enrolled.marks()[ordinal] = (byte) (Attendance.Status.valueOf(rs.getString(3)).ordinal() + 1);
+                    }
+                }, offeredCourse.courseId(), first, last);
+            });
+            if (chunk.isEmpty()) {
+                break;
+            }
+            run.enrollments.add(chunk.size());
+
+            for (Enrolled enrolled : chunk.values()) {
+                String message = evaluate(enrolled.marks(), offeredCourse.courseCode());
+                if (message == null) {
+                    continue;
+                }
+                run.flagged.increment();
+                if (run.recentlyNotified.contains(enrolled.userId() + "|" + title)) {
+                    continue;
+                }
+                notifications.add(notification(enrolled.userId(), title, message, run.now));
+                flaggedStudents.add(enrolled.name());
+            }
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+            afterStudentId = lastKey(chunk);
+        }
+
+        if (!flaggedStudents.isEmpty()) {
+            String message = flaggedStudents.size() + (flaggedStudents.size() == 1 ? " student is" : " students are")
+                    + " at risk from absences: " + String.join(", ", flaggedStudents);
+            notifications.add(notification(offeredCourse.teacherUserId(), title, message, run.now));
+        }
+        run.add(notifications);
+    }
+
+    // The notification message for a student at risk, or null if they aren't
+    private String evaluate(byte[] marks, String courseCode) {
+        int marked = 0;
+        int absent = 0;
+        int trailingAbsences = 0;
+        for (byte mark : marks) {
+            if (mark == 0) {
+                continue;
+            }
+            marked++;
+            if (mark == ABSENT) {
+                absent++;
+                trailingAbsences++;
+            } else {
+                trailingAbsences = 0;
+            }
+        }
+        double absenceRate = marked > 0 ? (double) absent / marked * 100 : 0.0;
+        boolean byRate = marked >= minSessions && absenceRate >= absenceRatePercent;
+        boolean byRun = trailingAbsences >= consecutiveAbsences;
+        if (!byRate && !byRun) {
+            return null;
+        }
+        return String.format("You were absent from %d of %d %s sessions (%.0f%%)%s. "
+                + "Please talk to your teacher about catching up.", absent, marked, courseCode, absenceRate,
+                byRun ? ", including the last " + trailingAbsences + " in a row" : "");
+    }
+
+    private static Object[] notification(String userId, String title, String message, LocalDateTime now) {
+        if (message.length() > MAX_MESSAGE_LENGTH) {
+            message = message.substring(0, MAX_MESSAGE_LENGTH - 3) + "...";
+        }
+        return new Object[] {userId, title, message, NOTIFICATION_TYPE, Timestamp.valueOf(now)};
+    }
+
+    private static int lastKey(Map<Integer, Enrolled> chunk) {
+        int last = 0;
+        for (int studentId : chunk.keySet()) {
+            last = studentId;
+        }
+        return last;
+    }
+
+    private void insert(List<Object[]> rows) {
+        writeTransaction.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(INSERT_NOTIFICATION_SQL, rows));
+    }
+
+    private record OfferedCourse(int offeredCourseId, int courseId, String teacherId, String teacherUserId,
+            String courseCode, String section) {
+    }
+
+    private record Enrolled(String userId, String name, byte[] marks) {
+    }
+
+    // State shared by one run's tasks. Notifications are collected across offered
+    // courses and inserted batch-size at a time
+    private final class Run {
+        final LocalDateTime now;
+        final Set<String> recentlyNotified;
+        final LongAdder enrollments = new LongAdder();
+        final LongAdder flagged = new LongAdder();
+        final LongAdder notifications = new LongAdder();
+        private final ReentrantLock lock = new ReentrantLock();
+        private List<Object[]> pending = new ArrayList<>();
+
+        Run(LocalDateTime now, Set<String> recentlyNotified) {
+            this.now = now;
+            this.recentlyNotified = recentlyNotified;
+        }
+
+        void add(List<Object[]> rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            List<Object[]> full = null;
+            lock.lock();
+            try {
+                pending.addAll(rows);
+                if (pending.size() >= batchSize) {
+                    full = pending;
+                    pending = new ArrayList<>();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (full != null) {
+                write(full);
+            }
+        }
+
+        void flush() {
+            List<Object[]> rest;
+            lock.lock();
+            try {
+                rest = pending;
+                pending = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+            if (!rest.isEmpty()) {
+                write(rest);
+            }
+        }
+
+        private void write(List<Object[]> rows) {
+            insert(rows);
+            notifications.add(rows.size());
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.tacs.attendancechecker.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.tacs.attendancechecker.dto.AttendanceAnalyticsDTO;
+import com.tacs.attendancechecker.dto.AttendanceAnalyticsDTO.StudentAnalytics;
+import com.tacs.attendancechecker.entity.Attendance;
+import com.tacs.attendancechecker.repository.AttendanceRepository;
+import com.tacs.attendancechecker.repository.AttendanceSessionRepository;
+import com.tacs.attendancechecker.repository.CourseRepository;
+import com.tacs.attendancechecker.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Attendance rates and absence streaks per student and course, answered from
+ * in-memory bitmaps.
+ *
+ * A course's sessions are numbered in the order they were held, and each
+ * student marked in the course has one bitmap per status over those numbers.
+ * Counts are bit counts and streaks are runs over the sessions the student was
+ * marked in, so once a course is loaded its questions don't touch the database.
+ *
+ * Courses are loaded on first use and reloaded after rebuild-minutes, or when
+ * their sessions change (edited, finalized or deleted, or a mark for a session
+ * the course hasn't numbered yet). Marks update the bitmaps after commit.
+ * Applying a mark sets the row's state rather than adding to a count, so a mark
+ * that commits while its course is loading is safe to apply again.
+ */
+@Service
+public class AttendanceAnalyticsService {
+
+    private static final int STATUSES = Attendance.Status.values().length;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private AttendanceSessionRepository attendanceSessionRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Value("${attendance.analytics.max-courses:200}")
+    private long maxCourses;
+
+    @Value("${attendance.analytics.rebuild-minutes:60}")
+    private long rebuildMinutes;
+
+    private Cache<Integer, CourseIndex> courses;
+
+    @PostConstruct
+    void start() {
+        courses = CacheBuilder.newBuilder()
+                .maximumSize(maxCourses)
+                .expireAfterWrite(Duration.ofMinutes(rebuildMinutes))
+                .build();
+    }
+
+    /**
+     * Analytics for every student marked in a course
+     *
+     * @param minAbsenceStreak If set, only students absent at least this many sessions in a row
+     */
+    public AttendanceAnalyticsDTO getCourseAnalytics(Integer courseId, Integer minAbsenceStreak) {
+        CourseIndex index = loaded(courseId);
+        index.lock.readLock().lock();
+        try {
+            AttendanceAnalyticsDTO analytics = new AttendanceAnalyticsDTO();
+            analytics.setCourseId(courseId);
+
+            BitSet held = new BitSet();
+            long marks = 0;
+            long attended = 0;
+            List<StudentAnalytics> students = new ArrayList<>();
+            for (Map.Entry<Integer, BitSet[]> entry : index.byStudent.entrySet()) {
+                StudentAnalytics student = analyze(entry.getKey(), courseId, entry.getValue());
+                for (BitSet bits : entry.getValue()) {
+                    held.or(bits);
+                }
+                marks += student.getSessions();
+                attended += student.getPresent() + student.getLate();
+                if (minAbsenceStreak == null || student.getLongestAbsenceStreak() >= minAbsenceStreak) {
+                    students.add(student);
+                }
+            }
+            students.sort((a, b) -> a.getStudentId().compareTo(b.getStudentId()));
+
+            analytics.setSessions(held.cardinality());
+            analytics.setAttendanceRate(rate(attended, marks));
+            analytics.setStudents(students);
+            return analytics;
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    // Analytics for one student in a course; all zero if they have no marks in it
+    public StudentAnalytics getStudentAnalytics(Integer courseId, Integer studentId) {
+        CourseIndex index = loaded(courseId);
+        index.lock.readLock().lock();
+        try {
+            BitSet[] marks = index.byStudent.get(studentId);
+            return analyze(studentId, courseId, marks != null ? marks : newMarks());
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    // A student's mark for a session is now status (null if deleted); applied after commit
+    public void recordMark(Integer courseId, Integer sessionId, Integer studentId, Attendance.Status status) {
+        if (courseId == null || sessionId == null) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            CourseIndex index = courses.getIfPresent(courseId);
+            if (index == null) {
+                return;
+            }
+            index.lock.writeLock().lock();
+            try {
+                if (!index.loaded) {
+                    // Its load hasn't read the table yet, so it will see this mark
+                    return;
+                }
+                Integer ordinal = index.ordinals.get(sessionId);
+                if (ordinal == null) {
+                    // A session added since the course was numbered
+                    courses.invalidate(courseId);
+                    return;
+                }
+                BitSet[] marks = status != null
+                        ? index.byStudent.computeIfAbsent(studentId, id -> newMarks())
+                        : index.byStudent.get(studentId);
+                if (marks == null) {
+                    return;
+                }
+                for (BitSet bits : marks) {
+                    bits.clear(ordinal);
+                }
+                if (status != null) {
+                    marks[status.ordinal()].set(ordinal);
+                }
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // The course's sessions or many of its marks changed; it is reloaded on next use
+    public void evictCourse(Integer courseId) {
+        if (courseId != null) {
+            AfterCommit.run(() -> courses.invalidate(courseId));
+        }
+    }
+
+    private CourseIndex loaded(Integer courseId) {
+        CourseIndex index;
+        try {
+            index = courses.get(courseId, CourseIndex::new);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        if (!index.loaded) {
+            index.lock.writeLock().lock();
+            try {
+                if (!index.loaded) {
+                    load(courseId, index);
+                }
+            } catch (RuntimeException e) {
+                courses.invalidate(courseId);
+                throw e;
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+        return index;
+    }
+
+    private void load(Integer courseId, CourseIndex index) {
+        List<Integer> sessionIds = attendanceSessionRepository.findIdsByCourseInOrder(courseId);
+        if (sessionIds.isEmpty() && !courseRepository.existsById(courseId)) {
+            throw new RuntimeException("Course not found with ID: " + courseId);
+        }
+        for (int i = 0; i < sessionIds.size(); i++) {
+            index.ordinals.put(sessionIds.get(i), i);
+        }
+        for (AttendanceRepository.SessionMark mark : attendanceRepository.findSessionMarksByCourseId(courseId)) {
+            Integer ordinal = index.ordinals.get(mark.sessionId());
+            if (ordinal != null && mark.status() != null) {
+                index.byStudent.computeIfAbsent(mark.studentId(), id -> newMarks())[mark.status().ordinal()]
+                        .set(ordinal);
+            }
+        }
+        index.loaded = true;
+    }
+
+    private static StudentAnalytics analyze(Integer studentId, Integer courseId, BitSet[] marks) {
+        BitSet marked = new BitSet();
+        for (BitSet bits : marks) {
+            marked.or(bits);
+        }
+        BitSet absent = marks[Attendance.Status.ABSENT.ordinal()];
+        int longest = 0;
+        int run = 0;
+        for (int i = marked.nextSetBit(0); i >= 0; i = marked.nextSetBit(i + 1)) {
+            run = absent.get(i) ? run + 1 : 0;
+            longest = Math.max(longest, run);
+        }
+
+        StudentAnalytics analytics = new StudentAnalytics();
+        analytics.setStudentId(studentId);
+        analytics.setCourseId(courseId);
+        analytics.setSessions(marked.cardinality());
+        analytics.setPresent(marks[Attendance.Status.PRESENT.ordinal()].cardinality());
+        analytics.setLate(marks[Attendance.Status.LATE.ordinal()].cardinality());
+        analytics.setAbsent(absent.cardinality());
+        analytics.setExcused(marks[Attendance.Status.EXCUSED.ordinal()].cardinality());
+        analytics.setAttendanceRate(rate(analytics.getPresent() + analytics.getLate(), analytics.getSessions()));
+        analytics.setLongestAbsenceStreak(longest);
+        analytics.setCurrentAbsenceStreak(run);
+        return analytics;
+    }
+
+    private static double rate(long attended, long total) {
+        double attendanceRate = total > 0 ? ((double) attended / total) * 100 : 0.0;
+        return Math.round(attendanceRate * 10) / 10.0;
+    }
+
+    // One bitmap per status, indexed by Attendance.Status ordinal
+    private static BitSet[] newMarks() {
+        BitSet[] marks = new BitSet[STATUSES];
+        for (int i = 0; i < STATUSES; i++) {
+            marks[i] = new BitSet();
+        }
+        return marks;
+    }
+
+    // Guarded by lock; loaded is also read without it to skip locking once loaded
+    private static class CourseIndex {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final Map<Integer, Integer> ordinals = new HashMap<>(); // session ID -> ordinal
+        final Map<Integer, BitSet[]> byStudent = new HashMap<>();
+        volatile boolean loaded;
+    }
+}
@@ -0,0 +1,773 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.dto.ArchiveRequest;
+import com.tacs.attendancechecker.dto.ArchiveResponse;
+import com.tacs.attendancechecker.entity.Attendance;
+import com.tacs.attendancechecker.entity.Course;
+import com.tacs.attendancechecker.entity.Student;
+import com.tacs.attendancechecker.entity.User;
+import com.tacs.attendancechecker.repository.AttendanceRepository;
+import com.tacs.attendancechecker.repository.AttendanceRepository.ReportRow;
+import com.tacs.attendancechecker.repository.CourseRepository;
+import com.tacs.attendancechecker.repository.StudentRepository;
+import com.tacs.attendancechecker.repository.UserRepository;
+import com.tacs.attendancechecker.util.ColumnarFile;
+import com.tacs.attendancechecker.util.ColumnarFile.Column;
+import com.tacs.attendancechecker.util.ColumnarFile.RowGroup;
+import com.tacs.attendancechecker.util.ColumnarFile.Type;
+import com.tacs.attendancechecker.util.ReportCursor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Moves a closed semester's attendance out of the database into compressed
+ * column files (see ColumnarFile), and reads them back for the course and
+ * student reports.
+ *
+ * A semester is its offered courses (OfferedCourse.semester). Archiving takes
+ * their scheduled sessions, the unscheduled sessions their teachers held for
+ * the same courses within the dates those span, every mark in those sessions,
+ * and the offered courses' enrollments. The semester counts as closed once its
+ * last session is min-age-days old; that is also past the window the nightly
+ * rollup recount reads, so the rollup keeps the archived marks' counts.
+ *
+ * Each semester is a directory of attendance.col, sessions.col,
+ * enrollments.col and archive.properties. The files are written to a .pending
+ * directory inside the transaction that deletes the rows, and renamed once it
+ * commits. Marks are sorted by course and date, so a course's report reads a
+ * few row groups; a student's report skips the groups whose Bloom filter rules
+ * the student out. Only the columns a report shows are read.
+ *
+ * A .pending directory left by a crash is resolved on startup: if its rows are
+ * still in the database the archival didn't commit and it is removed,
+ * otherwise it is renamed.
+ */
+@Service
+public class AttendanceArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceArchiveService.class);
+
+    private static final String ATTENDANCE_FILE = "attendance.col";
+    private static final String SESSIONS_FILE = "sessions.col";
+    private static final String ENROLLMENTS_FILE = "enrollments.col";
+    private static final String MANIFEST_FILE = "archive.properties";
+    private static final String PENDING_SUFFIX = ".pending";
+
+    // Dates are stored as epoch days, times as nanoseconds of the day, timestamps as epoch microseconds
+    private static final List<Column> ATTENDANCE_COLUMNS = List.of(
+            new Column("attendance_id", Type.UUID),
+            new Column("course_id", Type.INT),
+            new Column("date", Type.INT),
+            new Column("student_id", Type.INT),
+            new Column("session_id", Type.INT),
+            new Column("status", Type.STRING),
+            new Column("time_in", Type.LONG),
+            new Column("remarks", Type.STRING),
+            new Column("recorded_by", Type.STRING),
+            new Column("updated_at", Type.LONG));
+
+    private static final List<Column> SESSION_COLUMNS = List.of(
+            new Column("session_id", Type.INT),
+            new Column("course_id", Type.INT),
+            new Column("teacher_id", Type.STRING),
+            new Column("schedule_id", Type.INT),
+            new Column("date", Type.INT),
+            new Column("start_time", Type.LONG),
+            new Column("end_time", Type.LONG),
+            new Column("session_type", Type.STRING),
+            new Column("is_finalized", Type.INT),
+            new Column("remarks", Type.STRING),
+            new Column("updated_at", Type.LONG));
+
+    private static final List<Column> ENROLLMENT_COLUMNS = List.of(
+            new Column("enrollment_id", Type.INT),
+            new Column("student_id", Type.INT),
+            new Column("offered_course_id", Type.INT),
+            new Column("date_enrolled", Type.INT),
+            new Column("status", Type.STRING),
+            new Column("updated_at", Type.LONG));
+
+    /**
+     * Report order: newest first by (date, attendanceId), with IDs compared as
+     * unsigned bytes the way PostgreSQL orders uuid
+     */
+    public static final Comparator<ReportRow> NEWEST_FIRST = Comparator
+            .comparing(ReportRow::date)
+            .thenComparing(ReportRow::attendanceId, AttendanceArchiveService::compareIds)
+            .reversed();
+
+    // The archived sessions of the semester being archived
+    private static final String SELECT_SESSIONS = "INSERT INTO archived_session (session_id) "
+            + "SELECT s.session_id FROM attendance_session s "
+            + "LEFT JOIN class_schedule cs ON cs.schedule_id = s.schedule_id "
+            + "WHERE s.date BETWEEN ? AND ? AND ("
+            + "cs.offered_course_id IN (SELECT offered_course_id FROM offered_course WHERE semester = ?) "
+            + "OR (s.schedule_id IS NULL AND EXISTS (SELECT 1 FROM offered_course oc "
+            + "WHERE oc.semester = ? AND oc.course_id = s.course_id AND oc.teacher_id = s.teacher_id)))";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ReportCache reportCache;
+
+    @Autowired
+    private AttendanceAnalyticsService analyticsService;
+
+    @Value("${attendance.archive.dir:./data/archive}")
+    private String archiveDirName;
+
+    @Value("${attendance.archive.min-age-days:30}")
+    private int minAgeDays;
+
+    @Value("${attendance.archive.row-group-size:2048}")
+    private int rowGroupSize;
+
+    @Value("${attendance.rollup.reconcile-days:14}")
+    private int rollupReconcileDays;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate archiveTransaction;
+    private Path archiveDir;
+    private final List<Archive> archives = new CopyOnWriteArrayList<>();
+    private final ReentrantLock archiving = new ReentrantLock();
+
+    @PostConstruct
+    void start() throws IOException {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // The PostgreSQL driver only uses a cursor (fetch size) inside a transaction
+        jdbcTemplate.setFetchSize(1000);
+        archiveTransaction = new TransactionTemplate(transactionManager);
+        // The files and the deletes see the same rows; a mark written meanwhile fails the archival
+        archiveTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        archiveDir = Paths.get(archiveDirName);
+        Files.createDirectories(archiveDir);
+        List<Path> directories = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(archiveDir, Files::isDirectory)) {
+            entries.forEach(directories::add);
+        }
+        for (Path directory : directories) {
+            if (directory.getFileName().toString().endsWith(PENDING_SUFFIX)) {
+                recover(directory);
+            }
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(archiveDir, Files::isDirectory)) {
+            for (Path directory : entries) {
+                if (!directory.getFileName().toString().endsWith(PENDING_SUFFIX)) {
+                    archives.add(Archive.open(directory));
+                }
+            }
+        }
+        if (!archives.isEmpty()) {
+            log.info("Loaded {} attendance archive(s) from {}", archives.size(), archiveDir);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        for (Archive archive : archives) {
+            archive.close();
+        }
+    }
+
+    /**
+     * Archive a closed semester: write its marks, sessions and enrollments to
+     * the archive directory and delete them from the database
+     *
+     * @throws AccessDeniedException if the user isn't an administrator
+     * @throws IllegalArgumentException if the semester is unknown, already
+     *         archived, or not closed yet
+     */
+    public ArchiveResponse archive(String email, ArchiveRequest request) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
+        if (user.getRole() != User.Role.ADMIN) {
+            throw new AccessDeniedException("Only administrators can archive semesters");
+        }
+        String semester = request.getSemester();
+        if (semester == null || semester.isBlank()) {
+            throw new IllegalArgumentException("semester is required");
+        }
+
+        archiving.lock();
+        try {
+            if (archives.stream().anyMatch(archive -> archive.semester.equals(semester))) {
+                throw new IllegalArgumentException("Semester " + semester + " is already archived");
+            }
+            Path target = archiveDir.resolve(directoryName(semester));
+            Path pending = archiveDir.resolve(target.getFileName() + PENDING_SUFFIX);
+            if (Files.exists(target) || Files.exists(pending)) {
+                throw new IllegalArgumentException("Semester " + semester + " is already archived");
+            }
+
+            Properties manifest;
+            try {
+                Files.createDirectory(pending);
+                manifest = archiveTransaction.execute(tx -> writeAndDelete(semester, pending));
+            } catch (RuntimeException | IOException e) {
+                deleteDirectory(pending);
+                if (e instanceof IOException io) {
+                    throw new UncheckedIOException(io);
+                }
+                throw (RuntimeException) e;
+            }
+
+            // Committed: the rows are only in the files now
+            Archive archive;
+            try {
+                Files.move(pending, target, StandardCopyOption.ATOMIC_MOVE);
+                archive = Archive.open(target);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Archived " + semester + " to " + pending
+                        + " but could not rename it; it is recovered on the next startup", e);
+            }
+            archives.add(archive);
+
+            reportCache.evictAll();
+            for (String courseId : manifest.getProperty("courseIds", "").split(",")) {
+                if (!courseId.isEmpty()) {
+                    analyticsService.evictCourse(Integer.valueOf(courseId));
+                }
+            }
+            log.info("Archived semester {}: {} mark(s), {} session(s), {} enrollment(s) to {}", semester,
+                    archive.attendanceRows, archive.sessions, archive.enrollments, target);
+            return archive.toResponse();
+        } finally {
+            archiving.unlock();
+        }
+    }
+
+    // Archived semesters, oldest first
+    public List<ArchiveResponse> listArchives() {
+        return archives.stream()
+                .sorted(Comparator.comparing((Archive archive) -> archive.startDate))
+                .map(Archive::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    public boolean isEmpty() {
+        return archives.isEmpty();
+    }
+
+    // Archived marks of a course per status, like AttendanceRepository.countByStatusForCourse
+    public List<AttendanceRepository.StatusCount> countByStatusForCourse(Integer courseId) {
+        return countByStatus("course_id", courseId);
+    }
+
+    public List<AttendanceRepository.StatusCount> countByStatusForStudent(Integer studentId) {
+        return countByStatus("student_id", studentId);
+    }
+
+    /**
+     * Archived marks of a course in report order, strictly after the cursor
+     * (null for the first page), with their student's and course's names
+     */
+    public List<ReportRow> findPageByCourseId(Integer courseId, ReportCursor after, int limit) {
+        return findPage("course_id", courseId, after, limit);
+    }
+
+    public List<ReportRow> findPageByStudentId(Integer studentId, ReportCursor after, int limit) {
+        return findPage("student_id", studentId, after, limit);
+    }
+
+    private List<AttendanceRepository.StatusCount> countByStatus(String column, Integer id) {
+        Map<Attendance.Status, ArchivedCount> counts = new HashMap<>();
+        for (Archive archive : archives) {
+            ColumnarFile.Reader reader = archive.attendance;
+            for (RowGroup group : reader.getRowGroups()) {
+                if (!reader.mightContain(group, column, id)) {
+                    continue;
+                }
+                Object[] ids = read(reader, group, column);
+                Object[] dates = null;
+                Object[] statuses = null;
+                for (int row = 0; row < ids.length; row++) {
+                    if (!id.equals(ids[row])) {
+                        continue;
+                    }
+                    if (dates == null) {
+                        dates = read(reader, group, "date");
+                        statuses = read(reader, group, "status");
+                    }
+                    Attendance.Status status = statuses[row] != null
+                            ? Attendance.Status.valueOf((String) statuses[row]) : null;
+                    counts.computeIfAbsent(status, ArchivedCount::new)
+                            .add(LocalDate.ofEpochDay((Integer) dates[row]));
+                }
+            }
+        }
+        return new ArrayList<>(counts.values());
+    }
+
+    // Groups are scanned newest first by their last date, keeping the newest
+    // `limit` rows past the cursor; once a page is full, the groups left can
+    // only hold older rows and are not read. A page costs the groups it spans
+    // (plus ones with overlapping dates), not every group past the cursor.
+    private List<ReportRow> findPage(String column, Integer id, ReportCursor after, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        long afterDay = after != null ? after.date().toEpochDay() : Long.MAX_VALUE;
+        List<Candidate> candidates = new ArrayList<>();
+        for (Archive archive : archives) {
+            ColumnarFile.Reader reader = archive.attendance;
+            for (RowGroup group : reader.getRowGroups()) {
+                if (reader.mightContain(group, column, id) && reader.min(group, "date") <= afterDay) {
+                    candidates.add(new Candidate(reader, group, reader.max(group, "date")));
+                }
+            }
+        }
+        candidates.sort(Comparator.comparingLong(Candidate::maxDay).reversed());
+
+        Comparator<Hit> newestFirst = Comparator.comparing(Hit::date)
+                .thenComparing(Hit::attendanceId, AttendanceArchiveService::compareIds)
+                .reversed();
+        PriorityQueue<Hit> newest = new PriorityQueue<>(newestFirst.reversed());
+        for (Candidate candidate : candidates) {
+            if (newest.size() == limit && candidate.maxDay() < newest.peek().date().toEpochDay()) {
+                break;
+            }
+            ColumnarFile.Reader reader = candidate.reader();
+            RowGroup group = candidate.group();
+            Object[] ids = read(reader, group, column);
+            Object[] dates = null;
+            Object[] attendanceIds = null;
+            for (int row = 0; row < ids.length; row++) {
+                if (!id.equals(ids[row])) {
+                    continue;
+                }
+                if (dates == null) {
+                    dates = read(reader, group, "date");
+                    attendanceIds = read(reader, group, "attendance_id");
+                }
+                LocalDate date = LocalDate.ofEpochDay((Integer) dates[row]);
+                UUID attendanceId = (UUID) attendanceIds[row];
+                if (after != null && (date.isAfter(after.date())
+                        || date.equals(after.date()) && compareIds(attendanceId, after.attendanceId()) >= 0)) {
+                    continue;
+                }
+                newest.add(new Hit(date, attendanceId, reader, group, row));
+                if (newest.size() > limit) {
+                    newest.poll();
+                }
+            }
+        }
+        List<Hit> hits = new ArrayList<>(newest);
+        hits.sort(newestFirst);
+
+        // The remaining columns, for the groups holding the page's rows only
+        Map<RowGroup, Map<String, Object[]>> columns = new IdentityHashMap<>();
+        List<Object[]> values = new ArrayList<>(hits.size());
+        Set<Integer> studentIds = new HashSet<>();
+        Set<Integer> courseIds = new HashSet<>();
+        for (Hit hit : hits) {
+            Map<String, Object[]> groupColumns = columns.computeIfAbsent(hit.group(), group -> new HashMap<>());
+            Function<String, Object> value = name -> groupColumns
+                    .computeIfAbsent(name, n -> read(hit.reader(), hit.group(), n))[hit.row()];
+            Object[] row = {value.apply("student_id"), value.apply("course_id"), value.apply("status"),
+                    value.apply("remarks"), value.apply("time_in")};
+            studentIds.add((Integer) row[0]);
+            courseIds.add((Integer) row[1]);
+            values.add(row);
+        }
+
+        Map<Integer, Student> students = new HashMap<>();
+        Map<Integer, Course> courses = new HashMap<>();
+        if (!hits.isEmpty()) {
+            studentRepository.findAllWithUserByStudentIdIn(studentIds)
+                    .forEach(student -> students.put(student.getStudentId(), student));
+            courseRepository.findAllById(courseIds).forEach(course -> courses.put(course.getCourseId(), course));
+        }
+        List<ReportRow> page = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            Object[] row = values.get(i);
+            Student student = students.get(row[0]);
+            User user = student != null ? student.getUser() : null;
+            Course course = courses.get(row[1]);
+            page.add(new ReportRow(hits.get(i).attendanceId(), hits.get(i).date(), (Integer) row[0],
+                    user != null ? user.getFname() : null, user != null ? user.getLname() : null,
+                    course != null ? course.getCourseCode() : null, course != null ? course.getCourseName() : null,
+                    row[2] != null ? Attendance.Status.valueOf((String) row[2]) : null,
+                    row[4] != null ? LocalTime.ofNanoOfDay((Long) row[4]) : null, (String) row[3]));
+        }
+        return page;
+    }
+
+    // Runs in the archive transaction; returns the manifest written with the files
+    private Properties writeAndDelete(String semester, Path pending) {
+        Map<String, Object> range = jdbcTemplate.queryForMap("SELECT count(DISTINCT oc.offered_course_id) AS offered, "
+                + "min(s.date) AS first, max(s.date) AS last FROM offered_course oc "
+                + "LEFT JOIN class_schedule cs ON cs.offered_course_id = oc.offered_course_id "
+                + "LEFT JOIN attendance_session s ON s.schedule_id = cs.schedule_id "
+                + "WHERE oc.semester = ?", semester);
+        if (((Number) range.get("offered")).longValue() == 0) {
+            throw new IllegalArgumentException("No offered courses for semester " + semester);
+        }
+        if (range.get("last") == null) {
+            throw new IllegalArgumentException("Semester " + semester + " has no scheduled sessions");
+        }
+        LocalDate startDate = ((java.sql.Date) range.get("first")).toLocalDate();
+        LocalDate endDate = ((java.sql.Date) range.get("last")).toLocalDate();
+        // Older than the rollup recount window, or the recount would drop the archived marks
+        int minAge = Math.max(minAgeDays, rollupReconcileDays + 1);
+        if (endDate.isAfter(LocalDate.now().minusDays(minAge))) {
+            throw new IllegalArgumentException("Semester " + semester + " had sessions until " + endDate
+                    + "; it can be archived from " + endDate.plusDays(minAge));
+        }
+
+        jdbcTemplate.execute("CREATE TEMP TABLE archived_session (session_id integer PRIMARY KEY) ON COMMIT DROP");
+        long sessions = jdbcTemplate.update(SELECT_SESSIONS, startDate, endDate, semester, semester);
+        jdbcTemplate.execute("ANALYZE archived_session");
+
+        Set<Integer> courseIds = new HashSet<>();
+        long attendanceRows = writeFile(pending.resolve(ATTENDANCE_FILE), ATTENDANCE_COLUMNS, "student_id",
+                "SELECT a.attendance_id, a.course_id, a.date, a.student_id, a.session_id, a.status, a.time_in, "
+                        + "a.remarks, a.recorded_by, a.updated_at FROM attendance a "
+                        + "JOIN archived_session x ON x.session_id = a.session_id "
+                        + "ORDER BY a.course_id, a.date, a.attendance_id",
+                rs -> {
+                    courseIds.add(rs.getInt("course_id"));
+                    return new Object[] {
+                            rs.getObject("attendance_id", UUID.class),
+                            rs.getObject("course_id", Integer.class),
+                            epochDay(rs, "date"),
+                            rs.getObject("student_id", Integer.class),
+                            rs.getObject("session_id", Integer.class),
+                            rs.getString("status"),
+                            nanoOfDay(rs, "time_in"),
+                            rs.getString("remarks"),
+                            rs.getString("recorded_by"),
+                            epochMicros(rs, "updated_at")};
+                });
+        long writtenSessions = writeFile(pending.resolve(SESSIONS_FILE), SESSION_COLUMNS, null,
+                "SELECT s.* FROM attendance_session s JOIN archived_session x ON x.session_id = s.session_id "
+                        + "ORDER BY s.session_id",
+                rs -> new Object[] {
+                        rs.getObject("session_id", Integer.class),
+                        rs.getObject("course_id", Integer.class),
+                        rs.getString("teacher_id"),
+                        rs.getObject("schedule_id", Integer.class),
+                        epochDay(rs, "date"),
+                        nanoOfDay(rs, "start_time"),
+                        nanoOfDay(rs, "end_time"),
+                        rs.getString("session_type"),
+                        rs.getObject("is_finalized") != null ? (rs.getBoolean("is_finalized") ? 1 : 0) : null,
+                        rs.getString("remarks"),
+                        epochMicros(rs, "updated_at")});
+        long enrollments = writeFile(pending.resolve(ENROLLMENTS_FILE), ENROLLMENT_COLUMNS, null,
+                "SELECT e.* FROM enrollment e JOIN offered_course oc ON oc.offered_course_id = e.offered_course_id "
+                        + "WHERE oc.semester = ? ORDER BY e.enrollment_id",
+                rs -> new Object[] {
+                        rs.getObject("enrollment_id", Integer.class),
+                        rs.getObject("student_id", Integer.class),
+                        rs.getObject("offered_course_id", Integer.class),
+                        epochDay(rs, "date_enrolled"),
+                        rs.getString("status"),
+                        epochMicros(rs, "updated_at")},
+                semester);
+
+        Properties manifest = new Properties();
+        manifest.setProperty("semester", semester);
+        manifest.setProperty("startDate", startDate.toString());
+        manifest.setProperty("endDate", endDate.toString());
+        manifest.setProperty("attendanceRows", String.valueOf(attendanceRows));
+        manifest.setProperty("sessions", String.valueOf(writtenSessions));
+        manifest.setProperty("enrollments", String.valueOf(enrollments));
+        manifest.setProperty("courseIds", courseIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        Instant archivedAt = Instant.now();
+        Timestamp deletedAt = Timestamp.from(archivedAt);
+        manifest.setProperty("archivedAt", archivedAt.toString());
+        try (OutputStream out = Files.newOutputStream(pending.resolve(MANIFEST_FILE))) {
+            manifest.store(out, "Archived semester " + semester);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Tombstones for /api/sync, scoped as SyncService scopes those of deleted
+        // marks, sessions and enrollments, so clients drop the archived rows too
+        jdbcTemplate.update("INSERT INTO sync_tombstone "
+                + "(entity_type, entity_id, teacher_id, student_id, course_id, deleted_at) "
+                + "SELECT t.*, ? FROM ("
+                + "SELECT 'ATTENDANCE', a.attendance_id::text, s.teacher_id, a.student_id, s.course_id "
+                + "FROM attendance a JOIN archived_session x ON x.session_id = a.session_id "
+                + "JOIN attendance_session s ON s.session_id = a.session_id "
+                + "UNION ALL SELECT 'SESSION', s.session_id::text, s.teacher_id, NULL, s.course_id "
+                + "FROM attendance_session s JOIN archived_session x ON x.session_id = s.session_id "
+                + "UNION ALL SELECT 'ENROLLMENT', e.enrollment_id::text, oc.teacher_id, e.student_id, oc.course_id "
+                + "FROM enrollment e JOIN offered_course oc ON oc.offered_course_id = e.offered_course_id "
+                + "WHERE oc.semester = ?) t", deletedAt, semester);
+
+        // Marks first, then the sessions they reference
+        expectDeleted("attendance", attendanceRows, jdbcTemplate.update(
+                "DELETE FROM attendance a USING archived_session x WHERE a.session_id = x.session_id"));
+        expectDeleted("attendance_session", sessions, jdbcTemplate.update(
+                "DELETE FROM attendance_session s USING archived_session x WHERE s.session_id = x.session_id"));
+        expectDeleted("enrollment", enrollments, jdbcTemplate.update("DELETE FROM enrollment e USING offered_course oc "
+                + "WHERE oc.offered_course_id = e.offered_course_id AND oc.semester = ?", semester));
+        return manifest;
+    }
+
+    private interface RowMapper {
+        Object[] map(ResultSet rs) throws SQLException;
+    }
+
+    private long writeFile(Path path, List<Column> columns, String bloomColumn, String sql, RowMapper mapper,
+            Object... args) {
+        try (ColumnarFile.Writer writer = new ColumnarFile.Writer(path, columns, rowGroupSize, bloomColumn)) {
+            jdbcTemplate.query(sql, rs -> {
+                try {
+                    writer.write(mapper.map(rs));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args);
+            return writer.getRows();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void expectDeleted(String table, long written, int deleted) {
+        if (deleted != written) {
+            throw new IllegalStateException("Archived " + written + " row(s) of " + table + " but " + deleted
+                    + " matched when deleting; the semester changed meanwhile, try again");
+        }
+    }
+
+    // A .pending directory from an archival that crashed: keep it only if its rows were deleted
+    private void recover(Path pending) throws IOException {
+        String name = pending.getFileName().toString();
+        Path target = archiveDir.resolve(name.substring(0, name.length() - PENDING_SUFFIX.length()));
+        boolean committed = Files.exists(pending.resolve(MANIFEST_FILE)) && !stillInDatabase(pending);
+        if (committed && !Files.exists(target)) {
+            Files.move(pending, target, StandardCopyOption.ATOMIC_MOVE);
+            log.warn("Recovered attendance archive {}", target);
+        } else {
+            deleteDirectory(pending);
+            log.warn("Removed incomplete attendance archive {}", pending);
+        }
+    }
+
+    // Whether the first row of any of the archive's files is still in its table
+    private boolean stillInDatabase(Path directory) throws IOException {
+        Object attendanceId = firstValue(directory.resolve(ATTENDANCE_FILE), "attendance_id");
+        if (attendanceId != null) {
+            return exists("SELECT EXISTS (SELECT 1 FROM attendance WHERE attendance_id = ?)", attendanceId);
+        }
+        Object sessionId = firstValue(directory.resolve(SESSIONS_FILE), "session_id");
+        if (sessionId != null) {
+            return exists("SELECT EXISTS (SELECT 1 FROM attendance_session WHERE session_id = ?)", sessionId);
+        }
+        Object enrollmentId = firstValue(directory.resolve(ENROLLMENTS_FILE), "enrollment_id");
+        return enrollmentId != null
+                && exists("SELECT EXISTS (SELECT 1 FROM enrollment WHERE enrollment_id = ?)", enrollmentId);
+    }
+
+    private boolean exists(String sql, Object id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+    }
+
+    private static Object firstValue(Path file, String column) throws IOException {
+        try (ColumnarFile.Reader reader = ColumnarFile.Reader.open(file)) {
+            List<RowGroup> groups = reader.getRowGroups();
+            return groups.isEmpty() ? null : reader.read(groups.get(0), column)[0];
+        }
+    }
+
+    private static Object[] read(ColumnarFile.Reader reader, RowGroup group, String column) {
+        try {
+            return reader.read(group, column);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Integer epochDay(ResultSet rs, String column) throws SQLException {
+        LocalDate date = rs.getObject(column, LocalDate.class);
+        return date != null ? (int) date.toEpochDay() : null;
+    }
+
+    private static Long nanoOfDay(ResultSet rs, String column) throws SQLException {
+        LocalTime time = rs.getObject(column, LocalTime.class);
+        return time != null ? time.toNanoOfDay() : null;
+    }
+
+    private static Long epochMicros(ResultSet rs, String column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp != null ? ChronoUnit.MICROS.between(Instant.EPOCH, timestamp.toInstant()) : null;
+    }
+
+    private static String directoryName(String semester) {
+        return semester.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static void deleteDirectory(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", directory, e.getMessage());
+        }
+    }
+
+    static int compareIds(UUID a, UUID b) {
+        int byHigh = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return byHigh != 0 ? byHigh : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private record Hit(LocalDate date, UUID attendanceId, ColumnarFile.Reader reader, RowGroup group, int row) {
+    }
+
+    private record Candidate(ColumnarFile.Reader reader, RowGroup group, long maxDay) {
+    }
+
+    private static class ArchivedCount implements AttendanceRepository.StatusCount {
+        private final Attendance.Status status;
+        private long total;
+        private LocalDate firstDate;
+        private LocalDate lastDate;
+
+        ArchivedCount(Attendance.Status status) {
+            this.status = status;
+        }
+
+        void add(LocalDate date) {
+            total++;
+            if (firstDate == null || date.isBefore(firstDate)) {
+                firstDate = date;
+            }
+            if (lastDate == null || date.isAfter(lastDate)) {
+                lastDate = date;
+            }
+        }
+
+        @Override
+        public Attendance.Status getStatus() { return status; }
+
+        @Override
+        public long getTotal() { return total; }
+
+        @Override
+        public LocalDate getFirstDate() { return firstDate; }
+
+        @Override
+        public LocalDate getLastDate() { return lastDate; }
+    }
+
+    // An archived semester, with its marks file open
+    private static class Archive {
+        private final String semester;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final long attendanceRows;
+        private final long sessions;
+        private final long enrollments;
+        private final long bytes;
+        private final Instant archivedAt;
+        private final ColumnarFile.Reader attendance;
+
+        private Archive(Properties manifest, long bytes, ColumnarFile.Reader attendance) {
+            this.semester = manifest.getProperty("semester");
+            this.startDate = LocalDate.parse(manifest.getProperty("startDate"));
+            this.endDate = LocalDate.parse(manifest.getProperty("endDate"));
+            this.attendanceRows = Long.parseLong(manifest.getProperty("attendanceRows"));
+            this.sessions = Long.parseLong(manifest.getProperty("sessions"));
+            this.enrollments = Long.parseLong(manifest.getProperty("enrollments"));
+            this.archivedAt = Instant.parse(manifest.getProperty("archivedAt"));
+            this.bytes = bytes;
+            this.attendance = attendance;
+        }
+
+        static Archive open(Path directory) throws IOException {
+            Properties manifest = new Properties();
+            try (InputStream in = Files.newInputStream(directory.resolve(MANIFEST_FILE))) {
+                manifest.load(in);
+            }
+            long bytes = Files.size(directory.resolve(ATTENDANCE_FILE)) + Files.size(directory.resolve(SESSIONS_FILE))
+                    + Files.size(directory.resolve(ENROLLMENTS_FILE));
+            return new Archive(manifest, bytes, ColumnarFile.Reader.open(directory.resolve(ATTENDANCE_FILE)));
+        }
+
+        ArchiveResponse toResponse() {
+            ArchiveResponse response = new ArchiveResponse();
+            response.setSemester(semester);
+            response.setStartDate(startDate);
+            response.setEndDate(endDate);
+            response.setAttendanceRows(attendanceRows);
+            response.setSessions(sessions);
+            response.setEnrollments(enrollments);
+            response.setArchiveBytes(bytes);
+            response.setArchivedAt(archivedAt);
+            return response;
+        }
+
+        void close() {
+            try {
+                attendance.close();
+            } catch (IOException e) {
+                log.warn("Could not close archive of {}: {}", semester, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package com.tacs.attendancechecker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tacs.attendancechecker.dto.AttendanceRequest;
+import com.tacs.attendancechecker.entity.Attendance;
+import com.tacs.attendancechecker.repository.AttendanceRepository;
+import com.tacs.attendancechecker.util.TimeOrderedIdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind ingestion for attendance marks.
+ *
+ * When enabled, marks for a known session are appended to an fsync'd local
+ * journal and a bounded in-memory buffer, and the caller returns right away.
+ * A background flusher drains the buffer into the attendance table in batches.
+ * The last flushed sequence number is checkpointed, and any journal entries
+ * past the checkpoint are replayed on startup. Replaying is safe because the
+ * write is an upsert keyed on (student, session).
+ *
+ * The checkpoint only moves past a mark once it is written or known to be
+ * unwritable. A mark that fails for any other reason (lost connection, pool
+ * timeout) stops the drain, and it and the marks after it are retried on the
+ * next tick. Marks for an unknown student or session are appended to a
+ * dead-letter file next to the journal.
+ */
+@Component
+public class AttendanceIngestionQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceIngestionQueue.class);
+
+    private static final String JOURNAL_FILE = "attendance.journal";
+    private static final String CHECKPOINT_FILE = "attendance.checkpoint";
+    private static final String DEAD_LETTER_FILE = "attendance.dead-letter";
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TimeOrderedIdGenerator idGenerator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReportCache reportCache;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private AttendanceAnalyticsService attendanceAnalyticsService;
+
+    @Value("${attendance.ingestion.enabled:false}")
+    private boolean enabled;
+
+    @Value("${attendance.ingestion.capacity:10000}")
+    private int capacity;
+
+    @Value("${attendance.ingestion.batch-size:500}")
+    private int batchSize;
+
+    @Value("${attendance.ingestion.flush-interval-ms:5}")
+    private long flushIntervalMs;
+
+    @Value("${attendance.ingestion.journal-dir:./data/attendance-journal}")
+    private String journalDir;
+
+    private BlockingQueue<QueuedMark> buffer;
+    private FileChannel journal;
+    private Path checkpointPath;
+    private Path deadLetterPath;
+    private TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService flusher;
+
+    // ReentrantLock rather than synchronized: fsync and journal writes happen under
+    // these locks, and a virtual thread blocked inside synchronized pins its carrier
+
+    // Guarded by appendLock: sequence numbers, journal writes and buffer order
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private long lastSeq;
+    private long writtenPosition;
+
+    // Guarded by syncLock: how much of the journal is known to be on disk
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private long syncedPosition;
+
+    private volatile long checkpointSeq;
+
+    // Drained or replayed but not yet written, in sequence order; flusher only
+    private final List<QueuedMark> unwritten = new ArrayList<>();
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Paths.get(journalDir);
+        Files.createDirectories(dir);
+        checkpointPath = dir.resolve(CHECKPOINT_FILE);
+        deadLetterPath = dir.resolve(DEAD_LETTER_FILE);
+        buffer = new ArrayBlockingQueue<>(capacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        checkpointSeq = readCheckpoint();
+        lastSeq = checkpointSeq;
+        Path journalPath = dir.resolve(JOURNAL_FILE);
+        replay(journalPath);
+
+        journal = FileChannel.open(journalPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        writtenPosition = journal.size();
+        syncedPosition = writtenPosition;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "attendance-ingestion-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Attendance write-behind ingestion enabled (capacity {}, journal {})", capacity, journalPath);
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Whatever is left stays in the journal and is replayed on the next start
+        flushSafely();
+        journal.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Journal and buffer a mark. Returns false if ingestion is off or the buffer
+     * is full, in which case the caller should write synchronously.
+     */
+    public boolean offer(AttendanceRequest request, Attendance.Status status) {
+        if (!enabled || request.getSessionId() == null) {
+            return false;
+        }
+        long position;
+        appendLock.lock();
+        try {
+            // Only the flusher removes entries, so a free slot stays free until we add to it
+            if (buffer.remainingCapacity() == 0) {
+                return false;
+            }
+            QueuedMark mark = new QueuedMark(lastSeq + 1, request.getStudentId(), request.getSessionId(),
+                    request.getDate(), request.getTimeIn(), status.name(), request.getRemarks());
+            try {
+                writeToJournal(mark);
+            } catch (UncheckedIOException e) {
+                log.error("Attendance journal unavailable, writing synchronously", e);
+                return false;
+            }
+            lastSeq = mark.seq();
+            buffer.add(mark);
+            position = writtenPosition;
+        } finally {
+            appendLock.unlock();
+        }
+        syncJournal(position);
+        return true;
+    }
+
+    private void writeToJournal(QueuedMark mark) {
+        try {
+            byte[] line = (objectMapper.writeValueAsString(mark) + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer bytes = ByteBuffer.wrap(line);
+            while (bytes.hasRemaining()) {
+                journal.write(bytes);
+            }
+            writtenPosition += line.length;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write attendance journal", e);
+        }
+    }
+
+    // Group commit: one fsync covers every append made before it started
+    private void syncJournal(long upTo) {
+        syncLock.lock();
+        try {
+            if (syncedPosition >= upTo) {
+                return;
+            }
+            long target;
+            appendLock.lock();
+            try {
+                target = writtenPosition;
+            } finally {
+                appendLock.unlock();
+            }
+            try {
+                journal.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not sync attendance journal", e);
+            }
+            syncedPosition = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Attendance ingestion flush failed", e);
+        }
+    }
+
+    private void flush() throws IOException {
+        while (!unwritten.isEmpty() || buffer.drainTo(unwritten, batchSize) > 0) {
+            List<QueuedMark> batch = unwritten.subList(0, Math.min(batchSize, unwritten.size()));
+            int done = write(batch);
+            if (done > 0) {
+                writeCheckpoint(batch.get(done - 1).seq());
+            }
+            boolean stopped = done < batch.size();
+            batch.subList(0, done).clear();
+            if (stopped) {
+                // Try again on the next tick, from the mark that failed
+                return;
+            }
+        }
+        compactJournal();
+    }
+
+    /**
+     * Write a batch in sequence order. Returns how many marks from the start of
+     * the batch are settled, i.e. written or dead-lettered; the rest failed for
+     * a reason that may pass and must not be checkpointed.
+     */
+    private int write(List<QueuedMark> batch) throws IOException {
+        List<Written> written = new ArrayList<>(batch.size());
+        int done = 0;
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(mark -> written.add(upsert(mark))));
+            done = batch.size();
+        } catch (RuntimeException e) {
+            // One bad mark (e.g. unknown student) rolls back the batch; retry one by one
+            written.clear();
+            for (QueuedMark mark : batch) {
+                try {
+                    written.add(transactionTemplate.execute(status -> upsert(mark)));
+                } catch (RuntimeException rowError) {
+                    if (!isUnwritable(rowError)) {
+                        log.warn("Queued attendance mark {} failed, retrying on the next flush: {}",
+                                mark.seq(), rowError.getMessage());
+                        break;
+                    }
+                    deadLetter(mark, rowError);
+                }
+                done++;
+            }
+        }
+        recordWritten(written);
+        return done;
+    }
+
+    // Counted once the row is committed, so a rolled back batch isn't counted twice
+    private void recordWritten(List<Written> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        // Rows take their session's date, which the mark may not carry
+        Set<LocalDate> dates = new HashSet<>();
+        for (Written w : written) {
+            QueuedMark mark = w.mark();
+            Attendance.Status status = Attendance.Status.valueOf(mark.status());
+            dashboardCounters.recordMark(w.row().getDate(), w.row().getPrevious(), status);
+            attendanceAnalyticsService.recordMark(w.row().getCourseId(), mark.sessionId(), mark.studentId(), status);
+            dates.add(w.row().getDate());
+        }
+        // Marks don't carry their course, so every course report goes
+        reportCache.evict(
+                dates,
+                null,
+                written.stream().map(w -> w.mark().studentId()).collect(Collectors.toSet()));
+    }
+
+    private Written upsert(QueuedMark mark) {
+        AttendanceRepository.WrittenMark row = attendanceRepository.upsertAttendance(idGenerator.nextId(),
+                mark.studentId(), mark.sessionId(), mark.timeIn(), mark.status(), mark.remarks(),
+                Instant.now());
+        if (row == null) {
+            throw new UnknownSessionException();
+        }
+        return new Written(mark, row);
+    }
+
+    // Retrying can't help: the session is gone, or the student key fails
+    private static boolean isUnwritable(RuntimeException e) {
+        return e instanceof UnknownSessionException || e instanceof DataIntegrityViolationException;
+    }
+
+    // Keep an unwritable mark, with the reason, for someone to look at
+    private void deadLetter(QueuedMark mark, RuntimeException error) throws IOException {
+        log.warn("Moving queued attendance mark {} for student {} in session {} to {}: {}",
+                mark.seq(), mark.studentId(), mark.sessionId(), deadLetterPath, error.getMessage());
+        byte[] line = (objectMapper.writeValueAsString(new DeadLetter(mark, error.getMessage())) + "\n")
+                .getBytes(StandardCharsets.UTF_8);
+        try (FileChannel out = FileChannel.open(deadLetterPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = ByteBuffer.wrap(line);
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            out.force(false);
+        }
+    }
+
+    private void replay(Path journalPath) throws IOException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+        List<QueuedMark> pending = new ArrayList<>();
+        for (String line : Files.readAllLines(journalPath, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            QueuedMark mark;
+            try {
+                mark = objectMapper.readValue(line, QueuedMark.class);
+            } catch (IOException e) {
+                // A torn last line from a crash mid-append was never acknowledged
+                log.warn("Skipping unreadable attendance journal entry");
+                continue;
+            }
+            lastSeq = Math.max(lastSeq, mark.seq());
+            if (mark.seq() > checkpointSeq) {
+                pending.add(mark);
+            }
+        }
+        unwritten.addAll(pending);
+        flush();
+        if (!pending.isEmpty()) {
+            log.info("Replayed {} of {} unflushed attendance marks from the journal",
+                    pending.size() - unwritten.size(), pending.size());
+        }
+        if (unwritten.isEmpty()) {
+            writeCheckpoint(lastSeq);
+        }
+        // Start over with just the marks still to write, so a torn last line
+        // isn't followed by new entries
+        Path tmp = journalPath.resolveSibling(JOURNAL_FILE + ".tmp");
+        List<String> lines = new ArrayList<>(unwritten.size());
+        for (QueuedMark mark : unwritten) {
+            lines.add(objectMapper.writeValueAsString(mark));
+        }
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            out.force(true);
+        }
+        Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Once everything journaled has been flushed, start the journal over
+    private void compactJournal() throws IOException {
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            if (lastSeq != checkpointSeq || writtenPosition == 0) {
+                return;
+            }
+            journal.truncate(0);
+            journal.force(false);
+            writtenPosition = 0;
+            syncedPosition = 0;
+        } finally {
+            appendLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointPath)) {
+            return 0;
+        }
+        String value = Files.readString(checkpointPath, StandardCharsets.UTF_8).trim();
+        return value.isEmpty() ? 0 : Long.parseLong(value);
+    }
+
+    private void writeCheckpoint(long seq) throws IOException {
+        Path tmp = checkpointPath.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.wrap(Long.toString(seq).getBytes(StandardCharsets.UTF_8)));
+            out.force(true);
+        }
+        Files.move(tmp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpointSeq = seq;
+    }
+
+    // One journaled mark
+    record QueuedMark(long seq, Integer studentId, Integer sessionId, LocalDate date,
+            LocalTime timeIn, String status, String remarks) {
+    }
+
+    // One line of the dead-letter file
+    record DeadLetter(QueuedMark mark, String error) {
+    }
+
+    private record Written(QueuedMark mark, AttendanceRepository.WrittenMark row) {
+    }
+
+    private static class UnknownSessionException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnknownSessionException() {
+            super("Session not found");
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.tacs.attendancechecker.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the monthly partitions of the attendance table (see
+ * db/migration/008).
+ *
+ * Partitions are created months-ahead past the current month, so marks never
+ * have to fall back to attendance_default. A new partition is built as a
+ * plain table, takes over any rows for its month from the default partition,
+ * and is then attached. Attaching takes a lock on attendance that lets reads
+ * and writes through, but it has to prove the new table and the default
+ * partition hold no rows outside their ranges. The new table carries a CHECK
+ * constraint matching its range, so it isn't scanned; the default partition
+ * is, and marks writing to it wait until the attach commits. Created ahead,
+ * the default partition is normally empty.
+ *
+ * With detach-after-months set, partitions for months that long ago are
+ * detached. Their rows stay in the detached table, named after the month, but
+ * attendance queries no longer see them; the course-day rollup keeps their
+ * counts.
+ *
+ * Nothing is done while attendance isn't partitioned (migration 008 not run).
+ */
+@Service
+public class AttendancePartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendancePartitionService.class);
+
+    public static final String DEFAULT_PARTITION = "attendance_default";
+
+    private static final String PREFIX = "attendance_";
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${attendance.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every partition attached
+    @Value("${attendance.partitions.detach-after-months:0}")
+    private int detachAfterMonths;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            maintain();
+        } catch (RuntimeException e) {
+            // Marks for a missing month still land in the default partition
+            log.warn("Attendance partition maintenance failed at startup", e);
+        }
+    }
+
+    @Scheduled(cron = "${attendance.partitions.cron:0 15 3 * * *}")
+    public void maintain() {
+        if (!isPartitioned()) {
+            log.debug("attendance is not partitioned; skipping partition maintenance");
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        List<YearMonth> attached = attachedMonths();
+        for (YearMonth month = current; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            if (!attached.contains(month)) {
+                createPartition(month);
+            }
+        }
+        if (detachAfterMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(detachAfterMonths);
+            for (YearMonth month : attached) {
+                if (month.isBefore(oldestKept)) {
+                    detachPartition(month);
+                }
+            }
+        }
+    }
+
+    public boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('attendance'))",
+                Boolean.class));
+    }
+
+    // Months with a partition attached, oldest first
+    public List<YearMonth> attachedMonths() {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass('attendance') "
+                + "ORDER BY c.relname", String.class)) {
+            YearMonth month = monthOf(name);
+            if (month != null) {
+                months.add(month);
+            }
+        }
+        return months;
+    }
+
+    public static String partitionName(YearMonth month) {
+        return PREFIX + month.format(MONTH);
+    }
+
+    // The month of a partition named by partitionName, or null for any other table
+    static YearMonth monthOf(String name) {
+        if (!name.startsWith(PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(name.substring(PREFIX.length()), MONTH);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        Long moved = transactionTemplate.execute(tx -> {
+            jdbcTemplate.execute("CREATE TABLE " + name
+                    + " (LIKE attendance INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            long rows = 0;
+            if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, DEFAULT_PARTITION)) {
+                rows = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                        + " WHERE date >= ? AND date < ? RETURNING *) INSERT INTO " + name
+                        + " SELECT * FROM moved", from, to);
+            }
+            // Lets the attach skip scanning the new table; the partition bound replaces it
+            String check = name + "_range";
+            jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + check
+                    + " CHECK (date IS NOT NULL AND date >= '" + from + "' AND date < '" + to + "')");
+            jdbcTemplate.execute("ALTER TABLE attendance ATTACH PARTITION " + name
+                    + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            jdbcTemplate.execute("ALTER TABLE " + name + " DROP CONSTRAINT " + check);
+            return rows;
+        });
+        log.info("Created attendance partition {} ({} row(s) moved from {})", name, moved, DEFAULT_PARTITION);
+    }
+
+    private void detachPartition(YearMonth month) {
+        String name = partitionName(month);
+        jdbcTemplate.execute("ALTER TABLE attendance DETACH PARTITION " + name);
+        log.info("Detached attendance partition {}", name);
+    }
+}
@@ -0,0 +1,114 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.entity.Attendance;
+import com.tacs.attendancechecker.repository.DailyCourseAttendanceRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maintains daily_course_attendance_rollup.
+ *
+ * The native attendance writes (upsert, conditional update, absence fill)
+ * adjust the rollup in the same statement. Writes that go through JPA (bulk
+ * marking) or delete rows collect their status changes in a {@link Changes}
+ * and apply them here inside the caller's transaction, which also passes them
+ * on to the dashboard counters.
+ *
+ * Racing writers don't double count: a new row is inserted with ON CONFLICT
+ * DO NOTHING and an existing one is locked FOR UPDATE before its previous
+ * status is read. A nightly job still recounts the recent window from the
+ * attendance table, to repair counts changed outside these writes (e.g. rows
+ * edited by hand).
+ *
+ * The recount takes the rollup table in SHARE ROW EXCLUSIVE mode first, so
+ * mark writes wait until it commits. Without that, its upsert could write
+ * counts from a snapshot taken before a concurrent write committed, and
+ * overwrite that write's delta.
+ */
+@Service
+public class AttendanceRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceRollupService.class);
+
+    @Autowired
+    private DailyCourseAttendanceRollupRepository rollupRepository;
+
+    @Autowired
+    private ReportCache reportCache;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Value("${attendance.rollup.reconcile-days:14}")
+    private int reconcileDays;
+
+    // Apply collected status changes; must run in the transaction that wrote the rows
+    @Transactional
+    public void apply(Changes changes) {
+        Map<LocalDate, int[]> byDate = new HashMap<>();
+        changes.deltas.forEach((day, delta) -> {
+            if (Arrays.stream(delta).anyMatch(d -> d != 0)) {
+                rollupRepository.applyDelta(day.courseId(), day.date(),
+                        delta[Attendance.Status.PRESENT.ordinal()], delta[Attendance.Status.LATE.ordinal()],
+                        delta[Attendance.Status.ABSENT.ordinal()], delta[Attendance.Status.EXCUSED.ordinal()]);
+                int[] total = byDate.computeIfAbsent(day.date(), date -> new int[delta.length]);
+                for (int i = 0; i < delta.length; i++) {
+                    total[i] += delta[i];
+                }
+            }
+        });
+        byDate.forEach(dashboardCounters::addMarks);
+    }
+
+    // Recount a date range from the attendance table, with writers held off until it commits
+    @Transactional
+    public int reconcile(LocalDate startDate, LocalDate endDate) {
+        rollupRepository.lockAgainstWriters();
+        return rollupRepository.recount(startDate, endDate) + rollupRepository.deleteEmpty(startDate, endDate);
+    }
+
+    @Scheduled(cron = "${attendance.rollup.reconcile-cron:0 0 2 * * *}")
+    @Transactional
+    public void reconcileRecent() {
+        LocalDate today = LocalDate.now();
+        int fixed = reconcile(today.minusDays(reconcileDays), today);
+        if (fixed > 0) {
+            log.info("Attendance rollup reconciliation corrected {} course-day(s)", fixed);
+            // Cached daily and monthly summaries were read from the old counts
+            reportCache.evictAll();
+        }
+    }
+
+    // Per course-day status changes of a batch of attendance rows
+    public static class Changes {
+        private final Map<CourseDay, int[]> deltas = new HashMap<>();
+
+        // before is null for a new row, after is null for a deleted one
+        public void record(Integer courseId, LocalDate date, Attendance.Status before, Attendance.Status after) {
+            if (before == after) {
+                return;
+            }
+            int[] delta = deltas.computeIfAbsent(new CourseDay(courseId, date),
+                    day -> new int[Attendance.Status.values().length]);
+            if (before != null) {
+                delta[before.ordinal()]--;
+            }
+            if (after != null) {
+                delta[after.ordinal()]++;
+            }
+        }
+    }
+
+    private record CourseDay(Integer courseId, LocalDate date) {
+    }
+}
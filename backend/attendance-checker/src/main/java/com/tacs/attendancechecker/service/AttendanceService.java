@@ -3,12 +3,20 @@ package com.tacs.attendancechecker.service;
 import com.tacs.attendancechecker.dto.*;
 import com.tacs.attendancechecker.entity.*;
 import com.tacs.attendancechecker.repository.*;
+import com.tacs.attendancechecker.util.OptimisticRetry;
+import com.tacs.attendancechecker.util.TimeOrderedIdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,118 +43,280 @@ public class AttendanceService {
     @Autowired
     private OfferedCourseRepository offeredCourseRepository;
 
+    @Autowired
+    private AttendanceIngestionQueue attendanceIngestionQueue;
+
+    @Autowired
+    private TimeOrderedIdGenerator idGenerator;
+
+    @Autowired
+    private LiveRosterService liveRosterService;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private ReportCache reportCache;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private AttendanceAnalyticsService attendanceAnalyticsService;
+
     // Get all courses for a teacher
     public List<CourseResponse> getTeacherCourses(String teacherId) {
         // Course no longer has teacher - get courses through OfferedCourse
-        List<OfferedCourse> offeredCourses = offeredCourseRepository.findByTeacherTeacherId(teacherId);
-        return offeredCourses.stream()
-                .map(oc -> mapToCourseResponse(oc.getCourse()))
-                .distinct()
+        return offeredCourseRepository.findCoursesByTeacherId(teacherId).stream()
+                .map(this::mapToCourseResponse)
                 .collect(Collectors.toList());
     }
 
     // Get enrolled students for a course
     public List<EnrolledStudentResponse> getEnrolledStudents(Integer courseId) {
-        List<Enrollment> enrollments = enrollmentRepository.findByOfferedCourseCourseCourseId(courseId);
-        return enrollments.stream()
-                .filter(e -> "ACTIVE".equalsIgnoreCase(e.getStudent().getEnrollmentStatus()))
-                .map(this::mapToEnrolledStudentResponse)
-                .collect(Collectors.toList());
+        // Served from memory while a session of this course is live
+        List<EnrolledStudentResponse> live = liveRosterService.getEnrolledStudents(courseId);
+        if (live != null) {
+            return live;
+        }
+        return enrollmentRepository.findActiveStudentsByCourseId(courseId);
     }
 
-    // Mark attendance for a student
+    // Mark attendance for a student. The row is written with an upsert keyed
+    // on (student, session), so concurrent marks for the same student cannot both
+    // insert, and the response comes back from the same statement.
     public AttendanceResponse markAttendance(AttendanceRequest request) {
-        // Check if attendance already exists for this student, course, date, and
-        // session
-        var existing = request.getSessionId() != null
-                ? attendanceRepository.findByStudentStudentIdAndSessionSessionId(
-                        request.getStudentId(), request.getSessionId())
-                : attendanceRepository.findByStudentStudentIdAndCourseCourseIdAndDate(
-                        request.getStudentId(), request.getCourseId(), request.getDate());
-
-        Attendance attendance;
-        if (existing.isPresent()) {
-            // Update existing attendance
-            attendance = existing.get();
-            attendance.setStatus(Attendance.Status.valueOf(request.getStatus().toUpperCase()));
-            attendance.setRemarks(request.getRemarks());
-            if (request.getTimeIn() != null) {
-                attendance.setTimeIn(request.getTimeIn());
+        Attendance.Status status = Attendance.Status.valueOf(request.getStatus().toUpperCase());
+
+        // The client says which version it edited; apply only if that is still current
+        if (request.getVersion() != null) {
+            return markAttendanceIfCurrent(request, status);
+        }
+
+        // Live roster: the mark is recorded in memory and flushed in the background
+        AttendanceResponse live = liveRosterService.mark(request.getSessionId(), request.getStudentId(),
+                status, request.getTimeIn(), request.getRemarks());
+        if (live != null) {
+            return live;
+        }
+
+        // Write-behind mode: the mark is journaled and written by the flusher
+        if (attendanceIngestionQueue.offer(request, status)) {
+            return mapQueuedToAttendanceResponse(request, status);
+        }
+
+        Integer sessionId = request.getSessionId() != null
+                ? request.getSessionId()
+                : findSessionId(request.getCourseId(), request.getDate());
+
+        AttendanceRepository.WrittenMark written;
+        try {
+            written = attendanceRepository.upsertAttendance(idGenerator.nextId(),
+                    request.getStudentId(), sessionId, request.getTimeIn(),
+                    status.name(), request.getRemarks(), Instant.now());
+        } catch (DataIntegrityViolationException e) {
+            // Only the student foreign key can fail here; the session is checked by the query
+            throw new RuntimeException("Student not found");
+        }
+        if (written == null) {
+            throw new RuntimeException("Session not found");
+        }
+        dashboardCounters.recordMark(written.getDate(), written.getPrevious(), status);
+        attendanceAnalyticsService.recordMark(written.getCourseId(), sessionId, request.getStudentId(), status);
+        // A live roster for this session no longer matches the table
+        liveRosterService.close(sessionId);
+        reportCache.evict(written.getDate(), written.getCourseId(), request.getStudentId());
+        return written.toResponse();
+    }
+
+    // Conditional mark: fails with the current row if someone changed it after the client read it
+    private AttendanceResponse markAttendanceIfCurrent(AttendanceRequest request, Attendance.Status status) {
+        Integer sessionId = request.getSessionId() != null
+                ? request.getSessionId()
+                : findSessionId(request.getCourseId(), request.getDate());
+        // Live marks count as changes too, so write them back before comparing versions
+        liveRosterService.close(sessionId);
+
+        AttendanceRepository.WrittenMark updated = attendanceRepository.updateAttendance(request.getStudentId(), sessionId,
+                request.getTimeIn(), status.name(), request.getRemarks(), request.getVersion(), Instant.now());
+        if (updated == null) {
+            throw new VersionConflictException("Attendance was changed by someone else",
+                    attendanceRepository.findResponseBySessionIdAndStudentId(sessionId, request.getStudentId())
+                            .orElse(null));
+        }
+        dashboardCounters.recordMark(updated.getDate(), updated.getPrevious(), status);
+        attendanceAnalyticsService.recordMark(updated.getCourseId(), sessionId, request.getStudentId(), status);
+        reportCache.evict(updated.getDate(), updated.getCourseId(), request.getStudentId());
+        return updated.toResponse();
+    }
+
+    // Mark attendance for a whole roster in one transaction. The session, its
+    // course and the students are resolved once, and all rows are written as a
+    // single JDBC batch. Bad entries are reported per row instead of failing the
+    // whole roster. If a concurrent mark wins a row first, the batch is rerun on
+    // fresh state.
+    public BulkAttendanceResponse markSessionAttendance(Integer sessionId, BulkAttendanceRequest request) {
+        // Write back any live marks first; the roster is reloaded on the next read
+        liveRosterService.close(sessionId);
+        return optimisticRetry.inTransaction(() -> writeSessionAttendance(sessionId, request));
+    }
+
+    private BulkAttendanceResponse writeSessionAttendance(Integer sessionId, BulkAttendanceRequest request) {
+        AttendanceSession session = attendanceSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Session not found"));
+        List<BulkAttendanceRequest.Entry> entries = request.getRecords() != null
+                ? request.getRecords()
+                : List.of();
+
+        // Existing rows for this session, keyed by student, and their statuses before this batch
+        Map<Integer, Attendance> rowsByStudent = new HashMap<>();
+        Map<Integer, Attendance.Status> previousStatus = new HashMap<>();
+        for (Attendance existing : attendanceRepository.findBySessionIdWithStudents(sessionId)) {
+            if (rowsByStudent.putIfAbsent(existing.getStudent().getStudentId(), existing) == null) {
+                previousStatus.put(existing.getStudent().getStudentId(), existing.getStatus());
             }
-        } else {
-            // Create new attendance
-            attendance = new Attendance();
-            attendance.setAttendanceId(UUID.randomUUID().toString());
-
-            Student student = studentRepository.findById(request.getStudentId())
-                    .orElseThrow(() -> new RuntimeException("Student not found"));
-            Course course = courseRepository.findById(request.getCourseId())
-                    .orElseThrow(() -> new RuntimeException("Course not found"));
-
-            attendance.setStudent(student);
-            attendance.setCourse(course);
-            attendance.setDate(request.getDate());
-            attendance.setStatus(Attendance.Status.valueOf(request.getStatus().toUpperCase()));
-            attendance.setRemarks(request.getRemarks());
-
-            if (request.getTimeIn() != null) {
-                attendance.setTimeIn(request.getTimeIn());
+        }
+
+        // Students that still need a new row
+        Set<Integer> newStudentIds = entries.stream()
+                .map(BulkAttendanceRequest.Entry::getStudentId)
+                .filter(id -> id != null && !rowsByStudent.containsKey(id))
+                .collect(Collectors.toSet());
+        Map<Integer, Student> students = newStudentIds.isEmpty()
+                ? Map.of()
+                : studentRepository.findAllWithUserByStudentIdIn(newStudentIds).stream()
+                        .collect(Collectors.toMap(Student::getStudentId, s -> s));
+
+        List<Attendance> toSave = new ArrayList<>();
+        Set<Integer> queuedStudents = new HashSet<>();
+        List<Attendance> rowForEntry = new ArrayList<>();
+        List<BulkAttendanceResponse.RowResult> results = new ArrayList<>();
+
+        for (BulkAttendanceRequest.Entry entry : entries) {
+            Integer studentId = entry.getStudentId();
+            Attendance.Status status = parseStatus(entry.getStatus());
+            if (studentId == null || status == null) {
+                results.add(new BulkAttendanceResponse.RowResult(studentId, BulkAttendanceResponse.RowResult.FAILED,
+                        studentId == null ? "Student ID is required" : "Invalid status: " + entry.getStatus(), null));
+                rowForEntry.add(null);
+                continue;
             }
 
-            // Link to session - either use provided or find/create one for this date
-            AttendanceSession session;
-            if (request.getSessionId() != null) {
-                session = attendanceSessionRepository.findById(request.getSessionId())
-                        .orElseThrow(() -> new RuntimeException("Session not found"));
-            } else {
-                // Try to find existing session for this course and date
-                var sessions = attendanceSessionRepository.findByCourseCourseIdAndDate(
-                        request.getCourseId(), request.getDate());
-
-                if (!sessions.isEmpty()) {
-                    // Use the first (or most recent) session
-                    session = sessions.get(0);
-                } else {
-                    // Course no longer has teacher - cannot auto-create session
-                    // Sessions must be created through proper workflow with OfferedCourse
-                    throw new RuntimeException("No attendance session found for course " + course.getCourseId()
-                            + " on date " + request.getDate() + ". Please create a session first.");
+            Attendance attendance = rowsByStudent.get(studentId);
+            String outcome = BulkAttendanceResponse.RowResult.UPDATED;
+            if (attendance == null) {
+                Student student = students.get(studentId);
+                if (student == null) {
+                    results.add(new BulkAttendanceResponse.RowResult(studentId,
+                            BulkAttendanceResponse.RowResult.FAILED, "Student not found", null));
+                    rowForEntry.add(null);
+                    continue;
                 }
+                attendance = new Attendance();
+                attendance.setAttendanceId(idGenerator.nextId());
+                attendance.setNewRecord(true);
+                attendance.setStudent(student);
+                attendance.setCourse(session.getCourse());
+                attendance.setSession(session);
+                attendance.setDate(session.getDate());
+                rowsByStudent.put(studentId, attendance);
+                outcome = BulkAttendanceResponse.RowResult.CREATED;
             }
-            attendance.setSession(session);
+
+            attendance.setStatus(status);
+            attendance.setRemarks(entry.getRemarks());
+            if (entry.getTimeIn() != null) {
+                attendance.setTimeIn(entry.getTimeIn());
+            }
+
+            if (queuedStudents.add(studentId)) {
+                toSave.add(attendance);
+            }
+            results.add(new BulkAttendanceResponse.RowResult(studentId, outcome, null, null));
+            rowForEntry.add(attendance);
         }
 
-        Attendance saved = attendanceRepository.save(attendance);
-        return mapToAttendanceResponse(saved);
+        // Flush here so a lost race surfaces inside the retried block
+        attendanceRepository.saveAllAndFlush(toSave);
+
+        AttendanceRollupService.Changes changes = new AttendanceRollupService.Changes();
+        for (Attendance attendance : toSave) {
+            changes.record(attendance.getCourse().getCourseId(), attendance.getDate(),
+                    previousStatus.get(attendance.getStudent().getStudentId()), attendance.getStatus());
+        }
+        attendanceRollupService.apply(changes);
+        for (Attendance attendance : toSave) {
+            attendanceAnalyticsService.recordMark(session.getCourse().getCourseId(), sessionId,
+                    attendance.getStudent().getStudentId(), attendance.getStatus());
+        }
+        // After commit; a rerun of the batch registers its own
+        reportCache.evict(
+                toSave.stream().map(Attendance::getDate).collect(Collectors.toSet()),
+                Set.of(session.getCourse().getCourseId()),
+                toSave.stream().map(attendance -> attendance.getStudent().getStudentId()).collect(Collectors.toSet()));
+
+        for (int i = 0; i < results.size(); i++) {
+            Attendance attendance = rowForEntry.get(i);
+            if (attendance != null) {
+                results.get(i).setAttendance(mapToAttendanceResponse(attendance));
+            }
+        }
+        return new BulkAttendanceResponse(sessionId, results);
     }
 
     // Get attendance records for a course on a specific date
     public List<AttendanceResponse> getAttendanceByDate(Integer courseId, LocalDate date) {
-        List<Attendance> attendances = attendanceRepository.findByCourseCourseIdAndDate(courseId, date);
-        return attendances.stream().map(this::mapToAttendanceResponse).collect(Collectors.toList());
+        return attendanceRepository.findResponsesByCourseIdAndDate(courseId, date);
     }
 
     // Get attendance records for a specific session
     public List<AttendanceResponse> getAttendanceBySession(Integer sessionId) {
-        List<Attendance> attendances = attendanceRepository.findBySessionSessionId(sessionId);
-        return attendances.stream().map(this::mapToAttendanceResponse).collect(Collectors.toList());
+        // Served from memory while the session is open
+        List<AttendanceResponse> live = liveRosterService.getAttendance(sessionId);
+        if (live != null) {
+            return live;
+        }
+        return attendanceRepository.findResponsesBySessionId(sessionId);
     }
 
     // Get all attendance for a course
     public List<AttendanceResponse> getCourseAttendance(Integer courseId) {
-        List<Attendance> attendances = attendanceRepository.findByCourseCourseId(courseId);
-        return attendances.stream().map(this::mapToAttendanceResponse).collect(Collectors.toList());
+        return attendanceRepository.findResponsesByCourseId(courseId);
     }
 
     // Get student's attendance for a specific course
     public List<AttendanceResponse> getStudentAttendance(Integer studentId, Integer courseId) {
-        List<Attendance> attendances = attendanceRepository.findByCourseCourseId(courseId).stream()
-                .filter(a -> a.getStudent().getStudentId().equals(studentId))
-                .collect(Collectors.toList());
-        return attendances.stream().map(this::mapToAttendanceResponse).collect(Collectors.toList());
+        return attendanceRepository.findResponsesByCourseIdAndStudentId(courseId, studentId);
     }
 
     // Helper methods
+    private Integer findSessionId(Integer courseId, LocalDate date) {
+        // Try to find existing session for this course and date
+        var sessions = attendanceSessionRepository.findByCourseCourseIdAndDate(courseId, date);
+        if (sessions.isEmpty()) {
+            // Course no longer has teacher - cannot auto-create session
+            // Sessions must be created through proper workflow with OfferedCourse
+            throw new RuntimeException("No attendance session found for course " + courseId
+                    + " on date " + date + ". Please create a session first.");
+        }
+        // Use the first (or most recent) session
+        return sessions.get(0).getSessionId();
+    }
+
+    private Attendance.Status parseStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        try {
+            return Attendance.Status.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private CourseResponse mapToCourseResponse(Course course) {
         CourseResponse response = new CourseResponse();
         response.setCourseId(course.getCourseId());
@@ -159,25 +329,22 @@ public class AttendanceService {
         return response;
     }
 
-    private EnrolledStudentResponse mapToEnrolledStudentResponse(Enrollment enrollment) {
-        EnrolledStudentResponse response = new EnrolledStudentResponse();
-        Student student = enrollment.getStudent();
-        User user = student.getUser();
-
-        response.setStudentId(student.getStudentId());
-        response.setStudentNumber(student.getStudentNumber());
-        response.setStudentName(user.getFname() + " " + user.getLname());
-        response.setEmail(user.getEmail());
-        response.setProgram(student.getProgram());
-        response.setYearLevel(student.getYearLevel());
-        response.setEnrollmentStatus(student.getEnrollmentStatus());
-
+    // Response for a mark that has been journaled but not written yet
+    private AttendanceResponse mapQueuedToAttendanceResponse(AttendanceRequest request, Attendance.Status status) {
+        AttendanceResponse response = new AttendanceResponse();
+        response.setStudentId(request.getStudentId());
+        response.setCourseId(request.getCourseId());
+        response.setSessionId(request.getSessionId());
+        response.setDate(request.getDate());
+        response.setTimeIn(request.getTimeIn());
+        response.setStatus(status.toString());
+        response.setRemarks(request.getRemarks());
         return response;
     }
 
     private AttendanceResponse mapToAttendanceResponse(Attendance attendance) {
         AttendanceResponse response = new AttendanceResponse();
-        response.setAttendanceId(attendance.getAttendanceId());
+        response.setAttendanceId(attendance.getAttendanceId().toString());
         response.setStudentId(attendance.getStudent().getStudentId());
 
         User studentUser = attendance.getStudent().getUser();
@@ -189,6 +356,7 @@ public class AttendanceService {
         response.setTimeIn(attendance.getTimeIn());
         response.setStatus(attendance.getStatus().toString());
         response.setRemarks(attendance.getRemarks());
+        response.setVersion(attendance.getVersion());
 
         // Include session ID if attendance is linked to a session
         if (attendance.getSession() != null) {
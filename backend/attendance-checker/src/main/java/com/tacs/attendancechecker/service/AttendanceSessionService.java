@@ -1,29 +1,75 @@
 package com.tacs.attendancechecker.service;
 
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
+import com.tacs.attendancechecker.entity.Attendance;
 import com.tacs.attendancechecker.entity.AttendanceSession;
 import com.tacs.attendancechecker.repository.AttendanceSessionRepository;
 import com.tacs.attendancechecker.repository.AttendanceRepository;
+import com.tacs.attendancechecker.util.KeysetPager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class AttendanceSessionService {
 
+    private static final KeysetPager.Listing<AttendanceSession> SESSIONS = KeysetPager.Listing
+            .of(AttendanceSession.class, "sessionId", Integer.class, AttendanceSession::getSessionId)
+            .sortBy("date", "date", LocalDate.class, AttendanceSession::getDate)
+            .fetch("classSchedule.offeredCourse");
+
     @Autowired
     private AttendanceSessionRepository attendanceSessionRepository;
 
     @Autowired
     private AttendanceRepository attendanceRepository;
 
+    @Autowired
+    private SessionCheckInService sessionCheckInService;
+
+    @Autowired
+    private LiveRosterService liveRosterService;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private ReportCache reportCache;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private AttendanceAnalyticsService attendanceAnalyticsService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
     public AttendanceSession createAttendanceSession(AttendanceSession attendanceSession) {
-        return attendanceSessionRepository.save(attendanceSession);
+        AttendanceSession saved = attendanceSessionRepository.save(attendanceSession);
+        liveRosterService.open(saved);
+        return saved;
     }
 
-    public List<AttendanceSession> getAllAttendanceSessions() {
-        return attendanceSessionRepository.findAll();
+    // A page of sessions, optionally held between from and to (inclusive)
+    public PageResponse<AttendanceSession> getAttendanceSessions(ListQuery query, Integer courseId,
+            String teacherId, LocalDate from, LocalDate to, Boolean finalized) {
+        return keysetPager.find(SESSIONS, new KeysetPager.Filters<AttendanceSession>()
+                .equal("course.courseId", courseId)
+                .equal("teacher.teacherId", teacherId)
+                .atLeast("date", from)
+                .atMost("date", to)
+                .equal("isFinalized", finalized), query);
     }
 
     public AttendanceSession getAttendanceSessionById(Integer sessionId) {
@@ -43,8 +89,18 @@ public class AttendanceSessionService {
         return attendanceSessionRepository.findByCourseCourseIdAndDate(courseId, date);
     }
 
+    @Transactional
     public AttendanceSession updateAttendanceSession(Integer sessionId, AttendanceSession attendanceSession) {
+        // Write back live marks before the session changes or is finalized
+        liveRosterService.close(sessionId);
         AttendanceSession existingSession = getAttendanceSessionById(sessionId);
+        if (attendanceSession.getVersion() != null
+                && !attendanceSession.getVersion().equals(existingSession.getVersion())) {
+            throw new VersionConflictException("Attendance session was changed by someone else", existingSession);
+        }
+        boolean wasFinalized = Boolean.TRUE.equals(existingSession.getIsFinalized());
+        // Its order among the course's sessions may change, or it may gain absences
+        attendanceAnalyticsService.evictCourse(existingSession.getCourse().getCourseId());
         existingSession.setCourse(attendanceSession.getCourse());
         existingSession.setTeacher(attendanceSession.getTeacher());
         existingSession.setDate(attendanceSession.getDate());
@@ -53,17 +109,42 @@ public class AttendanceSessionService {
         existingSession.setSessionType(attendanceSession.getSessionType());
         existingSession.setIsFinalized(attendanceSession.getIsFinalized());
         existingSession.setRemarks(attendanceSession.getRemarks());
-        return attendanceSessionRepository.save(existingSession);
+        // Flush now so a concurrent update is caught by the version check here
+        AttendanceSession saved = attendanceSessionRepository.saveAndFlush(existingSession);
+        attendanceAnalyticsService.evictCourse(saved.getCourse().getCourseId());
+        if (!wasFinalized && Boolean.TRUE.equals(saved.getIsFinalized())) {
+            // Everyone still unmarked is absent
+            long filled = attendanceRepository.insertMissingAbsences(sessionId, Instant.now());
+            dashboardCounters.addMarks(saved.getDate(), Attendance.Status.ABSENT, filled);
+            // Which students got a row isn't returned, so every student report goes
+            reportCache.evict(Set.of(saved.getDate()), Set.of(saved.getCourse().getCourseId()), null);
+        }
+        sessionCheckInService.evict(sessionId);
+        return saved;
     }
 
+    @Transactional
     public void deleteAttendanceSession(Integer sessionId) {
         // First, delete all attendance records for this session
-        attendanceRepository.findAll().stream()
-                .filter(attendance -> attendance.getSession() != null &&
-                        attendance.getSession().getSessionId().equals(sessionId))
-                .forEach(attendance -> attendanceRepository.delete(attendance));
+        List<Attendance> records = attendanceRepository.findBySessionSessionId(sessionId);
+        attendanceRepository.deleteAll(records);
+        AttendanceRollupService.Changes changes = new AttendanceRollupService.Changes();
+        for (Attendance attendance : records) {
+            changes.record(attendance.getCourse().getCourseId(), attendance.getDate(), attendance.getStatus(), null);
+        }
+        attendanceRollupService.apply(changes);
+        records.stream().map(attendance -> attendance.getCourse().getCourseId()).distinct()
+                .forEach(attendanceAnalyticsService::evictCourse);
+        reportCache.evict(
+                records.stream().map(Attendance::getDate).collect(Collectors.toSet()),
+                records.stream().map(attendance -> attendance.getCourse().getCourseId()).collect(Collectors.toSet()),
+                records.stream().map(attendance -> attendance.getStudent().getStudentId()).collect(Collectors.toSet()));
 
-        // Then delete the session
+        // Then delete the session, leaving tombstones for synced clients
+        liveRosterService.discard(sessionId);
+        attendanceSessionRepository.findById(sessionId)
+                .ifPresent(session -> syncService.recordSessionDeletion(session, records));
         attendanceSessionRepository.deleteById(sessionId);
+        sessionCheckInService.evict(sessionId);
     }
 }
@@ -8,6 +8,7 @@ import com.tacs.attendancechecker.repository.StudentRepository;
 import com.tacs.attendancechecker.repository.TeacherRepository;
 import com.tacs.attendancechecker.repository.UserRepository;
 import com.tacs.attendancechecker.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -33,16 +34,25 @@ public class AuthService {
     private final PasswordEncoder encoder;
     private final AuthenticationManager authManager;
     private final JwtUtil jwtUtil;
+    private final DashboardCounters dashboardCounters;
+    private final String googleClientId;
+
+    // Thread-safe and caches Google's public keys, so build it once instead of per
+    // request (which also fetched the keys over HTTP on every sign-in)
+    private volatile GoogleIdTokenVerifier googleVerifier;
 
     public AuthService(UserRepository repo, TeacherRepository teacherRepo,
             StudentRepository studentRepo, PasswordEncoder encoder,
-            AuthenticationManager authManager, JwtUtil jwtUtil) {
+            AuthenticationManager authManager, JwtUtil jwtUtil, DashboardCounters dashboardCounters,
+            @Value("${google.oauth.client-id}") String googleClientId) {
         this.userRepo = repo;
         this.teacherRepo = teacherRepo;
         this.studentRepo = studentRepo;
         this.encoder = encoder;
         this.authManager = authManager;
         this.jwtUtil = jwtUtil;
+        this.dashboardCounters = dashboardCounters;
+        this.googleClientId = googleClientId;
     }
 
     public void register(RegisterRequest req) {
@@ -64,6 +74,7 @@ public class AuthService {
         student.setStudentNumber(generateStudentNumber());
         student.setYearLevel(1); // Default to year 1
         studentRepo.save(student);
+        dashboardCounters.addStudents(1);
     }
 
     private String generateStudentNumber() {
@@ -124,6 +135,7 @@ public class AuthService {
         student.setStudentNumber(generateStudentNumber());
         student.setYearLevel(1); // Default to year 1
         studentRepo.save(student);
+        dashboardCounters.addStudents(1);
 
         return u;
     }
@@ -153,14 +165,7 @@ public class AuthService {
 
     public Map<String, Object> verifyGoogleToken(String idTokenString) {
         try {
-            GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(
-                    GoogleNetHttpTransport.newTrustedTransport(),
-                    GsonFactory.getDefaultInstance())
-                    .setAudience(Collections
-                            .singletonList("1032045816890-72lk7isilq0n6gd11m23gfd01u4kb7gm.apps.googleusercontent.com"))
-                    .build();
-
-            GoogleIdToken idToken = verifier.verify(idTokenString);
+            GoogleIdToken idToken = getGoogleVerifier().verify(idTokenString);
             if (idToken != null) {
                 Payload payload = idToken.getPayload();
                 Map<String, Object> userData = new HashMap<>();
@@ -180,4 +185,17 @@ public class AuthService {
             throw new RuntimeException("Failed to verify Google ID token", e);
         }
     }
-}
\ No newline at end of file
+
+    private GoogleIdTokenVerifier getGoogleVerifier() throws Exception {
+        GoogleIdTokenVerifier verifier = googleVerifier;
+        if (verifier == null) {
+            verifier = new GoogleIdTokenVerifier.Builder(
+                    GoogleNetHttpTransport.newTrustedTransport(),
+                    GsonFactory.getDefaultInstance())
+                    .setAudience(Collections.singletonList(googleClientId))
+                    .build();
+            googleVerifier = verifier;
+        }
+        return verifier;
+    }
+}
@@ -1,11 +1,14 @@
 package com.tacs.attendancechecker.service;
 
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.entity.ClassSchedule;
 import com.tacs.attendancechecker.entity.OfferedCourse;
 import com.tacs.attendancechecker.entity.Classroom;
 import com.tacs.attendancechecker.entity.AttendanceSession;
 import com.tacs.attendancechecker.repository.ClassScheduleRepository;
 import com.tacs.attendancechecker.repository.AttendanceSessionRepository;
+import com.tacs.attendancechecker.util.KeysetPager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,12 +20,28 @@ import java.util.Optional;
 @Service
 public class ClassScheduleService {
 
+    private static final KeysetPager.Listing<ClassSchedule> SCHEDULES = KeysetPager.Listing
+            .of(ClassSchedule.class, "scheduleId", Integer.class, ClassSchedule::getScheduleId)
+            .sortBy("dayOfWeek", "dayOfWeek", String.class, ClassSchedule::getDayOfWeek)
+            .sortBy("startTime", "startTime", LocalTime.class, ClassSchedule::getStartTime)
+            .sortBy("courseName", "offeredCourse.course.courseName", String.class,
+                    schedule -> schedule.getOfferedCourse().getCourse().getCourseName())
+            .sortBy("teacher", "offeredCourse.teacher.user.lname", String.class,
+                    schedule -> schedule.getOfferedCourse().getTeacher().getUser().getLname())
+            .fetch("offeredCourse");
+
     @Autowired
     private ClassScheduleRepository classScheduleRepository;
 
     @Autowired
     private AttendanceSessionRepository attendanceSessionRepository;
 
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
     public ClassSchedule createSchedule(ClassSchedule schedule) {
         // Check for conflicts before creating
         List<ClassSchedule> conflicts = checkScheduleConflicts(
@@ -38,8 +57,17 @@ public class ClassScheduleService {
         return classScheduleRepository.save(schedule);
     }
 
-    public List<ClassSchedule> getAllSchedules() {
-        return classScheduleRepository.findAll();
+    // A page of schedules; q matches the course name, the teacher's name or the room
+    public PageResponse<ClassSchedule> getSchedules(ListQuery query, String q, Boolean active, Integer courseId,
+            Integer offeredCourseId, Integer classroomId, String dayOfWeek) {
+        return keysetPager.find(SCHEDULES, new KeysetPager.Filters<ClassSchedule>()
+                .contains(q, "offeredCourse.course.courseName", "offeredCourse.teacher.user.fname",
+                        "offeredCourse.teacher.user.lname", "classroom.roomNumber")
+                .equal("isActive", active)
+                .equal("offeredCourse.course.courseId", courseId)
+                .equal("offeredCourse.offeredCourseId", offeredCourseId)
+                .equal("classroom.classroomId", classroomId)
+                .equalIgnoreCase("dayOfWeek", dayOfWeek), query);
     }
 
     public Optional<ClassSchedule> getScheduleById(Integer scheduleId) {
@@ -62,10 +90,6 @@ public class ClassScheduleService {
         return classScheduleRepository.findByClassroom(classroom);
     }
 
-    public List<ClassSchedule> getActiveSchedules() {
-        return classScheduleRepository.findByIsActive(true);
-    }
-
     public List<ClassSchedule> checkScheduleConflicts(Integer classroomId, String dayOfWeek,
             LocalTime startTime, LocalTime endTime) {
         return classScheduleRepository.findConflictingSchedules(classroomId, dayOfWeek, startTime, endTime);
@@ -118,6 +142,8 @@ public class ClassScheduleService {
             }
         }
         // Now delete the schedule
+        classScheduleRepository.findById(scheduleId)
+                .ifPresent(schedule -> syncService.recordScheduleDeletions(List.of(schedule)));
         classScheduleRepository.deleteById(scheduleId);
     }
 
@@ -141,6 +167,7 @@ public class ClassScheduleService {
             }
         }
         // Now delete all schedules
+        syncService.recordScheduleDeletions(allSchedules);
         classScheduleRepository.deleteAll();
     }
 }
@@ -13,6 +13,9 @@ public class ClassroomService {
     @Autowired
     private ClassroomRepository classroomRepository;
 
+    @Autowired
+    private EntityCache entityCache;
+
     public Classroom createClassroom(Classroom classroom) {
         return classroomRepository.save(classroom);
     }
@@ -32,10 +35,13 @@ public class ClassroomService {
         existingClassroom.setBuilding(classroom.getBuilding());
         existingClassroom.setCapacity(classroom.getCapacity());
         existingClassroom.setRoomType(classroom.getRoomType());
-        return classroomRepository.save(existingClassroom);
+        Classroom saved = classroomRepository.save(existingClassroom);
+        entityCache.evict(Classroom.class, classroomId);
+        return saved;
     }
 
     public void deleteClassroom(Integer classroomId) {
         classroomRepository.deleteById(classroomId);
+        entityCache.evict(Classroom.class, classroomId);
     }
 }
@@ -2,25 +2,42 @@ package com.tacs.attendancechecker.service;
 
 import com.tacs.attendancechecker.dto.CourseRequest;
 import com.tacs.attendancechecker.dto.CourseResponse;
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.entity.Course;
 import com.tacs.attendancechecker.entity.Teacher;
 import com.tacs.attendancechecker.repository.CourseRepository;
 import com.tacs.attendancechecker.repository.TeacherRepository;
+import com.tacs.attendancechecker.util.KeysetPager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 @Service
 public class CourseService {
 
+    private static final KeysetPager.Listing<Course> COURSES = KeysetPager.Listing
+            .of(Course.class, "courseId", Integer.class, Course::getCourseId)
+            .sortBy("courseCode", "courseCode", String.class, Course::getCourseCode)
+            .sortBy("courseName", "courseName", String.class, Course::getCourseName)
+            .sortBy("units", "units", Integer.class, Course::getUnits)
+            .sortBy("courseType", "courseType", String.class, Course::getCourseType)
+            .cacheable();
+
     @Autowired
     private CourseRepository courseRepository;
 
     @Autowired
     private TeacherRepository teacherRepository;
 
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
     public CourseResponse createCourse(CourseRequest request) {
         Course course = new Course();
         course.setCourseCode(request.getCourseCode());
@@ -31,13 +48,17 @@ public class CourseService {
         course.setIsActive(request.getIsActive() != null ? request.getIsActive() : true);
 
         Course savedCourse = courseRepository.save(course);
+        dashboardCounters.addCourses(1);
         return mapToCourseResponse(savedCourse);
     }
 
-    public List<CourseResponse> getAllCourses() {
-        return courseRepository.findAll().stream()
-                .map(this::mapToCourseResponse)
-                .collect(Collectors.toList());
+    // A page of courses; q matches their code or name
+    public PageResponse<CourseResponse> getCourses(ListQuery query, String q, String courseType, Boolean active) {
+        return keysetPager.find(COURSES, new KeysetPager.Filters<Course>()
+                .contains(q, "courseCode", "courseName")
+                .equalIgnoreCase("courseType", courseType)
+                .equal("isActive", active), query)
+                .map(this::mapToCourseResponse);
     }
 
     public CourseResponse getCourseById(Integer courseId) {
@@ -75,11 +96,17 @@ public class CourseService {
         }
 
         Course updatedCourse = courseRepository.save(course);
+        entityCache.evict(Course.class, courseId);
         return mapToCourseResponse(updatedCourse);
     }
 
     public void deleteCourse(Integer courseId) {
-        courseRepository.deleteById(courseId);
+        // Deleting a course that doesn't exist is a no-op, and shouldn't count
+        courseRepository.findById(courseId).ifPresent(course -> {
+            courseRepository.delete(course);
+            entityCache.evict(Course.class, courseId);
+            dashboardCounters.addCourses(-1);
+        });
     }
 
     private CourseResponse mapToCourseResponse(Course course) {
@@ -0,0 +1,198 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.entity.Attendance;
+import com.tacs.attendancechecker.repository.CourseRepository;
+import com.tacs.attendancechecker.repository.DailyCourseAttendanceRollupRepository;
+import com.tacs.attendancechecker.repository.StudentRepository;
+import com.tacs.attendancechecker.repository.TeacherRepository;
+import com.tacs.attendancechecker.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts behind the admin dashboard, kept in memory so polling it doesn't
+ * touch the database.
+ *
+ * Today's attendance per status and the student, teacher and course totals
+ * are LongAdders, adjusted by the write paths once their transaction commits.
+ * The attendance counts belong to one date and start from zero when the date
+ * changes; writes for any other date don't affect them.
+ *
+ * The counts can drift, e.g. from rows written outside the app or for today
+ * before the day began, so a periodic job recounts them from the course-day
+ * rollup and the entity tables and corrects the difference.
+ */
+@Component
+public class DashboardCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardCounters.class);
+
+    private static final int STATUSES = Attendance.Status.values().length;
+
+    @Autowired
+    private DailyCourseAttendanceRollupRepository rollupRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    private final AtomicReference<Day> today = new AtomicReference<>(new Day(LocalDate.now()));
+    private final LongAdder students = new LongAdder();
+    private final LongAdder teachers = new LongAdder();
+    private final LongAdder courses = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        reconcile();
+    }
+
+    // A mark for this date went from before to after (null for a new or deleted row)
+    public void recordMark(LocalDate date, Attendance.Status before, Attendance.Status after) {
+        if (date == null || before == after) {
+            return;
+        }
+        int[] delta = new int[STATUSES];
+        if (before != null) {
+            delta[before.ordinal()]--;
+        }
+        if (after != null) {
+            delta[after.ordinal()]++;
+        }
+        addMarks(date, delta);
+    }
+
+    // Signed per-status changes for one date, indexed by Attendance.Status ordinal
+    public void addMarks(LocalDate date, int[] delta) {
+        AfterCommit.run(() -> {
+            Day day = current();
+            if (day.date.equals(date)) {
+                for (int i = 0; i < STATUSES; i++) {
+                    if (delta[i] != 0) {
+                        day.counts[i].add(delta[i]);
+                    }
+                }
+            }
+        });
+    }
+
+    // New rows for this date, all with one status
+    public void addMarks(LocalDate date, Attendance.Status status, long count) {
+        int[] delta = new int[STATUSES];
+        delta[status.ordinal()] = Math.toIntExact(count);
+        addMarks(date, delta);
+    }
+
+    public void addStudents(int delta) {
+        AfterCommit.run(() -> students.add(delta));
+    }
+
+    public void addTeachers(int delta) {
+        AfterCommit.run(() -> teachers.add(delta));
+    }
+
+    public void addCourses(int delta) {
+        AfterCommit.run(() -> courses.add(delta));
+    }
+
+    public long getToday(Attendance.Status status) {
+        return current().counts[status.ordinal()].sum();
+    }
+
+    public long getStudents() {
+        return students.sum();
+    }
+
+    public long getTeachers() {
+        return teachers.sum();
+    }
+
+    public long getCourses() {
+        return courses.sum();
+    }
+
+    // Recount from the database. A counter that changed while it was being
+    // recounted is left for the next run, since the write may or may not be in
+    // the recount
+    @Scheduled(fixedDelayString = "${attendance.dashboard.reconcile-interval-ms:60000}",
+            initialDelayString = "${attendance.dashboard.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        Day day = current();
+        long[] before = day.snapshot();
+        DailyCourseAttendanceRollupRepository.Totals totals = rollupRepository.sumBetween(day.date, day.date);
+        long[] counted = new long[STATUSES];
+        counted[Attendance.Status.PRESENT.ordinal()] = totals.getPresent();
+        counted[Attendance.Status.LATE.ordinal()] = totals.getLate();
+        counted[Attendance.Status.ABSENT.ordinal()] = totals.getAbsent();
+        counted[Attendance.Status.EXCUSED.ordinal()] = totals.getExcused();
+        long drift = 0;
+        if (Arrays.equals(before, day.snapshot())) {
+            for (int i = 0; i < STATUSES; i++) {
+                day.counts[i].add(counted[i] - before[i]);
+                drift += Math.abs(counted[i] - before[i]);
+            }
+        }
+
+        drift += correct(students, studentRepository::count);
+        drift += correct(teachers, teacherRepository::count);
+        drift += correct(courses, courseRepository::count);
+        if (drift > 0) {
+            log.debug("Dashboard counters corrected by {}", drift);
+        }
+    }
+
+    private static long correct(LongAdder counter, LongSupplier recount) {
+        long before = counter.sum();
+        long counted = recount.getAsLong();
+        if (counter.sum() != before) {
+            return 0;
+        }
+        counter.add(counted - before);
+        return Math.abs(counted - before);
+    }
+
+    // Today's counts, starting a new day's if the date has changed
+    private Day current() {
+        LocalDate now = LocalDate.now();
+        Day day = today.get();
+        if (day.date.equals(now)) {
+            return day;
+        }
+        Day next = new Day(now);
+        return today.compareAndSet(day, next) ? next : today.get();
+    }
+
+    private static class Day {
+        final LocalDate date;
+        final LongAdder[] counts = new LongAdder[STATUSES];
+
+        Day(LocalDate date) {
+            this.date = date;
+            for (int i = 0; i < STATUSES; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        long[] snapshot() {
+            long[] values = new long[STATUSES];
+            for (int i = 0; i < STATUSES; i++) {
+                values[i] = counts[i].sum();
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.dto.AttendanceReportDTO.ReportSummary;
+import com.tacs.attendancechecker.dto.DepartmentReportDTO;
+import com.tacs.attendancechecker.dto.DepartmentReportDTO.OfferedCourseReport;
+import com.tacs.attendancechecker.dto.DepartmentReportDTO.TeacherReport;
+import com.tacs.attendancechecker.entity.Attendance;
+import com.tacs.attendancechecker.entity.Department;
+import com.tacs.attendancechecker.entity.OfferedCourse;
+import com.tacs.attendancechecker.entity.Teacher;
+import com.tacs.attendancechecker.repository.AttendanceRepository;
+import com.tacs.attendancechecker.repository.DepartmentRepository;
+import com.tacs.attendancechecker.repository.OfferedCourseRepository;
+import com.tacs.attendancechecker.repository.TeacherRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Attendance report for a department, walking its teachers, their offered
+ * courses and each offered course's marks.
+ *
+ * Each offered course is counted by status in the database, and the counts
+ * are merged here into teacher and department totals, so no attendance rows
+ * are loaded. The offered courses are counted concurrently on a small pool
+ * shared by all department reports. Its queue is bounded: when it is full the
+ * requesting thread counts the offered course itself.
+ */
+@Service
+public class DepartmentReportService {
+
+    private static final int STATUSES = Attendance.Status.values().length;
+
+    // Bounds for an open-ended date range, within what PostgreSQL's date holds
+    private static final LocalDate EARLIEST = LocalDate.of(1, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private OfferedCourseRepository offeredCourseRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Value("${attendance.department-report.threads:4}")
+    private int threads;
+
+    @Value("${attendance.department-report.queue-capacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "department-report-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Generate the attendance report for a department
+     *
+     * @param startDate First date counted, or null for no lower bound
+     * @param endDate Last date counted, or null for no upper bound
+     * @throws IllegalArgumentException if startDate is after endDate
+     */
+    public DepartmentReportDTO generateDepartmentReport(Integer departmentId, LocalDate startDate, LocalDate endDate) {
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("startDate must not be after endDate");
+        }
+        Department department = departmentRepository.findById(departmentId)
+                .orElseThrow(() -> new RuntimeException("Department not found with ID: " + departmentId));
+        LocalDate from = startDate != null ? startDate : EARLIEST;
+        LocalDate to = endDate != null ? endDate : LATEST;
+
+        List<OfferedCourse> offeredCourses = offeredCourseRepository.findByDepartmentId(departmentId);
+        List<Future<Counts>> counted = new ArrayList<>();
+        try {
+            for (OfferedCourse offeredCourse : offeredCourses) {
+                Integer offeredCourseId = offeredCourse.getOfferedCourseId();
+                Integer courseId = offeredCourse.getCourse().getCourseId();
+                String teacherId = offeredCourse.getTeacher().getTeacherId();
+                counted.add(executor.submit(() -> count(attendanceRepository.countByStatusForOfferedCourse(
+                        offeredCourseId, courseId, teacherId, from, to))));
+            }
+
+            // Teachers without offered courses are listed with zero totals
+            Map<String, TeacherTotals> byTeacher = new LinkedHashMap<>();
+            List<Teacher> teachers = new ArrayList<>(teacherRepository.findByDepartmentId(departmentId));
+            teachers.sort(Comparator.comparing(Teacher::getTeacherId));
+            for (Teacher teacher : teachers) {
+                byTeacher.put(teacher.getTeacherId(), new TeacherTotals(teacher));
+            }
+
+            Counts departmentCounts = new Counts();
+            for (int i = 0; i < offeredCourses.size(); i++) {
+                OfferedCourse offeredCourse = offeredCourses.get(i);
+                Counts counts = await(counted.get(i));
+                TeacherTotals teacher = byTeacher.computeIfAbsent(offeredCourse.getTeacher().getTeacherId(),
+                        id -> new TeacherTotals(offeredCourse.getTeacher()));
+                teacher.offeredCourses.add(toReport(offeredCourse, counts));
+                teacher.counts.add(counts);
+                departmentCounts.add(counts);
+            }
+
+            List<TeacherReport> teacherReports = new ArrayList<>();
+            for (TeacherTotals teacher : byTeacher.values()) {
+                teacher.offeredCourses.sort(Comparator.comparing(OfferedCourseReport::getCourseCode,
+                        Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(OfferedCourseReport::getSection, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(OfferedCourseReport::getOfferedCourseId));
+                TeacherReport report = new TeacherReport();
+                report.setTeacherId(teacher.teacher.getTeacherId());
+                report.setTeacherName(teacher.teacher.getUser() != null
+                        ? teacher.teacher.getUser().getFname() + " " + teacher.teacher.getUser().getLname()
+                        : "Unknown");
+                report.setSummary(teacher.counts.toSummary());
+                report.setOfferedCourses(teacher.offeredCourses);
+                teacherReports.add(report);
+            }
+
+            DepartmentReportDTO report = new DepartmentReportDTO();
+            report.setDepartmentId(department.getDepartmentId());
+            report.setDepartmentCode(department.getDepartmentCode());
+            report.setDepartmentName(department.getDepartmentName());
+            report.setStartDate(startDate != null ? startDate
+                    : departmentCounts.firstDate != null ? departmentCounts.firstDate : LocalDate.now());
+            report.setEndDate(endDate != null ? endDate
+                    : departmentCounts.lastDate != null ? departmentCounts.lastDate : LocalDate.now());
+            report.setSummary(departmentCounts.toSummary());
+            report.setTeachers(teacherReports);
+            return report;
+        } finally {
+            // Nothing left to wait for after a failure
+            for (Future<Counts> future : counted) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static OfferedCourseReport toReport(OfferedCourse offeredCourse, Counts counts) {
+        OfferedCourseReport report = new OfferedCourseReport();
+        report.setOfferedCourseId(offeredCourse.getOfferedCourseId());
+        report.setCourseId(offeredCourse.getCourse().getCourseId());
+        report.setCourseCode(offeredCourse.getCourse().getCourseCode());
+        report.setCourseName(offeredCourse.getCourse().getCourseName());
+        report.setSection(offeredCourse.getSection());
+        report.setSemester(offeredCourse.getSemester());
+        report.setSummary(counts.toSummary());
+        return report;
+    }
+
+    private static Counts count(List<AttendanceRepository.StatusCount> statusCounts) {
+        Counts counts = new Counts();
+        for (AttendanceRepository.StatusCount count : statusCounts) {
+            if (count.getStatus() != null) {
+                counts.byStatus[count.getStatus().ordinal()] += count.getTotal();
+            }
+            counts.total += count.getTotal();
+            counts.extend(count.getFirstDate(), count.getLastDate());
+        }
+        return counts;
+    }
+
+    private static Counts await(Future<Counts> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while generating department report", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    // Marks per status (indexed by Attendance.Status ordinal) and the dates they span
+    private static class Counts {
+        final long[] byStatus = new long[STATUSES];
+        long total;
+        LocalDate firstDate;
+        LocalDate lastDate;
+
+        void add(Counts other) {
+            for (int i = 0; i < STATUSES; i++) {
+                byStatus[i] += other.byStatus[i];
+            }
+            total += other.total;
+            extend(other.firstDate, other.lastDate);
+        }
+
+        void extend(LocalDate first, LocalDate last) {
+            if (first != null && (firstDate == null || first.isBefore(firstDate))) {
+                firstDate = first;
+            }
+            if (last != null && (lastDate == null || last.isAfter(lastDate))) {
+                lastDate = last;
+            }
+        }
+
+        ReportSummary toSummary() {
+            long present = byStatus[Attendance.Status.PRESENT.ordinal()];
+            long late = byStatus[Attendance.Status.LATE.ordinal()];
+            double attendanceRate = total > 0 ? ((double) (present + late) / total) * 100 : 0.0;
+            return new ReportSummary(
+                    (int) present,
+                    (int) byStatus[Attendance.Status.ABSENT.ordinal()],
+                    (int) late,
+                    (int) byStatus[Attendance.Status.EXCUSED.ordinal()],
+                    Math.round(attendanceRate * 10) / 10.0);
+        }
+    }
+
+    private static class TeacherTotals {
+        final Teacher teacher;
+        final List<OfferedCourseReport> offeredCourses = new ArrayList<>();
+        final Counts counts = new Counts();
+
+        TeacherTotals(Teacher teacher) {
+            this.teacher = teacher;
+        }
+    }
+}
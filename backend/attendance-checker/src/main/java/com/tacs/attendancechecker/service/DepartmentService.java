@@ -14,6 +14,9 @@ public class DepartmentService {
     @Autowired
     private DepartmentRepository departmentRepository;
 
+    @Autowired
+    private EntityCache entityCache;
+
     public Department createDepartment(Department department) {
         return departmentRepository.save(department);
     }
@@ -43,12 +46,15 @@ public class DepartmentService {
             .map(department -> {
                 department.setDepartmentCode(updatedDepartment.getDepartmentCode());
                 department.setDepartmentName(updatedDepartment.getDepartmentName());
-                return departmentRepository.save(department);
+                Department saved = departmentRepository.save(department);
+                entityCache.evict(Department.class, departmentId);
+                return saved;
             })
             .orElseThrow(() -> new RuntimeException("Department not found with id: " + departmentId));
     }
 
     public void deleteDepartment(Integer departmentId) {
         departmentRepository.deleteById(departmentId);
+        entityCache.evict(Department.class, departmentId);
     }
 }
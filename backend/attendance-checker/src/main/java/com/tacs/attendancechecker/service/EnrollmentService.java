@@ -1,21 +1,39 @@
 package com.tacs.attendancechecker.service;
 
 import com.tacs.attendancechecker.dto.EnrollmentRequest;
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.entity.Enrollment;
 import com.tacs.attendancechecker.entity.OfferedCourse;
 import com.tacs.attendancechecker.entity.Student;
 import com.tacs.attendancechecker.repository.EnrollmentRepository;
 import com.tacs.attendancechecker.repository.OfferedCourseRepository;
 import com.tacs.attendancechecker.repository.StudentRepository;
+import com.tacs.attendancechecker.util.KeysetPager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class EnrollmentService {
 
+    private static final KeysetPager.Listing<Enrollment> ENROLLMENTS = KeysetPager.Listing
+            .of(Enrollment.class, "enrollmentId", Integer.class, Enrollment::getEnrollmentId)
+            .sortBy("dateEnrolled", "dateEnrolled", LocalDate.class, Enrollment::getDateEnrolled)
+            .sortBy("lastName", "student.user.lname", String.class,
+                    enrollment -> enrollment.getStudent().getUser().getLname())
+            .sortBy("studentId", "student.studentId", Integer.class,
+                    enrollment -> enrollment.getStudent().getStudentId())
+            .sortBy("yearLevel", "student.yearLevel", Integer.class,
+                    enrollment -> enrollment.getStudent().getYearLevel())
+            .fetch("student.user")
+            .fetch("offeredCourse");
+
     @Autowired
     private EnrollmentRepository enrollmentRepository;
 
@@ -25,6 +43,15 @@ public class EnrollmentService {
     @Autowired
     private OfferedCourseRepository offeredCourseRepository;
 
+    @Autowired
+    private LiveRosterService liveRosterService;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
     public Enrollment createEnrollment(EnrollmentRequest request) {
         Student student = studentRepository.findById(request.getStudentId())
                 .orElseThrow(() -> new RuntimeException("Student not found"));
@@ -44,11 +71,30 @@ public class EnrollmentService {
         enrollment.setDateEnrolled(LocalDate.now());
         enrollment.setStatus(request.getStatus() != null ? request.getStatus() : "ACTIVE");
 
-        return enrollmentRepository.save(enrollment);
+        Enrollment saved = enrollmentRepository.save(enrollment);
+        liveRosterService.closeCourse(offeredCourse.getCourse().getCourseId());
+        return saved;
+    }
+
+    // A page of enrollments; q matches the student's name or student number
+    public PageResponse<Enrollment> getEnrollments(ListQuery query, String q, Integer studentId, Integer yearLevel,
+            Integer offeredCourseId, Integer courseId, String status) {
+        return keysetPager.find(ENROLLMENTS, new KeysetPager.Filters<Enrollment>()
+                .contains(q, "student.user.fname", "student.user.lname", "student.studentNumber")
+                .equal("student.studentId", studentId)
+                .equal("student.yearLevel", yearLevel)
+                .equal("offeredCourse.offeredCourseId", offeredCourseId)
+                .equal("offeredCourse.course.courseId", courseId)
+                .equalIgnoreCase("status", status), query);
     }
 
-    public List<Enrollment> getAllEnrollments() {
-        return enrollmentRepository.findAll();
+    // Enrollment counts by course id; courses without enrollments count 0
+    public Map<Integer, Long> countByCourse(List<Integer> courseIds) {
+        Map<Integer, Long> counts = new HashMap<>();
+        courseIds.forEach(courseId -> counts.put(courseId, 0L));
+        enrollmentRepository.countByCourseIds(courseIds)
+                .forEach(count -> counts.put(count.getCourseId(), count.getTotal()));
+        return counts;
     }
 
     public List<Enrollment> getEnrollmentsByStudent(Integer studentId) {
@@ -67,10 +113,17 @@ public class EnrollmentService {
         Enrollment enrollment = enrollmentRepository.findById(enrollmentId)
                 .orElseThrow(() -> new RuntimeException("Enrollment not found"));
         enrollment.setStatus(status);
-        return enrollmentRepository.save(enrollment);
+        Enrollment saved = enrollmentRepository.save(enrollment);
+        liveRosterService.closeCourse(enrollment.getOfferedCourse().getCourse().getCourseId());
+        return saved;
     }
 
+    @Transactional
     public void deleteEnrollment(Integer enrollmentId) {
+        enrollmentRepository.findById(enrollmentId).ifPresent(enrollment -> {
+            liveRosterService.closeCourse(enrollment.getOfferedCourse().getCourse().getCourseId());
+            syncService.recordEnrollmentDeletion(enrollment);
+        });
         enrollmentRepository.deleteById(enrollmentId);
     }
 }
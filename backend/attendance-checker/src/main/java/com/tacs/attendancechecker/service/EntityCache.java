@@ -0,0 +1,38 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.config.SecondLevelCacheConfig;
+import com.tacs.attendancechecker.util.AfterCommit;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Eviction and statistics for the Hibernate second-level cache of the
+ * reference entities (see SecondLevelCacheConfig).
+ *
+ * Hibernate already updates cached entries and invalidates cached queries on
+ * its own writes. The update and delete paths of the reference data evict
+ * the changed entity once their transaction commits as well, so a row is
+ * read fresh after an admin edit even if it was changed by other means too.
+ */
+@Component
+public class EntityCache {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SecondLevelCacheConfig config;
+
+    public void evict(Class<?> entityClass, Object id) {
+        if (config.isEnabled()) {
+            AfterCommit.run(() -> entityManagerFactory.getCache().evict(entityClass, id));
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        return config.getStatistics();
+    }
+}
@@ -0,0 +1,529 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.dto.AttendanceResponse;
+import com.tacs.attendancechecker.dto.EnrolledStudentResponse;
+import com.tacs.attendancechecker.entity.Attendance;
+import com.tacs.attendancechecker.entity.AttendanceSession;
+import com.tacs.attendancechecker.entity.Enrollment;
+import com.tacs.attendancechecker.entity.Student;
+import com.tacs.attendancechecker.entity.User;
+import com.tacs.attendancechecker.repository.AttendanceRepository;
+import com.tacs.attendancechecker.repository.AttendanceSessionRepository;
+import com.tacs.attendancechecker.repository.EnrollmentRepository;
+import com.tacs.attendancechecker.util.TimeOrderedIdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory roster state for open attendance sessions.
+ *
+ * When enabled, the first mark or roster read for a session that is in
+ * progress (today, within its start and end time, and not finalized) loads its
+ * enrolled students and existing attendance once; other sessions are read from
+ * the database as usual. Each
+ * student gets a fixed position in a sorted int array, and the mark for that
+ * position lives in one packed long, so marking is a single atomic update and
+ * the teacher's screen is served without touching the database. A background
+ * flusher upserts changed positions, retrying any that fail, and drops rosters
+ * that are idle or whose session has ended. Closing or finalizing a session
+ * flushes whatever is left, and fails if it can't. Writes that bypass the
+ * roster close it, and the next read loads it again.
+ */
+@Component
+public class LiveRosterService {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveRosterService.class);
+
+    // Packed mark: change counter | status | time in (ms of day + 1, 0 = none)
+    private static final int STATUS_SHIFT = 32;
+    private static final int CHANGE_SHIFT = 35;
+    private static final long TIME_MASK = (1L << STATUS_SHIFT) - 1;
+    private static final long STATUS_MASK = (1L << (CHANGE_SHIFT - STATUS_SHIFT)) - 1;
+    private static final Attendance.Status[] STATUSES = Attendance.Status.values();
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private AttendanceSessionRepository attendanceSessionRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TimeOrderedIdGenerator idGenerator;
+
+    @Autowired
+    private ReportCache reportCache;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private AttendanceAnalyticsService attendanceAnalyticsService;
+
+    @Value("${attendance.roster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${attendance.roster.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${attendance.roster.idle-timeout-minutes:120}")
+    private long idleTimeoutMinutes;
+
+    private final Map<Integer, LiveRoster> rosters = new ConcurrentHashMap<>();
+    // Loads in progress, so the first marks of a class share one load
+    private final Map<Integer, CompletableFuture<LiveRoster>> loading = new ConcurrentHashMap<>();
+    private TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Closing can happen inside a caller's transaction; flushed marks must not roll back with it
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "live-roster-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAllSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Live roster enabled (flush every {} ms)", flushIntervalMs);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (!enabled) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Integer sessionId : List.copyOf(rosters.keySet())) {
+            try {
+                close(sessionId);
+            } catch (RuntimeException e) {
+                log.error("Live roster marks of session {} were not written", sessionId, e);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Load the roster as soon as a session for today is created
+    public void open(AttendanceSession session) {
+        if (enabled && !Boolean.TRUE.equals(session.getIsFinalized()) && LocalDate.now().equals(session.getDate())) {
+            getOrOpen(session.getSessionId());
+        }
+    }
+
+    /**
+     * Record a mark in memory. Returns null when the session has no live roster
+     * or the student is not on it, in which case the caller writes directly.
+     */
+    public AttendanceResponse mark(Integer sessionId, Integer studentId, Attendance.Status status,
+            LocalTime timeIn, String remarks) {
+        LiveRoster roster = getOrOpen(sessionId);
+        if (roster == null || studentId == null) {
+            return null;
+        }
+        int position = Arrays.binarySearch(roster.studentIds, studentId);
+        if (position < 0) {
+            return null;
+        }
+        roster.remarks.set(position, remarks);
+        long state = roster.states.updateAndGet(position, previous -> pack(previous, status, timeIn));
+        roster.touch();
+        if (roster.closed && !flush(roster)) {
+            // Closed while we were writing, and the closing flush may have missed this mark
+            throw new IllegalStateException("Could not save attendance, please try again");
+        }
+        return toAttendanceResponse(roster, position, state);
+    }
+
+    // Marked attendance for a session, or null if it has no live roster
+    public List<AttendanceResponse> getAttendance(Integer sessionId) {
+        LiveRoster roster = getOrOpen(sessionId);
+        if (roster == null) {
+            return null;
+        }
+        roster.touch();
+        List<AttendanceResponse> responses = new ArrayList<>();
+        for (int position = 0; position < roster.studentIds.length; position++) {
+            long state = roster.states.get(position);
+            if (status(state) != null) {
+                responses.add(toAttendanceResponse(roster, position, state));
+            }
+        }
+        return responses;
+    }
+
+    // Enrolled students for a course with a live session, or null if there is none
+    public List<EnrolledStudentResponse> getEnrolledStudents(Integer courseId) {
+        if (!enabled) {
+            return null;
+        }
+        for (LiveRoster roster : rosters.values()) {
+            if (roster.courseId.equals(courseId)) {
+                roster.touch();
+                List<EnrolledStudentResponse> responses = new ArrayList<>();
+                for (Member member : roster.members) {
+                    if (member.enrolled()) {
+                        responses.add(member.toEnrolledStudentResponse());
+                    }
+                }
+                return responses;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Flush and drop a session's roster, e.g. when it is finalized or written to directly
+     *
+     * @throws IllegalStateException if its marks could not be written; the roster
+     * then stays open and the flusher keeps retrying them
+     */
+    public void close(Integer sessionId) {
+        if (!enabled) {
+            return;
+        }
+        loading.remove(sessionId);
+        LiveRoster roster = rosters.get(sessionId);
+        if (roster == null) {
+            return;
+        }
+        if (!flush(roster)) {
+            throw new IllegalStateException("Could not write the attendance marked for session " + sessionId);
+        }
+        if (rosters.remove(sessionId, roster)) {
+            roster.closed = true;
+            // Marks that came in since the flush above
+            if (!flush(roster)) {
+                log.error("Live roster marks of session {} made while it closed were not written", sessionId);
+            }
+        }
+    }
+
+    // Drop a deleted session's roster without writing it back
+    public void discard(Integer sessionId) {
+        if (!enabled) {
+            return;
+        }
+        loading.remove(sessionId);
+        LiveRoster roster = rosters.remove(sessionId);
+        if (roster != null) {
+            roster.closed = true;
+        }
+    }
+
+    // Enrollment changed; rosters of this course no longer match
+    public void closeCourse(Integer courseId) {
+        if (!enabled) {
+            return;
+        }
+        for (LiveRoster roster : List.copyOf(rosters.values())) {
+            if (roster.courseId.equals(courseId)) {
+                close(roster.sessionId);
+            }
+        }
+    }
+
+    private LiveRoster getOrOpen(Integer sessionId) {
+        if (!enabled || sessionId == null) {
+            return null;
+        }
+        LiveRoster roster = rosters.get(sessionId);
+        return roster != null ? roster : loadOnce(sessionId);
+    }
+
+    // Loads outside the map, since inside computeIfAbsent the queries would
+    // hold its bin lock (and block the other sessions in that bin) throughout.
+    // A load that a close overtook is not cached and returns null, so its
+    // callers write directly.
+    private LiveRoster loadOnce(Integer sessionId) {
+        CompletableFuture<LiveRoster> load = new CompletableFuture<>();
+        CompletableFuture<LiveRoster> running = loading.putIfAbsent(sessionId, load);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            LiveRoster roster = rosters.get(sessionId);
+            if (roster == null) {
+                LiveRoster loaded = load(sessionId);
+                roster = loaded != null
+                        ? rosters.compute(sessionId, (id, current) -> loading.get(id) == load ? loaded : current)
+                        : null;
+            }
+            load.complete(roster);
+            return roster;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(sessionId, load);
+        }
+    }
+
+    // Returns null for missing, finalized or past sessions, which are not cached
+    private LiveRoster load(Integer sessionId) {
+        AttendanceSession session = attendanceSessionRepository.findById(sessionId).orElse(null);
+        if (session == null || Boolean.TRUE.equals(session.getIsFinalized())
+                || !inProgress(session.getDate(), session.getStartTime(), session.getEndTime())) {
+            return null;
+        }
+        Integer courseId = session.getCourse().getCourseId();
+
+        // Enrolled students plus anyone who already has a row for this session
+        Map<Integer, Member> members = new TreeMap<>();
+        for (Enrollment enrollment : enrollmentRepository.findRosterByCourseId(courseId)) {
+            Student student = enrollment.getStudent();
+            if ("ACTIVE".equalsIgnoreCase(student.getEnrollmentStatus())) {
+                members.putIfAbsent(student.getStudentId(), Member.of(student, idGenerator.nextId(), true));
+            }
+        }
+        Map<Integer, Attendance> existing = new TreeMap<>();
+        for (Attendance attendance : attendanceRepository.findBySessionIdWithStudents(sessionId)) {
+            Student student = attendance.getStudent();
+            existing.put(student.getStudentId(), attendance);
+            Member member = members.get(student.getStudentId());
+            members.put(student.getStudentId(), Member.of(student, attendance.getAttendanceId(),
+                    member != null && member.enrolled()));
+        }
+
+        LiveRoster roster = new LiveRoster(session, members.values().toArray(new Member[0]));
+        for (int position = 0; position < roster.studentIds.length; position++) {
+            Attendance attendance = existing.get(roster.studentIds[position]);
+            if (attendance != null && attendance.getStatus() != null) {
+                long state = pack(0, attendance.getStatus(), attendance.getTimeIn());
+                roster.states.set(position, state);
+                roster.flushedStates[position] = state;
+                roster.remarks.set(position, attendance.getRemarks());
+            }
+        }
+        return roster;
+    }
+
+    // A session with no start or end time is open from its start, or all day
+    private static boolean inProgress(LocalDate date, LocalTime startTime, LocalTime endTime) {
+        LocalTime now = LocalTime.now();
+        return LocalDate.now().equals(date)
+                && (startTime == null || !now.isBefore(startTime))
+                && (endTime == null || !now.isAfter(endTime));
+    }
+
+    private void flushAllSafely() {
+        long idleCutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleTimeoutMinutes);
+        for (LiveRoster roster : rosters.values()) {
+            try {
+                if (roster.lastAccessMillis < idleCutoff
+                        || !inProgress(roster.date, roster.startTime, roster.endTime)) {
+                    close(roster.sessionId);
+                } else {
+                    flush(roster);
+                }
+            } catch (Exception e) {
+                log.error("Live roster flush failed for session {}", roster.sessionId, e);
+            }
+        }
+    }
+
+    // Upsert every position whose packed mark changed since the last flush.
+    // Returns false if some could not be written; they stay pending for the next flush.
+    private boolean flush(LiveRoster roster) {
+        roster.flushLock.lock();
+        try {
+            List<Integer> positions = new ArrayList<>();
+            List<Long> states = new ArrayList<>();
+            for (int position = 0; position < roster.studentIds.length; position++) {
+                long state = roster.states.get(position);
+                if (state != roster.flushedStates[position]) {
+                    positions.add(position);
+                    states.add(state);
+                }
+            }
+            if (positions.isEmpty()) {
+                return true;
+            }
+            boolean[] committed = new boolean[positions.size()];
+            try {
+                transactionTemplate.executeWithoutResult(tx -> {
+                    for (int i = 0; i < positions.size(); i++) {
+                        upsert(roster, positions.get(i), states.get(i));
+                    }
+                });
+                Arrays.fill(committed, true);
+            } catch (RuntimeException e) {
+                // Retry one by one so a single bad row does not hold back the rest
+                for (int i = 0; i < positions.size(); i++) {
+                    int position = positions.get(i);
+                    long state = states.get(i);
+                    try {
+                        transactionTemplate.executeWithoutResult(tx -> upsert(roster, position, state));
+                        committed[i] = true;
+                    } catch (RuntimeException rowError) {
+                        log.warn("Live roster mark for student {} in session {} not written, retrying: {}",
+                                roster.studentIds[position], roster.sessionId, rowError.getMessage());
+                    }
+                }
+            }
+            // Only what was written counts as flushed; the rest is picked up next time
+            Set<Integer> students = new HashSet<>();
+            for (int i = 0; i < positions.size(); i++) {
+                if (committed[i]) {
+                    roster.flushedStates[positions.get(i)] = states.get(i);
+                    students.add(roster.studentIds[positions.get(i)]);
+                }
+            }
+            if (!students.isEmpty()) {
+                reportCache.evict(Set.of(roster.date), Set.of(roster.courseId), students);
+            }
+            return students.size() == positions.size();
+        } finally {
+            roster.flushLock.unlock();
+        }
+    }
+
+    private void upsert(LiveRoster roster, int position, long state) {
+        AttendanceRepository.WrittenMark written = attendanceRepository.upsertAttendance(
+                roster.members[position].attendanceId(), roster.studentIds[position], roster.sessionId, timeIn(state),
+                status(state).name(), roster.remarks.get(position), Instant.now());
+        if (written != null) {
+            dashboardCounters.recordMark(written.getDate(), written.getPrevious(), status(state));
+            attendanceAnalyticsService.recordMark(roster.courseId, roster.sessionId, roster.studentIds[position],
+                    status(state));
+        }
+    }
+
+    private AttendanceResponse toAttendanceResponse(LiveRoster roster, int position, long state) {
+        Member member = roster.members[position];
+        AttendanceResponse response = new AttendanceResponse();
+        response.setAttendanceId(member.attendanceId().toString());
+        response.setStudentId(member.studentId());
+        response.setStudentName(member.studentName());
+        response.setCourseId(roster.courseId);
+        response.setCourseName(roster.courseName);
+        response.setSessionId(roster.sessionId);
+        response.setDate(roster.date);
+        response.setTimeIn(timeIn(state));
+        response.setStatus(status(state).toString());
+        response.setRemarks(roster.remarks.get(position));
+        return response;
+    }
+
+    // A missing time in keeps the previous one, like the upsert does
+    private static long pack(long previous, Attendance.Status status, LocalTime timeIn) {
+        long time = timeIn != null ? timeIn.toNanoOfDay() / 1_000_000 + 1 : previous & TIME_MASK;
+        long change = (previous >>> CHANGE_SHIFT) + 1;
+        return (change << CHANGE_SHIFT) | ((long) (status.ordinal() + 1) << STATUS_SHIFT) | time;
+    }
+
+    private static Attendance.Status status(long state) {
+        int code = (int) ((state >>> STATUS_SHIFT) & STATUS_MASK);
+        return code == 0 ? null : STATUSES[code - 1];
+    }
+
+    private static LocalTime timeIn(long state) {
+        long time = state & TIME_MASK;
+        return time == 0 ? null : LocalTime.ofNanoOfDay((time - 1) * 1_000_000);
+    }
+
+    // Roster of one open session; positions are indexes into studentIds
+    static final class LiveRoster {
+        final Integer sessionId;
+        final Integer courseId;
+        final String courseName;
+        final LocalDate date;
+        final LocalTime startTime;
+        final LocalTime endTime;
+        final int[] studentIds;
+        final Member[] members;
+        final AtomicLongArray states;
+        final AtomicReferenceArray<String> remarks;
+        final long[] flushedStates; // Guarded by flushLock
+        final ReentrantLock flushLock = new ReentrantLock();
+        volatile boolean closed;
+        volatile long lastAccessMillis = System.currentTimeMillis();
+
+        LiveRoster(AttendanceSession session, Member[] members) {
+            this.sessionId = session.getSessionId();
+            this.courseId = session.getCourse().getCourseId();
+            this.courseName = session.getCourse().getCourseName();
+            this.date = session.getDate();
+            this.startTime = session.getStartTime();
+            this.endTime = session.getEndTime();
+            this.members = members;
+            this.studentIds = Arrays.stream(members).mapToInt(Member::studentId).toArray();
+            this.states = new AtomicLongArray(members.length);
+            this.remarks = new AtomicReferenceArray<>(members.length);
+            this.flushedStates = new long[members.length];
+        }
+
+        void touch() {
+            lastAccessMillis = System.currentTimeMillis();
+        }
+    }
+
+    // Fixed details of one student on a roster
+    record Member(int studentId, UUID attendanceId, String studentName, String studentNumber, String email,
+            String program, Integer yearLevel, String enrollmentStatus, boolean enrolled) {
+
+        static Member of(Student student, UUID attendanceId, boolean enrolled) {
+            User user = student.getUser();
+            return new Member(student.getStudentId(), attendanceId, user.getFname() + " " + user.getLname(),
+                    student.getStudentNumber(), user.getEmail(), student.getProgram(), student.getYearLevel(),
+                    student.getEnrollmentStatus(), enrolled);
+        }
+
+        EnrolledStudentResponse toEnrolledStudentResponse() {
+            EnrolledStudentResponse response = new EnrolledStudentResponse();
+            response.setStudentId(studentId);
+            response.setStudentNumber(studentNumber);
+            response.setStudentName(studentName);
+            response.setEmail(email);
+            response.setProgram(program);
+            response.setYearLevel(yearLevel);
+            response.setEnrollmentStatus(enrollmentStatus);
+            return response;
+        }
+    }
+}
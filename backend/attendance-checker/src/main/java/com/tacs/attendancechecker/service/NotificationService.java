@@ -1,24 +1,40 @@
 package com.tacs.attendancechecker.service;
 
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.entity.Notification;
 import com.tacs.attendancechecker.repository.NotificationRepository;
+import com.tacs.attendancechecker.util.KeysetPager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
 public class NotificationService {
 
+    private static final KeysetPager.Listing<Notification> NOTIFICATIONS = KeysetPager.Listing
+            .of(Notification.class, "notificationId", Integer.class, Notification::getNotificationId)
+            .sortBy("createdAt", "createdAt", LocalDateTime.class, Notification::getCreatedAt)
+            .fetch("user");
+
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private KeysetPager keysetPager;
+
     public Notification createNotification(Notification notification) {
         return notificationRepository.save(notification);
     }
 
-    public List<Notification> getAllNotifications() {
-        return notificationRepository.findAll();
+    public PageResponse<Notification> getNotifications(ListQuery query, String userId, Boolean isRead,
+            String type) {
+        return keysetPager.find(NOTIFICATIONS, new KeysetPager.Filters<Notification>()
+                .equal("user.userId", userId)
+                .equal("isRead", isRead)
+                .equalIgnoreCase("type", type), query);
     }
 
     public Notification getNotificationById(Integer notificationId) {
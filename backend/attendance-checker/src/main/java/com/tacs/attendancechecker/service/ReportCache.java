@@ -0,0 +1,180 @@
+package com.tacs.attendancechecker.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.tacs.attendancechecker.dto.AttendanceReportDTO;
+import com.tacs.attendancechecker.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * In-process cache of generated report pages.
+ *
+ * Entries are keyed by report type, its parameter (date, month, course or
+ * student) and the page requested, and the cache is bounded by the number of
+ * records it holds. Attendance writes evict just the reports that can include
+ * the written rows: the daily and monthly report for the row's date, and the
+ * course and student reports. A TTL bounds staleness from changes that don't
+ * go through attendance writes, such as renaming a student.
+ *
+ * Evictions run after the writing transaction commits. A report loaded while
+ * an eviction of it ran may have read the old rows, so it is not kept.
+ */
+@Component
+public class ReportCache {
+
+    @Value("${attendance.report-cache.max-records:100000}")
+    private long maxRecords;
+
+    @Value("${attendance.report-cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    private Cache<Key, AttendanceReportDTO> cache;
+
+    // Recent evictions in sequence order, so a load can check the ones it overlapped
+    private static final int RECENT_EVICTIONS = 256;
+    private final AtomicLong evictionSeq = new AtomicLong();
+    private final ConcurrentLinkedDeque<Eviction> recentEvictions = new ConcurrentLinkedDeque<>();
+    private final LongAdder writeEvictions = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxRecords)
+                .weigher((Key key, AttendanceReportDTO report) ->
+                        1 + (report.getRecords() != null ? report.getRecords().size() : 0))
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * A cached report page, or generate and cache it. Concurrent requests for
+     * the same page wait for one generation. Exceptions from the generator are
+     * rethrown as-is and nothing is cached
+     */
+    public AttendanceReportDTO get(String reportType, Object parameter, boolean summaryOnly, String cursor,
+            int limit, Supplier<AttendanceReportDTO> generator) {
+        Key key = new Key(reportType, parameter, summaryOnly, cursor, limit);
+        long before = evictionSeq.get();
+        AttendanceReportDTO report;
+        try {
+            report = cache.get(key, generator::get);
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        if (evictedSince(before, key)) {
+            cache.invalidate(key);
+        }
+        return report;
+    }
+
+    /**
+     * Evict the reports that can include attendance rows written for these
+     * values. A null collection, or one containing null, evicts every report
+     * of that kind (e.g. marks queued without their course). Runs after commit
+     * when called inside a transaction
+     */
+    public void evict(Collection<LocalDate> dates, Collection<Integer> courseIds, Collection<Integer> studentIds) {
+        Set<LocalDate> dateSet = exactly(dates);
+        Set<YearMonth> monthSet = dateSet != null ? dateSet.stream().map(YearMonth::from).collect(Collectors.toSet())
+                : null;
+        Set<Integer> courseSet = exactly(courseIds);
+        Set<Integer> studentSet = exactly(studentIds);
+
+        Predicate<Key> affected = key -> switch (key.reportType()) {
+            case "DAILY" -> dateSet == null || dateSet.contains(key.parameter());
+            case "MONTHLY" -> monthSet == null || monthSet.contains(key.parameter());
+            case "COURSE" -> courseSet == null || courseSet.contains(key.parameter());
+            case "STUDENT" -> studentSet == null || studentSet.contains(key.parameter());
+            default -> true;
+        };
+        Runnable eviction = () -> {
+            // Logged before removing, so a load that puts after the removal still sees it
+            recentEvictions.addLast(new Eviction(evictionSeq.incrementAndGet(), affected));
+            while (recentEvictions.size() > RECENT_EVICTIONS) {
+                recentEvictions.pollFirst();
+            }
+            writeEvictions.increment();
+            cache.asMap().keySet().removeIf(affected);
+        };
+
+        AfterCommit.run(eviction);
+    }
+
+    public void evict(LocalDate date, Integer courseId, Integer studentId) {
+        evict(Collections.singleton(date), Collections.singleton(courseId), Collections.singleton(studentId));
+    }
+
+    // Every entry, e.g. after the rollup behind the daily and monthly summaries is recounted
+    public void evictAll() {
+        evict((Collection<LocalDate>) null, null, null);
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("hits", stats.hitCount());
+        statistics.put("misses", stats.missCount());
+        statistics.put("hitRate", Math.round(stats.hitRate() * 1000) / 1000.0);
+        statistics.put("entries", cache.size());
+        statistics.put("sizeEvictions", stats.evictionCount());
+        statistics.put("writeEvictions", writeEvictions.sum());
+        return statistics;
+    }
+
+    // Whether an eviction after sequence number seq affects the key. Evictions
+    // the log no longer holds count as affecting it
+    private boolean evictedSince(long seq, Key key) {
+        long latest = evictionSeq.get();
+        if (latest == seq) {
+            return false;
+        }
+        long oldestLogged = Long.MAX_VALUE;
+        for (Eviction eviction : recentEvictions) {
+            oldestLogged = Math.min(oldestLogged, eviction.seq());
+            if (eviction.seq() > seq && eviction.affected().test(key)) {
+                return true;
+            }
+        }
+        return oldestLogged > seq + 1;
+    }
+
+    // The values to match, or null for all
+    private static <T> Set<T> exactly(Collection<T> values) {
+        if (values == null) {
+            return null;
+        }
+        Set<T> set = new HashSet<>(values);
+        return set.contains(null) ? null : set;
+    }
+
+    private record Key(String reportType, Object parameter, boolean summaryOnly, String cursor, int limit) {
+    }
+
+    private record Eviction(long seq, Predicate<Key> affected) {
+    }
+}
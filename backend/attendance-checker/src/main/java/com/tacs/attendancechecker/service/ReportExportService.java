@@ -0,0 +1,206 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.repository.AttendanceRepository;
+import com.tacs.attendancechecker.repository.AttendanceRepository.ReportRow;
+import com.tacs.attendancechecker.repository.CourseRepository;
+import com.tacs.attendancechecker.repository.StudentRepository;
+import com.tacs.attendancechecker.util.ReportCursor;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * CSV export of report records.
+ *
+ * Rows are read from a server-side cursor as flat report rows and written to
+ * the response as they arrive, so memory use stays flat however many rows the
+ * report has. Lookups (course, student)
+ * happen up front so a bad request fails before the response starts.
+ *
+ * Course and student exports also hold the archived semesters' marks, read a
+ * page at a time and merged in report order, as the paged reports do.
+ */
+@Service
+public class ReportExportService {
+
+    private static final String HEADER = "Date,Student ID,Student Name,Course Code,Course Name,Status,Time In,Remarks";
+
+    // Archived rows read per page while merging them into an export
+    private static final int ARCHIVE_PAGE_SIZE = 500;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private AttendanceArchiveService archiveService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        // The PostgreSQL driver only uses a cursor (fetch size) inside a transaction
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    public StreamingResponseBody exportDaily(LocalDate date) {
+        return out -> writeCsv(out, () -> attendanceRepository.streamByDateBetween(date, date), null);
+    }
+
+    public StreamingResponseBody exportMonthly(YearMonth yearMonth) {
+        LocalDate startDate = yearMonth.atDay(1);
+        LocalDate endDate = yearMonth.atEndOfMonth();
+        return out -> writeCsv(out, () -> attendanceRepository.streamByDateBetween(startDate, endDate), null);
+    }
+
+    public StreamingResponseBody exportCourse(Integer courseId) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new NoSuchElementException("Course not found with ID: " + courseId);
+        }
+        return out -> writeCsv(out, () -> attendanceRepository.streamByCourseId(courseId),
+                (after, limit) -> archiveService.findPageByCourseId(courseId, after, limit));
+    }
+
+    public StreamingResponseBody exportStudent(Integer studentId) {
+        if (!studentRepository.existsById(studentId)) {
+            throw new NoSuchElementException("Student not found with ID: " + studentId);
+        }
+        return out -> writeCsv(out, () -> attendanceRepository.streamByStudentId(studentId),
+                (after, limit) -> archiveService.findPageByStudentId(studentId, after, limit));
+    }
+
+    // archivedPage, if the export reads archives, takes a null cursor for the first page
+    private void writeCsv(OutputStream out, Supplier<Stream<ReportRow>> query,
+            BiFunction<ReportCursor, Integer, List<ReportRow>> archivedPage) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        writer.write(HEADER);
+        writer.write("\r\n");
+        try {
+            readOnlyTransaction.executeWithoutResult(tx -> {
+                try (Stream<ReportRow> rows = query.get()) {
+                    Iterator<ReportRow> live = rows.iterator();
+                    Iterator<ReportRow> archived = archivedPage != null && !archiveService.isEmpty()
+                            ? new ArchivedRows(archivedPage) : Collections.emptyIterator();
+                    ReportRow nextLive = live.hasNext() ? live.next() : null;
+                    ReportRow nextArchived = archived.hasNext() ? archived.next() : null;
+                    // Both are newest first; write whichever row comes first
+                    while (nextLive != null || nextArchived != null) {
+                        if (nextArchived == null || nextLive != null
+                                && AttendanceArchiveService.NEWEST_FIRST.compare(nextLive, nextArchived) <= 0) {
+                            writeRow(writer, nextLive);
+                            nextLive = live.hasNext() ? live.next() : null;
+                        } else {
+                            writeRow(writer, nextArchived);
+                            nextArchived = archived.hasNext() ? archived.next() : null;
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client went away
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeRow(Writer writer, ReportRow row) throws IOException {
+        writer.write(String.valueOf(row.date()));
+        writer.write(',');
+        writer.write(String.valueOf(row.studentId()));
+        writer.write(',');
+        // Archived rows whose student or course no longer exists have no names
+        writer.write(escape(row.firstName() != null ? row.firstName() + " " + row.lastName() : "Unknown"));
+        writer.write(',');
+        writer.write(escape(row.courseCode()));
+        writer.write(',');
+        writer.write(escape(row.courseName()));
+        writer.write(',');
+        writer.write(row.status() != null ? row.status().name() : "UNKNOWN");
+        writer.write(',');
+        writer.write(row.timeIn() != null ? row.timeIn().toString() : "");
+        writer.write(',');
+        writer.write(escape(row.remarks()));
+        writer.write("\r\n");
+    }
+
+    // Archived rows in report order, read a page at a time as the export reaches them
+    private static class ArchivedRows implements Iterator<ReportRow> {
+
+        private final BiFunction<ReportCursor, Integer, List<ReportRow>> archivedPage;
+        private Iterator<ReportRow> page = Collections.emptyIterator();
+        private ReportCursor after;
+        private boolean lastPage;
+
+        ArchivedRows(BiFunction<ReportCursor, Integer, List<ReportRow>> archivedPage) {
+            this.archivedPage = archivedPage;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!page.hasNext() && !lastPage) {
+                List<ReportRow> rows = archivedPage.apply(after, ARCHIVE_PAGE_SIZE);
+                lastPage = rows.size() < ARCHIVE_PAGE_SIZE;
+                if (!rows.isEmpty()) {
+                    ReportRow last = rows.get(rows.size() - 1);
+                    after = new ReportCursor(last.date(), last.attendanceId());
+                }
+                page = rows.iterator();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public ReportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+    }
+
+    // RFC 4180 quoting; also neutralizes values a spreadsheet would run as a formula
+    private static String escape(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        if ("=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
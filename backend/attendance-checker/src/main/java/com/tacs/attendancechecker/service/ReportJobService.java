@@ -0,0 +1,334 @@
+package com.tacs.attendancechecker.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tacs.attendancechecker.dto.AttendanceReportDTO;
+import com.tacs.attendancechecker.dto.AttendanceReportDTO.AttendanceRecordDTO;
+import com.tacs.attendancechecker.dto.DepartmentReportDTO;
+import com.tacs.attendancechecker.dto.ReportJobRequest;
+import com.tacs.attendancechecker.dto.ReportJobResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Background generation of reports too large to build within one request.
+ *
+ * Jobs run on a small fixed pool with a bounded queue; a submission that
+ * doesn't fit is rejected rather than queued indefinitely. Each result is the
+ * full report (every page of records) written as gzip'd JSON to a local
+ * directory, and both the result and the job status expire after a TTL.
+ *
+ * A submission identical to a job that is still queued or running gets that
+ * job back instead of starting another. Job status is kept in memory, so
+ * results left over from a previous run are deleted on startup.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    private static final String RESULT_SUFFIX = ".json.gz";
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private DepartmentReportService departmentReportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${attendance.report-jobs.threads:2}")
+    private int threads;
+
+    @Value("${attendance.report-jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${attendance.report-jobs.result-dir:./data/report-jobs}")
+    private String resultDirName;
+
+    @Value("${attendance.report-jobs.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, ReportJob> activeByRequest = new ConcurrentHashMap<>();
+
+    private Path resultDir;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() throws IOException {
+        resultDir = Paths.get(resultDirName);
+        Files.createDirectories(resultDir);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(resultDir, "*" + RESULT_SUFFIX + "*")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "report-job-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue a report, or return the queued/running job for the same report
+     *
+     * @throws IllegalArgumentException if the request is incomplete
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public ReportJobResponse submit(ReportJobRequest request) {
+        Object parameter = parameter(request);
+        String requestKey = request.getReportType() + ":" + parameter;
+
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), requestKey, request, parameter);
+        ReportJob running = activeByRequest.putIfAbsent(requestKey, job);
+        if (running != null) {
+            return toResponse(running);
+        }
+
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            activeByRequest.remove(requestKey, job);
+            throw new RejectedExecutionException("Too many report jobs are queued, try again later");
+        }
+        return toResponse(job);
+    }
+
+    /**
+     * @return the job's status, or null if there is no such job or it has expired
+     */
+    public ReportJobResponse getStatus(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        return job != null ? toResponse(job) : null;
+    }
+
+    /**
+     * @return the gzip'd JSON result of a completed job, or null if it isn't available
+     */
+    public Path getResult(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        return job != null && job.status == Status.COMPLETED ? job.resultFile : null;
+    }
+
+    @Scheduled(fixedDelayString = "${attendance.report-jobs.cleanup-interval-ms:60000}")
+    public void removeExpired() {
+        Instant now = Instant.now();
+        for (ReportJob job : jobs.values()) {
+            if (job.completedAt != null && job.completedAt.plus(ttl()).isBefore(now)) {
+                jobs.remove(job.id);
+                if (job.resultFile != null) {
+                    try {
+                        Files.deleteIfExists(job.resultFile);
+                    } catch (IOException e) {
+                        log.warn("Could not delete expired report {}: {}", job.resultFile, e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private void run(ReportJob job) {
+        job.startedAt = Instant.now();
+        job.status = Status.RUNNING;
+
+        Path result = resultDir.resolve(job.id + RESULT_SUFFIX);
+        Path partial = resultDir.resolve(job.id + RESULT_SUFFIX + ".part");
+        try {
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+                writeReport(job, out);
+            }
+            Files.move(partial, result, StandardCopyOption.ATOMIC_MOVE);
+            job.resultBytes = Files.size(result);
+            job.resultFile = result;
+            job.completedAt = Instant.now();
+            job.status = Status.COMPLETED;
+        } catch (Exception e) {
+            log.warn("Report job {} ({}) failed", job.id, job.requestKey, e);
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+                // Removed with the other leftovers on the next startup
+            }
+            job.error = e.getMessage();
+            job.completedAt = Instant.now();
+            job.status = Status.FAILED;
+        } finally {
+            activeByRequest.remove(job.requestKey, job);
+        }
+    }
+
+    // Same shape as the report endpoints, with every record in one array; the
+    // records are fetched and written a page at a time
+    private void writeReport(ReportJob job, OutputStream out) throws IOException {
+        if (job.parameter instanceof DepartmentRange range) {
+            writeDepartmentReport(range, out);
+            return;
+        }
+        AttendanceReportDTO page = generatePage(job, null);
+        try (JsonGenerator json = objectMapper.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("reportType", page.getReportType());
+            json.writeObjectField("startDate", page.getStartDate());
+            json.writeObjectField("endDate", page.getEndDate());
+            json.writeObjectField("summary", page.getSummary());
+            json.writeArrayFieldStart("records");
+            while (true) {
+                for (AttendanceRecordDTO record : page.getRecords()) {
+                    json.writeObject(record);
+                }
+                if (page.getNextCursor() == null) {
+                    break;
+                }
+                page = generatePage(job, page.getNextCursor());
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    // The department report holds totals only, so it is built and written whole
+    private void writeDepartmentReport(DepartmentRange range, OutputStream out) throws IOException {
+        DepartmentReportDTO report = departmentReportService.generateDepartmentReport(range.departmentId(),
+                range.startDate(), range.endDate());
+        try (JsonGenerator json = objectMapper.createGenerator(out)) {
+            json.writeObject(report);
+        }
+    }
+
+    // Jobs read each page once, so they bypass the report cache
+    private AttendanceReportDTO generatePage(ReportJob job, String cursor) {
+        return reportService.generateUncached(job.request.getReportType(), job.parameter, cursor,
+                ReportService.MAX_PAGE_SIZE);
+    }
+
+    // Normalizes the request and returns the parameter that goes with its type
+    private Object parameter(ReportJobRequest request) {
+        if (request.getReportType() == null) {
+            throw new IllegalArgumentException("reportType is required");
+        }
+        request.setReportType(request.getReportType().toUpperCase(Locale.ROOT));
+
+        Object parameter;
+        String parameterName;
+        switch (request.getReportType()) {
+            case "DAILY":
+                parameter = request.getDate();
+                parameterName = "date";
+                break;
+            case "MONTHLY":
+                parameter = request.getMonth();
+                parameterName = "month";
+                break;
+            case "COURSE":
+                parameter = request.getCourseId();
+                parameterName = "courseId";
+                break;
+            case "STUDENT":
+                parameter = request.getStudentId();
+                parameterName = "studentId";
+                break;
+            case "DEPARTMENT":
+                if (request.getStartDate() != null && request.getEndDate() != null
+                        && request.getStartDate().isAfter(request.getEndDate())) {
+                    throw new IllegalArgumentException("startDate must not be after endDate");
+                }
+                parameter = request.getDepartmentId() != null ? new DepartmentRange(request.getDepartmentId(),
+                        request.getStartDate(), request.getEndDate()) : null;
+                parameterName = "departmentId";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown reportType: " + request.getReportType());
+        }
+        if (parameter == null) {
+            throw new IllegalArgumentException(parameterName + " is required for a "
+                    + request.getReportType() + " report");
+        }
+        return parameter;
+    }
+
+    private Duration ttl() {
+        return Duration.ofMinutes(ttlMinutes);
+    }
+
+    private ReportJobResponse toResponse(ReportJob job) {
+        ReportJobResponse response = new ReportJobResponse();
+        response.setJobId(job.id);
+        response.setReportType(job.request.getReportType());
+        response.setStatus(job.status.name());
+        response.setSubmittedAt(job.submittedAt);
+        response.setStartedAt(job.startedAt);
+        response.setCompletedAt(job.completedAt);
+        response.setExpiresAt(job.completedAt != null ? job.completedAt.plus(ttl()) : null);
+        response.setResultBytes(job.resultBytes);
+        response.setError(job.error);
+        return response;
+    }
+
+    // A DEPARTMENT job's parameter; its toString is part of the request key
+    private record DepartmentRange(Integer departmentId, LocalDate startDate, LocalDate endDate) {}
+
+    // Written by the job's worker thread, read by request threads
+    private static class ReportJob {
+        final String id;
+        final String requestKey;
+        final ReportJobRequest request;
+        final Object parameter;
+        final Instant submittedAt = Instant.now();
+        volatile Status status = Status.QUEUED;
+        volatile Instant startedAt;
+        volatile Instant completedAt;
+        volatile Path resultFile;
+        volatile Long resultBytes;
+        volatile String error;
+
+        ReportJob(String id, String requestKey, ReportJobRequest request, Object parameter) {
+            this.id = id;
+            this.requestKey = requestKey;
+            this.request = request;
+            this.parameter = parameter;
+        }
+    }
+}
@@ -5,12 +5,17 @@ import com.tacs.attendancechecker.dto.AttendanceReportDTO.AttendanceRecordDTO;
 import com.tacs.attendancechecker.dto.AttendanceReportDTO.ReportSummary;
 import com.tacs.attendancechecker.entity.*;
 import com.tacs.attendancechecker.repository.*;
+import com.tacs.attendancechecker.repository.AttendanceRepository.ReportRow;
+import com.tacs.attendancechecker.util.ReportCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,98 +27,166 @@ public class ReportService {
     @Autowired
     private StudentRepository studentRepository;
 
-    @Autowired
-    private TeacherRepository teacherRepository;
-
     @Autowired
     private CourseRepository courseRepository;
 
     @Autowired
     private AttendanceSessionRepository attendanceSessionRepository;
 
-    /**
-     * Generate daily attendance report for a specific date
-     */
-    public AttendanceReportDTO generateDailyReport(LocalDate date) {
-        List<Attendance> attendances = attendanceRepository.findByDate(date);
+    @Autowired
+    private DailyCourseAttendanceRollupRepository rollupRepository;
 
-        List<AttendanceRecordDTO> records = attendances.stream()
-                .map(this::mapToRecordDTO)
-                .collect(Collectors.toList());
+    @Autowired
+    private ReportCache reportCache;
 
-        ReportSummary summary = calculateSummary(attendances);
+    @Autowired
+    private DashboardCounters dashboardCounters;
 
-        return new AttendanceReportDTO("DAILY", date, date, summary, records);
-    }
+    @Autowired
+    private AttendanceArchiveService archiveService;
+
+    // Records per page when the client doesn't ask for a size, and the most it may ask for
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
 
     /**
-     * Generate monthly attendance report
+     * Generate daily attendance report for a specific date. The summary comes
+     * with the first page only; pass the returned nextCursor to get the next one
      */
-    public AttendanceReportDTO generateMonthlyReport(YearMonth yearMonth) {
-        LocalDate startDate = yearMonth.atDay(1);
-        LocalDate endDate = yearMonth.atEndOfMonth();
-
-        List<Attendance> attendances = attendanceRepository.findByDateBetween(startDate, endDate);
+    public AttendanceReportDTO generateDailyReport(LocalDate date, boolean summaryOnly, String cursor, int limit) {
+        return reportCache.get("DAILY", date, summaryOnly, cursor, limit,
+                () -> buildDailyReport(date, summaryOnly, cursor, limit));
+    }
 
-        List<AttendanceRecordDTO> records = attendances.stream()
-                .map(this::mapToRecordDTO)
-                .collect(Collectors.toList());
+    /**
+     * Generate monthly attendance report, paged like the daily report
+     */
+    public AttendanceReportDTO generateMonthlyReport(YearMonth yearMonth, boolean summaryOnly, String cursor,
+            int limit) {
+        return reportCache.get("MONTHLY", yearMonth, summaryOnly, cursor, limit,
+                () -> buildMonthlyReport(yearMonth, summaryOnly, cursor, limit));
+    }
 
-        ReportSummary summary = calculateSummary(attendances);
+    /**
+     * Generate course-specific attendance report, paged like the daily report.
+     * The date span is part of the summary and is only set on the first page
+     */
+    public AttendanceReportDTO generateCourseReport(Integer courseId, boolean summaryOnly, String cursor, int limit) {
+        return reportCache.get("COURSE", courseId, summaryOnly, cursor, limit,
+                () -> buildCourseReport(courseId, summaryOnly, cursor, limit));
+    }
 
-        return new AttendanceReportDTO("MONTHLY", startDate, endDate, summary, records);
+    /**
+     * Generate student-specific attendance report, paged like the course report
+     */
+    public AttendanceReportDTO generateStudentReport(Integer studentId, boolean summaryOnly, String cursor,
+            int limit) {
+        return reportCache.get("STUDENT", studentId, summaryOnly, cursor, limit,
+                () -> buildStudentReport(studentId, summaryOnly, cursor, limit));
     }
 
     /**
-     * Generate course-specific attendance report
+     * Generate a page of any report type without going through the cache, for
+     * background jobs that read every page once
      */
-    public AttendanceReportDTO generateCourseReport(Integer courseId) {
-        Optional<Course> courseOpt = courseRepository.findById(courseId);
-        if (!courseOpt.isPresent()) {
-            throw new RuntimeException("Course not found with ID: " + courseId);
+    public AttendanceReportDTO generateUncached(String reportType, Object parameter, String cursor, int limit) {
+        switch (reportType) {
+            case "DAILY":
+                return buildDailyReport((LocalDate) parameter, false, cursor, limit);
+            case "MONTHLY":
+                return buildMonthlyReport((YearMonth) parameter, false, cursor, limit);
+            case "COURSE":
+                return buildCourseReport((Integer) parameter, false, cursor, limit);
+            case "STUDENT":
+                return buildStudentReport((Integer) parameter, false, cursor, limit);
+            default:
+                throw new IllegalArgumentException("Unknown reportType: " + reportType);
         }
+    }
 
-        List<Attendance> attendances = attendanceRepository.findByCourseId(courseId);
+    private AttendanceReportDTO buildDailyReport(LocalDate date, boolean summaryOnly, String cursor, int limit) {
+        AttendanceReportDTO report = new AttendanceReportDTO("DAILY", date, date,
+                cursor == null ? summarizeRollup(date, date) : null, null);
 
-        List<AttendanceRecordDTO> records = attendances.stream()
-                .map(this::mapToRecordDTO)
-                .sorted(Comparator.comparing(AttendanceRecordDTO::getDate).reversed())
-                .collect(Collectors.toList());
+        if (!summaryOnly) {
+            fillPage(report, cursor, limit,
+                    page -> attendanceRepository.findPageByDateBetween(date, date, page),
+                    (after, page) -> attendanceRepository.findPageByDateBetweenAfter(date, date,
+                            after.date(), after.attendanceId(), page),
+                    null);
+        }
+        return report;
+    }
 
-        ReportSummary summary = calculateSummary(attendances);
+    private AttendanceReportDTO buildMonthlyReport(YearMonth yearMonth, boolean summaryOnly, String cursor,
+            int limit) {
+        LocalDate startDate = yearMonth.atDay(1);
+        LocalDate endDate = yearMonth.atEndOfMonth();
 
-        LocalDate startDate = records.isEmpty() ? LocalDate.now()
-                : records.stream().map(AttendanceRecordDTO::getDate).min(LocalDate::compareTo).orElse(LocalDate.now());
-        LocalDate endDate = records.isEmpty() ? LocalDate.now()
-                : records.stream().map(AttendanceRecordDTO::getDate).max(LocalDate::compareTo).orElse(LocalDate.now());
+        AttendanceReportDTO report = new AttendanceReportDTO("MONTHLY", startDate, endDate,
+                cursor == null ? summarizeRollup(startDate, endDate) : null, null);
 
-        return new AttendanceReportDTO("COURSE", startDate, endDate, summary, records);
+        if (!summaryOnly) {
+            fillPage(report, cursor, limit,
+                    page -> attendanceRepository.findPageByDateBetween(startDate, endDate, page),
+                    (after, page) -> attendanceRepository.findPageByDateBetweenAfter(startDate, endDate,
+                            after.date(), after.attendanceId(), page),
+                    null);
+        }
+        return report;
     }
 
-    /**
-     * Generate student-specific attendance report
-     */
-    public AttendanceReportDTO generateStudentReport(Integer studentId) {
-        Optional<Student> studentOpt = studentRepository.findById(studentId);
-        if (!studentOpt.isPresent()) {
-            throw new RuntimeException("Student not found with ID: " + studentId);
+    private AttendanceReportDTO buildCourseReport(Integer courseId, boolean summaryOnly, String cursor, int limit) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new RuntimeException("Course not found with ID: " + courseId);
         }
 
-        List<Attendance> attendances = attendanceRepository.findByStudentId(studentId);
+        AttendanceReportDTO report = new AttendanceReportDTO();
+        report.setReportType("COURSE");
+        if (cursor == null) {
+            List<AttendanceRepository.StatusCount> counts =
+                    new ArrayList<>(attendanceRepository.countByStatusForCourse(courseId));
+            counts.addAll(archiveService.countByStatusForCourse(courseId));
+            report.setStartDate(firstDate(counts));
+            report.setEndDate(lastDate(counts));
+            report.setSummary(summarize(counts));
+        }
 
-        List<AttendanceRecordDTO> records = attendances.stream()
-                .map(this::mapToRecordDTO)
-                .sorted(Comparator.comparing(AttendanceRecordDTO::getDate).reversed())
-                .collect(Collectors.toList());
+        if (!summaryOnly) {
+            fillPage(report, cursor, limit,
+                    page -> attendanceRepository.findPageByCourseId(courseId, page),
+                    (after, page) -> attendanceRepository.findPageByCourseIdAfter(courseId,
+                            after.date(), after.attendanceId(), page),
+                    (after, page) -> archiveService.findPageByCourseId(courseId, after, page));
+        }
+        return report;
+    }
 
-        ReportSummary summary = calculateSummary(attendances);
+    private AttendanceReportDTO buildStudentReport(Integer studentId, boolean summaryOnly, String cursor,
+            int limit) {
+        if (!studentRepository.existsById(studentId)) {
+            throw new RuntimeException("Student not found with ID: " + studentId);
+        }
 
-        LocalDate startDate = records.isEmpty() ? LocalDate.now()
-                : records.stream().map(AttendanceRecordDTO::getDate).min(LocalDate::compareTo).orElse(LocalDate.now());
-        LocalDate endDate = records.isEmpty() ? LocalDate.now()
-                : records.stream().map(AttendanceRecordDTO::getDate).max(LocalDate::compareTo).orElse(LocalDate.now());
+        AttendanceReportDTO report = new AttendanceReportDTO();
+        report.setReportType("STUDENT");
+        if (cursor == null) {
+            List<AttendanceRepository.StatusCount> counts =
+                    new ArrayList<>(attendanceRepository.countByStatusForStudent(studentId));
+            counts.addAll(archiveService.countByStatusForStudent(studentId));
+            report.setStartDate(firstDate(counts));
+            report.setEndDate(lastDate(counts));
+            report.setSummary(summarize(counts));
+        }
 
-        return new AttendanceReportDTO("STUDENT", startDate, endDate, summary, records);
+        if (!summaryOnly) {
+            fillPage(report, cursor, limit,
+                    page -> attendanceRepository.findPageByStudentId(studentId, page),
+                    (after, page) -> attendanceRepository.findPageByStudentIdAfter(studentId,
+                            after.date(), after.attendanceId(), page),
+                    (after, page) -> archiveService.findPageByStudentId(studentId, after, page));
+        }
+        return report;
     }
 
     /**
@@ -122,22 +195,22 @@ public class ReportService {
     public Map<String, Object> getDashboardStatistics() {
         Map<String, Object> stats = new HashMap<>();
 
-        LocalDate today = LocalDate.now();
-        List<Attendance> todayAttendance = attendanceRepository.findByDate(today);
+        // Served from in-memory counters; polling the dashboard doesn't query the database
+        long totalStudents = dashboardCounters.getStudents();
+        long totalTeachers = dashboardCounters.getTeachers();
+        long totalCourses = dashboardCounters.getCourses();
 
-        long totalStudents = studentRepository.count();
-        long totalTeachers = teacherRepository.count();
-        long totalCourses = courseRepository.count();
-
-        long todayPresent = todayAttendance.stream().filter(a -> "PRESENT".equals(a.getStatus())).count();
-        long todayAbsent = todayAttendance.stream().filter(a -> "ABSENT".equals(a.getStatus())).count();
-        long todayLate = todayAttendance.stream().filter(a -> "LATE".equals(a.getStatus())).count();
+        long todayPresent = dashboardCounters.getToday(Attendance.Status.PRESENT);
+        long todayAbsent = dashboardCounters.getToday(Attendance.Status.ABSENT);
+        long todayLate = dashboardCounters.getToday(Attendance.Status.LATE);
+        long todayExcused = dashboardCounters.getToday(Attendance.Status.EXCUSED);
 
         double attendanceRate = totalStudents > 0 ? ((double) (todayPresent + todayLate) / totalStudents) * 100 : 0.0;
 
         stats.put("todayPresent", todayPresent);
         stats.put("todayAbsent", todayAbsent);
         stats.put("todayLate", todayLate);
+        stats.put("todayExcused", todayExcused);
         stats.put("totalStudents", totalStudents);
         stats.put("totalTeachers", totalTeachers);
         stats.put("totalCourses", totalCourses);
@@ -147,43 +220,108 @@ public class ReportService {
     }
 
     /**
-     * Map Attendance entity to AttendanceRecordDTO
+     * Load one page of records into the report. Reads one row past the page to
+     * know whether another page follows. Archived records, if the report reads
+     * any, are merged in report order (archivedPage takes a null cursor for the
+     * first page)
+     *
+     * @throws IllegalArgumentException if the cursor or limit is invalid
      */
-    private AttendanceRecordDTO mapToRecordDTO(Attendance attendance) {
-        Student student = attendance.getStudent();
-        Course course = attendance.getCourse();
+    private void fillPage(AttendanceReportDTO report, String cursor, int limit,
+            Function<Limit, List<ReportRow>> firstPage, BiFunction<ReportCursor, Limit, List<ReportRow>> nextPage,
+            BiFunction<ReportCursor, Integer, List<ReportRow>> archivedPage) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        ReportCursor after = cursor != null ? ReportCursor.decode(cursor) : null;
+        List<ReportRow> rows = after == null
+                ? firstPage.apply(Limit.of(limit + 1))
+                : nextPage.apply(after, Limit.of(limit + 1));
+
+        if (archivedPage != null && !archiveService.isEmpty()) {
+            List<ReportRow> archived = archivedPage.apply(after, limit + 1);
+            if (!archived.isEmpty()) {
+                rows = new ArrayList<>(rows);
+                rows.addAll(archived);
+                rows.sort(AttendanceArchiveService.NEWEST_FIRST);
+            }
+        }
+
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            ReportRow last = rows.get(limit - 1);
+            report.setNextCursor(new ReportCursor(last.date(), last.attendanceId()).encode());
+        }
+        report.setRecords(rows.stream().map(this::mapToRecordDTO).collect(Collectors.toList()));
+    }
 
-        String studentName = student != null && student.getUser() != null
-                ? student.getUser().getFname() + " " + student.getUser().getLname()
-                : "Unknown";
-        String courseCode = course != null ? course.getCourseCode() : "N/A";
-        String courseName = course != null ? course.getCourseName() : "N/A";
+    /**
+     * Map a report row to AttendanceRecordDTO
+     */
+    private AttendanceRecordDTO mapToRecordDTO(ReportRow row) {
+        // Archived rows whose student or course no longer exists have no names
+        String studentName = row.firstName() != null ? row.firstName() + " " + row.lastName() : "Unknown";
+        String courseCode = row.courseCode() != null ? row.courseCode() : "N/A";
+        String courseName = row.courseName() != null ? row.courseName() : "N/A";
 
         return new AttendanceRecordDTO(
-                attendance.getDate(),
-                attendance.getStudent() != null ? String.valueOf(attendance.getStudent().getStudentId()) : "N/A",
+                row.date(),
+                row.studentId() != null ? String.valueOf(row.studentId()) : "N/A",
                 studentName,
                 courseCode,
                 courseName,
-                attendance.getStatus() != null ? attendance.getStatus().name() : "UNKNOWN",
-                attendance.getRemarks());
+                row.status() != null ? row.status().name() : "UNKNOWN",
+                row.remarks());
     }
 
     /**
-     * Calculate summary statistics from attendance list
+     * Summary for a date range from the daily rollup (one row per course per day)
      */
-    private ReportSummary calculateSummary(List<Attendance> attendances) {
-        int totalPresent = (int) attendances.stream().filter(a -> "PRESENT".equals(a.getStatus())).count();
-        int totalAbsent = (int) attendances.stream().filter(a -> "ABSENT".equals(a.getStatus())).count();
-        int totalLate = (int) attendances.stream().filter(a -> "LATE".equals(a.getStatus())).count();
+    private ReportSummary summarizeRollup(LocalDate startDate, LocalDate endDate) {
+        DailyCourseAttendanceRollupRepository.Totals totals = rollupRepository.sumBetween(startDate, endDate);
+        long total = totals.getPresent() + totals.getLate() + totals.getAbsent() + totals.getExcused();
+        double attendanceRate = total > 0 ? ((double) (totals.getPresent() + totals.getLate()) / total) * 100 : 0.0;
 
-        int total = attendances.size();
-        double attendanceRate = total > 0 ? ((double) (totalPresent + totalLate) / total) * 100 : 0.0;
+        return new ReportSummary(
+                (int) totals.getPresent(),
+                (int) totals.getAbsent(),
+                (int) totals.getLate(),
+                (int) totals.getExcused(),
+                Math.round(attendanceRate * 10) / 10.0);
+    }
+
+    /**
+     * Summary from per-status counts
+     */
+    private ReportSummary summarize(List<AttendanceRepository.StatusCount> counts) {
+        long[] byStatus = new long[Attendance.Status.values().length];
+        long total = 0;
+        for (AttendanceRepository.StatusCount count : counts) {
+            if (count.getStatus() != null) {
+                byStatus[count.getStatus().ordinal()] += count.getTotal();
+            }
+            total += count.getTotal();
+        }
+        long present = byStatus[Attendance.Status.PRESENT.ordinal()];
+        long late = byStatus[Attendance.Status.LATE.ordinal()];
+        double attendanceRate = total > 0 ? ((double) (present + late) / total) * 100 : 0.0;
 
         return new ReportSummary(
-                totalPresent,
-                totalAbsent,
-                totalLate,
+                (int) present,
+                (int) byStatus[Attendance.Status.ABSENT.ordinal()],
+                (int) late,
+                (int) byStatus[Attendance.Status.EXCUSED.ordinal()],
                 Math.round(attendanceRate * 10) / 10.0);
     }
+
+    private LocalDate firstDate(List<AttendanceRepository.StatusCount> counts) {
+        return counts.stream().map(AttendanceRepository.StatusCount::getFirstDate).filter(Objects::nonNull)
+                .min(LocalDate::compareTo).orElse(LocalDate.now());
+    }
+
+    private LocalDate lastDate(List<AttendanceRepository.StatusCount> counts) {
+        return counts.stream().map(AttendanceRepository.StatusCount::getLastDate).filter(Objects::nonNull)
+                .max(LocalDate::compareTo).orElse(LocalDate.now());
+    }
 }
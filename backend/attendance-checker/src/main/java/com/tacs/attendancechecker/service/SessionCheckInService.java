@@ -0,0 +1,276 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.dto.AttendanceRequest;
+import com.tacs.attendancechecker.dto.AttendanceResponse;
+import com.tacs.attendancechecker.dto.CheckInCodeResponse;
+import com.tacs.attendancechecker.dto.CheckInRequest;
+import com.tacs.attendancechecker.entity.Attendance;
+import com.tacs.attendancechecker.entity.AttendanceSession;
+import com.tacs.attendancechecker.entity.ClassSchedule;
+import com.tacs.attendancechecker.entity.Student;
+import com.tacs.attendancechecker.entity.User;
+import com.tacs.attendancechecker.repository.AttendanceSessionRepository;
+import com.tacs.attendancechecker.repository.EnrollmentRepository;
+import com.tacs.attendancechecker.repository.StudentRepository;
+import com.tacs.attendancechecker.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Student self check-in with rotating session codes.
+ *
+ * The teacher displays a short code derived from an HMAC of the session ID and
+ * the current time window, the same way TOTP works. Verifying a code only needs
+ * the secret and a few cached fields of the session, so the burst of check-ins
+ * at the start of class costs no database reads until a code is accepted.
+ */
+@Service
+public class SessionCheckInService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int MAX_CACHED_SESSIONS = 10000;
+
+    @Autowired
+    private AttendanceSessionRepository attendanceSessionRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Value("${attendance.checkin.secret}")
+    private String secret;
+
+    @Value("${attendance.checkin.period-seconds:30}")
+    private int periodSeconds;
+
+    @Value("${attendance.checkin.digits:6}")
+    private int digits;
+
+    @Value("${attendance.checkin.late-after-minutes:15}")
+    private int lateAfterMinutes;
+
+    // Session metadata needed to verify a code, keyed by session ID
+    private final Map<Integer, SessionInfo> sessions = new ConcurrentHashMap<>();
+
+    // Loads in progress, so concurrent first check-ins share one query
+    private final Map<Integer, CompletableFuture<SessionInfo>> loading = new ConcurrentHashMap<>();
+
+    // Keyed once; each use clones it, since Mac is not thread-safe. A ThreadLocal
+    // would give every virtual thread (one per request) its own freshly keyed Mac.
+    private volatile Mac keyedMac;
+
+    // Current code for the teacher's screen. Always reloads the session, so a
+    // session created or changed since it was cached is picked up here before
+    // any student can have seen a code for it. Only the session's teacher and
+    // admins may read it: anyone else holding the code could check in from
+    // outside the room.
+    public CheckInCodeResponse getCurrentCode(Integer sessionId, String email) {
+        AttendanceSession session = attendanceSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Attendance session not found"));
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new AccessDeniedException("User not found"));
+        if (user.getRole() != User.Role.ADMIN
+                && !user.getUserId().equals(session.getTeacher().getUser().getUserId())) {
+            throw new AccessDeniedException("Only the session's teacher can show its check-in code");
+        }
+        loading.remove(sessionId);
+        sessions.put(sessionId, SessionInfo.of(session));
+        trimCache();
+
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        long window = nowSeconds / periodSeconds;
+        int expiresIn = (int) (periodSeconds - nowSeconds % periodSeconds);
+        return new CheckInCodeResponse(sessionId, generateCode(sessionId, window), periodSeconds, expiresIn);
+    }
+
+    // Check the signed-in student in with the code shown in class. Marked LATE
+    // once the grace period after the session start has passed.
+    public AttendanceResponse checkIn(CheckInRequest request, String email) {
+        if (request.getSessionId() == null || request.getCode() == null) {
+            throw new IllegalArgumentException("Session ID and code are required");
+        }
+        SessionInfo session = getSession(request.getSessionId());
+        trimCache();
+        if (!session.exists() || !verifyCode(request.getSessionId(), request.getCode())) {
+            throw new IllegalArgumentException("Invalid or expired check-in code");
+        }
+        if (session.finalized()) {
+            throw new SessionClosedException("Attendance for this session has been finalized");
+        }
+        LocalDate today = LocalDate.now();
+        if (!today.equals(session.date())) {
+            throw new SessionClosedException("Check-in is only open on the day of the session");
+        }
+
+        // The code is valid, so this is a real student in the room; now it is worth a query
+        Student student = studentRepository.findByUserEmail(email)
+                .orElseThrow(() -> new AccessDeniedException("Only students can check in"));
+        if (!isEnrolled(student.getStudentId(), session)) {
+            throw new AccessDeniedException("Student is not enrolled in this course");
+        }
+
+        LocalTime now = LocalTime.now();
+        Attendance.Status status = session.startTime() != null
+                && now.isAfter(session.startTime().plusMinutes(lateAfterMinutes))
+                ? Attendance.Status.LATE
+                : Attendance.Status.PRESENT;
+
+        AttendanceRequest mark = new AttendanceRequest();
+        mark.setStudentId(student.getStudentId());
+        mark.setCourseId(session.courseId());
+        mark.setSessionId(request.getSessionId());
+        mark.setDate(session.date());
+        mark.setTimeIn(now);
+        mark.setStatus(status.name());
+        mark.setRemarks("Self check-in");
+        return attendanceService.markAttendance(mark);
+    }
+
+    // Enrolled in the section the session is scheduled for; a session without a
+    // schedule only names its course, so any section of the course will do
+    private boolean isEnrolled(Integer studentId, SessionInfo session) {
+        if (session.offeredCourseId() != null) {
+            return enrollmentRepository.existsByStudentStudentIdAndOfferedCourseOfferedCourseIdAndStatus(
+                    studentId, session.offeredCourseId(), "ACTIVE");
+        }
+        return enrollmentRepository.existsByStudentStudentIdAndOfferedCourseCourseCourseIdAndStatus(
+                studentId, session.courseId(), "ACTIVE");
+    }
+
+    // Drop cached metadata after a session is changed or deleted
+    public void evict(Integer sessionId) {
+        loading.remove(sessionId);
+        sessions.remove(sessionId);
+    }
+
+    // Accept the current window and the previous one, so a code read just
+    // before it rotated still works
+    private boolean verifyCode(Integer sessionId, String code) {
+        byte[] submitted = code.trim().getBytes(StandardCharsets.US_ASCII);
+        long window = System.currentTimeMillis() / 1000 / periodSeconds;
+        boolean matched = false;
+        for (long w = window; w >= window - 1; w--) {
+            byte[] expected = generateCode(sessionId, w).getBytes(StandardCharsets.US_ASCII);
+            // Constant-time compare; check both windows either way
+            matched |= MessageDigest.isEqual(expected, submitted);
+        }
+        return matched;
+    }
+
+    // Dynamic truncation as in RFC 4226, over HMAC-SHA256(sessionId || window).
+    // Package-private so tests can build codes for other windows
+    String generateCode(Integer sessionId, long window) {
+        byte[] message = ByteBuffer.allocate(Integer.BYTES + Long.BYTES)
+                .putInt(sessionId)
+                .putLong(window)
+                .array();
+        byte[] hash = mac().doFinal(message);
+        int offset = hash[hash.length - 1] & 0x0F;
+        int binary = ((hash[offset] & 0x7F) << 24)
+                | ((hash[offset + 1] & 0xFF) << 16)
+                | ((hash[offset + 2] & 0xFF) << 8)
+                | (hash[offset + 3] & 0xFF);
+        int modulus = (int) Math.pow(10, digits);
+        return String.format("%0" + digits + "d", binary % modulus);
+    }
+
+    private Mac mac() {
+        try {
+            Mac mac = keyedMac;
+            if (mac == null) {
+                mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+                keyedMac = mac;
+            }
+            return (Mac) mac.clone();
+        } catch (GeneralSecurityException | CloneNotSupportedException e) {
+            throw new IllegalStateException("Could not initialise check-in code generator", e);
+        }
+    }
+
+    // The query runs outside the map: inside computeIfAbsent it would hold the
+    // map's bin lock, and every key in that bin, for the whole round trip.
+    // A load that an evict overtook is returned to its callers but not cached.
+    private SessionInfo getSession(Integer sessionId) {
+        SessionInfo cached = sessions.get(sessionId);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<SessionInfo> load = new CompletableFuture<>();
+        CompletableFuture<SessionInfo> running = loading.putIfAbsent(sessionId, load);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            SessionInfo session = loadSession(sessionId);
+            sessions.compute(sessionId, (id, current) -> loading.get(id) == load ? session : current);
+            load.complete(session);
+            return session;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(sessionId, load);
+        }
+    }
+
+    // Unknown sessions are cached too, so guessing session IDs cannot be used
+    // to force a query per attempt
+    private SessionInfo loadSession(Integer sessionId) {
+        return attendanceSessionRepository.findById(sessionId)
+                .map(SessionInfo::of)
+                .orElse(SessionInfo.MISSING);
+    }
+
+    private void trimCache() {
+        if (sessions.size() <= MAX_CACHED_SESSIONS) {
+            return;
+        }
+        // Past and unknown sessions can no longer be checked into; clear them out first
+        LocalDate today = LocalDate.now();
+        sessions.values().removeIf(s -> !s.exists() || s.date() == null || s.date().isBefore(today));
+        if (sessions.size() > MAX_CACHED_SESSIONS) {
+            sessions.clear();
+        }
+    }
+
+    // The fields of a session that check-in needs
+    record SessionInfo(Integer sessionId, Integer courseId, Integer offeredCourseId, LocalDate date,
+            LocalTime startTime, boolean finalized) {
+
+        static final SessionInfo MISSING = new SessionInfo(null, null, null, null, null, true);
+
+        static SessionInfo of(AttendanceSession session) {
+            ClassSchedule schedule = session.getClassSchedule();
+            return new SessionInfo(session.getSessionId(), session.getCourse().getCourseId(),
+                    schedule != null ? schedule.getOfferedCourse().getOfferedCourseId() : null,
+                    session.getDate(), session.getStartTime(), Boolean.TRUE.equals(session.getIsFinalized()));
+        }
+
+        boolean exists() {
+            return sessionId != null;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.tacs.attendancechecker.service;
+
+// Thrown when a session can no longer take check-ins: it has been finalized,
+// or it isn't being held today
+public class SessionClosedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SessionClosedException(String message) {
+        super(message);
+    }
+}
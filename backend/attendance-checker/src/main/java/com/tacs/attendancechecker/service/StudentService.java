@@ -1,17 +1,28 @@
 package com.tacs.attendancechecker.service;
 
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.entity.Student;
 import com.tacs.attendancechecker.entity.User;
 import com.tacs.attendancechecker.repository.StudentRepository;
 import com.tacs.attendancechecker.repository.UserRepository;
 import com.tacs.attendancechecker.repository.EnrollmentRepository;
 import com.tacs.attendancechecker.repository.AttendanceRepository;
+import com.tacs.attendancechecker.util.KeysetPager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
 public class StudentService {
+    private static final KeysetPager.Listing<Student> STUDENTS = KeysetPager.Listing
+            .of(Student.class, "studentId", Integer.class, Student::getStudentId)
+            .sortBy("studentNumber", "studentNumber", String.class, Student::getStudentNumber)
+            .sortBy("lastName", "user.lname", String.class, student -> student.getUser().getLname())
+            .sortBy("yearLevel", "yearLevel", Integer.class, Student::getYearLevel)
+            .sortBy("program", "program", String.class, Student::getProgram)
+            .fetch("user");
+
     @Autowired
     private StudentRepository studentRepository;
 
@@ -27,6 +38,12 @@ public class StudentService {
     @Autowired
     private AttendanceRepository attendanceRepository;
 
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
     public Student addStudent(String fname, String lname, String email, String password,
             String studentNumber, String program, Integer yearLevel,
             String enrollmentStatus) {
@@ -52,11 +69,19 @@ public class StudentService {
         student.setYearLevel(yearLevel);
         student.setEnrollmentStatus(enrollmentStatus != null ? enrollmentStatus : "ACTIVE");
 
-        return studentRepository.save(student);
+        Student saved = studentRepository.save(student);
+        dashboardCounters.addStudents(1);
+        return saved;
     }
 
-    public java.util.List<Student> getAllStudents() {
-        return studentRepository.findAll();
+    // A page of students; q matches their name, email, student number or program
+    public PageResponse<Student> getStudents(ListQuery query, String q, String program, Integer yearLevel,
+            String enrollmentStatus) {
+        return keysetPager.find(STUDENTS, new KeysetPager.Filters<Student>()
+                .contains(q, "user.fname", "user.lname", "user.email", "studentNumber", "program")
+                .equalIgnoreCase("program", program)
+                .equal("yearLevel", yearLevel)
+                .equalIgnoreCase("enrollmentStatus", enrollmentStatus), query);
     }
 
     public Student getStudentById(Integer studentId) {
@@ -93,6 +118,7 @@ public class StudentService {
 
         // Delete student first (removes foreign key relationship)
         studentRepository.delete(student);
+        dashboardCounters.addStudents(-1);
 
         // Then delete the associated user
         if (user != null) {
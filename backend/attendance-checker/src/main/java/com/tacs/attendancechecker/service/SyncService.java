@@ -0,0 +1,144 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.dto.SyncResponse;
+import com.tacs.attendancechecker.entity.*;
+import com.tacs.attendancechecker.repository.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delta sync for the mobile app.
+ *
+ * Sessions, attendance, enrollments and schedules carry an updatedAt stamp
+ * that every write path sets; hard deletes leave a SyncTombstone. A client
+ * passes the cursor from its previous response and gets back only the rows
+ * of its own teacher/student scope that changed or were deleted since then.
+ *
+ * updatedAt is stamped before commit, so a slow transaction can become
+ * visible with a stamp just before the cursor. Each query therefore reaches
+ * back by a safety lag; the few rows sent twice are applied by ID.
+ */
+@Service
+public class SyncService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private AttendanceSessionRepository attendanceSessionRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private ClassScheduleRepository classScheduleRepository;
+
+    @Autowired
+    private SyncTombstoneRepository syncTombstoneRepository;
+
+    @Value("${attendance.sync.safety-lag-seconds:10}")
+    private long safetyLagSeconds;
+
+    @Value("${attendance.sync.tombstone-retention-days:30}")
+    private long tombstoneRetentionDays;
+
+    @Transactional(readOnly = true)
+    public SyncResponse getChanges(String email, Long since) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        Instant now = Instant.now();
+        // Tombstones older than the retention window are gone, so an older cursor
+        // (or none) gets a full snapshot instead of a delta
+        boolean fullResync = since == null
+                || Instant.ofEpochMilli(since).isBefore(now.minus(Duration.ofDays(tombstoneRetentionDays)));
+        Instant from = fullResync ? Instant.EPOCH : Instant.ofEpochMilli(since).minusSeconds(safetyLagSeconds);
+
+        SyncResponse response = new SyncResponse();
+        response.setCursor(now.toEpochMilli());
+        response.setFullResync(fullResync);
+
+        if (user.getRole() == User.Role.TEACHER) {
+            String teacherId = teacherRepository.findByUser(user)
+                    .orElseThrow(() -> new RuntimeException("Teacher not found"))
+                    .getTeacherId();
+            response.setSessions(attendanceSessionRepository.findTeacherChangesSince(teacherId, from));
+            response.setAttendance(attendanceRepository.findTeacherChangesSince(teacherId, from));
+            response.setEnrollments(enrollmentRepository.findTeacherChangesSince(teacherId, from));
+            response.setSchedules(classScheduleRepository.findTeacherChangesSince(teacherId, from));
+            response.setDeleted(fullResync ? new ArrayList<>()
+                    : syncTombstoneRepository.findTeacherDeletionsSince(teacherId, from));
+        } else if (user.getRole() == User.Role.STUDENT) {
+            Integer studentId = studentRepository.findByUser(user)
+                    .orElseThrow(() -> new RuntimeException("Student not found"))
+                    .getStudentId();
+            response.setSessions(attendanceSessionRepository.findStudentChangesSince(studentId, from));
+            response.setAttendance(attendanceRepository.findStudentChangesSince(studentId, from));
+            response.setEnrollments(enrollmentRepository.findStudentChangesSince(studentId, from));
+            response.setSchedules(classScheduleRepository.findStudentChangesSince(studentId, from));
+            response.setDeleted(fullResync ? new ArrayList<>()
+                    : syncTombstoneRepository.findStudentDeletionsSince(studentId, from));
+        } else {
+            throw new IllegalArgumentException("Sync is only available to teachers and students");
+        }
+        return response;
+    }
+
+    // Tombstones for rows deleted along with a session (the session and its marks)
+    public void recordSessionDeletion(AttendanceSession session, List<Attendance> records) {
+        Instant now = Instant.now();
+        String teacherId = session.getTeacher().getTeacherId();
+        Integer courseId = session.getCourse().getCourseId();
+        List<SyncTombstone> tombstones = new ArrayList<>(records.size() + 1);
+        for (Attendance attendance : records) {
+            tombstones.add(new SyncTombstone(null, "ATTENDANCE", attendance.getAttendanceId().toString(),
+                    teacherId, attendance.getStudent().getStudentId(), courseId, now));
+        }
+        tombstones.add(new SyncTombstone(null, "SESSION", session.getSessionId().toString(),
+                teacherId, null, courseId, now));
+        syncTombstoneRepository.saveAll(tombstones);
+    }
+
+    public void recordEnrollmentDeletion(Enrollment enrollment) {
+        OfferedCourse offeredCourse = enrollment.getOfferedCourse();
+        syncTombstoneRepository.save(new SyncTombstone(null, "ENROLLMENT", enrollment.getEnrollmentId().toString(),
+                offeredCourse.getTeacher().getTeacherId(), enrollment.getStudent().getStudentId(),
+                offeredCourse.getCourse().getCourseId(), Instant.now()));
+    }
+
+    public void recordScheduleDeletions(List<ClassSchedule> schedules) {
+        Instant now = Instant.now();
+        List<SyncTombstone> tombstones = new ArrayList<>(schedules.size());
+        for (ClassSchedule schedule : schedules) {
+            OfferedCourse offeredCourse = schedule.getOfferedCourse();
+            tombstones.add(new SyncTombstone(null, "SCHEDULE", schedule.getScheduleId().toString(),
+                    offeredCourse.getTeacher().getTeacherId(), null, offeredCourse.getCourse().getCourseId(), now));
+        }
+        syncTombstoneRepository.saveAll(tombstones);
+    }
+
+    // Cursors older than the retention window get a full resync, so their tombstones are no longer needed
+    @Scheduled(cron = "${attendance.sync.prune-cron:0 30 3 * * *}")
+    @Transactional
+    public void pruneTombstones() {
+        syncTombstoneRepository.deleteByDeletedAtBefore(
+                Instant.now().minus(Duration.ofDays(tombstoneRetentionDays)));
+    }
+}
@@ -1,5 +1,7 @@
 package com.tacs.attendancechecker.service;
 
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
 import com.tacs.attendancechecker.dto.TeacherRegistrationRequest;
 import com.tacs.attendancechecker.entity.Department;
 import com.tacs.attendancechecker.entity.Teacher;
@@ -9,6 +11,7 @@ import com.tacs.attendancechecker.repository.TeacherRepository;
 import com.tacs.attendancechecker.repository.UserRepository;
 import com.tacs.attendancechecker.repository.CourseRepository;
 import com.tacs.attendancechecker.repository.OfferedCourseRepository;
+import com.tacs.attendancechecker.util.KeysetPager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -17,6 +20,16 @@ import java.util.UUID;
 
 @Service
 public class TeacherService {
+    private static final KeysetPager.Listing<Teacher> TEACHERS = KeysetPager.Listing
+            .of(Teacher.class, "teacherId", String.class, Teacher::getTeacherId)
+            .sortBy("lastName", "user.lname", String.class, teacher -> teacher.getUser().getLname())
+            .sortBy("email", "user.email", String.class, teacher -> teacher.getUser().getEmail())
+            .sortBy("department", "department.departmentName", String.class,
+                    teacher -> teacher.getDepartment() != null ? teacher.getDepartment().getDepartmentName() : null)
+            .fetch("user")
+            .fetch("department")
+            .cacheable();
+
     @Autowired
     private TeacherRepository teacherRepository;
 
@@ -35,8 +48,17 @@ public class TeacherService {
     @Autowired
     private OfferedCourseRepository offeredCourseRepository;
 
-    public java.util.List<Teacher> getAllTeachers() {
-        return teacherRepository.findAll();
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    // A page of teachers; q matches their name, email, teacher ID or department name
+    public PageResponse<Teacher> getTeachers(ListQuery query, String q, Integer departmentId) {
+        return keysetPager.find(TEACHERS, new KeysetPager.Filters<Teacher>()
+                .contains(q, "user.fname", "user.lname", "user.email", "teacherId", "department.departmentName")
+                .equal("department.departmentId", departmentId), query);
     }
 
     public Teacher addTeacher(String fname, String lname, String email, String password, Integer departmentId) {
@@ -68,7 +90,9 @@ public class TeacherService {
         teacher.setUser(user);
         teacher.setDepartment(department);
 
-        return teacherRepository.save(teacher);
+        Teacher saved = teacherRepository.save(teacher);
+        dashboardCounters.addTeachers(1);
+        return saved;
     }
 
     public void deleteTeacher(String teacherId) {
@@ -89,6 +113,7 @@ public class TeacherService {
 
         // Delete teacher first (removes foreign key relationship)
         teacherRepository.deleteById(teacherId);
+        dashboardCounters.addTeachers(-1);
 
         // Then delete the associated user
         if (user != null) {
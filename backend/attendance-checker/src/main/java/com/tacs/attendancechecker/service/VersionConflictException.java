@@ -0,0 +1,19 @@
+package com.tacs.attendancechecker.service;
+
+// Thrown when a write carries a version that is no longer current. Holds the
+// current state so the controller can return it for the client to merge.
+public class VersionConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object current;
+
+    public VersionConflictException(String message, Object current) {
+        super(message);
+        this.current = current;
+    }
+
+    public Object getCurrent() {
+        return current;
+    }
+}
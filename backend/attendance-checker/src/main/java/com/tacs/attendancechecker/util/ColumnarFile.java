@@ -0,0 +1,414 @@
+package com.tacs.attendancechecker.util;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A small column-oriented file format for archived rows.
+ *
+ * Rows are written in row groups. Within a group each column is one chunk: a
+ * null bitmap followed by the column's non-null values, deflated. A footer at
+ * the end lists the columns and, for each group, its row count, where its
+ * chunks are, the min and max of its INT and LONG columns, and optionally a
+ * Bloom filter over one INT column. Readers load the footer once, skip the
+ * groups its statistics rule out, and inflate only the chunks they ask for.
+ *
+ * Layout: MAGIC, chunks..., footer, footer offset (8 bytes), MAGIC.
+ */
+public final class ColumnarFile {
+
+    private static final byte[] MAGIC = "TACSCOL1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final double BLOOM_FALSE_POSITIVES = 0.01;
+
+    private ColumnarFile() {
+    }
+
+    public enum Type { INT, LONG, STRING, UUID }
+
+    public record Column(String name, Type type) {
+    }
+
+    /**
+     * Writes rows (one Object[] per row, in column order) a row group at a time.
+     * INT columns take Integer, LONG Long, STRING String and UUID UUID; any may
+     * be null.
+     */
+    public static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final List<Column> columns;
+        private final int rowGroupSize;
+        private final int bloomColumn;
+        private final List<Object[]> buffered = new ArrayList<>();
+        private final List<RowGroup> groups = new ArrayList<>();
+        private long position;
+        private long rows;
+
+        /**
+         * @param bloomColumn INT column to keep a Bloom filter of per group, or null for none
+         */
+        public Writer(Path path, List<Column> columns, int rowGroupSize, String bloomColumn) throws IOException {
+            this.columns = List.copyOf(columns);
+            this.rowGroupSize = rowGroupSize;
+            this.bloomColumn = bloomColumn != null ? indexOf(this.columns, bloomColumn) : -1;
+            if (this.bloomColumn >= 0 && this.columns.get(this.bloomColumn).type() != Type.INT) {
+                throw new IllegalArgumentException("Bloom filters are only kept for INT columns");
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            writeFully(ByteBuffer.wrap(MAGIC));
+        }
+
+        public void write(Object[] row) throws IOException {
+            if (row.length != columns.size()) {
+                throw new IllegalArgumentException("Expected " + columns.size() + " values, got " + row.length);
+            }
+            buffered.add(row);
+            rows++;
+            if (buffered.size() >= rowGroupSize) {
+                flushGroup();
+            }
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        // Writes the last group and the footer, and syncs the file
+        @Override
+        public void close() throws IOException {
+            try {
+                if (!buffered.isEmpty()) {
+                    flushGroup();
+                }
+                ByteArrayOutputStream footer = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(footer);
+                out.writeInt(columns.size());
+                for (Column column : columns) {
+                    out.writeUTF(column.name());
+                    out.writeByte(column.type().ordinal());
+                }
+                out.writeInt(bloomColumn);
+                out.writeInt(groups.size());
+                for (RowGroup group : groups) {
+                    group.write(out);
+                }
+                out.flush();
+                long footerOffset = position;
+                writeFully(ByteBuffer.wrap(footer.toByteArray()));
+                ByteBuffer tail = ByteBuffer.allocate(8 + MAGIC.length);
+                tail.putLong(footerOffset).put(MAGIC).flip();
+                writeFully(tail);
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void flushGroup() throws IOException {
+            int count = buffered.size();
+            long[] offsets = new long[columns.size()];
+            int[] lengths = new int[columns.size()];
+            long[] min = new long[columns.size()];
+            long[] max = new long[columns.size()];
+            for (int c = 0; c < columns.size(); c++) {
+                Type type = columns.get(c).type();
+                ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+                BitSet nulls = new BitSet(count);
+                min[c] = Long.MAX_VALUE;
+                max[c] = Long.MIN_VALUE;
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(chunk)))) {
+                    for (int r = 0; r < count; r++) {
+                        if (buffered.get(r)[c] == null) {
+                            nulls.set(r);
+                        }
+                    }
+                    byte[] nullBytes = nulls.toByteArray();
+                    out.writeInt(nullBytes.length);
+                    out.write(nullBytes);
+                    for (int r = 0; r < count; r++) {
+                        Object value = buffered.get(r)[c];
+                        if (value == null) {
+                            continue;
+                        }
+                        switch (type) {
+                            case INT -> {
+                                int v = (Integer) value;
+                                out.writeInt(v);
+                                min[c] = Math.min(min[c], v);
+                                max[c] = Math.max(max[c], v);
+                            }
+                            case LONG -> {
+                                long v = (Long) value;
+                                out.writeLong(v);
+                                min[c] = Math.min(min[c], v);
+                                max[c] = Math.max(max[c], v);
+                            }
+                            case STRING -> {
+                                byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                                out.writeInt(bytes.length);
+                                out.write(bytes);
+                            }
+                            case UUID -> {
+                                UUID v = (UUID) value;
+                                out.writeLong(v.getMostSignificantBits());
+                                out.writeLong(v.getLeastSignificantBits());
+                            }
+                        }
+                    }
+                }
+                offsets[c] = position;
+                lengths[c] = chunk.size();
+                writeFully(ByteBuffer.wrap(chunk.toByteArray()));
+            }
+
+            BloomFilter<Integer> bloom = null;
+            if (bloomColumn >= 0) {
+                bloom = BloomFilter.create(Funnels.integerFunnel(), count, BLOOM_FALSE_POSITIVES);
+                for (Object[] row : buffered) {
+                    if (row[bloomColumn] != null) {
+                        bloom.put((Integer) row[bloomColumn]);
+                    }
+                }
+            }
+            groups.add(new RowGroup(count, offsets, lengths, min, max, bloom));
+            buffered.clear();
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * An open file: its footer is read once, and chunks are read with
+     * positional reads, so one Reader can serve concurrent callers.
+     */
+    public static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final List<Column> columns;
+        private final int bloomColumn;
+        private final List<RowGroup> groups;
+
+        private Reader(FileChannel channel, List<Column> columns, int bloomColumn, List<RowGroup> groups) {
+            this.channel = channel;
+            this.columns = columns;
+            this.bloomColumn = bloomColumn;
+            this.groups = groups;
+        }
+
+        public static Reader open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                int tailLength = 8 + MAGIC.length;
+                if (size < MAGIC.length + tailLength) {
+                    throw new IOException("Not a columnar file: " + path);
+                }
+                ByteBuffer tail = readAt(channel, size - tailLength, tailLength);
+                long footerOffset = tail.getLong();
+                byte[] magic = new byte[MAGIC.length];
+                tail.get(magic);
+                if (!Arrays.equals(magic, MAGIC) || footerOffset < MAGIC.length || footerOffset > size - tailLength) {
+                    throw new IOException("Not a columnar file: " + path);
+                }
+                ByteBuffer footer = readAt(channel, footerOffset, (int) (size - tailLength - footerOffset));
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer.array()));
+                int columnCount = in.readInt();
+                List<Column> columns = new ArrayList<>(columnCount);
+                for (int i = 0; i < columnCount; i++) {
+                    columns.add(new Column(in.readUTF(), Type.values()[in.readByte()]));
+                }
+                int bloomColumn = in.readInt();
+                int groupCount = in.readInt();
+                List<RowGroup> groups = new ArrayList<>(groupCount);
+                for (int i = 0; i < groupCount; i++) {
+                    groups.add(RowGroup.read(in, columnCount, bloomColumn >= 0));
+                }
+                return new Reader(channel, Collections.unmodifiableList(columns), bloomColumn,
+                        Collections.unmodifiableList(groups));
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        public List<Column> getColumns() {
+            return columns;
+        }
+
+        public List<RowGroup> getRowGroups() {
+            return groups;
+        }
+
+        public long getRows() {
+            long rows = 0;
+            for (RowGroup group : groups) {
+                rows += group.rows;
+            }
+            return rows;
+        }
+
+        // Whether the group may hold a row whose INT or LONG column equals value
+        public boolean mightContain(RowGroup group, String column, long value) {
+            int c = indexOf(columns, column);
+            if (value < group.min[c] || value > group.max[c]) {
+                return false;
+            }
+            if (c == bloomColumn && group.bloom != null) {
+                return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE && group.bloom.mightContain((int) value);
+            }
+            return true;
+        }
+
+        // Min and max of an INT or LONG column in the group; min > max if it's all null
+        public long min(RowGroup group, String column) {
+            return group.min[indexOf(columns, column)];
+        }
+
+        public long max(RowGroup group, String column) {
+            return group.max[indexOf(columns, column)];
+        }
+
+        /**
+         * One column of a group, one element per row: Integer, Long, String or
+         * UUID by column type, or null
+         */
+        public Object[] read(RowGroup group, String column) throws IOException {
+            int c = indexOf(columns, column);
+            Type type = columns.get(c).type();
+            ByteBuffer chunk = readAt(channel, group.offsets[c], group.lengths[c]);
+            Object[] values = new Object[group.rows];
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(
+                    new ByteArrayInputStream(chunk.array()))))) {
+                byte[] nullBytes = new byte[in.readInt()];
+                in.readFully(nullBytes);
+                BitSet nulls = BitSet.valueOf(nullBytes);
+                for (int r = 0; r < group.rows; r++) {
+                    if (nulls.get(r)) {
+                        continue;
+                    }
+                    values[r] = switch (type) {
+                        case INT -> in.readInt();
+                        case LONG -> in.readLong();
+                        case STRING -> {
+                            byte[] bytes = new byte[in.readInt()];
+                            in.readFully(bytes);
+                            yield new String(bytes, StandardCharsets.UTF_8);
+                        }
+                        case UUID -> new UUID(in.readLong(), in.readLong());
+                    };
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    public static final class RowGroup {
+        private final int rows;
+        private final long[] offsets;
+        private final int[] lengths;
+        private final long[] min;
+        private final long[] max;
+        private final BloomFilter<Integer> bloom;
+
+        private RowGroup(int rows, long[] offsets, int[] lengths, long[] min, long[] max, BloomFilter<Integer> bloom) {
+            this.rows = rows;
+            this.offsets = offsets;
+            this.lengths = lengths;
+            this.min = min;
+            this.max = max;
+            this.bloom = bloom;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(rows);
+            for (int c = 0; c < offsets.length; c++) {
+                out.writeLong(offsets[c]);
+                out.writeInt(lengths[c]);
+                out.writeLong(min[c]);
+                out.writeLong(max[c]);
+            }
+            if (bloom != null) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                bloom.writeTo(bytes);
+                out.writeInt(bytes.size());
+                bytes.writeTo(out);
+            }
+        }
+
+        private static RowGroup read(DataInputStream in, int columnCount, boolean hasBloom) throws IOException {
+            int rows = in.readInt();
+            long[] offsets = new long[columnCount];
+            int[] lengths = new int[columnCount];
+            long[] min = new long[columnCount];
+            long[] max = new long[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                offsets[c] = in.readLong();
+                lengths[c] = in.readInt();
+                min[c] = in.readLong();
+                max[c] = in.readLong();
+            }
+            BloomFilter<Integer> bloom = null;
+            if (hasBloom) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                bloom = BloomFilter.readFrom(new ByteArrayInputStream(bytes), Funnels.integerFunnel());
+            }
+            return new RowGroup(rows, offsets, lengths, min, max, bloom);
+        }
+    }
+
+    private static int indexOf(List<Column> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).name().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No column " + name);
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
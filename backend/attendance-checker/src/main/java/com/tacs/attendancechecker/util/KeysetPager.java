@@ -0,0 +1,317 @@
+package com.tacs.attendancechecker.util;
+
+import com.tacs.attendancechecker.dto.ListQuery;
+import com.tacs.attendancechecker.dto.PageResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.FetchParent;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination for the list endpoints.
+ *
+ * A list is ordered by one sort key and then by the entity id, which makes the
+ * order total, and each page starts strictly after the (sort value, id) of the
+ * previous page's last row, carried in the cursor. Unlike OFFSET paging, a page
+ * costs the same however deep into the list it is, and rows added or removed
+ * meanwhile don't shift the later pages.
+ *
+ * Nulls sort as PostgreSQL sorts them: after every value ascending, before
+ * every value descending.
+ */
+@Component
+public class KeysetPager {
+
+    // Rows per page when the client doesn't ask for a size, and the most it may ask for
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // Sort key name of the id, which every listing can be sorted by
+    public static final String ID = "id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * A page of rows matching the filters, or every matching row (as one page
+     * without a cursor) when the query asks for all
+     *
+     * @throws IllegalArgumentException for an unknown sort or direction, a
+     *         limit out of range, or a cursor issued for a different sort
+     */
+    public <T> PageResponse<T> find(Listing<T> listing, Filters<T> filters, ListQuery query) {
+        SortKey<T> sort = listing.sortKeys.get(query.getSort());
+        if (sort == null) {
+            throw new IllegalArgumentException("sort must be one of " + String.join(", ", listing.sortKeys.keySet()));
+        }
+        boolean descending = descending(query.getDirection());
+        boolean all = query.isAll();
+        int limit = query.getLimit();
+        if (!all && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        ListCursor after = !all && query.getCursor() != null ? ListCursor.decode(query.getCursor()) : null;
+        if (after != null && (!after.sort().equals(sort.name()) || after.descending() != descending)) {
+            throw new IllegalArgumentException("cursor was issued for a different sort or direction");
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> criteria = cb.createQuery(listing.entityType);
+        Root<T> root = criteria.from(listing.entityType);
+        fetch(root, listing.fetches);
+
+        List<Predicate> predicates = new ArrayList<>();
+        for (BiFunction<Root<T>, CriteriaBuilder, Predicate> filter : filters.filters) {
+            predicates.add(filter.apply(root, cb));
+        }
+        if (after != null) {
+            predicates.add(after(cb, root, listing.id, sort, descending, after));
+        }
+
+        Path<?> idPath = path(root, listing.id.path());
+        Path<?> sortPath = path(root, sort.path());
+        criteria.select(root).where(predicates.toArray(new Predicate[0]));
+        if (sort == listing.id) {
+            criteria.orderBy(descending ? cb.desc(idPath) : cb.asc(idPath));
+        } else {
+            criteria.orderBy(descending ? cb.desc(sortPath) : cb.asc(sortPath),
+                    descending ? cb.desc(idPath) : cb.asc(idPath));
+        }
+
+        TypedQuery<T> typedQuery = entityManager.createQuery(criteria);
+        if (!all) {
+            typedQuery.setMaxResults(limit + 1);
+        }
+        if (listing.cacheable) {
+            typedQuery.setHint(HibernateHints.HINT_CACHEABLE, true);
+        }
+        List<T> rows = typedQuery.getResultList();
+
+        String nextCursor = null;
+        if (!all && rows.size() > limit) {
+            rows = new ArrayList<>(rows.subList(0, limit));
+            T last = rows.get(limit - 1);
+            Object value = sort.value().apply(last);
+            nextCursor = new ListCursor(sort.name(), descending, String.valueOf(listing.id.value().apply(last)),
+                    value != null ? value.toString() : null).encode();
+        }
+        return new PageResponse<>(rows, nextCursor);
+    }
+
+    // Rows after the cursor's row in the list's order
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <T> Predicate after(CriteriaBuilder cb, Root<T> root, SortKey<T> id, SortKey<T> sort,
+            boolean descending, ListCursor after) {
+        Expression idPath = path(root, id.path());
+        Comparable idValue = parse(after.id(), id.type());
+        Predicate idAfter = descending ? cb.lessThan(idPath, idValue) : cb.greaterThan(idPath, idValue);
+        if (sort == id) {
+            return idAfter;
+        }
+
+        Expression sortPath = path(root, sort.path());
+        if (after.value() == null) {
+            // Ascending the nulls come last, so only nulls follow; descending they come first
+            Predicate nullAfter = cb.and(cb.isNull(sortPath), idAfter);
+            return descending ? cb.or(nullAfter, cb.isNotNull(sortPath)) : nullAfter;
+        }
+        Comparable value = parse(after.value(), sort.type());
+        Predicate sameValueAfter = cb.and(cb.equal(sortPath, value), idAfter);
+        return descending
+                ? cb.or(cb.lessThan(sortPath, value), sameValueAfter)
+                : cb.or(cb.greaterThan(sortPath, value), sameValueAfter, cb.isNull(sortPath));
+    }
+
+    private static boolean descending(String direction) {
+        if (direction == null || direction.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        if (direction.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        throw new IllegalArgumentException("direction must be asc or desc");
+    }
+
+    private static Comparable<?> parse(String raw, Class<?> type) {
+        try {
+            if (type == Integer.class) {
+                return Integer.valueOf(raw);
+            } else if (type == Long.class) {
+                return Long.valueOf(raw);
+            } else if (type == LocalDate.class) {
+                return LocalDate.parse(raw);
+            } else if (type == LocalTime.class) {
+                return LocalTime.parse(raw);
+            } else if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(raw);
+            } else if (type == Instant.class) {
+                return Instant.parse(raw);
+            }
+            return raw;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    // Fetch the to-one associations (e.g. "student.user") with each row, sharing common prefixes
+    private static void fetch(Root<?> root, List<String> paths) {
+        Map<String, FetchParent<?, ?>> fetched = new HashMap<>();
+        for (String fetchPath : paths) {
+            FetchParent<?, ?> parent = root;
+            StringBuilder prefix = new StringBuilder();
+            for (String attribute : fetchPath.split("\\.")) {
+                prefix.append(prefix.length() == 0 ? "" : ".").append(attribute);
+                FetchParent<?, ?> current = parent;
+                parent = fetched.computeIfAbsent(prefix.toString(),
+                        key -> (Fetch<?, ?>) current.fetch(attribute, JoinType.LEFT));
+            }
+        }
+    }
+
+    // An attribute reached through left joins, so a row missing an optional
+    // association (e.g. a teacher without a department) isn't dropped
+    private static Path<?> path(Root<?> root, String dottedPath) {
+        String[] attributes = dottedPath.split("\\.");
+        From<?, ?> from = root;
+        for (int i = 0; i < attributes.length - 1; i++) {
+            from = leftJoin(from, attributes[i]);
+        }
+        return from.get(attributes[attributes.length - 1]);
+    }
+
+    private static From<?, ?> leftJoin(From<?, ?> from, String attribute) {
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute) && join.getJoinType() == JoinType.LEFT) {
+                return join;
+            }
+        }
+        return from.join(attribute, JoinType.LEFT);
+    }
+
+    // One key a listing can be sorted by: its path from the entity (e.g.
+    // "user.lname"), its type, and how to read it off a row for the cursor
+    private record SortKey<T>(String name, String path, Class<?> type, Function<T, Object> value) {
+    }
+
+    /**
+     * What a list endpoint pages over: the entity, its id, the other keys it
+     * can be sorted by, the to-one associations to fetch with each row, and
+     * whether pages go through the query cache (for entities in the
+     * second-level cache)
+     */
+    public static final class Listing<T> {
+
+        private final Class<T> entityType;
+        private final SortKey<T> id;
+        private final Map<String, SortKey<T>> sortKeys = new LinkedHashMap<>();
+        private final List<String> fetches = new ArrayList<>();
+        private boolean cacheable;
+
+        private Listing(Class<T> entityType, SortKey<T> id) {
+            this.entityType = entityType;
+            this.id = id;
+            sortKeys.put(ID, id);
+        }
+
+        public static <T> Listing<T> of(Class<T> entityType, String idPath, Class<?> idType, Function<T, Object> id) {
+            return new Listing<>(entityType, new SortKey<>(ID, idPath, idType, id));
+        }
+
+        public Listing<T> sortBy(String name, String path, Class<?> type, Function<T, Object> value) {
+            sortKeys.put(name, new SortKey<>(name, path, type, value));
+            return this;
+        }
+
+        public Listing<T> fetch(String path) {
+            fetches.add(path);
+            return this;
+        }
+
+        public Listing<T> cacheable() {
+            cacheable = true;
+            return this;
+        }
+    }
+
+    /**
+     * Filters on a listing; each one is skipped when its value is null (or
+     * blank, for text), so request parameters can be passed straight in
+     */
+    public static final class Filters<T> {
+
+        private final List<BiFunction<Root<T>, CriteriaBuilder, Predicate>> filters = new ArrayList<>();
+
+        public Filters<T> equal(String path, Object value) {
+            if (value != null && !(value instanceof String text && text.isBlank())) {
+                filters.add((root, cb) -> cb.equal(path(root, path), value));
+            }
+            return this;
+        }
+
+        public Filters<T> equalIgnoreCase(String path, String value) {
+            if (value != null && !value.isBlank()) {
+                filters.add((root, cb) -> cb.equal(cb.upper(path(root, path).as(String.class)),
+                        value.trim().toUpperCase(Locale.ROOT)));
+            }
+            return this;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Filters<T> atLeast(String path, Comparable value) {
+            if (value != null) {
+                filters.add((root, cb) -> cb.greaterThanOrEqualTo((Expression) path(root, path), value));
+            }
+            return this;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Filters<T> atMost(String path, Comparable value) {
+            if (value != null) {
+                filters.add((root, cb) -> cb.lessThanOrEqualTo((Expression) path(root, path), value));
+            }
+            return this;
+        }
+
+        // Rows where any of the paths contains the text, ignoring case
+        public Filters<T> contains(String text, String... paths) {
+            if (text != null && !text.isBlank()) {
+                String pattern = "%" + text.trim().toLowerCase(Locale.ROOT)
+                        .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+                filters.add((root, cb) -> {
+                    List<Predicate> matches = new ArrayList<>();
+                    for (String path : paths) {
+                        matches.add(cb.like(cb.lower(path(root, path).as(String.class)), pattern, '\\'));
+                    }
+                    return cb.or(matches.toArray(new Predicate[0]));
+                });
+            }
+            return this;
+        }
+    }
+}
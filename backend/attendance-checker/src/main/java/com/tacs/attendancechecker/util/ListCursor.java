@@ -0,0 +1,45 @@
+package com.tacs.attendancechecker.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a list endpoint's rows (see KeysetPager): the sort and direction
+ * the list was read with, and the id and sort value of the last row on the
+ * previous page. A null value means that row's sort value was null.
+ *
+ * Clients treat the encoded form as opaque and pass it back unchanged.
+ */
+public record ListCursor(String sort, boolean descending, String id, String value) {
+
+    private static final String NULL = "~";
+
+    public String encode() {
+        return String.join(".", segment(sort), descending ? "desc" : "asc", segment(id),
+                value != null ? segment(value) : NULL);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by encode()
+     */
+    public static ListCursor decode(String cursor) {
+        try {
+            String[] parts = cursor.split("\\.", -1);
+            if (parts.length != 4 || !(parts[1].equals("asc") || parts[1].equals("desc"))) {
+                throw new IllegalArgumentException();
+            }
+            return new ListCursor(text(parts[0]), parts[1].equals("desc"), text(parts[2]),
+                    parts[3].equals(NULL) ? null : text(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static String segment(String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(String segment) {
+        return new String(Base64.getUrlDecoder().decode(segment), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,75 @@
+package com.tacs.attendancechecker.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a batch write in its own transaction and reruns the whole batch when it
+ * loses a race with another writer.
+ *
+ * A race shows up either as a stale @Version on an updated row or as a unique
+ * key violation on a row someone else inserted first. Each attempt starts a new
+ * transaction and reads fresh state, so the retry sees the winner's row and
+ * updates it instead. Other failures are not retried.
+ */
+@Component
+public class OptimisticRetry {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${attendance.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${attendance.retry.backoff-ms:25}")
+    private long backoffMs;
+
+    public <T> T inTransaction(Supplier<T> work) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isConflict(e)) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    private boolean isConflict(RuntimeException e) {
+        if (e instanceof OptimisticLockingFailureException) {
+            return true;
+        }
+        if (e instanceof DataIntegrityViolationException) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Linear backoff with jitter so competing batches do not retry in lockstep
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(backoffMs * attempt + ThreadLocalRandom.current().nextLong(backoffMs + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.tacs.attendancechecker.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a report's record list: the (date, attendanceId) of the last
+ * record on the previous page. Records are ordered newest first by that pair,
+ * and the next page starts strictly after it.
+ *
+ * Clients treat the encoded form as opaque and pass it back unchanged.
+ */
+public record ReportCursor(LocalDate date, UUID attendanceId) {
+
+    public String encode() {
+        String raw = date + "|" + attendanceId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by encode()
+     */
+    public static ReportCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new ReportCursor(LocalDate.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+-- Enforce one attendance row per student per session.
+--
+-- Run once against existing databases before deploying. Hibernate (ddl-auto=update)
+-- adds the constraint on its own, but silently gives up if duplicates exist.
+
+BEGIN;
+
+-- Keep one row per (student, session) and drop the rest
+DELETE FROM attendance a
+USING attendance b
+WHERE a.session_id IS NOT NULL
+  AND a.student_id = b.student_id
+  AND a.session_id = b.session_id
+  AND a.attendance_id > b.attendance_id;
+
+ALTER TABLE attendance
+    ADD CONSTRAINT uk_attendance_student_session UNIQUE (student_id, session_id);
+
+COMMIT;
@@ -0,0 +1,15 @@
+-- Store attendance primary keys as a native uuid (16 bytes) instead of varchar.
+--
+-- Run once against existing databases before deploying; ddl-auto=update does not
+-- change column types. Existing keys are random UUID strings and convert as-is.
+-- New keys are time-ordered UUIDv7 values, so inserts append to the right edge of
+-- the primary key index. The type change rewrites the table and its indexes.
+
+BEGIN;
+
+ALTER TABLE attendance
+    ALTER COLUMN attendance_id TYPE uuid USING attendance_id::uuid;
+
+COMMIT;
+
+VACUUM ANALYZE attendance;
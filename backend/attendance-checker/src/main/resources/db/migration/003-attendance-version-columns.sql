@@ -0,0 +1,15 @@
+-- Version columns for optimistic locking on attendance and attendance_session.
+--
+-- ddl-auto=update would add these columns as well, but existing rows need a
+-- value because the entities map them as NOT NULL. The default backfills every
+-- row in place (no table rewrite on PostgreSQL 11+).
+
+BEGIN;
+
+ALTER TABLE attendance
+    ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+ALTER TABLE attendance_session
+    ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+COMMIT;
@@ -0,0 +1,42 @@
+-- Change tracking for GET /api/sync (delta sync for the mobile app).
+--
+-- ddl-auto=update adds the updated_at columns and the tombstone table too,
+-- but rows that already exist would have a NULL stamp and never show up in
+-- a delta. Stamp them with the migration time so the next sync of every
+-- client sends them once.
+
+BEGIN;
+
+ALTER TABLE attendance ADD COLUMN IF NOT EXISTS updated_at timestamp(6) with time zone;
+ALTER TABLE attendance_session ADD COLUMN IF NOT EXISTS updated_at timestamp(6) with time zone;
+ALTER TABLE enrollment ADD COLUMN IF NOT EXISTS updated_at timestamp(6) with time zone;
+ALTER TABLE class_schedule ADD COLUMN IF NOT EXISTS updated_at timestamp(6) with time zone;
+
+-- Rows written outside JPA (imports, manual fixes) still get a stamp
+ALTER TABLE attendance ALTER COLUMN updated_at SET DEFAULT now();
+ALTER TABLE attendance_session ALTER COLUMN updated_at SET DEFAULT now();
+ALTER TABLE enrollment ALTER COLUMN updated_at SET DEFAULT now();
+ALTER TABLE class_schedule ALTER COLUMN updated_at SET DEFAULT now();
+
+UPDATE attendance SET updated_at = now() WHERE updated_at IS NULL;
+UPDATE attendance_session SET updated_at = now() WHERE updated_at IS NULL;
+UPDATE enrollment SET updated_at = now() WHERE updated_at IS NULL;
+UPDATE class_schedule SET updated_at = now() WHERE updated_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_attendance_updated_at ON attendance (updated_at);
+CREATE INDEX IF NOT EXISTS idx_attendance_session_updated_at ON attendance_session (updated_at);
+
+-- Hard deletes, kept for attendance.sync.tombstone-retention-days
+CREATE TABLE IF NOT EXISTS sync_tombstone (
+    tombstone_id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    entity_type varchar(255) NOT NULL,
+    entity_id varchar(255) NOT NULL,
+    teacher_id varchar(255),
+    student_id integer,
+    course_id integer,
+    deleted_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_sync_tombstone_deleted_at ON sync_tombstone (deleted_at);
+
+COMMIT;
@@ -0,0 +1,38 @@
+-- Per course per day attendance counts for reports.
+--
+-- ddl-auto=update creates the table, but not its contents. Run this before
+-- starting the version that maintains the rollup so that history is counted
+-- once; the nightly reconciliation only covers attendance.rollup.reconcile-days.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS daily_course_attendance_rollup (
+    rollup_id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    course_id integer NOT NULL,
+    date date NOT NULL,
+    present_count integer NOT NULL DEFAULT 0,
+    late_count integer NOT NULL DEFAULT 0,
+    absent_count integer NOT NULL DEFAULT 0,
+    excused_count integer NOT NULL DEFAULT 0,
+    CONSTRAINT uk_rollup_course_date UNIQUE (course_id, date)
+);
+
+CREATE INDEX IF NOT EXISTS idx_rollup_date ON daily_course_attendance_rollup (date);
+CREATE INDEX IF NOT EXISTS idx_attendance_date_course ON attendance (date, course_id);
+
+INSERT INTO daily_course_attendance_rollup
+    (course_id, date, present_count, late_count, absent_count, excused_count)
+SELECT course_id, date,
+       count(*) FILTER (WHERE status = 'PRESENT'),
+       count(*) FILTER (WHERE status = 'LATE'),
+       count(*) FILTER (WHERE status = 'ABSENT'),
+       count(*) FILTER (WHERE status = 'EXCUSED')
+FROM attendance
+GROUP BY course_id, date
+ON CONFLICT (course_id, date) DO UPDATE SET
+    present_count = EXCLUDED.present_count,
+    late_count = EXCLUDED.late_count,
+    absent_count = EXCLUDED.absent_count,
+    excused_count = EXCLUDED.excused_count;
+
+COMMIT;
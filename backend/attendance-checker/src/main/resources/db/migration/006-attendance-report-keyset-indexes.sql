@@ -0,0 +1,16 @@
+-- Indexes for paging report records newest first by (date, attendance_id).
+--
+-- ddl-auto=update would create these inside a normal transaction and lock
+-- attendance while it does; on a large table build them here beforehand.
+-- Run it with psql, one statement at a time (CONCURRENTLY can't run inside a
+-- transaction). A build that fails leaves an INVALID index that IF NOT EXISTS
+-- then skips: drop it and run this again.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_attendance_date_id
+    ON attendance (date, attendance_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_attendance_course_date_id
+    ON attendance (course_id, date, attendance_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_attendance_student_date_id
+    ON attendance (student_id, date, attendance_id);
@@ -0,0 +1,18 @@
+-- Indexes for the nightly at-risk detection job, which reads each offered
+-- course's active enrollments, its course's sessions and the course's marks
+-- for one chunk of students at a time.
+--
+-- Like 006, build them here beforehand on a large database rather than let
+-- ddl-auto=update lock the tables. Run with psql, one statement at a time;
+-- drop any INVALID index left by a failed build and run again.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_enrollment_offered_course_student
+    ON enrollment (offered_course_id, student_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_attendance_session_course_date
+    ON attendance_session (course_id, date);
+
+-- Without it the driver's generic plan for the marks query ANDs the course
+-- index with a range scan of the student index, reading every mark in range
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_attendance_course_student
+    ON attendance (course_id, student_id);
@@ -0,0 +1,78 @@
+-- Partition attendance by month of date.
+--
+-- Reports filter on date, so a month's report reads one partition and its
+-- indexes. AttendancePartitionService keeps partitions created ahead of time
+-- (attendance.partitions.months-ahead) and can detach old ones; rows for a
+-- month without a partition land in attendance_default until one is created.
+--
+-- A partitioned table's keys must include the partition key, so the primary
+-- key becomes (attendance_id, date) and the one-mark-per-student-per-session
+-- key becomes (student_id, session_id, date). New marks take their session's
+-- date, so the latter still holds. Constraint and index names are kept, which
+-- is what ddl-auto=update looks for.
+--
+-- The partition key can't be null. A mark missing its date takes its
+-- session's; one without a session has no date to go by and is moved to
+-- attendance_undated, to be dated by hand and inserted back.
+--
+-- ddl-auto=update can't create a partitioned table. Stop the application and
+-- run this once with psql; it copies every row, so allow for the downtime on a
+-- large table. Requires PostgreSQL 12 or later.
+
+BEGIN;
+
+LOCK TABLE attendance IN ACCESS EXCLUSIVE MODE;
+
+-- The partition key can't be null: take it from the session where it's missing
+UPDATE attendance a SET date = s.date
+FROM attendance_session s
+WHERE a.date IS NULL AND s.session_id = a.session_id;
+
+-- Anything still undated would fail the copy below: set it aside
+CREATE TABLE attendance_undated AS SELECT * FROM attendance WHERE date IS NULL;
+DELETE FROM attendance WHERE date IS NULL;
+
+CREATE TABLE attendance_partitioned (LIKE attendance INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (date);
+ALTER TABLE attendance_partitioned ALTER COLUMN date SET NOT NULL;
+
+-- One partition per month from the first mark to months-ahead (3) past this month
+DO $$
+DECLARE
+    month date;
+BEGIN
+    FOR month IN
+        SELECT generate_series(
+            date_trunc('month', COALESCE((SELECT min(date) FROM attendance), current_date)),
+            date_trunc('month', current_date) + interval '3 months',
+            interval '1 month')::date
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF attendance_partitioned FOR VALUES FROM (%L) TO (%L)',
+                'attendance_' || to_char(month, 'YYYY_MM'), month, (month + interval '1 month')::date);
+    END LOOP;
+END $$;
+
+CREATE TABLE attendance_default PARTITION OF attendance_partitioned DEFAULT;
+
+INSERT INTO attendance_partitioned SELECT * FROM attendance;
+
+DROP TABLE attendance;
+ALTER TABLE attendance_partitioned RENAME TO attendance;
+
+ALTER TABLE attendance
+    ADD CONSTRAINT attendance_pkey PRIMARY KEY (attendance_id, date),
+    ADD CONSTRAINT uk_attendance_student_session UNIQUE (student_id, session_id, date),
+    ADD CONSTRAINT fknq6vm31it076obtjf2qp5coim FOREIGN KEY (student_id) REFERENCES student (student_id),
+    ADD CONSTRAINT fkmwxjtpjcf6y7m8x2jqeryj255 FOREIGN KEY (course_id) REFERENCES course (course_id),
+    ADD CONSTRAINT fkq9wnjnlbvhnpbatf0dpr1yhgk FOREIGN KEY (session_id) REFERENCES attendance_session (session_id);
+
+CREATE INDEX idx_attendance_updated_at ON attendance (updated_at);
+CREATE INDEX idx_attendance_date_course ON attendance (date, course_id);
+CREATE INDEX idx_attendance_date_id ON attendance (date, attendance_id);
+CREATE INDEX idx_attendance_course_date_id ON attendance (course_id, date, attendance_id);
+CREATE INDEX idx_attendance_student_date_id ON attendance (student_id, date, attendance_id);
+CREATE INDEX idx_attendance_course_student ON attendance (course_id, student_id);
+
+COMMIT;
+
+ANALYZE attendance;
@@ -0,0 +1,11 @@
+-- Index attendance by session.
+--
+-- Deleting sessions (a semester archived by AttendanceArchiveService, or one
+-- session through the API) checks the attendance foreign key once per session,
+-- and without this index every check scans all of attendance.
+--
+-- Run with psql after 008. CONCURRENTLY isn't supported on a partitioned
+-- table, so this blocks writes to attendance while it builds; on a database
+-- that skipped 008, add CONCURRENTLY and run it outside a transaction.
+
+CREATE INDEX IF NOT EXISTS idx_attendance_session ON attendance (session_id);
@@ -0,0 +1,111 @@
+package com.tacs.attendancechecker;
+
+import com.tacs.attendancechecker.service.AttendancePartitionService;
+import com.tacs.attendancechecker.service.ReportService;
+import com.tacs.attendancechecker.util.ReportCursor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * A month's report records are read from that month's partition only.
+ *
+ * Needs a database migrated with db/migration/008; skipped otherwise.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.tacs.attendancechecker.AttendancePartitionPruningTests$RecordingInspector")
+class AttendancePartitionPruningTests {
+
+    // The relation each plan node reads, e.g. "... on attendance_2026_10 a1_0"
+    private static final Pattern SCANNED = Pattern.compile(" on (attendance\\w*)");
+    private static final int LIMIT = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AttendancePartitionService partitionService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Test
+    void monthlyRecordsScanOnePartition() {
+        assumeTrue(partitionService.isPartitioned(), "attendance is not partitioned");
+        // Created at startup if it didn't exist
+        YearMonth month = YearMonth.now();
+        assertTrue(partitionService.attachedMonths().contains(month));
+
+        String sql = recordsStatement(() -> reportService.generateUncached("MONTHLY", month, null, LIMIT));
+
+        // Bound as the repository binds them: the month's bounds, then one row past the page
+        Set<String> scanned = scannedRelations(sql, month.atDay(1), month.atEndOfMonth(), LIMIT + 1);
+
+        assertEquals(Set.of(AttendancePartitionService.partitionName(month)), scanned);
+    }
+
+    @Test
+    void monthlyKeysetPageScansOnePartition() {
+        assumeTrue(partitionService.isPartitioned(), "attendance is not partitioned");
+        YearMonth month = YearMonth.now();
+
+        // A later page continues past the previous page's last row
+        ReportCursor after = new ReportCursor(month.atDay(15), new UUID(0, 0));
+        String sql = recordsStatement(() -> reportService.generateUncached("MONTHLY", month, after.encode(), LIMIT));
+
+        Set<String> scanned = scannedRelations(sql, month.atDay(1), month.atEndOfMonth(),
+                after.date(), after.attendanceId(), LIMIT + 1);
+
+        assertEquals(Set.of(AttendancePartitionService.partitionName(month)), scanned);
+    }
+
+    // The statement Hibernate sent for the report's records while the report ran
+    private String recordsStatement(Runnable report) {
+        RecordingInspector.statements.clear();
+        report.run();
+        List<String> records = RecordingInspector.statements.stream()
+                .filter(sql -> sql.contains(" from attendance "))
+                .toList();
+        assertEquals(1, records.size(), "record statements: " + records);
+        return records.get(0);
+    }
+
+    private Set<String> scannedRelations(String sql, Object... args) {
+        assertEquals(args.length, sql.chars().filter(c -> c == '?').count(), "parameters of " + sql);
+        Set<String> scanned = new TreeSet<>();
+        for (String line : jdbcTemplate.queryForList("EXPLAIN (COSTS OFF) " + sql, String.class, args)) {
+            Matcher matcher = SCANNED.matcher(line);
+            while (matcher.find()) {
+                scanned.add(matcher.group(1));
+            }
+        }
+        return scanned;
+    }
+
+    // Keeps the SQL of every statement Hibernate prepares
+    public static class RecordingInspector implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
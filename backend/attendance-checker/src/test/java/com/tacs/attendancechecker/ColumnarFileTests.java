@@ -0,0 +1,102 @@
+package com.tacs.attendancechecker;
+
+import com.tacs.attendancechecker.util.ColumnarFile;
+import com.tacs.attendancechecker.util.ColumnarFile.Column;
+import com.tacs.attendancechecker.util.ColumnarFile.RowGroup;
+import com.tacs.attendancechecker.util.ColumnarFile.Type;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Archive files read back what was written, and row group statistics skip
+ * the groups that can't hold a value.
+ */
+class ColumnarFileTests {
+
+    private static final List<Column> COLUMNS = List.of(
+            new Column("id", Type.UUID),
+            new Column("course_id", Type.INT),
+            new Column("student_id", Type.INT),
+            new Column("time", Type.LONG),
+            new Column("status", Type.STRING));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackEveryColumnIncludingNulls() throws Exception {
+        Path file = dir.resolve("rows.col");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            rows.add(new Object[] {UUID.randomUUID(), i / 10, 1000 + i, i % 3 == 0 ? null : (long) i * 7,
+                    i % 4 == 0 ? null : "é-" + i});
+        }
+        try (ColumnarFile.Writer writer = new ColumnarFile.Writer(file, COLUMNS, 10, "student_id")) {
+            for (Object[] row : rows) {
+                writer.write(row);
+            }
+        }
+
+        try (ColumnarFile.Reader reader = ColumnarFile.Reader.open(file)) {
+            assertEquals(COLUMNS, reader.getColumns());
+            assertEquals(25, reader.getRows());
+            assertEquals(3, reader.getRowGroups().size());
+            int offset = 0;
+            for (RowGroup group : reader.getRowGroups()) {
+                for (int c = 0; c < COLUMNS.size(); c++) {
+                    Object[] values = reader.read(group, COLUMNS.get(c).name());
+                    for (int r = 0; r < values.length; r++) {
+                        assertEquals(rows.get(offset + r)[c], values[r]);
+                    }
+                }
+                offset += group.getRows();
+            }
+            assertEquals(25, offset);
+        }
+    }
+
+    @Test
+    void skipsRowGroupsByRangeAndBloomFilter() throws Exception {
+        Path file = dir.resolve("sorted.col");
+        try (ColumnarFile.Writer writer = new ColumnarFile.Writer(file, COLUMNS, 100, "student_id")) {
+            for (int i = 0; i < 1000; i++) {
+                // Sorted by course; students are spread over every group
+                writer.write(new Object[] {UUID.randomUUID(), i / 100, (i * 37) % 1000 * 2, null, "PRESENT"});
+            }
+        }
+
+        try (ColumnarFile.Reader reader = ColumnarFile.Reader.open(file)) {
+            List<RowGroup> groups = reader.getRowGroups();
+            int courseGroups = 0;
+            int studentGroups = 0;
+            for (RowGroup group : groups) {
+                if (reader.mightContain(group, "course_id", 4)) {
+                    courseGroups++;
+                    assertEquals(4, reader.min(group, "course_id"));
+                    assertEquals(4, reader.max(group, "course_id"));
+                }
+                // Even IDs only: an odd one is in range but never written
+                if (reader.mightContain(group, "student_id", 501)) {
+                    studentGroups++;
+                }
+            }
+            assertEquals(1, courseGroups);
+            assertTrue(studentGroups <= 1, "Bloom filters let " + studentGroups + " groups through");
+
+            Object[] students = reader.read(groups.get(0), "student_id");
+            assertTrue(reader.mightContain(groups.get(0), "student_id", (Integer) students[0]));
+            assertFalse(reader.mightContain(groups.get(0), "course_id", 5));
+            assertArrayEquals(new Object[100], reader.read(groups.get(0), "time"));
+        }
+    }
+}
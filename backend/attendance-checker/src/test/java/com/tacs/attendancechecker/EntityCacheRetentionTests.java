@@ -0,0 +1,120 @@
+package com.tacs.attendancechecker;
+
+import com.tacs.attendancechecker.dto.BulkAttendanceRequest;
+import com.tacs.attendancechecker.entity.*;
+import com.tacs.attendancechecker.service.AttendanceService;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The rollup writes behind attendance marking name the table they touch, so
+ * Hibernate doesn't clear the reference entities' second-level cache on them.
+ *
+ * Entities are only cached once the transaction that inserted them commits,
+ * so the rows are committed here and deleted afterwards.
+ */
+@SpringBootTest
+class EntityCacheRetentionTests {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    private final String suffix = UUID.randomUUID().toString().substring(0, 8);
+
+    private Course course;
+    private User teacherUser;
+    private AttendanceSession session;
+    private Student student;
+
+    @Test
+    void bulkMarkKeepsReferenceEntitiesCached() {
+        transactionTemplate.executeWithoutResult(tx -> seed());
+
+        // Loading them puts them in the cache
+        transactionTemplate.executeWithoutResult(tx -> {
+            entityManager.find(Course.class, course.getCourseId());
+            entityManager.find(User.class, teacherUser.getUserId());
+        });
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        assertTrue(cache.contains(Course.class, course.getCourseId()));
+        assertTrue(cache.contains(User.class, teacherUser.getUserId()));
+
+        BulkAttendanceRequest.Entry entry = new BulkAttendanceRequest.Entry();
+        entry.setStudentId(student.getStudentId());
+        entry.setStatus("PRESENT");
+        BulkAttendanceRequest request = new BulkAttendanceRequest();
+        request.setRecords(List.of(entry));
+        attendanceService.markSessionAttendance(session.getSessionId(), request);
+
+        assertTrue(cache.contains(Course.class, course.getCourseId()));
+        assertTrue(cache.contains(User.class, teacherUser.getUserId()));
+    }
+
+    @AfterEach
+    void deleteRows() {
+        if (session != null) {
+            jdbcTemplate.update("DELETE FROM attendance WHERE session_id = ?", session.getSessionId());
+            jdbcTemplate.update("DELETE FROM attendance_session WHERE session_id = ?", session.getSessionId());
+        }
+        if (course != null) {
+            jdbcTemplate.update("DELETE FROM daily_course_attendance_rollup WHERE course_id = ?",
+                    course.getCourseId());
+            jdbcTemplate.update("DELETE FROM course WHERE course_id = ?", course.getCourseId());
+        }
+        jdbcTemplate.update("DELETE FROM student WHERE student_number = ?", "EC-" + suffix);
+        jdbcTemplate.update("DELETE FROM teacher WHERE teacher_id = ?", "T-" + suffix);
+        jdbcTemplate.update("DELETE FROM users WHERE user_id LIKE ?", "%-" + suffix);
+    }
+
+    private void seed() {
+        teacherUser = user("t", User.Role.TEACHER);
+        Teacher teacher = new Teacher("T-" + suffix, teacherUser, null);
+        entityManager.persist(teacher);
+
+        course = new Course();
+        course.setCourseCode("EC-" + suffix);
+        course.setCourseName("Entity cache " + suffix);
+        entityManager.persist(course);
+
+        session = new AttendanceSession();
+        session.setCourse(course);
+        session.setTeacher(teacher);
+        session.setDate(LocalDate.now());
+        session.setStartTime(LocalTime.of(8, 0));
+        entityManager.persist(session);
+
+        student = new Student();
+        student.setUser(user("s", User.Role.STUDENT));
+        student.setStudentNumber("EC-" + suffix);
+        entityManager.persist(student);
+    }
+
+    private User user(String name, User.Role role) {
+        String id = name + "-" + suffix;
+        User user = new User(id, name, "Entity cache", "x", id + "@entity-cache.test", role);
+        entityManager.persist(user);
+        return user;
+    }
+}
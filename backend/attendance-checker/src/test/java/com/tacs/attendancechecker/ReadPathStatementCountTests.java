@@ -0,0 +1,190 @@
+package com.tacs.attendancechecker;
+
+import com.tacs.attendancechecker.entity.*;
+import com.tacs.attendancechecker.service.AttendanceService;
+import com.tacs.attendancechecker.service.ReportService;
+import com.tacs.attendancechecker.util.TimeOrderedIdGenerator;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The attendance and report reads issue a fixed number of statements, however
+ * many students, sessions and marks they return.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class ReadPathStatementCountTests {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private TimeOrderedIdGenerator idGenerator;
+
+    private final String suffix = UUID.randomUUID().toString().substring(0, 8);
+    private final LocalDate day = LocalDate.now();
+
+    private Teacher teacher;
+    private Course course;
+    private OfferedCourse offeredCourse;
+    private final List<AttendanceSession> sessions = new ArrayList<>();
+    private final List<Student> students = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        User teacherUser = user("t", User.Role.TEACHER);
+        teacher = new Teacher("T-" + suffix, teacherUser, null);
+        entityManager.persist(teacher);
+
+        course = new Course();
+        course.setCourseCode("RP-" + suffix);
+        course.setCourseName("Read path " + suffix);
+        entityManager.persist(course);
+
+        Classroom classroom = new Classroom();
+        classroom.setRoomNumber("RP-" + suffix);
+        entityManager.persist(classroom);
+
+        offeredCourse = new OfferedCourse();
+        offeredCourse.setTeacher(teacher);
+        offeredCourse.setClassroom(classroom);
+        offeredCourse.setCourse(course);
+        offeredCourse.setSemester("RP-" + suffix);
+        entityManager.persist(offeredCourse);
+    }
+
+    @Test
+    void readsDoNotGrowWithRows() {
+        addSessionsAndStudents(2, 2);
+        Map<String, Long> small = statementsPerRead();
+
+        addSessionsAndStudents(3, 6);
+        Map<String, Long> large = statementsPerRead();
+
+        assertEquals(small, large);
+        // One query each; the session read first checks the in-memory roster
+        assertEquals(1L, large.get("teacherCourses"));
+        assertEquals(1L, large.get("enrolledStudents"));
+        assertEquals(1L, large.get("attendanceByDate"));
+        assertEquals(1L, large.get("attendanceBySession"));
+        assertEquals(1L, large.get("courseAttendance"));
+        assertEquals(1L, large.get("studentAttendance"));
+    }
+
+    private Map<String, Long> statementsPerRead() {
+        Integer courseId = course.getCourseId();
+        Integer studentId = students.get(0).getStudentId();
+        Integer sessionId = sessions.get(0).getSessionId();
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("teacherCourses", count(() -> attendanceService.getTeacherCourses(teacher.getTeacherId())));
+        counts.put("enrolledStudents", count(() -> attendanceService.getEnrolledStudents(courseId)));
+        counts.put("attendanceByDate", count(() -> attendanceService.getAttendanceByDate(courseId, day)));
+        counts.put("attendanceBySession", count(() -> attendanceService.getAttendanceBySession(sessionId)));
+        counts.put("courseAttendance", count(() -> attendanceService.getCourseAttendance(courseId)));
+        counts.put("studentAttendance", count(() -> attendanceService.getStudentAttendance(studentId, courseId)));
+        counts.put("courseReport", count(() -> reportService.generateUncached("COURSE", courseId, null, 100)));
+        counts.put("studentReport", count(() -> reportService.generateUncached("STUDENT", studentId, null, 100)));
+        counts.put("dailyReport", count(() -> reportService.generateUncached("DAILY", day, null, 100)));
+        counts.put("monthlyReport",
+                count(() -> reportService.generateUncached("MONTHLY", YearMonth.from(day), null, 100)));
+        return counts;
+    }
+
+    private long count(Supplier<?> read) {
+        // Start each read from an empty persistence context, like a request does
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        read.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addSessionsAndStudents(int sessionCount, int studentCount) {
+        teacher = entityManager.merge(teacher);
+        course = entityManager.merge(course);
+        offeredCourse = entityManager.merge(offeredCourse);
+        for (int i = 0; i < sessionCount; i++) {
+            AttendanceSession session = new AttendanceSession();
+            session.setCourse(course);
+            session.setTeacher(teacher);
+            session.setDate(day);
+            session.setStartTime(LocalTime.of(8 + sessions.size(), 0));
+            entityManager.persist(session);
+            sessions.add(session);
+        }
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student();
+            student.setUser(user("s" + students.size(), User.Role.STUDENT));
+            student.setStudentNumber("RP-" + suffix + "-" + students.size());
+            entityManager.persist(student);
+            students.add(student);
+
+            Enrollment enrollment = new Enrollment();
+            enrollment.setStudent(student);
+            enrollment.setOfferedCourse(offeredCourse);
+            enrollment.setStatus("ACTIVE");
+            entityManager.persist(enrollment);
+        }
+        // Every student gets a mark in every session, old or new
+        for (int s = 0; s < sessions.size(); s++) {
+            AttendanceSession session = entityManager.merge(sessions.get(s));
+            for (int t = 0; t < students.size(); t++) {
+                Student student = entityManager.merge(students.get(t));
+                if (isMarked(session, student)) {
+                    continue;
+                }
+                Attendance attendance = new Attendance();
+                attendance.setAttendanceId(idGenerator.nextId());
+                attendance.setStudent(student);
+                attendance.setCourse(course);
+                attendance.setSession(session);
+                attendance.setDate(day);
+                attendance.setTimeIn(session.getStartTime());
+                attendance.setStatus(Attendance.Status.PRESENT);
+                entityManager.persist(attendance);
+            }
+        }
+        entityManager.flush();
+    }
+
+    private boolean isMarked(AttendanceSession session, Student student) {
+        return !entityManager.createQuery("SELECT a.attendanceId FROM Attendance a "
+                        + "WHERE a.session = :session AND a.student = :student", UUID.class)
+                .setParameter("session", session)
+                .setParameter("student", student)
+                .getResultList().isEmpty();
+    }
+
+    private User user(String name, User.Role role) {
+        String id = name + "-" + suffix;
+        User user = new User(id, name, "Read path", "x", id + "@read-path.test", role);
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,193 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.entity.*;
+import com.tacs.attendancechecker.repository.AttendanceRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Journal replay of the write-behind queue: which marks are written, which
+ * are dead-lettered, and that a mark failing for a passing reason is kept
+ * until it is written.
+ *
+ * Each test starts its own queue over a temporary journal directory, against
+ * rows committed here and deleted afterwards.
+ */
+@SpringBootTest
+class AttendanceIngestionQueueTests {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @TempDir
+    Path journalDir;
+
+    private final String suffix = UUID.randomUUID().toString().substring(0, 8);
+
+    private Course course;
+    private AttendanceSession session;
+    private Student student;
+    private AttendanceIngestionQueue queue;
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate.executeWithoutResult(tx -> {
+            Teacher teacher = new Teacher("T-" + suffix, user("t", User.Role.TEACHER), null);
+            entityManager.persist(teacher);
+
+            course = new Course();
+            course.setCourseCode("IQ-" + suffix);
+            course.setCourseName("Ingestion " + suffix);
+            entityManager.persist(course);
+
+            session = new AttendanceSession();
+            session.setCourse(course);
+            session.setTeacher(teacher);
+            session.setDate(LocalDate.now());
+            session.setStartTime(LocalTime.of(8, 0));
+            entityManager.persist(session);
+
+            student = new Student();
+            student.setUser(user("s", User.Role.STUDENT));
+            student.setStudentNumber("IQ-" + suffix);
+            entityManager.persist(student);
+        });
+    }
+
+    @AfterEach
+    void deleteRows() throws Exception {
+        if (queue != null) {
+            queue.stop();
+        }
+        if (session != null) {
+            jdbcTemplate.update("DELETE FROM attendance WHERE session_id = ?", session.getSessionId());
+            jdbcTemplate.update("DELETE FROM attendance_session WHERE session_id = ?", session.getSessionId());
+        }
+        if (course != null) {
+            jdbcTemplate.update("DELETE FROM daily_course_attendance_rollup WHERE course_id = ?",
+                    course.getCourseId());
+            jdbcTemplate.update("DELETE FROM course WHERE course_id = ?", course.getCourseId());
+        }
+        jdbcTemplate.update("DELETE FROM student WHERE student_number = ?", "IQ-" + suffix);
+        jdbcTemplate.update("DELETE FROM teacher WHERE teacher_id = ?", "T-" + suffix);
+        jdbcTemplate.update("DELETE FROM users WHERE user_id LIKE ?", "%-" + suffix);
+    }
+
+    @Test
+    void replaysMarksPastTheCheckpoint() throws Exception {
+        Files.writeString(journalDir.resolve("attendance.checkpoint"), "1");
+        Files.write(journalDir.resolve("attendance.journal"), List.of(
+                mark(1, student.getStudentId(), session.getSessionId(), "PRESENT"),
+                mark(2, student.getStudentId(), session.getSessionId(), "LATE"),
+                mark(3, student.getStudentId(), Integer.MAX_VALUE, "PRESENT"),
+                mark(4, Integer.MAX_VALUE, session.getSessionId(), "PRESENT"),
+                // Torn by a crash mid-append, so never acknowledged
+                "{\"seq\":5,\"studentId\""));
+
+        queue = startQueue(attendanceRepository);
+
+        assertEquals(List.of("LATE"), statuses());
+        assertEquals("4", Files.readString(journalDir.resolve("attendance.checkpoint")).trim());
+        List<String> deadLetters = Files.readAllLines(journalDir.resolve("attendance.dead-letter"));
+        assertEquals(2, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains("\"seq\":3"));
+        assertTrue(deadLetters.get(1).contains("\"seq\":4"));
+        assertEquals(0, Files.size(journalDir.resolve("attendance.journal")));
+    }
+
+    @Test
+    void keepsAMarkThatFailedForAPassingReason() throws Exception {
+        Files.write(journalDir.resolve("attendance.journal"), List.of(
+                mark(1, student.getStudentId(), session.getSessionId(), "PRESENT")));
+
+        // The batch and the row retry both lose the connection; the next flush gets through
+        AttendanceRepository flaky = mock(AttendanceRepository.class, delegatesTo(attendanceRepository));
+        TransientDataAccessResourceException lost = new TransientDataAccessResourceException("Connection lost");
+        doAnswer(invocation -> { throw lost; })
+                .doAnswer(invocation -> { throw lost; })
+                .doAnswer(delegatesTo(attendanceRepository))
+                .when(flaky).upsertAttendance(any(), any(), any(), any(), any(), any(), any());
+
+        queue = startQueue(flaky);
+
+        // Replay couldn't write it, so it is neither checkpointed nor dropped from the journal
+        assertEquals(List.of(), statuses());
+        assertFalse(Files.exists(journalDir.resolve("attendance.checkpoint")));
+        assertTrue(Files.readString(journalDir.resolve("attendance.journal"), StandardCharsets.UTF_8)
+                .contains("\"seq\":1"));
+
+        Path checkpoint = journalDir.resolve("attendance.checkpoint");
+        for (int i = 0; i < 100 && !Files.exists(checkpoint); i++) {
+            Thread.sleep(50);
+        }
+        assertEquals("1", Files.readString(checkpoint).trim());
+        assertEquals(List.of("PRESENT"), statuses());
+        assertFalse(Files.exists(journalDir.resolve("attendance.dead-letter")));
+    }
+
+    private AttendanceIngestionQueue startQueue(AttendanceRepository repository) throws Exception {
+        AttendanceIngestionQueue started = new AttendanceIngestionQueue();
+        applicationContext.getAutowireCapableBeanFactory().autowireBean(started);
+        ReflectionTestUtils.setField(started, "attendanceRepository", repository);
+        ReflectionTestUtils.setField(started, "enabled", true);
+        ReflectionTestUtils.setField(started, "flushIntervalMs", 50L);
+        ReflectionTestUtils.setField(started, "journalDir", journalDir.toString());
+        started.start();
+        return started;
+    }
+
+    private List<String> statuses() {
+        return jdbcTemplate.queryForList("SELECT status FROM attendance WHERE session_id = ?", String.class,
+                session.getSessionId());
+    }
+
+    private static String mark(long seq, Integer studentId, Integer sessionId, String status) {
+        return "{\"seq\":" + seq + ",\"studentId\":" + studentId + ",\"sessionId\":" + sessionId
+                + ",\"status\":\"" + status + "\"}";
+    }
+
+    private User user(String name, User.Role role) {
+        String id = name + "-" + suffix;
+        User user = new User(id, name, "Ingestion", "x", id + "@ingestion.test", role);
+        entityManager.persist(user);
+        return user;
+    }
+}
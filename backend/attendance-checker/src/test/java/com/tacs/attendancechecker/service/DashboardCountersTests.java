@@ -0,0 +1,123 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.entity.Attendance;
+import com.tacs.attendancechecker.entity.Course;
+import com.tacs.attendancechecker.repository.DailyCourseAttendanceRollupRepository;
+import com.tacs.attendancechecker.repository.StudentRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The dashboard's in-memory counts: when a write is counted, how a changed
+ * mark moves between statuses, and what the recount corrects.
+ *
+ * Each test uses its own counters rather than the application's, so the
+ * scheduled recount doesn't run under it.
+ */
+@SpringBootTest
+class DashboardCountersTests {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DailyCourseAttendanceRollupRepository rollupRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private final String suffix = UUID.randomUUID().toString().substring(0, 8);
+
+    private final LocalDate today = LocalDate.now();
+
+    private Course course;
+    private DashboardCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(tx -> {
+            course = new Course();
+            course.setCourseCode("DC-" + suffix);
+            course.setCourseName("Dashboard " + suffix);
+            entityManager.persist(course);
+        });
+        counters = new DashboardCounters();
+        applicationContext.getAutowireCapableBeanFactory().autowireBean(counters);
+    }
+
+    @AfterEach
+    void deleteRows() {
+        if (course != null) {
+            jdbcTemplate.update("DELETE FROM daily_course_attendance_rollup WHERE course_id = ?",
+                    course.getCourseId());
+            jdbcTemplate.update("DELETE FROM course WHERE course_id = ?", course.getCourseId());
+        }
+    }
+
+    @Test
+    void countsAMarkOnlyOnceItsTransactionCommits() {
+        transactionTemplate.executeWithoutResult(tx -> {
+            counters.recordMark(today, null, Attendance.Status.PRESENT);
+            assertEquals(0, counters.getToday(Attendance.Status.PRESENT));
+        });
+        assertEquals(1, counters.getToday(Attendance.Status.PRESENT));
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            counters.recordMark(today, null, Attendance.Status.PRESENT);
+            tx.setRollbackOnly();
+        });
+        assertEquals(1, counters.getToday(Attendance.Status.PRESENT));
+    }
+
+    @Test
+    void movesAChangedMarkAndIgnoresOtherDates() {
+        counters.addMarks(today, Attendance.Status.PRESENT, 3);
+        counters.recordMark(today, Attendance.Status.PRESENT, Attendance.Status.LATE);
+        counters.recordMark(today.minusDays(1), null, Attendance.Status.ABSENT);
+        counters.recordMark(today.plusDays(1), null, Attendance.Status.ABSENT);
+
+        assertEquals(2, counters.getToday(Attendance.Status.PRESENT));
+        assertEquals(1, counters.getToday(Attendance.Status.LATE));
+        assertEquals(0, counters.getToday(Attendance.Status.ABSENT));
+    }
+
+    @Test
+    void recountCorrectsDriftFromTheRollup() {
+        counters.reconcile();
+        long present = counters.getToday(Attendance.Status.PRESENT);
+        long excused = counters.getToday(Attendance.Status.EXCUSED);
+
+        // Written without going through the counters, and counted without being written
+        transactionTemplate.executeWithoutResult(tx ->
+                rollupRepository.applyDelta(course.getCourseId(), today, 2, 0, 0, 0));
+        counters.recordMark(today, null, Attendance.Status.EXCUSED);
+        counters.addStudents(5);
+
+        counters.reconcile();
+
+        assertEquals(present + 2, counters.getToday(Attendance.Status.PRESENT));
+        assertEquals(excused, counters.getToday(Attendance.Status.EXCUSED));
+        assertEquals(studentRepository.count(), counters.getStudents());
+    }
+}
@@ -0,0 +1,126 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.dto.AttendanceReportDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Which cached report pages an attendance write evicts, when the eviction
+ * happens, and that a page loaded while it was evicted isn't kept.
+ *
+ * Each test uses its own cache rather than the application's.
+ */
+@SpringBootTest
+class ReportCacheTests {
+
+    private static final LocalDate DATE = LocalDate.of(2026, 10, 5);
+    private static final LocalDate OTHER_MONTH = LocalDate.of(2026, 11, 5);
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private ReportCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ReportCache();
+        ReflectionTestUtils.setField(cache, "maxRecords", 1000L);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 30L);
+        cache.start();
+
+        load("DAILY", DATE);
+        load("DAILY", DATE.plusDays(1));
+        load("MONTHLY", YearMonth.from(DATE));
+        load("MONTHLY", YearMonth.from(OTHER_MONTH));
+        load("COURSE", 1);
+        load("COURSE", 2);
+        load("STUDENT", 1);
+        load("STUDENT", 2);
+    }
+
+    @Test
+    void evictsOnlyTheReportsAWriteCanInclude() {
+        cache.evict(DATE, 1, 1);
+
+        assertFalse(cached("DAILY", DATE));
+        assertFalse(cached("MONTHLY", YearMonth.from(DATE)));
+        assertFalse(cached("COURSE", 1));
+        assertFalse(cached("STUDENT", 1));
+
+        assertTrue(cached("DAILY", DATE.plusDays(1)));
+        assertTrue(cached("MONTHLY", YearMonth.from(OTHER_MONTH)));
+        assertTrue(cached("COURSE", 2));
+        assertTrue(cached("STUDENT", 2));
+    }
+
+    @Test
+    void evictsEveryReportOfAKindGivenNoValues() {
+        cache.evict(Set.of(DATE), null, Set.of(1));
+
+        assertFalse(cached("COURSE", 1));
+        assertFalse(cached("COURSE", 2));
+        assertTrue(cached("DAILY", DATE.plusDays(1)));
+        assertTrue(cached("STUDENT", 2));
+    }
+
+    @Test
+    void evictsOnceTheWriteCommits() {
+        transactionTemplate.executeWithoutResult(tx -> {
+            cache.evict(DATE, 1, 1);
+            assertTrue(cached("COURSE", 1));
+        });
+        assertFalse(cached("COURSE", 1));
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            cache.evict(DATE, 2, 2);
+            tx.setRollbackOnly();
+        });
+        assertTrue(cached("COURSE", 2));
+    }
+
+    @Test
+    void dropsAReportEvictedWhileItLoaded() {
+        cache.get("COURSE", 3, false, null, 50, () -> {
+            // A write to the course commits while its rows are being read
+            cache.evict(DATE, 3, 1);
+            return report("COURSE");
+        });
+
+        assertFalse(cached("COURSE", 3));
+        assertTrue(cached("COURSE", 3));
+        assertEquals(1L, cache.getStatistics().get("writeEvictions"));
+    }
+
+    private void load(String reportType, Object parameter) {
+        cache.get(reportType, parameter, false, null, 50, () -> report(reportType));
+    }
+
+    // Whether the page was served from the cache; a page that wasn't is cached now
+    private boolean cached(String reportType, Object parameter) {
+        AtomicInteger generated = new AtomicInteger();
+        cache.get(reportType, parameter, false, null, 50, () -> {
+            generated.incrementAndGet();
+            return report(reportType);
+        });
+        return generated.get() == 0;
+    }
+
+    private static AttendanceReportDTO report(String reportType) {
+        AttendanceReportDTO report = new AttendanceReportDTO();
+        report.setReportType(reportType);
+        return report;
+    }
+}
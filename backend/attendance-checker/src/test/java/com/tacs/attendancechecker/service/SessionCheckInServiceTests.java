@@ -0,0 +1,206 @@
+package com.tacs.attendancechecker.service;
+
+import com.tacs.attendancechecker.dto.AttendanceResponse;
+import com.tacs.attendancechecker.dto.CheckInRequest;
+import com.tacs.attendancechecker.entity.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Rotating-code check-in: which windows a code is accepted in, and which
+ * sessions and students it is refused for.
+ *
+ * Codes rotate hourly here, so a test doesn't straddle a rotation. The rows
+ * are committed, since check-in writes in its own transactions, and deleted
+ * afterwards.
+ */
+@SpringBootTest(properties = "attendance.checkin.period-seconds=" + SessionCheckInServiceTests.PERIOD_SECONDS)
+class SessionCheckInServiceTests {
+
+    static final int PERIOD_SECONDS = 3600;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SessionCheckInService checkInService;
+
+    private final String suffix = UUID.randomUUID().toString().substring(0, 8);
+
+    private Course course;
+    private AttendanceSession session;
+    private User enrolled;
+    private User otherSection;
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate.executeWithoutResult(tx -> {
+            Teacher teacher = new Teacher("T-" + suffix, user("t", User.Role.TEACHER), null);
+            entityManager.persist(teacher);
+
+            course = new Course();
+            course.setCourseCode("CI-" + suffix);
+            course.setCourseName("Check-in " + suffix);
+            entityManager.persist(course);
+
+            Classroom classroom = new Classroom();
+            classroom.setRoomNumber("CI-" + suffix);
+            entityManager.persist(classroom);
+
+            OfferedCourse section = offeredCourse(teacher, classroom, "A");
+            OfferedCourse other = offeredCourse(teacher, classroom, "B");
+
+            ClassSchedule schedule = new ClassSchedule();
+            schedule.setOfferedCourse(section);
+            schedule.setClassroom(classroom);
+            schedule.setDayOfWeek(LocalDate.now().getDayOfWeek().name());
+            schedule.setStartTime(LocalTime.of(0, 0));
+            schedule.setEndTime(LocalTime.of(23, 59));
+            entityManager.persist(schedule);
+
+            session = new AttendanceSession();
+            session.setCourse(course);
+            session.setTeacher(teacher);
+            session.setClassSchedule(schedule);
+            session.setDate(LocalDate.now());
+            session.setStartTime(LocalTime.of(0, 0));
+            entityManager.persist(session);
+
+            enrolled = enroll("s1", section);
+            otherSection = enroll("s2", other);
+        });
+    }
+
+    @AfterEach
+    void deleteRows() {
+        if (session != null) {
+            jdbcTemplate.update("DELETE FROM attendance WHERE session_id = ?", session.getSessionId());
+            jdbcTemplate.update("DELETE FROM attendance_session WHERE session_id = ?", session.getSessionId());
+            checkInService.evict(session.getSessionId());
+        }
+        if (course != null) {
+            jdbcTemplate.update("DELETE FROM daily_course_attendance_rollup WHERE course_id = ?",
+                    course.getCourseId());
+            jdbcTemplate.update("DELETE FROM class_schedule WHERE offered_course_id IN "
+                    + "(SELECT offered_course_id FROM offered_course WHERE course_id = ?)", course.getCourseId());
+            jdbcTemplate.update("DELETE FROM enrollment WHERE offered_course_id IN "
+                    + "(SELECT offered_course_id FROM offered_course WHERE course_id = ?)", course.getCourseId());
+            jdbcTemplate.update("DELETE FROM offered_course WHERE course_id = ?", course.getCourseId());
+            jdbcTemplate.update("DELETE FROM course WHERE course_id = ?", course.getCourseId());
+        }
+        jdbcTemplate.update("DELETE FROM classroom WHERE room_number = ?", "CI-" + suffix);
+        jdbcTemplate.update("DELETE FROM student WHERE student_number LIKE ?", "CI-%-" + suffix);
+        jdbcTemplate.update("DELETE FROM teacher WHERE teacher_id = ?", "T-" + suffix);
+        jdbcTemplate.update("DELETE FROM users WHERE user_id LIKE ?", "%-" + suffix);
+    }
+
+    @Test
+    void acceptsTheCurrentAndPreviousWindowOnly() {
+        long window = currentWindow();
+
+        AttendanceResponse current = checkInService.checkIn(request(window), enrolled.getEmail());
+        assertEquals(session.getSessionId(), current.getSessionId());
+        assertEquals("Self check-in", current.getRemarks());
+        // Read just before it rotated
+        checkInService.checkIn(request(window - 1), enrolled.getEmail());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> checkInService.checkIn(request(window - 2), enrolled.getEmail()));
+        assertThrows(IllegalArgumentException.class,
+                () -> checkInService.checkIn(request(window + 1), enrolled.getEmail()));
+    }
+
+    @Test
+    void refusesAFinalizedSession() {
+        jdbcTemplate.update("UPDATE attendance_session SET is_finalized = true WHERE session_id = ?",
+                session.getSessionId());
+        checkInService.evict(session.getSessionId());
+
+        assertThrows(SessionClosedException.class,
+                () -> checkInService.checkIn(request(currentWindow()), enrolled.getEmail()));
+    }
+
+    @Test
+    void refusesASessionOnAnotherDay() {
+        jdbcTemplate.update("UPDATE attendance_session SET date = ? WHERE session_id = ?",
+                LocalDate.now().minusDays(1), session.getSessionId());
+        checkInService.evict(session.getSessionId());
+
+        assertThrows(SessionClosedException.class,
+                () -> checkInService.checkIn(request(currentWindow()), enrolled.getEmail()));
+    }
+
+    @Test
+    void refusesAStudentOfAnotherSection() {
+        assertThrows(AccessDeniedException.class,
+                () -> checkInService.checkIn(request(currentWindow()), otherSection.getEmail()));
+    }
+
+    @Test
+    void refusesANonStudent() {
+        assertThrows(AccessDeniedException.class,
+                () -> checkInService.checkIn(request(currentWindow()), "t-" + suffix + "@check-in.test"));
+    }
+
+    private long currentWindow() {
+        return System.currentTimeMillis() / 1000 / PERIOD_SECONDS;
+    }
+
+    private CheckInRequest request(long window) {
+        CheckInRequest request = new CheckInRequest();
+        request.setSessionId(session.getSessionId());
+        request.setCode(checkInService.generateCode(session.getSessionId(), window));
+        return request;
+    }
+
+    private OfferedCourse offeredCourse(Teacher teacher, Classroom classroom, String section) {
+        OfferedCourse offeredCourse = new OfferedCourse();
+        offeredCourse.setCourse(course);
+        offeredCourse.setTeacher(teacher);
+        offeredCourse.setClassroom(classroom);
+        offeredCourse.setSection(section);
+        entityManager.persist(offeredCourse);
+        return offeredCourse;
+    }
+
+    private User enroll(String name, OfferedCourse offeredCourse) {
+        Student student = new Student();
+        student.setUser(user(name, User.Role.STUDENT));
+        student.setStudentNumber("CI-" + name + "-" + suffix);
+        entityManager.persist(student);
+
+        Enrollment enrollment = new Enrollment();
+        enrollment.setStudent(student);
+        enrollment.setOfferedCourse(offeredCourse);
+        enrollment.setStatus("ACTIVE");
+        entityManager.persist(enrollment);
+        return student.getUser();
+    }
+
+    private User user(String name, User.Role role) {
+        String id = name + "-" + suffix;
+        User user = new User(id, name, "Check-in", "x", id + "@check-in.test", role);
+        entityManager.persist(user);
+        return user;
+    }
+}
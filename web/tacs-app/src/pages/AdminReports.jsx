@@ -11,6 +11,7 @@ export default function AdminReports() {
   const [students, setStudents] = useState([]);
   const [reportData, setReportData] = useState(null);
   const [loading, setLoading] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     fetchCourses();
@@ -18,69 +19,79 @@ export default function AdminReports() {
   }, []);
 
   const fetchCourses = async () => {
-    const result = await api.get('/courses');
+    const result = await api.get('/courses?all=true');
     if (result.success) setCourses(result.data);
   };
 
   const fetchStudents = async () => {
-    const result = await api.get('/students');
+    const result = await api.get('/students?all=true');
     if (result.success) setStudents(result.data);
   };
 
-  const generateReport = async () => {
-    setLoading(true);
-    let endpoint = '';
-    
+  const reportEndpoint = () => {
     switch(reportType) {
       case 'daily':
-        endpoint = `/reports/daily/${selectedDate}`;
-        break;
+        return `/reports/daily/${selectedDate}`;
       case 'monthly':
-        endpoint = `/reports/monthly/${selectedMonth}`;
-        break;
+        return `/reports/monthly/${selectedMonth}`;
       case 'course':
-        endpoint = `/reports/course/${selectedCourse}`;
-        break;
+        return `/reports/course/${selectedCourse}`;
       case 'student':
-        endpoint = `/reports/student/${selectedStudent}`;
-        break;
+        return `/reports/student/${selectedStudent}`;
       default:
-        return;
+        return null;
     }
+  };
+
+  const generateReport = async () => {
+    const endpoint = reportEndpoint();
+    if (!endpoint) return;
 
+    setLoading(true);
     const result = await api.get(endpoint);
     if (result.success) {
-      setReportData(result.data);
+      // Remember which report this is so later pages and the export match it
+      setReportData({ ...result.data, endpoint });
     }
     setLoading(false);
   };
 
-  const exportToCSV = () => {
+  // Records come a page at a time; the summary is only sent with the first page
+  const loadMoreRecords = async () => {
+    if (!reportData?.nextCursor) return;
+
+    setLoadingMore(true);
+    const result = await api.get(
+      `${reportData.endpoint}?cursor=${encodeURIComponent(reportData.nextCursor)}`
+    );
+    if (result.success) {
+      setReportData(prev => ({
+        ...prev,
+        records: [...prev.records, ...result.data.records],
+        nextCursor: result.data.nextCursor
+      }));
+    } else {
+      alert('Failed to load more records: ' + result.error);
+    }
+    setLoadingMore(false);
+  };
+
+  // The server streams the full CSV, so exports aren't limited to what the page loaded
+  const exportToCSV = async () => {
     if (!reportData) return;
-    
-    const csvContent = generateCSVContent(reportData);
-    const blob = new Blob([csvContent], { type: 'text/csv' });
-    const url = window.URL.createObjectURL(blob);
+
+    const result = await api.get(`${reportData.endpoint}/export.csv`, { responseType: 'blob' });
+    if (!result.success) {
+      alert('Failed to export report: ' + result.error);
+      return;
+    }
+
+    const url = window.URL.createObjectURL(result.data);
     const a = document.createElement('a');
     a.href = url;
     a.download = `attendance_report_${reportType}_${Date.now()}.csv`;
     a.click();
-  };
-
-  const generateCSVContent = (data) => {
-    if (!data || !data.records) return '';
-    
-    const headers = ['Date', 'Student Name', 'Course', 'Status', 'Time In', 'Remarks'];
-    const rows = data.records.map(record => [
-      record.date,
-      record.studentName,
-      record.courseName,
-      record.status,
-      record.timeIn || 'N/A',
-      record.remarks || ''
-    ]);
-    
-    return [headers, ...rows].map(row => row.join(',')).join('\n');
+    window.URL.revokeObjectURL(url);
   };
 
   return (
@@ -325,6 +336,24 @@ export default function AdminReports() {
                     ))}
                   </tbody>
                 </table>
+                {reportData.nextCursor && (
+                  <button
+                    onClick={loadMoreRecords}
+                    disabled={loadingMore}
+                    style={{
+                      width: '100%',
+                      marginTop: '15px',
+                      padding: '10px',
+                      background: '#f3f4f6',
+                      border: '1px solid #e5e7eb',
+                      borderRadius: '6px',
+                      cursor: loadingMore ? 'not-allowed' : 'pointer',
+                      fontWeight: 'bold'
+                    }}
+                  >
+                    {loadingMore ? '⏳ Loading...' : `Load more (showing ${reportData.records.length})`}
+                  </button>
+                )}
               </div>
             )}
           </div>
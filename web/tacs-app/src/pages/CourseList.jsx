@@ -1,36 +1,53 @@
 import React, { useState, useEffect } from 'react';
 
+const PAGE_SIZE = 50;
+
 export default function CourseList({ refreshKey }) {
   const [courses, setCourses] = useState([]);
-  const [loading, setLoading] = useState(false);
+  const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
   const [editingCourse, setEditingCourse] = useState(null);
   const [teachers, setTeachers] = useState([]);
   const [searchTerm, setSearchTerm] = useState('');
-  const [sortBy, setSortBy] = useState('name'); // name, code, units, type
+  const [sortBy, setSortBy] = useState('courseName'); // courseName, courseCode, units, courseType
   const [filterStatus, setFilterStatus] = useState('all'); // all, active, inactive
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
-    fetchCourses();
-    fetchTeachers();
-  }, [refreshKey]);
+    // Search, filter and sort run on the server; wait for a pause in typing
+    const timer = setTimeout(fetchCourses, 300);
+    return () => clearTimeout(timer);
+  }, [refreshKey, searchTerm, sortBy, filterStatus]);
 
-  const fetchCourses = async () => {
-    setLoading(true);
-    try {
-      const authData = JSON.parse(localStorage.getItem('auth'));
-      const token = authData?.token;
+  const coursesUrl = (cursor) => {
+    const params = new URLSearchParams({ sort: sortBy, limit: PAGE_SIZE });
+    if (searchTerm.trim()) params.set('q', searchTerm.trim());
+    if (filterStatus !== 'all') params.set('active', filterStatus === 'active');
+    if (cursor) params.set('cursor', cursor);
+    return `http://localhost:8080/api/courses?${params}`;
+  };
 
-      const response = await fetch('http://localhost:8080/api/courses', {
-        headers: {
-          'Authorization': `Bearer ${token}`,
-          'Content-Type': 'application/json'
-        }
-      });
+  const fetchCoursePage = async (cursor) => {
+    const authData = JSON.parse(localStorage.getItem('auth'));
+    const token = authData?.token;
 
-      if (response.ok) {
-        const data = await response.json();
-        setCourses(data);
+    const response = await fetch(coursesUrl(cursor), {
+      headers: {
+        'Authorization': `Bearer ${token}`,
+        'Content-Type': 'application/json'
+      }
+    });
+    return response.ok ? response.json() : null;
+  };
+
+  const fetchCourses = async () => {
+    try {
+      const page = await fetchCoursePage();
+      if (page) {
+        setCourses(page.items);
+        setNextCursor(page.nextCursor);
+        setError('');
       } else {
         setError('Failed to fetch courses');
       }
@@ -41,12 +58,28 @@ export default function CourseList({ refreshKey }) {
     }
   };
 
+  const fetchMoreCourses = async () => {
+    setLoadingMore(true);
+    try {
+      const page = await fetchCoursePage(nextCursor);
+      if (page) {
+        setCourses(prev => [...prev, ...page.items]);
+        setNextCursor(page.nextCursor);
+      }
+    } catch (err) {
+      setError('Error loading courses');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
+  // Only the edit form needs the teacher list, so it loads when that opens
   const fetchTeachers = async () => {
     try {
       const authData = JSON.parse(localStorage.getItem('auth'));
       const token = authData?.token;
 
-      const response = await fetch('http://localhost:8080/api/teachers', {
+      const response = await fetch('http://localhost:8080/api/teachers?all=true&sort=lastName', {
         headers: {
           'Authorization': `Bearer ${token}`,
           'Content-Type': 'application/json'
@@ -88,6 +121,7 @@ export default function CourseList({ refreshKey }) {
   };
 
   const handleEdit = (course) => {
+    if (teachers.length === 0) fetchTeachers();
     setEditingCourse({
       courseId: course.courseId,
       teacherId: course.teacherId,
@@ -135,57 +169,58 @@ export default function CourseList({ refreshKey }) {
         </div>
       )}
 
+      {/* Search, Sort, and Filter Controls */}
+      <div style={{ marginBottom: '20px', display: 'grid', gridTemplateColumns: '2fr 1fr 1fr', gap: '10px' }}>
+        <input
+          type="text"
+          placeholder="Search by course name, code..."
+          value={searchTerm}
+          onChange={(e) => setSearchTerm(e.target.value)}
+          style={{
+            padding: '10px',
+            borderRadius: '6px',
+            border: '1px solid #ccc',
+            fontSize: '14px'
+          }}
+        />
+        <select
+          value={sortBy}
+          onChange={(e) => setSortBy(e.target.value)}
+          style={{
+            padding: '10px',
+            borderRadius: '6px',
+            border: '1px solid #ccc',
+            fontSize: '14px'
+          }}
+        >
+          <option value="courseName">Sort: Course Name</option>
+          <option value="courseCode">Sort: Course Code</option>
+          <option value="units">Sort: Units</option>
+          <option value="courseType">Sort: Type</option>
+        </select>
+        <select
+          value={filterStatus}
+          onChange={(e) => setFilterStatus(e.target.value)}
+          style={{
+            padding: '10px',
+            borderRadius: '6px',
+            border: '1px solid #ccc',
+            fontSize: '14px'
+          }}
+        >
+          <option value="all">All Courses</option>
+          <option value="active">Active Only</option>
+          <option value="inactive">Inactive Only</option>
+        </select>
+      </div>
+
       {loading ? (
         <p>Loading courses...</p>
       ) : courses.length === 0 ? (
-        <p>No courses available. Create your first course!</p>
+        <p>{searchTerm.trim() || filterStatus !== 'all'
+          ? 'No courses match your search.'
+          : 'No courses available. Create your first course!'}</p>
       ) : (
-        <>
-          {/* Search, Sort, and Filter Controls */}
-          <div style={{ marginBottom: '20px', display: 'grid', gridTemplateColumns: '2fr 1fr 1fr', gap: '10px' }}>
-            <input
-              type="text"
-              placeholder="Search by course name, code..."
-              value={searchTerm}
-              onChange={(e) => setSearchTerm(e.target.value)}
-              style={{
-                padding: '10px',
-                borderRadius: '6px',
-                border: '1px solid #ccc',
-                fontSize: '14px'
-              }}
-            />
-            <select
-              value={sortBy}
-              onChange={(e) => setSortBy(e.target.value)}
-              style={{
-                padding: '10px',
-                borderRadius: '6px',
-                border: '1px solid #ccc',
-                fontSize: '14px'
-              }}
-            >
-              <option value="name">Sort: Course Name</option>
-              <option value="code">Sort: Course Code</option>
-              <option value="units">Sort: Units</option>
-              <option value="type">Sort: Type</option>
-            </select>
-            <select
-              value={filterStatus}
-              onChange={(e) => setFilterStatus(e.target.value)}
-              style={{
-                padding: '10px',
-                borderRadius: '6px',
-                border: '1px solid #ccc',
-                fontSize: '14px'
-              }}
-            >
-              <option value="all">All Courses</option>
-              <option value="active">Active Only</option>
-              <option value="inactive">Inactive Only</option>
-            </select>
-          </div>
-          
         <div style={{ overflowX: 'auto' }}>
           <table style={{ width: '100%', borderCollapse: 'collapse', background: '#ffffff', boxShadow: '0 2px 6px rgba(0,0,0,0.08)', borderRadius: '8px', overflow: 'hidden' }}>
             <thead>
@@ -199,28 +234,7 @@ export default function CourseList({ refreshKey }) {
               </tr>
             </thead>
             <tbody>
-              {courses
-                .filter(course => {
-                  const search = searchTerm.toLowerCase();
-                  const matchesSearch = course.courseName?.toLowerCase().includes(search) ||
-                                       course.courseCode?.toLowerCase().includes(search);
-                  const matchesStatus = filterStatus === 'all' ||
-                                       (filterStatus === 'active' && course.isActive) ||
-                                       (filterStatus === 'inactive' && !course.isActive);
-                  return matchesSearch && matchesStatus;
-                })
-                .sort((a, b) => {
-                  if (sortBy === 'name') {
-                    return (a.courseName || '').localeCompare(b.courseName || '');
-                  } else if (sortBy === 'code') {
-                    return (a.courseCode || '').localeCompare(b.courseCode || '');
-                  } else if (sortBy === 'units') {
-                    return (a.units || 0) - (b.units || 0);
-                  } else {
-                    return (a.courseType || '').localeCompare(b.courseType || '');
-                  }
-                })
-                .map(course => (
+              {courses.map(course => (
                 <tr key={course.courseId} style={{ borderBottom: '1px solid #eee' }}>
                   <td style={{ padding: '14px 16px', verticalAlign: 'middle', width: '10%' }}>{course.courseCode || 'N/A'}</td>
                   <td style={{ padding: '14px 16px', verticalAlign: 'middle', width: '30%' }}>{course.courseName}</td>
@@ -265,7 +279,15 @@ export default function CourseList({ refreshKey }) {
             </tbody>
           </table>
         </div>
-        </>
+      )}
+      {nextCursor && (
+        <button
+          onClick={fetchMoreCourses}
+          disabled={loadingMore}
+          style={{ marginTop: '15px', background: '#3F72AF', color: '#fff', border: 'none', borderRadius: '6px', padding: '0.5rem 1rem', cursor: 'pointer' }}
+        >
+          {loadingMore ? 'Loading...' : 'Load more'}
+        </button>
       )}
 
       {/* Edit Modal */}
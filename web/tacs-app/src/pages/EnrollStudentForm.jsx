@@ -1,45 +1,67 @@
 import React, { useState, useEffect } from 'react';
 
+const PAGE_SIZE = 50;
+const PICKER_SIZE = 20;
+
 export default function EnrollStudentForm() {
   const [formData, setFormData] = useState({
     studentId: '',
     offeredCourseId: ''
   });
-  const [students, setStudents] = useState([]);
+  const [students, setStudents] = useState([]); // picker matches for studentSearch
+  const [selectedStudent, setSelectedStudent] = useState(null);
   const [offeredCourses, setOfferedCourses] = useState([]);
   const [enrollments, setEnrollments] = useState([]);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState('');
   const [success, setSuccess] = useState('');
   const [searchTerm, setSearchTerm] = useState('');
-  const [sortBy, setSortBy] = useState('name'); // name, studentId, yearLevel
+  const [sortBy, setSortBy] = useState('lastName'); // lastName, studentId, yearLevel
   const [filterYearLevel, setFilterYearLevel] = useState('all');
   const [studentSearch, setStudentSearch] = useState('');
   const [courseSearch, setCourseSearch] = useState('');
   const [showStudentDropdown, setShowStudentDropdown] = useState(false);
   const [showCourseDropdown, setShowCourseDropdown] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
-    fetchStudents();
     fetchOfferedCourses();
-    fetchEnrollments();
   }, []);
 
-  const fetchStudents = async () => {
-    try {
-      const authData = JSON.parse(localStorage.getItem('auth'));
-      const token = authData?.token;
+  useEffect(() => {
+    // Search, filter and sort run on the server; wait for a pause in typing
+    const timer = setTimeout(fetchEnrollments, 300);
+    return () => clearTimeout(timer);
+  }, [searchTerm, sortBy, filterYearLevel]);
 
-      const response = await fetch('http://localhost:8080/api/students', {
-        headers: {
-          'Authorization': `Bearer ${token}`,
-          'Content-Type': 'application/json'
-        }
-      });
+  useEffect(() => {
+    if (!showStudentDropdown) return;
+    // The picker asks for the first few students matching what has been typed
+    const timer = setTimeout(fetchStudents, 300);
+    return () => clearTimeout(timer);
+  }, [studentSearch, showStudentDropdown]);
 
-      if (response.ok) {
-        const data = await response.json();
-        setStudents(data);
+  const getJson = async (url) => {
+    const authData = JSON.parse(localStorage.getItem('auth'));
+    const token = authData?.token;
+
+    const response = await fetch(url, {
+      headers: {
+        'Authorization': `Bearer ${token}`,
+        'Content-Type': 'application/json'
+      }
+    });
+    return response.ok ? response.json() : null;
+  };
+
+  const fetchStudents = async () => {
+    try {
+      const params = new URLSearchParams({ sort: 'studentNumber', limit: PICKER_SIZE });
+      if (studentSearch.trim()) params.set('q', studentSearch.trim());
+      const page = await getJson(`http://localhost:8080/api/students?${params}`);
+      if (page) {
+        setStudents(page.items);
       }
     } catch (err) {
       console.error('Error fetching students:', err);
@@ -67,24 +89,38 @@ export default function EnrollStudentForm() {
     }
   };
 
+  const enrollmentsUrl = (cursor) => {
+    const params = new URLSearchParams({ sort: sortBy, limit: PAGE_SIZE });
+    if (searchTerm.trim()) params.set('q', searchTerm.trim());
+    if (filterYearLevel !== 'all') params.set('yearLevel', filterYearLevel);
+    if (cursor) params.set('cursor', cursor);
+    return `http://localhost:8080/api/enrollments?${params}`;
+  };
+
   const fetchEnrollments = async () => {
     try {
-      const authData = JSON.parse(localStorage.getItem('auth'));
-      const token = authData?.token;
-
-      const response = await fetch('http://localhost:8080/api/enrollments', {
-        headers: {
-          'Authorization': `Bearer ${token}`,
-          'Content-Type': 'application/json'
-        }
-      });
+      const page = await getJson(enrollmentsUrl());
+      if (page) {
+        setEnrollments(page.items);
+        setNextCursor(page.nextCursor);
+      }
+    } catch (err) {
+      console.error('Error fetching enrollments:', err);
+    }
+  };
 
-      if (response.ok) {
-        const data = await response.json();
-        setEnrollments(data);
+  const fetchMoreEnrollments = async () => {
+    setLoadingMore(true);
+    try {
+      const page = await getJson(enrollmentsUrl(nextCursor));
+      if (page) {
+        setEnrollments(prev => [...prev, ...page.items]);
+        setNextCursor(page.nextCursor);
       }
     } catch (err) {
       console.error('Error fetching enrollments:', err);
+    } finally {
+      setLoadingMore(false);
     }
   };
 
@@ -132,6 +168,7 @@ export default function EnrollStudentForm() {
       if (response.ok) {
         setSuccess('Student enrolled successfully!');
         setFormData({ studentId: '', offeredCourseId: '' });
+        setSelectedStudent(null);
         fetchEnrollments();
         setTimeout(() => setSuccess(''), 3000);
       } else {
@@ -197,7 +234,7 @@ export default function EnrollStudentForm() {
               </label>
               <input
                 type="text"
-                placeholder="Search by student number..."
+                placeholder="Search by name or student number..."
                 value={studentSearch}
                 onChange={(e) => setStudentSearch(e.target.value)}
                 onFocus={() => setShowStudentDropdown(true)}
@@ -212,10 +249,10 @@ export default function EnrollStudentForm() {
               />
               {formData.studentId && (
                 <div style={{ marginTop: '5px', padding: '8px', background: '#e8f5e9', borderRadius: '4px', fontSize: '13px' }}>
-                  Selected: {students.find(s => s.studentId === parseInt(formData.studentId))?.user?.fname} {students.find(s => s.studentId === parseInt(formData.studentId))?.user?.lname}
+                  Selected: {selectedStudent?.user?.fname} {selectedStudent?.user?.lname}
                   <button 
                     type="button"
-                    onClick={() => { setFormData({ ...formData, studentId: '' }); setStudentSearch(''); }}
+                    onClick={() => { setFormData({ ...formData, studentId: '' }); setSelectedStudent(null); setStudentSearch(''); }}
                     style={{ marginLeft: '10px', background: '#f44336', color: 'white', border: 'none', borderRadius: '4px', padding: '2px 8px', cursor: 'pointer', fontSize: '12px' }}
                   >
                     Clear
@@ -237,36 +274,30 @@ export default function EnrollStudentForm() {
                   zIndex: 1000,
                   boxShadow: '0 4px 6px rgba(0,0,0,0.1)'
                 }}>
-                  {students
-                    .filter(student => {
-                      const searchStr = studentSearch.toLowerCase();
-                      const studentNumStr = student.studentNumber?.toLowerCase() || '';
-                      return studentNumStr.includes(searchStr);
-                    })
-                    .slice(0, 50)
-                    .map(student => (
-                      <div
-                        key={student.studentId}
-                        onClick={() => {
-                          setFormData({ ...formData, studentId: student.studentId });
-                          setStudentSearch('');
-                          setShowStudentDropdown(false);
-                        }}
-                        style={{
-                          padding: '10px',
-                          cursor: 'pointer',
-                          borderBottom: '1px solid #eee',
-                          ':hover': { background: '#f5f5f5' }
-                        }}
-                        onMouseEnter={(e) => e.target.style.background = '#f5f5f5'}
-                        onMouseLeave={(e) => e.target.style.background = 'white'}
-                      >
-                        <strong>{student.user?.fname} {student.user?.lname}</strong>
-                        <br />
-                        <small style={{ color: '#666' }}>Student No: {student.studentNumber} | Year {student.yearLevel} - {student.program}</small>
-                      </div>
-                    ))}
-                  {students.filter(s => (s.studentNumber?.toLowerCase() || '').includes(studentSearch.toLowerCase())).length === 0 && (
+                  {students.map(student => (
+                    <div
+                      key={student.studentId}
+                      onClick={() => {
+                        setFormData({ ...formData, studentId: student.studentId });
+                        setSelectedStudent(student);
+                        setStudentSearch('');
+                        setShowStudentDropdown(false);
+                      }}
+                      style={{
+                        padding: '10px',
+                        cursor: 'pointer',
+                        borderBottom: '1px solid #eee',
+                        ':hover': { background: '#f5f5f5' }
+                      }}
+                      onMouseEnter={(e) => e.target.style.background = '#f5f5f5'}
+                      onMouseLeave={(e) => e.target.style.background = 'white'}
+                    >
+                      <strong>{student.user?.fname} {student.user?.lname}</strong>
+                      <br />
+                      <small style={{ color: '#666' }}>Student No: {student.studentNumber} | Year {student.yearLevel} - {student.program}</small>
+                    </div>
+                  ))}
+                  {students.length === 0 && (
                     <div style={{ padding: '10px', color: '#999', textAlign: 'center' }}>No students found</div>
                   )}
                 </div>
@@ -385,14 +416,14 @@ export default function EnrollStudentForm() {
 
         {/* Enrollments List */}
         <div style={{ background: 'white', padding: '20px', borderRadius: '8px', boxShadow: '0 2px 4px rgba(0,0,0,0.1)' }}>
-          <h3>Current Enrollments ({enrollments.length})</h3>
+          <h3>Current Enrollments ({enrollments.length}{nextCursor ? '+' : ''})</h3>
           
           {/* Search and Filter Controls */}
           <div style={{ marginBottom: '20px', display: 'grid', gridTemplateColumns: '2fr 1fr 1fr', gap: '10px' }}>
             <div>
               <input
                 type="text"
-                placeholder="Search by student number..."
+                placeholder="Search by name or student number..."
                 value={searchTerm}
                 onChange={(e) => setSearchTerm(e.target.value)}
                 style={{
@@ -416,7 +447,7 @@ export default function EnrollStudentForm() {
                   fontSize: '14px'
                 }}
               >
-                <option value="name">Sort: A-Z (Name)</option>
+                <option value="lastName">Sort: A-Z (Last Name)</option>
                 <option value="studentId">Sort: Student ID</option>
                 <option value="yearLevel">Sort: Year Level</option>
               </select>
@@ -444,7 +475,9 @@ export default function EnrollStudentForm() {
           </div>
 
           {enrollments.length === 0 ? (
-            <p style={{ color: '#666' }}>No enrollments yet.</p>
+            <p style={{ color: '#666' }}>
+              {searchTerm.trim() || filterYearLevel !== 'all' ? 'No enrollments match your search.' : 'No enrollments yet.'}
+            </p>
           ) : (
             <div style={{ maxHeight: '500px', overflowY: 'auto' }}>
               <table style={{ width: '100%', borderCollapse: 'collapse' }}>
@@ -458,31 +491,7 @@ export default function EnrollStudentForm() {
                   </tr>
                 </thead>
                 <tbody>
-                  {enrollments
-                    .filter(enrollment => {
-                      // Search filter
-                      const studentNumStr = enrollment.student?.studentNumber?.toLowerCase() || '';
-                      const matchesSearch = studentNumStr.includes(searchTerm.toLowerCase());
-                      
-                      // Year level filter
-                      const matchesYearLevel = filterYearLevel === 'all' || 
-                        enrollment.student?.yearLevel?.toString() === filterYearLevel;
-                      
-                      return matchesSearch && matchesYearLevel;
-                    })
-                    .sort((a, b) => {
-                      if (sortBy === 'name') {
-                        const nameA = `${a.student?.user?.fname} ${a.student?.user?.lname}`.toLowerCase();
-                        const nameB = `${b.student?.user?.fname} ${b.student?.user?.lname}`.toLowerCase();
-                        return nameA.localeCompare(nameB);
-                      } else if (sortBy === 'studentId') {
-                        return (a.student?.studentId || 0) - (b.student?.studentId || 0);
-                      } else if (sortBy === 'yearLevel') {
-                        return (a.student?.yearLevel || 0) - (b.student?.yearLevel || 0);
-                      }
-                      return 0;
-                    })
-                    .map(enrollment => (
+                  {enrollments.map(enrollment => (
                     <tr key={enrollment.enrollmentId} style={{ borderBottom: '1px solid #eee' }}>
                       <td style={{ padding: '10px' }}>
                         {enrollment.student?.studentNumber}
@@ -521,6 +530,15 @@ export default function EnrollStudentForm() {
                   ))}
                 </tbody>
               </table>
+              {nextCursor && (
+                <button
+                  onClick={fetchMoreEnrollments}
+                  disabled={loadingMore}
+                  style={{ marginTop: '10px', background: '#3F72AF', color: '#fff', border: 'none', borderRadius: '6px', padding: '0.5rem 1rem', cursor: 'pointer' }}
+                >
+                  {loadingMore ? 'Loading...' : 'Load more'}
+                </button>
+              )}
             </div>
           )}
         </div>
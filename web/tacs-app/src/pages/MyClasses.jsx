@@ -2,6 +2,8 @@ import React, { useState, useEffect } from 'react';
 import '../css/MyClasses.css';
 import { api } from '../utils/api-utils';
 
+const PICKER_SIZE = 20;
+
 export default function MyClasses() {
   const [courses, setCourses] = useState([]);
   const [selectedCourse, setSelectedCourse] = useState(null);
@@ -12,7 +14,8 @@ export default function MyClasses() {
   const [success, setSuccess] = useState('');
   const [teacherId, setTeacherId] = useState(null);
   const [showManageStudents, setShowManageStudents] = useState(false);
-  const [allStudents, setAllStudents] = useState([]);
+  const [allStudents, setAllStudents] = useState([]); // picker matches for studentSearch
+  const [studentSearch, setStudentSearch] = useState('');
   const [showConfirmDialog, setShowConfirmDialog] = useState(false);
   const [studentToRemove, setStudentToRemove] = useState(null);
 
@@ -26,6 +29,13 @@ export default function MyClasses() {
     }
   }, []);
 
+  useEffect(() => {
+    if (!showManageStudents) return;
+    // The picker asks for the first few students matching what has been typed
+    const timer = setTimeout(fetchAllStudents, 300);
+    return () => clearTimeout(timer);
+  }, [studentSearch, showManageStudents]);
+
   const fetchTeacherCourses = async (tId) => {
     setLoading(true);
     setError('');
@@ -44,19 +54,18 @@ export default function MyClasses() {
       if (response.ok) {
         const data = await response.json();
         
-        // Fetch enrollments to get student counts
-        const enrollmentsResult = await api.get('/enrollments');
-        if (enrollmentsResult.success) {
+        // Fetch enrollment counts for the teacher's courses
+        const params = new URLSearchParams();
+        data.forEach(course => params.append('courseId', course.courseId));
+        const countsResult = data.length > 0
+          ? await api.get(`/enrollments/counts?${params}`)
+          : { success: false };
+        if (countsResult.success) {
           // Add enrollment count to each course
-          const coursesWithCounts = data.map(course => {
-            const courseEnrollments = enrollmentsResult.data.filter(
-              enrollment => enrollment.offeredCourse?.course?.courseId === course.courseId
-            );
-            return {
-              ...course,
-              enrollmentCount: courseEnrollments.length
-            };
-          });
+          const coursesWithCounts = data.map(course => ({
+            ...course,
+            enrollmentCount: countsResult.data[course.courseId] || 0
+          }));
           setCourses(coursesWithCounts);
         } else {
           setCourses(data);
@@ -125,25 +134,24 @@ export default function MyClasses() {
   };
 
   const fetchAllStudents = async () => {
-    const result = await api.get('/students');
+    const params = new URLSearchParams({ sort: 'lastName', limit: PICKER_SIZE });
+    if (studentSearch.trim()) params.set('q', studentSearch.trim());
+    const result = await api.get(`/students?${params}`);
     if (result.success) {
-      setAllStudents(result.data);
+      setAllStudents(result.data.items);
     }
   };
 
   const fetchEnrollments = async (courseId) => {
-    const result = await api.get(`/enrollments`);
+    const result = await api.get(`/enrollments?courseId=${courseId}&all=true`);
     if (result.success) {
-      const courseEnrollments = result.data.filter(enrollment => 
-        enrollment.offeredCourse?.course?.courseId === courseId
-      );
-      setEnrollments(courseEnrollments);
+      setEnrollments(result.data);
     }
   };
 
   const handleManageStudents = async () => {
+    setStudentSearch('');
     setShowManageStudents(true);
-    await fetchAllStudents();
     await fetchEnrollments(selectedCourse.courseId);
   };
 
@@ -396,10 +404,19 @@ export default function MyClasses() {
               <h3 className="section-heading section-heading-available">
                 ➕ Available Students
               </h3>
+              <input
+                type="text"
+                placeholder="Search by name, email or student number..."
+                value={studentSearch}
+                onChange={(e) => setStudentSearch(e.target.value)}
+                className="student-search-input"
+              />
               {allStudents.filter(student => 
                 !enrollments.some(e => e.student?.studentId === student.studentId)
               ).length === 0 ? (
-                <p className="empty-text">All students are already enrolled</p>
+                <p className="empty-text">
+                  {studentSearch.trim() ? 'No matching students to add' : 'Search for a student to add'}
+                </p>
               ) : (
                 <div className="table-scroll-container">
                   <table className="modal-table">
@@ -46,12 +46,12 @@ const OfferedCourseManagement = () => {
     };
 
     const fetchCourses = async () => {
-        const result = await api.get('/courses');
+        const result = await api.get('/courses?all=true');
         if (result.success) setCourses(result.data);
     };
 
     const fetchTeachers = async () => {
-        const result = await api.get('/teachers');
+        const result = await api.get('/teachers?all=true');
         if (result.success) setTeachers(result.data);
     };
 
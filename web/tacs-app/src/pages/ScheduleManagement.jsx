@@ -2,6 +2,8 @@ import React, { useState, useEffect } from 'react';
 import { api } from '../utils/api-utils';
 import '../css/AdminDashboard.css';
 
+const PAGE_SIZE = 50;
+
 const ScheduleManagement = () => {
     const [schedules, setSchedules] = useState([]);
     const [offeredCourses, setOfferedCourses] = useState([]);
@@ -17,33 +19,55 @@ const ScheduleManagement = () => {
         isActive: true
     });
     const [searchTerm, setSearchTerm] = useState('');
-    const [sortBy, setSortBy] = useState('course'); // course, teacher, day, time
+    const [sortBy, setSortBy] = useState('courseName'); // courseName, teacher, dayOfWeek, startTime
     const [filterDay, setFilterDay] = useState('all');
     const [filterStatus, setFilterStatus] = useState('all');
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
+    const [existingScheduleCount, setExistingScheduleCount] = useState(0);
 
     const daysOfWeek = ['MONDAY', 'TUESDAY', 'WEDNESDAY', 'THURSDAY', 'FRIDAY', 'SATURDAY', 'SUNDAY'];
 
     useEffect(() => {
-        fetchAllData();
+        fetchOfferedCourses();
+        fetchClassrooms();
     }, []);
 
-    const fetchAllData = async () => {
-        await Promise.all([
-            fetchSchedules(),
-            fetchOfferedCourses(),
-            fetchClassrooms()
-        ]);
+    useEffect(() => {
+        // Search, filter and sort run on the server; wait for a pause in typing
+        const timer = setTimeout(fetchSchedules, 300);
+        return () => clearTimeout(timer);
+    }, [searchTerm, sortBy, filterDay, filterStatus]);
+
+    const schedulesPath = (cursor) => {
+        const params = new URLSearchParams({ sort: sortBy, limit: PAGE_SIZE });
+        if (searchTerm.trim()) params.set('q', searchTerm.trim());
+        if (filterDay !== 'all') params.set('dayOfWeek', filterDay);
+        if (filterStatus !== 'all') params.set('active', filterStatus === 'active');
+        if (cursor) params.set('cursor', cursor);
+        return `/schedules?${params}`;
     };
 
     const fetchSchedules = async () => {
-        const result = await api.get('/schedules');
+        const result = await api.get(schedulesPath());
         if (result.success) {
-            setSchedules(result.data);
+            setSchedules(result.data.items);
+            setNextCursor(result.data.nextCursor);
         } else {
             alert('Failed to fetch schedules: ' + result.error);
         }
     };
 
+    const fetchMoreSchedules = async () => {
+        setLoadingMore(true);
+        const result = await api.get(schedulesPath(nextCursor));
+        if (result.success) {
+            setSchedules(prev => [...prev, ...result.data.items]);
+            setNextCursor(result.data.nextCursor);
+        }
+        setLoadingMore(false);
+    };
+
     const fetchOfferedCourses = async () => {
         const result = await api.get('/offered-courses');
         if (result.success) setOfferedCourses(result.data);
@@ -115,6 +139,7 @@ const ScheduleManagement = () => {
         });
         setEditingId(schedule.scheduleId);
         setShowForm(true);
+        fetchExistingScheduleCount(schedule.offeredCourse?.offeredCourseId);
     };
 
     const handleDeactivate = async (scheduleId) => {
@@ -156,6 +181,15 @@ const ScheduleManagement = () => {
         });
         setEditingId(null);
         setShowForm(false);
+        setExistingScheduleCount(0);
+    };
+
+    // The list shows one page, so ask for the chosen course's meetings directly
+    const fetchExistingScheduleCount = async (offeredCourseId) => {
+        setExistingScheduleCount(0);
+        if (!offeredCourseId) return;
+        const result = await api.get(`/schedules?offeredCourseId=${offeredCourseId}&all=true`);
+        if (result.success) setExistingScheduleCount(result.data.length);
     };
 
     const handleOfferedCourseChange = (offeredCourseId) => {
@@ -163,6 +197,7 @@ const ScheduleManagement = () => {
             ...formData,
             offeredCourse: offeredCourseId
         });
+        fetchExistingScheduleCount(offeredCourseId);
     };
 
     const formatTime = (time) => {
@@ -210,22 +245,19 @@ const ScheduleManagement = () => {
                             >
                                 <option value="">Select Offered Course</option>
                                 {offeredCourses.map(oc => {
-                                    const existingSchedules = schedules.filter(s => s.offeredCourse?.offeredCourseId === oc.offeredCourseId);
-                                    const scheduleCount = existingSchedules.length;
                                     const scheduleNote = oc.schedule ? ` - ${oc.schedule}` : '';
                                     return (
                                         <option key={oc.offeredCourseId} value={oc.offeredCourseId}>
                                             {oc.course?.courseCode || 'N/A'} - {oc.course?.courseName || 'Unknown'} 
                                             ({oc.teacher?.user?.fname} {oc.teacher?.user?.lname}) - Section {oc.section || 'N/A'}
                                             {scheduleNote}
-                                            {scheduleCount > 0 ? ` [${scheduleCount} schedule${scheduleCount > 1 ? 's' : ''}]` : ''}
                                         </option>
                                     );
                                 })}
                             </select>
-                            {formData.offeredCourse && schedules.filter(s => s.offeredCourse?.offeredCourseId === parseInt(formData.offeredCourse)).length > 0 && (
+                            {formData.offeredCourse && existingScheduleCount > 0 && (
                                 <small style={{ display: 'block', marginTop: '5px', color: '#17a2b8' }}>
-                                    ℹ️ This course already has {schedules.filter(s => s.offeredCourse?.offeredCourseId === parseInt(formData.offeredCourse)).length} schedule(s). 
+                                    ℹ️ This course already has {existingScheduleCount} schedule(s). 
                                     You can add another meeting time.
                                 </small>
                             )}
@@ -320,10 +352,10 @@ const ScheduleManagement = () => {
                             fontSize: '14px'
                         }}
                     >
-                        <option value="course">Sort: Course</option>
+                        <option value="courseName">Sort: Course</option>
                         <option value="teacher">Sort: Teacher</option>
-                        <option value="day">Sort: Day</option>
-                        <option value="time">Sort: Time</option>
+                        <option value="dayOfWeek">Sort: Day</option>
+                        <option value="startTime">Sort: Time</option>
                     </select>
                     <select
                         value={filterDay}
@@ -374,34 +406,7 @@ const ScheduleManagement = () => {
                                 <td colSpan="7" style={{ textAlign: 'center' }}>No schedules found</td>
                             </tr>
                         ) : (
-                            schedules
-                                .filter(schedule => {
-                                    const search = searchTerm.toLowerCase();
-                                    const matchesSearch = schedule.offeredCourse?.course?.courseName?.toLowerCase().includes(search) ||
-                                                         schedule.offeredCourse?.teacher?.user?.fname?.toLowerCase().includes(search) ||
-                                                         schedule.offeredCourse?.teacher?.user?.lname?.toLowerCase().includes(search) ||
-                                                         schedule.classroom?.roomNumber?.toLowerCase().includes(search);
-                                    const matchesDay = filterDay === 'all' || schedule.dayOfWeek === filterDay;
-                                    const matchesStatus = filterStatus === 'all' ||
-                                                         (filterStatus === 'active' && schedule.isActive) ||
-                                                         (filterStatus === 'inactive' && !schedule.isActive);
-                                    return matchesSearch && matchesDay && matchesStatus;
-                                })
-                                .sort((a, b) => {
-                                    if (sortBy === 'course') {
-                                        return (a.offeredCourse?.course?.courseName || '').localeCompare(b.offeredCourse?.course?.courseName || '');
-                                    } else if (sortBy === 'teacher') {
-                                        const nameA = `${a.offeredCourse?.teacher?.user?.fname} ${a.offeredCourse?.teacher?.user?.lname}`;
-                                        const nameB = `${b.offeredCourse?.teacher?.user?.fname} ${b.offeredCourse?.teacher?.user?.lname}`;
-                                        return nameA.localeCompare(nameB);
-                                    } else if (sortBy === 'day') {
-                                        const dayOrder = { 'MONDAY': 1, 'TUESDAY': 2, 'WEDNESDAY': 3, 'THURSDAY': 4, 'FRIDAY': 5, 'SATURDAY': 6, 'SUNDAY': 7 };
-                                        return (dayOrder[a.dayOfWeek] || 0) - (dayOrder[b.dayOfWeek] || 0);
-                                    } else {
-                                        return (a.startTime || '').localeCompare(b.startTime || '');
-                                    }
-                                })
-                                .map(schedule => (
+                            schedules.map(schedule => (
                                 <tr key={schedule.scheduleId}>
                                     <td>{schedule.offeredCourse?.course?.courseName || 'N/A'}</td>
                                     <td>
@@ -435,6 +440,11 @@ const ScheduleManagement = () => {
                         )}
                     </tbody>
                 </table>
+                {nextCursor && (
+                    <button onClick={fetchMoreSchedules} disabled={loadingMore} className="btn-edit" style={{ marginTop: '15px' }}>
+                        {loadingMore ? 'Loading...' : 'Load more'}
+                    </button>
+                )}
             </div>
         </div>
     );
@@ -13,62 +13,27 @@ const Statistics = () => {
   });
   const [loading, setLoading] = useState(true);
   const [recentActivity, setRecentActivity] = useState([]);
-  const [absentTrends, setAbsentTrends] = useState([]);
 
   useEffect(() => {
     fetchStatistics();
     fetchRecentActivity();
-    fetchAbsentTrends();
   }, []);
 
   const fetchStatistics = async () => {
     setLoading(true);
-    const today = new Date().toISOString().split('T')[0];
-    
-    // Fetch today's attendance
-    const attendanceResult = await api.get(`/attendance/date/${today}`);
-    const studentsResult = await api.get('/students');
-    const teachersResult = await api.get('/teachers');
-    const coursesResult = await api.get('/courses');
-
-    if (attendanceResult.success && studentsResult.success) {
-      const attendance = attendanceResult.data || [];
-      const present = attendance.filter(a => a.status === 'PRESENT').length;
-      const absent = attendance.filter(a => a.status === 'ABSENT').length;
-      const late = attendance.filter(a => a.status === 'LATE').length;
-      const total = studentsResult.data.length;
-      const rate = total > 0 ? ((present + late) / total * 100).toFixed(1) : 0;
-
-      setStats({
-        todayPresent: present,
-        todayAbsent: absent,
-        todayLate: late,
-        totalStudents: total,
-        totalTeachers: teachersResult.success ? teachersResult.data.length : 0,
-        totalCourses: coursesResult.success ? coursesResult.data.length : 0,
-        attendanceRate: rate
-      });
+    // Today's counts and the totals, kept by the server so nothing is listed here
+    const result = await api.get('/reports/dashboard/stats');
+    if (result.success) {
+      setStats(result.data);
     }
     setLoading(false);
   };
 
   const fetchRecentActivity = async () => {
     // Fetch recent attendance sessions
-    const result = await api.get('/attendance-sessions');
-    if (result.success) {
-      const recent = result.data
-        .sort((a, b) => new Date(b.date) - new Date(a.date))
-        .slice(0, 10);
-      setRecentActivity(recent);
-    }
-  };
-
-  const fetchAbsentTrends = async () => {
-    // Get students with frequent absences
-    const result = await api.get('/students');
+    const result = await api.get('/attendance-sessions?sort=date&direction=desc&limit=10');
     if (result.success) {
-      // This would need backend support to calculate absence count
-      setAbsentTrends([]);
+      setRecentActivity(result.data.items);
     }
   };
 
@@ -1,6 +1,8 @@
 import React, { useState, useEffect } from 'react';
 import { api } from '../utils/api-utils';
 
+const PAGE_SIZE = 50;
+
 export default function StudentList({ refreshKey }) {
   const [students, setStudents] = useState([]);
   const [loading, setLoading] = useState(true);
@@ -11,22 +13,44 @@ export default function StudentList({ refreshKey }) {
     program: ''
   });
   const [searchTerm, setSearchTerm] = useState('');
-  const [sortBy, setSortBy] = useState('name'); // name, studentNumber, yearLevel, program
+  const [sortBy, setSortBy] = useState('lastName'); // lastName, studentNumber, yearLevel, program
   const [filterYearLevel, setFilterYearLevel] = useState('all');
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
-    fetchStudents();
-  }, [refreshKey]);
+    // Search, filter and sort run on the server; wait for a pause in typing
+    const timer = setTimeout(fetchStudents, 300);
+    return () => clearTimeout(timer);
+  }, [refreshKey, searchTerm, sortBy, filterYearLevel]);
+
+  function studentsPath(cursor) {
+    const params = new URLSearchParams({ sort: sortBy, limit: PAGE_SIZE });
+    if (searchTerm.trim()) params.set('q', searchTerm.trim());
+    if (filterYearLevel !== 'all') params.set('yearLevel', filterYearLevel);
+    if (cursor) params.set('cursor', cursor);
+    return `/students?${params}`;
+  }
 
   async function fetchStudents() {
-    setLoading(true);
-    const result = await api.get('/students');
+    const result = await api.get(studentsPath());
     if (result.success) {
-      setStudents(result.data);
+      setStudents(result.data.items);
+      setNextCursor(result.data.nextCursor);
     }
     setLoading(false);
   }
 
+  async function fetchMoreStudents() {
+    setLoadingMore(true);
+    const result = await api.get(studentsPath(nextCursor));
+    if (result.success) {
+      setStudents(prev => [...prev, ...result.data.items]);
+      setNextCursor(result.data.nextCursor);
+    }
+    setLoadingMore(false);
+  }
+
   function handleEdit(student) {
     setEditingStudent(student);
     setEditForm({
@@ -94,7 +118,7 @@ export default function StudentList({ refreshKey }) {
             fontSize: '14px'
           }}
         >
-          <option value="name">Sort: Name (A-Z)</option>
+          <option value="lastName">Sort: Last Name (A-Z)</option>
           <option value="studentNumber">Sort: Student Number</option>
           <option value="yearLevel">Sort: Year Level</option>
           <option value="program">Sort: Program</option>
@@ -119,31 +143,7 @@ export default function StudentList({ refreshKey }) {
       </div>
       
       <ul style={{ listStyle: 'none', padding: 0 }}>
-        {students
-          .filter(student => {
-            const search = searchTerm.toLowerCase();
-            const matchesSearch = student.user?.fname?.toLowerCase().includes(search) ||
-                                 student.user?.lname?.toLowerCase().includes(search) ||
-                                 student.user?.email?.toLowerCase().includes(search) ||
-                                 student.studentNumber?.toLowerCase().includes(search) ||
-                                 student.program?.toLowerCase().includes(search);
-            const matchesYearLevel = filterYearLevel === 'all' || student.yearLevel?.toString() === filterYearLevel;
-            return matchesSearch && matchesYearLevel;
-          })
-          .sort((a, b) => {
-            if (sortBy === 'name') {
-              const nameA = `${a.user?.fname} ${a.user?.lname}`.toLowerCase();
-              const nameB = `${b.user?.fname} ${b.user?.lname}`.toLowerCase();
-              return nameA.localeCompare(nameB);
-            } else if (sortBy === 'studentNumber') {
-              return (a.studentNumber || '').localeCompare(b.studentNumber || '');
-            } else if (sortBy === 'yearLevel') {
-              return (a.yearLevel || 0) - (b.yearLevel || 0);
-            } else {
-              return (a.program || '').localeCompare(b.program || '');
-            }
-          })
-          .map(student => (
+        {students.map(student => (
           <li key={student.studentId} style={{ marginBottom: '1rem', background: '#f7f9fb', padding: '1rem', borderRadius: '8px' }}>
             {editingStudent?.studentId === student.studentId ? (
               <div>
@@ -226,6 +226,15 @@ export default function StudentList({ refreshKey }) {
           </li>
         ))}
       </ul>
+      {nextCursor && (
+        <button
+          onClick={fetchMoreStudents}
+          disabled={loadingMore}
+          style={{ background: '#3F72AF', color: '#fff', border: 'none', borderRadius: '6px', padding: '0.5rem 1rem', cursor: 'pointer' }}
+        >
+          {loadingMore ? 'Loading...' : 'Load more'}
+        </button>
+      )}
     </div>
   );
 }
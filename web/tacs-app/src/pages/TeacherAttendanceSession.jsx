@@ -330,7 +330,7 @@ export default function TeacherAttendanceSession() {
       const authData = JSON.parse(localStorage.getItem('auth'));
       const token = authData?.token;
 
-      await axios.put(`${API_BASE_URL}/attendance-sessions/${selectedSession.sessionId}`, {
+      const response = await axios.put(`${API_BASE_URL}/attendance-sessions/${selectedSession.sessionId}`, {
         ...selectedSession,
         isFinalized: true
       }, {
@@ -338,10 +338,18 @@ export default function TeacherAttendanceSession() {
       });
 
       setSuccess('Session finalized successfully!');
-      setSelectedSession({ ...selectedSession, isFinalized: true });
+      // Keep the saved copy so the next edit sends the current version
+      setSelectedSession(response.data);
       fetchCourseSessions(selectedCourse.courseId);
       setTimeout(() => setSuccess(''), 3000);
     } catch (err) {
+      if (err.response?.status === 409) {
+        // Someone else changed the session; show their version before trying again
+        setSelectedSession(err.response.data.current);
+        fetchCourseSessions(selectedCourse.courseId);
+        setError('This session was changed by someone else. The latest version has been loaded.');
+        return;
+      }
       setError('Error finalizing session: ' + err.message);
     }
   };
@@ -1,25 +1,48 @@
 import React, { useState, useEffect } from 'react';
 import { api } from '../utils/api-utils';
 
+const PAGE_SIZE = 50;
+
 export default function TeacherList({ refreshKey }) {
   const [teachers, setTeachers] = useState([]);
   const [loading, setLoading] = useState(true);
   const [searchTerm, setSearchTerm] = useState('');
-  const [sortBy, setSortBy] = useState('name'); // name, department, email
+  const [sortBy, setSortBy] = useState('lastName'); // lastName, department, email
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
-    fetchTeachers();
-  }, [refreshKey]);
+    // Search and sort run on the server; wait for a pause in typing
+    const timer = setTimeout(fetchTeachers, 300);
+    return () => clearTimeout(timer);
+  }, [refreshKey, searchTerm, sortBy]);
+
+  function teachersPath(cursor) {
+    const params = new URLSearchParams({ sort: sortBy, limit: PAGE_SIZE });
+    if (searchTerm.trim()) params.set('q', searchTerm.trim());
+    if (cursor) params.set('cursor', cursor);
+    return `/teachers?${params}`;
+  }
 
   async function fetchTeachers() {
-    setLoading(true);
-    const result = await api.get('/teachers');
+    const result = await api.get(teachersPath());
     if (result.success) {
-      setTeachers(result.data);
+      setTeachers(result.data.items);
+      setNextCursor(result.data.nextCursor);
     }
     setLoading(false);
   }
 
+  async function fetchMoreTeachers() {
+    setLoadingMore(true);
+    const result = await api.get(teachersPath(nextCursor));
+    if (result.success) {
+      setTeachers(prev => [...prev, ...result.data.items]);
+      setNextCursor(result.data.nextCursor);
+    }
+    setLoadingMore(false);
+  }
+
   async function handleRemove(teacherId) {
     if (window.confirm('Are you sure you want to remove this teacher?')) {
       const result = await api.delete(`/teachers/${teacherId}`);
@@ -62,33 +85,14 @@ export default function TeacherList({ refreshKey }) {
             fontSize: '14px'
           }}
         >
-          <option value="name">Sort: Name (A-Z)</option>
+          <option value="lastName">Sort: Last Name (A-Z)</option>
           <option value="department">Sort: Department</option>
           <option value="email">Sort: Email</option>
         </select>
       </div>
       
       <ul style={{ listStyle: 'none', padding: 0 }}>
-        {teachers
-          .filter(teacher => {
-            const search = searchTerm.toLowerCase();
-            return teacher.user?.fname?.toLowerCase().includes(search) ||
-                   teacher.user?.lname?.toLowerCase().includes(search) ||
-                   teacher.user?.email?.toLowerCase().includes(search) ||
-                   teacher.department?.departmentName?.toLowerCase().includes(search);
-          })
-          .sort((a, b) => {
-            if (sortBy === 'name') {
-              const nameA = `${a.user?.fname} ${a.user?.lname}`.toLowerCase();
-              const nameB = `${b.user?.fname} ${b.user?.lname}`.toLowerCase();
-              return nameA.localeCompare(nameB);
-            } else if (sortBy === 'department') {
-              return (a.department?.departmentName || '').localeCompare(b.department?.departmentName || '');
-            } else {
-              return (a.user?.email || '').localeCompare(b.user?.email || '');
-            }
-          })
-          .map(teacher => (
+        {teachers.map(teacher => (
           <li key={teacher.teacherId} style={{ marginBottom: '1rem', display: 'flex', alignItems: 'center', justifyContent: 'space-between', background: '#f7f9fb', padding: '1rem', borderRadius: '8px' }}>
             <span>
               <strong>{teacher.user?.fname} {teacher.user?.lname}</strong> <br />
@@ -101,6 +105,15 @@ export default function TeacherList({ refreshKey }) {
           </li>
         ))}
       </ul>
+      {nextCursor && (
+        <button
+          onClick={fetchMoreTeachers}
+          disabled={loadingMore}
+          style={{ background: '#3F72AF', color: '#fff', border: 'none', borderRadius: '6px', padding: '0.5rem 1rem', cursor: 'pointer' }}
+        >
+          {loadingMore ? 'Loading...' : 'Load more'}
+        </button>
+      )}
     </div>
   );
 }